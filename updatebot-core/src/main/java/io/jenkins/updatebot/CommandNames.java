@@ -24,8 +24,11 @@ public final class CommandNames {
     public static final String PUSH_VERSION = "push-version";
     public static final String PUSH_REGEX = "push-regex";
     public static final String PUSH_SOURCE = "push";
+    public static final String PUSH_GRAPH = "push-graph";
+    public static final String PUSH_CHANGES = "push-changes";
     public static final String UPDATE = "update";
     public static final String UPDATE_LOOP = "update-loop";
     public static final String PROMOTE = "promote";
+    public static final String SERVE = "serve";
     public static final String ENABLE_F8 = "f8";
 }
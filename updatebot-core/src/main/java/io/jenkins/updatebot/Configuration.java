@@ -18,9 +18,12 @@ package io.jenkins.updatebot;
 import com.beust.jcommander.Parameter;
 import io.jenkins.updatebot.git.GitPlugin;
 import io.jenkins.updatebot.git.GitPluginCLI;
-import io.jenkins.updatebot.kind.npm.DefaultNpmDependencyTreeGenerator;
+import io.jenkins.updatebot.github.CommitStatusCache;
+import io.jenkins.updatebot.kind.npm.LockFileNpmDependencyTreeGenerator;
 import io.jenkins.updatebot.kind.npm.NpmDependencyTreeGenerator;
+import io.jenkins.updatebot.kind.plugins.PluginVersions;
 import io.jenkins.updatebot.model.RepositoryConfig;
+import io.jenkins.updatebot.model.RepositoryConfigSnapshot;
 import io.jenkins.updatebot.model.RepositoryConfigs;
 import io.jenkins.updatebot.support.Strings;
 import io.jenkins.updatebot.support.Systems;
@@ -53,7 +56,9 @@ import static org.fusesource.jansi.Ansi.ansi;
  */
 public class Configuration {
     public static final String DEFAULT_CONFIG_FILE = ".updatebot.yml";
+    public static final long REMOTE_CONFIG_TIME_TO_LIVE_MILLIS = 60 * 1000;
     public static final String DEFAULT_JENKINSFILE_LIBRARY_GIT_URL = "https://github.com/fabric8io/fabric8-jenkinsfile-library.git";
+    public static final String DEFAULT_JENKINS_UPDATE_CENTER_URL = "https://ftp-chi.osuosl.org/pub/jenkins/updates/current/update-center.actual.json";
     // ANSI escapes for various colors (or empty strings if no coloring is used)
     public static Ansi.Color
             COLOR_ERROR = RED,
@@ -80,6 +85,14 @@ public class Configuration {
     private String githubToken = Systems.getConfigValue(EnvironmentVariables.GITHUB_TOKEN);
     @Parameter(names = "--check", description = "Whether or not we should check dependencies are valid before submitting Pull Requests", arity = 1)
     private boolean checkDependencies = true;
+    @Parameter(names = "--npm-lock-files", description = "Whether or not NPM dependencies are checked using the package-lock.json, npm-shrinkwrap.json or yarn.lock file rather than running npm install", arity = 1)
+    private boolean npmUseLockFiles = true;
+    @Parameter(names = "--dependency-index", description = "Whether or not to skip repositories which do not reference any of the pushed dependencies using an index of the dependencies of each repository", arity = 1)
+    private boolean useDependencyIndex = true;
+    @Parameter(names = "--state-store", description = "Whether or not to remember the UpdateBot Pull Requests and issues of each repository in a local file to avoid searching for them on GitHub", arity = 1)
+    private boolean useStateStore = true;
+    @Parameter(names = "--discovery-cache-minutes", description = "The number of minutes to cache the repositories found in each GitHub organisation between runs. Use 0 to disable the cache", arity = 1)
+    private long discoveryCacheMinutes = Systems.getConfigLongValue(EnvironmentVariables.DISCOVERY_CACHE_MINUTES, 60);
     @Parameter(names = {"--dir", "-d"}, description = "The source directory containing the git clone of the source to process")
     private String sourcePath;
     @Parameter(names = {"--https"}, description = "Whether to use HTTPS transport instead of git and SSH")
@@ -95,10 +108,17 @@ public class Configuration {
     private String jenksinsfileGitRepo = Systems.getConfigValue(EnvironmentVariables.JENKINSFILE_GIT_REPO, DEFAULT_JENKINSFILE_LIBRARY_GIT_URL);
     @Parameter(names = {"--pr-command"}, description = "The Prow Pull Request command to append to Pull Request body content")
     private String prowPRCommand = Systems.getConfigValue(EnvironmentVariables.PROW_PR_COMMAND, "");
+    @Parameter(names = {"--jenkins-update-center"}, description = "The URL of the Jenkins update center JSON used to find new plugin versions")
+    private String jenkinsUpdateCenterUrl = Systems.getConfigValue(EnvironmentVariables.JENKINS_UPDATE_CENTER, DEFAULT_JENKINS_UPDATE_CENTER_URL);
+    @Parameter(names = {"--cache-dir"}, description = "The directory used to cache downloaded files between runs. Defaults to a .cache folder inside the work directory")
+    private String cacheDirPath = Systems.getConfigValue(EnvironmentVariables.CACHE_DIR);
 
     private File sourceDir;
+    private RepositoryConfigSnapshot repositoryConfigSnapshot;
+    private String repositoryConfigSnapshotKey;
+    private long repositoryConfigSnapshotExpires;
     private boolean rebaseMode = true;
-    private NpmDependencyTreeGenerator npmDependencyTreeGenerator = new DefaultNpmDependencyTreeGenerator();
+    private NpmDependencyTreeGenerator npmDependencyTreeGenerator = new LockFileNpmDependencyTreeGenerator();
     private boolean pullDisabled;
     private Map<String, String> pollStatusCache = new TreeMap<>();
     private PrintStream printStream;
@@ -109,6 +129,8 @@ public class Configuration {
     private boolean useAnsi;
     private Map<String, UserPassword> gitCredentials = new HashMap<>();
     private boolean ignoreExcludeUpdateLoopRepositories;
+    private PluginVersions pluginVersions;
+    private CommitStatusCache commitStatusCache;
 
     public GitHub getGithub() throws IOException {
         if (github == null) {
@@ -132,6 +154,16 @@ public class Configuration {
         return this.github;
     }
 
+    /**
+     * Returns the cache of the CI states of Pull Request commits which is shared by every poll
+     */
+    public synchronized CommitStatusCache getCommitStatusCache() {
+        if (commitStatusCache == null) {
+            commitStatusCache = new CommitStatusCache();
+        }
+        return commitStatusCache;
+    }
+
     public String getConfigFile() {
         return configFile;
     }
@@ -204,6 +236,38 @@ public class Configuration {
         this.checkDependencies = checkDependencies;
     }
 
+    public boolean isNpmUseLockFiles() {
+        return npmUseLockFiles;
+    }
+
+    public void setNpmUseLockFiles(boolean npmUseLockFiles) {
+        this.npmUseLockFiles = npmUseLockFiles;
+    }
+
+    public boolean isUseDependencyIndex() {
+        return useDependencyIndex;
+    }
+
+    public void setUseDependencyIndex(boolean useDependencyIndex) {
+        this.useDependencyIndex = useDependencyIndex;
+    }
+
+    public boolean isUseStateStore() {
+        return useStateStore;
+    }
+
+    public void setUseStateStore(boolean useStateStore) {
+        this.useStateStore = useStateStore;
+    }
+
+    public long getDiscoveryCacheMinutes() {
+        return discoveryCacheMinutes;
+    }
+
+    public void setDiscoveryCacheMinutes(long discoveryCacheMinutes) {
+        this.discoveryCacheMinutes = discoveryCacheMinutes;
+    }
+
     public NpmDependencyTreeGenerator getNpmDependencyTreeGenerator() {
         return npmDependencyTreeGenerator;
     }
@@ -347,6 +411,40 @@ public class Configuration {
         this.jenksinsfileGitRepo = jenksinsfileGitRepo;
     }
 
+    public String getJenkinsUpdateCenterUrl() {
+        return jenkinsUpdateCenterUrl;
+    }
+
+    public void setJenkinsUpdateCenterUrl(String jenkinsUpdateCenterUrl) {
+        this.jenkinsUpdateCenterUrl = jenkinsUpdateCenterUrl;
+    }
+
+    /**
+     * Returns the directory used to cache downloaded files between runs
+     */
+    public File getCacheDir() {
+        if (Strings.notEmpty(cacheDirPath)) {
+            return new File(cacheDirPath);
+        }
+        return new File(getWorkDir(), ".cache");
+    }
+
+    public void setCacheDir(File cacheDir) {
+        this.cacheDirPath = cacheDir.getPath();
+    }
+
+    /**
+     * Returns the plugin versions loaded from the Jenkins update center which are shared by all the repositories
+     * or null if they have not been loaded yet
+     */
+    public PluginVersions getPluginVersions() {
+        return pluginVersions;
+    }
+
+    public void setPluginVersions(PluginVersions pluginVersions) {
+        this.pluginVersions = pluginVersions;
+    }
+
     public void info(Logger log, String message) {
         if (printStream != null) {
             printStream.println(message);
@@ -432,6 +530,28 @@ public class Configuration {
         return RepositoryConfigs.loadRepositoryConfig(this, configFile, sourceDir);
     }
 
+    /**
+     * Returns the repository configuration which is loaded once for the current config file and source directory.
+     * It is reloaded when a local config file is modified or, for a config loaded from a URL, once it is older
+     * than {@link #REMOTE_CONFIG_TIME_TO_LIVE_MILLIS}
+     */
+    public synchronized RepositoryConfigSnapshot getRepositoryConfigSnapshot() throws IOException {
+        File sourceDir = getSourceDir();
+        File file = RepositoryConfigs.resolveConfigFile(getConfigFile(), sourceDir);
+        boolean local = file.isFile();
+        String key = getConfigFile() + File.pathSeparator + sourceDir;
+        if (local) {
+            key += File.pathSeparator + file.lastModified() + File.pathSeparator + file.length();
+        }
+        long now = System.currentTimeMillis();
+        if (repositoryConfigSnapshot == null || !key.equals(repositoryConfigSnapshotKey) || (!local && now >= repositoryConfigSnapshotExpires)) {
+            repositoryConfigSnapshot = new RepositoryConfigSnapshot(loadRepositoryConfig());
+            repositoryConfigSnapshotKey = key;
+            repositoryConfigSnapshotExpires = now + REMOTE_CONFIG_TIME_TO_LIVE_MILLIS;
+        }
+        return repositoryConfigSnapshot;
+    }
+
     public Map<String, UserPassword> getGitCredentials() {
         return gitCredentials;
     }
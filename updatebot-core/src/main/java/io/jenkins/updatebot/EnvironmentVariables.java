@@ -33,6 +33,7 @@ public class EnvironmentVariables {
     public static final String CHECK_PR_STATUS = "UPDATEBOT_CHECK_PR_STATUS";
     public static final String DELETE_MERGED_BRANCHES = "UPDATEBOT_DELETE_MERGED_BRANCHES";
     public static final String MERGE_METHOD="UPDATEBOT_MERGE_METHOD";
+    public static final String MERGE_TRAIN = "UPDATEBOT_MERGE_TRAIN";
 
     public static final String DRY_RUN = "UPDATEBOT_DRY_RUN";
 
@@ -42,4 +43,8 @@ public class EnvironmentVariables {
     public static final String PROW_PR_COMMAND = "UPDATEBOT_PROW_PR_COMMAND";
 
     public static final String JENKINSFILE_GIT_REPO = "UPDATEBOT_JENKINSFILE_GIT_REPO";
+    public static final String JENKINS_UPDATE_CENTER = "UPDATEBOT_JENKINS_UPDATE_CENTER";
+
+    public static final String CACHE_DIR = "UPDATEBOT_CACHE_DIR";
+    public static final String DISCOVERY_CACHE_MINUTES = "UPDATEBOT_DISCOVERY_CACHE_MINUTES";
 }
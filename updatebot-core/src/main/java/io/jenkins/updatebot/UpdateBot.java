@@ -16,19 +16,20 @@
 package io.jenkins.updatebot;
 
 import static io.jenkins.updatebot.CommandNames.HELP;
+import static io.jenkins.updatebot.CommandNames.PROMOTE;
 import static io.jenkins.updatebot.CommandNames.PULL;
+import static io.jenkins.updatebot.CommandNames.PUSH_CHANGES;
+import static io.jenkins.updatebot.CommandNames.PUSH_GRAPH;
 import static io.jenkins.updatebot.CommandNames.PUSH_REGEX;
 import static io.jenkins.updatebot.CommandNames.PUSH_SOURCE;
 import static io.jenkins.updatebot.CommandNames.PUSH_VERSION;
+import static io.jenkins.updatebot.CommandNames.SERVE;
 import static io.jenkins.updatebot.CommandNames.UPDATE;
 import static io.jenkins.updatebot.CommandNames.UPDATE_LOOP;
 import static io.jenkins.updatebot.CommandNames.VERSION;
 
 import java.io.IOException;
 import java.io.PrintStream;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -40,12 +41,16 @@ import com.beust.jcommander.JCommander;
 import io.jenkins.updatebot.commands.CommandContext;
 import io.jenkins.updatebot.commands.CommandSupport;
 import io.jenkins.updatebot.commands.Help;
-import io.jenkins.updatebot.commands.ParentContext;
+import io.jenkins.updatebot.commands.Promote;
 import io.jenkins.updatebot.commands.PullVersionChanges;
+import io.jenkins.updatebot.commands.PushChangeSet;
 import io.jenkins.updatebot.commands.PushRegexChanges;
+import io.jenkins.updatebot.commands.PushReleaseGraph;
 import io.jenkins.updatebot.commands.PushSourceChanges;
 import io.jenkins.updatebot.commands.PushVersionChanges;
+import io.jenkins.updatebot.commands.Serve;
 import io.jenkins.updatebot.commands.StatusInfo;
+import io.jenkins.updatebot.commands.StatusTable;
 import io.jenkins.updatebot.commands.UpdatePullRequestLoop;
 import io.jenkins.updatebot.commands.UpdatePullRequests;
 import io.jenkins.updatebot.commands.Version;
@@ -57,7 +62,7 @@ public class UpdateBot {
     private CommandSupport command;
     private UpdatePullRequests updatePullRequests = new UpdatePullRequests();
     private Logger LOG;
-    private Map<String, StatusInfo> lastStatusMap = new HashMap();
+    private StatusTable statuses = new StatusTable();
 
     public static void main(String[] args) {
         try {
@@ -80,10 +85,14 @@ public class UpdateBot {
     public static CommandSupport parseCommand(String[] args, Configuration config, boolean defaultToHelp) {
         PushRegexChanges pushRegexChanges = new PushRegexChanges();
         PushSourceChanges pushSourceChanges = new PushSourceChanges();
+        PushReleaseGraph pushReleaseGraph = new PushReleaseGraph();
         PushVersionChanges pushVersionChanges = new PushVersionChanges();
+        PushChangeSet pushChangeSet = new PushChangeSet();
         PullVersionChanges pullVersionChanges = new PullVersionChanges();
         UpdatePullRequests updatePullRequests = new UpdatePullRequests();
         UpdatePullRequestLoop updatePullRequestLoop = new UpdatePullRequestLoop();
+        Promote promote = new Promote();
+        Serve serve = new Serve();
         Help help = new Help();
         Version version = new Version();
 
@@ -94,9 +103,13 @@ public class UpdateBot {
                 .addCommand(PULL, pullVersionChanges)
                 .addCommand(PUSH_REGEX, pushRegexChanges)
                 .addCommand(PUSH_SOURCE, pushSourceChanges)
+                .addCommand(PUSH_GRAPH, pushReleaseGraph)
                 .addCommand(PUSH_VERSION, pushVersionChanges)
+                .addCommand(PUSH_CHANGES, pushChangeSet)
                 .addCommand(UPDATE, updatePullRequests)
                 .addCommand(UPDATE_LOOP, updatePullRequestLoop)
+                .addCommand(PROMOTE, promote)
+                .addCommand(SERVE, serve)
                 .build();
         commander.setExpandAtSign(false);
         commander.setProgramName("updatebot");
@@ -122,14 +135,26 @@ public class UpdateBot {
                 case PUSH_SOURCE:
                     return pushSourceChanges;
 
+                case PUSH_GRAPH:
+                    return pushReleaseGraph;
+
                 case PUSH_VERSION:
                     return pushVersionChanges;
 
+                case PUSH_CHANGES:
+                    return pushChangeSet;
+
                 case UPDATE:
                     return updatePullRequests;
 
                 case UPDATE_LOOP:
                     return updatePullRequestLoop;
+
+                case PROMOTE:
+                    return promote;
+
+                case SERVE:
+                    return serve;
             }
         }
         if (defaultToHelp) {
@@ -164,35 +189,23 @@ public class UpdateBot {
      * Returns the list of PullRequests / Issues and their status from the previous command
      */
     public Map<String, StatusInfo> poll() throws IOException {
-        Map<String, StatusInfo> answer = new LinkedHashMap();
-
         Configuration configuration = getConfiguration();
-        ParentContext context = updatePullRequests.run(configuration);
-        List<CommandContext> children = context.getChildren();
-        for (CommandContext child : children) {
-            StatusInfo status = child.createStatusInfo();
-            answer.put(status.getCloneUrl(), status);
-        }
+        List<CommandContext> children = updatePullRequests.run(configuration).getChildren();
 
-        // lets get the previous state and compare them then log the differences
-        Collection<StatusInfo> changes;
+        // lets compare the new statuses with the previous ones then log the differences
         boolean logBlankLineAfter = false;
-        if (lastStatusMap.isEmpty() && !answer.isEmpty()) {
-            changes = answer.values();
+        if (statuses.size() == 0 && !children.isEmpty()) {
             configuration.info(LOG, "");
             configuration.info(LOG, "");
             logBlankLineAfter = true;
-        } else {
-            changes = StatusInfo.changedStatuses(configuration, lastStatusMap, answer).values();
         }
-        for (StatusInfo change : changes) {
+        for (StatusInfo change : statuses.update(configuration, children)) {
             configuration.info(LOG, change.description(configuration));
         }
         if (logBlankLineAfter) {
             configuration.info(LOG, "");
         }
-        this.lastStatusMap = answer;
-        return answer;
+        return statuses.toMap();
     }
 
     public Logger getLOG() {
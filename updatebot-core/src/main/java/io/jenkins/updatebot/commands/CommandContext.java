@@ -22,6 +22,7 @@ import io.jenkins.updatebot.github.GitHubHelpers;
 import io.jenkins.updatebot.kind.Kind;
 import io.jenkins.updatebot.model.DependencyVersionChange;
 import io.jenkins.updatebot.repository.LocalRepository;
+import io.jenkins.updatebot.support.FileOverlay;
 import io.jenkins.updatebot.support.Markdown;
 import org.kohsuke.github.GHIssue;
 import org.kohsuke.github.GHPullRequest;
@@ -44,6 +45,7 @@ public class CommandContext {
     private final Configuration configuration;
     private final Set<File> updatedFiles = new TreeSet<>();
     private final CommandContext parentContext;
+    private final FileOverlay overlay;
     private List<CommandContext> children = new ArrayList<>();
     private GHIssue issue;
     private GHPullRequest pullRequest;
@@ -53,12 +55,14 @@ public class CommandContext {
         this.repository = repository;
         this.configuration = configuration;
         this.parentContext = null;
+        this.overlay = new FileOverlay();
     }
 
     public CommandContext(CommandContext parentContext) {
         this.repository = parentContext.getRepository();
         this.configuration = parentContext.getConfiguration();
         this.parentContext = parentContext;
+        this.overlay = parentContext.getOverlay();
         this.parentContext.addChild(this);
     }
 
@@ -141,6 +145,14 @@ public class CommandContext {
         return new File(repository.getDir(), relativePath);
     }
 
+    /**
+     * Returns the overlay which updaters should use to read and write files so that changes can be
+     * checked and discarded before they are written to disk
+     */
+    public FileOverlay getOverlay() {
+        return overlay;
+    }
+
     public void updatedFile(File file) {
         updatedFiles.add(file);
     }
@@ -19,13 +19,18 @@ import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
 import io.jenkins.updatebot.Configuration;
 import io.jenkins.updatebot.git.GitHelper;
+import io.jenkins.updatebot.github.GitHubHelpers;
 import io.jenkins.updatebot.github.Issues;
+import io.jenkins.updatebot.model.IssueState;
+import io.jenkins.updatebot.model.PullRequestState;
 import io.jenkins.updatebot.model.RepositoryConfig;
 import io.jenkins.updatebot.repository.LocalRepository;
 import io.jenkins.updatebot.repository.Repositories;
+import io.jenkins.updatebot.repository.StateStore;
 import io.fabric8.utils.Strings;
 import io.jenkins.updatebot.support.UserPassword;
 import org.kohsuke.github.GHIssue;
+import org.kohsuke.github.GHPullRequest;
 import org.kohsuke.github.GHRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +57,8 @@ public abstract class CommandSupport {
 
     private List<LocalRepository> localRepositories;
     private RepositoryConfig repositoryConfig;
+    private StateStore stateStore;
+    private Map<String, LocalRepository> localRepositoriesByCloneUrl;
 
     public String createPullRequestComment() {
         StringBuilder builder = new StringBuilder(COMMAND_COMMENT_PREFIX);
@@ -121,7 +128,11 @@ public abstract class CommandSupport {
         for (LocalRepository repository : repositories) {
             CommandContext context = createCommandContext(repository, configuration);
             parentContext.addChild(context);
-            run(context);
+            try {
+                run(context);
+            } finally {
+                GitHubHelpers.releaseGitHubRepository(repository);
+            }
         }
         return parentContext;
     }
@@ -183,13 +194,47 @@ public abstract class CommandSupport {
         return localRepositories;
     }
 
+    /**
+     * Returns the local repository for the given GitHub repository using an index of the local repositories by clone URL
+     */
+    protected LocalRepository getLocalRepository(Configuration configuration, GHRepository ghRepository) throws IOException {
+        List<LocalRepository> list = getLocalRepositories(configuration);
+        Map<String, LocalRepository> map;
+        synchronized (this) {
+            map = localRepositoriesByCloneUrl;
+            if (map == null) {
+                map = new HashMap<>();
+                for (LocalRepository repository : list) {
+                    if (repository.getRepo() != null) {
+                        map.putIfAbsent(repository.getCloneUrl(), repository);
+                    }
+                }
+                localRepositoriesByCloneUrl = map;
+            }
+        }
+        return map.get(ghRepository.getGitTransportUrl());
+    }
+
     public RepositoryConfig getRepositoryConfig(Configuration configuration) throws IOException {
         if (repositoryConfig == null) {
-            repositoryConfig = configuration.loadRepositoryConfig();
+            repositoryConfig = configuration.getRepositoryConfigSnapshot().getConfig();
         }
         return repositoryConfig;
     }
 
+    /**
+     * Returns the local store of Pull Requests and issues or null if it is disabled
+     */
+    protected synchronized StateStore getStateStore(Configuration configuration) {
+        if (!configuration.isUseStateStore()) {
+            return null;
+        }
+        if (stateStore == null) {
+            stateStore = StateStore.load(configuration);
+        }
+        return stateStore;
+    }
+
 
     // Properties
     //-------------------------------------------------------------------------
@@ -197,15 +242,124 @@ public abstract class CommandSupport {
     protected GHIssue getOrFindIssue(CommandContext context, GHRepository ghRepository) throws IOException {
         GHIssue issue = context.getIssue();
         if (issue == null) {
-            List<GHIssue> issues = Issues.getOpenIssues(ghRepository, context.getConfiguration());
-            issue = Issues.findIssue(context, issues);
+            issue = findStoredIssue(context, ghRepository);
+            if (issue == null) {
+                List<GHIssue> issues = Issues.getOpenIssues(ghRepository, context.getConfiguration());
+                issue = Issues.findIssue(context, issues);
+                if (issue != null) {
+                    storeIssue(context, issue, null, 0);
+                }
+            }
             context.setIssue(issue);
         }
         return issue;
     }
 
+    /**
+     * Returns the open issue recorded in the state store or null if there is none or it has been closed
+     */
+    protected GHIssue findStoredIssue(CommandContext context, GHRepository ghRepository) throws IOException {
+        StateStore store = getStateStore(context.getConfiguration());
+        if (store == null) {
+            return null;
+        }
+        String prefix = context.createIssueTitlePrefix();
+        IssueState state = store.getState(context).findIssue(prefix);
+        if (state == null) {
+            return null;
+        }
+        GHIssue issue = ghRepository.getIssue(state.getNumber());
+        if (issue != null && Issues.isOpen(issue)) {
+            return issue;
+        }
+        removeStoredIssue(context, state.getNumber());
+        return null;
+    }
+
+    /**
+     * Records the issue in the state store along with its latest pending changes comment if it is known
+     */
+    protected void storeIssue(CommandContext context, GHIssue issue, String pendingChanges, int commentsCount) throws IOException {
+        StateStore store = getStateStore(context.getConfiguration());
+        if (store != null) {
+            String prefix = context.createIssueTitlePrefix();
+            store.update(context, state -> {
+                IssueState issueState = state.getIssues().computeIfAbsent(issue.getNumber(), n -> new IssueState(n, prefix));
+                if (pendingChanges != null) {
+                    issueState.setPendingChanges(pendingChanges);
+                    issueState.setCommentsCount(commentsCount);
+                }
+            });
+        }
+    }
+
+    protected void removeStoredIssue(CommandContext context, int number) throws IOException {
+        StateStore store = getStateStore(context.getConfiguration());
+        if (store != null) {
+            store.update(context, state -> state.getIssues().remove(number));
+        }
+    }
+
+    /**
+     * Returns the recorded state of the given Pull Request or null if it is not in the state store
+     */
+    protected PullRequestState getStoredPullRequest(CommandContext context, GHPullRequest pullRequest) {
+        StateStore store = getStateStore(context.getConfiguration());
+        if (store == null) {
+            return null;
+        }
+        return store.getState(context).getPullRequests().get(pullRequest.getNumber());
+    }
+
+    /**
+     * Records the Pull Request in the state store along with the last command comment and the head commit if they are known
+     */
+    protected void storePullRequest(CommandContext context, String titlePrefix, GHPullRequest pullRequest, String command, String headSha) throws IOException {
+        StateStore store = getStateStore(context.getConfiguration());
+        if (store != null) {
+            store.update(context, state -> {
+                PullRequestState pullRequestState = state.getPullRequests().computeIfAbsent(pullRequest.getNumber(), n -> new PullRequestState(n, titlePrefix));
+                pullRequestState.setHeadRef(pullRequest.getHead().getRef());
+                pullRequestState.setBaseRef(pullRequest.getBase().getRef());
+                if (command != null) {
+                    pullRequestState.setCommand(command);
+                }
+                if (headSha != null) {
+                    pullRequestState.setHeadSha(headSha);
+                }
+            });
+        }
+    }
+
+    /**
+     * Records the last command comment and head commit of a Pull Request which is already in the state store; Pull
+     * Requests are only added by the commands which know their title prefix so that they can be found and pruned
+     */
+    protected void updateStoredPullRequest(CommandContext context, GHPullRequest pullRequest, String command, String headSha) throws IOException {
+        StateStore store = getStateStore(context.getConfiguration());
+        if (store != null && store.getState(context).getPullRequests().containsKey(pullRequest.getNumber())) {
+            store.update(context, state -> {
+                PullRequestState pullRequestState = state.getPullRequests().get(pullRequest.getNumber());
+                if (pullRequestState != null) {
+                    pullRequestState.setCommand(command);
+                    pullRequestState.setHeadSha(headSha);
+                }
+            });
+        }
+    }
+
+    protected void removeStoredPullRequest(CommandContext context, int number) throws IOException {
+        StateStore store = getStateStore(context.getConfiguration());
+        if (store != null) {
+            store.update(context, state -> state.getPullRequests().remove(number));
+        }
+    }
+
     protected void setLocalRepositories(List<LocalRepository> localRepositories) {
         this.localRepositories = localRepositories;
+        synchronized (this) {
+            this.localRepositoriesByCloneUrl = null;
+        }
     }
 
     protected void setRepositoryConfig(RepositoryConfig repositoryConfig) {
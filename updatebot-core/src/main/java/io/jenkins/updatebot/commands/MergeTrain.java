@@ -0,0 +1,327 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.commands;
+
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.github.GitHubHelpers;
+import io.jenkins.updatebot.github.Metadata;
+import io.jenkins.updatebot.model.ChangeSet;
+import io.jenkins.updatebot.model.UpdateBotMetadata;
+import io.jenkins.updatebot.repository.LocalRepository;
+import io.jenkins.updatebot.support.Markdown;
+import org.kohsuke.github.GHCommitState;
+import org.kohsuke.github.GHPullRequest;
+import org.kohsuke.github.GHRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static io.jenkins.updatebot.github.Issues.getLabels;
+
+/**
+ * Combines the open version change Pull Requests of a repository into a single merge train Pull Request so that CI
+ * runs once for all of them rather than each Pull Request being rebased and tested again every time another one merges.
+ *
+ * While a train is open the Pull Requests it contains are left alone. Once the CI of the train succeeds it is merged
+ * and its Pull Requests are closed; if the CI fails the train is closed and its Pull Requests are merged on their own.
+ */
+public class MergeTrain {
+    private static final transient Logger LOG = LoggerFactory.getLogger(MergeTrain.class);
+
+    public static final String TITLE_PREFIX = "merge train into ";
+
+    private final UpdatePullRequests updatePullRequests;
+    private boolean pending;
+
+    public MergeTrain(UpdatePullRequests updatePullRequests) {
+        this.updatePullRequests = updatePullRequests;
+    }
+
+    /**
+     * Returns true if a train or the Pull Requests waiting for it are still open
+     */
+    public boolean isPending() {
+        return pending;
+    }
+
+    /**
+     * Creates, updates, merges or closes the merge train of the repository
+     *
+     * @return the Pull Requests which are not part of a train and should be updated on their own
+     */
+    public List<GHPullRequest> process(CommandContext context, GHRepository ghRepository, List<GHPullRequest> pullRequests) throws IOException {
+        String base = context.getRepository().resolveRemoteBranch();
+        List<GHPullRequest> answer = new ArrayList<>();
+        GHPullRequest train = null;
+        List<Integer> trainNumbers = null;
+        Map<Integer, GHPullRequest> candidates = new TreeMap<>();
+        for (GHPullRequest pullRequest : pullRequests) {
+            if (!isUpdateBotPullRequest(context, pullRequest)) {
+                answer.add(pullRequest);
+                continue;
+            }
+            UpdateBotMetadata metadata = Metadata.parse(pullRequest.getBody());
+            if (metadata != null && !metadata.getTrain().isEmpty() && train == null) {
+                train = pullRequest;
+                trainNumbers = metadata.getTrain();
+            } else if (base.equals(pullRequest.getBase().getRef()) && (metadata == null || !metadata.isExcludedFromTrain())) {
+                candidates.put(pullRequest.getNumber(), pullRequest);
+            } else {
+                answer.add(pullRequest);
+            }
+        }
+
+        if (train != null) {
+            List<GHPullRequest> cars = new ArrayList<>();
+            boolean stale = false;
+            for (Integer number : trainNumbers) {
+                GHPullRequest car = candidates.remove(number);
+                if (car == null) {
+                    stale = true;
+                    context.info(LOG, "Closing merge train " + train.getHtmlUrl() + " as #" + number + " is no longer open");
+                    closePullRequest(context, ghRepository, train, Markdown.UPDATEBOT_ICON + " closing this merge train as #" + number + " is no longer open");
+                    break;
+                }
+                cars.add(car);
+            }
+            if (!stale) {
+                processTrain(context, ghRepository, train, cars, answer);
+                // any new Pull Requests wait for the next train
+                if (!candidates.isEmpty()) {
+                    pending = true;
+                }
+                return answer;
+            }
+            for (GHPullRequest car : cars) {
+                candidates.put(car.getNumber(), car);
+            }
+        }
+
+        Map<Integer, ChangeSet> changes = new TreeMap<>();
+        for (GHPullRequest pullRequest : candidates.values()) {
+            ChangeSet changeSet = loadChanges(context, ghRepository, pullRequest);
+            if (changeSet != null) {
+                changes.put(pullRequest.getNumber(), changeSet);
+            } else {
+                answer.add(pullRequest);
+            }
+        }
+        if (changes.size() < 2) {
+            for (Integer number : changes.keySet()) {
+                answer.add(candidates.get(number));
+            }
+            return answer;
+        }
+        List<GHPullRequest> cars = new ArrayList<>();
+        for (Integer number : changes.keySet()) {
+            cars.add(candidates.get(number));
+        }
+        GHPullRequest pullRequest = createTrain(context, combineChanges(changes), base, new ArrayList<>(changes.keySet()));
+        if (pullRequest == null) {
+            answer.addAll(cars);
+        } else {
+            context.info(LOG, "Created merge train " + pullRequest.getHtmlUrl() + " for " + describe(cars));
+            pending = true;
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the changes of all the Pull Requests in the order they were created so that the latest change
+     * of a dependency wins
+     */
+    public static ChangeSet combineChanges(Map<Integer, ChangeSet> changes) {
+        ChangeSet answer = ChangeSet.EMPTY;
+        for (ChangeSet changeSet : new TreeMap<>(changes).values()) {
+            answer = answer.override(changeSet);
+        }
+        return answer;
+    }
+
+    protected void processTrain(CommandContext context, GHRepository ghRepository, GHPullRequest train, List<GHPullRequest> cars, List<GHPullRequest> answer) throws IOException {
+        if (!isMergeable(train)) {
+            Map<Integer, ChangeSet> changes = new TreeMap<>();
+            for (GHPullRequest car : cars) {
+                ChangeSet changeSet = loadChanges(context, ghRepository, car);
+                if (changeSet != null) {
+                    changes.put(car.getNumber(), changeSet);
+                }
+            }
+            context.info(LOG, "Rebasing merge train " + train.getHtmlUrl());
+            rebuildTrain(context, ghRepository, train, combineChanges(changes), new ArrayList<>(changes.keySet()));
+            pending = true;
+            return;
+        }
+        GHCommitState state = null;
+        try {
+            state = getCommitState(context, ghRepository, train);
+        } catch (IOException e) {
+            context.warn(LOG, "Failed to find the commit status for merge train " + train.getHtmlUrl() + " " + e, e);
+        }
+        if (GHCommitState.SUCCESS.equals(state)) {
+            try {
+                mergePullRequest(context, train, Markdown.UPDATEBOT_ICON + " merging this merge train as its CI was successful");
+            } catch (IOException e) {
+                context.warn(LOG, "Failed to merge merge train " + train.getHtmlUrl() + " " + e, e);
+                pending = true;
+                return;
+            }
+            for (GHPullRequest car : cars) {
+                closePullRequest(context, ghRepository, car, Markdown.UPDATEBOT_ICON + " closing as this pull request was merged by merge train #" + train.getNumber());
+            }
+            context.info(LOG, "Merged merge train " + train.getHtmlUrl() + " with " + describe(cars));
+        } else if (GHCommitState.FAILURE.equals(state) || GHCommitState.ERROR.equals(state)) {
+            context.info(LOG, "Closing merge train " + train.getHtmlUrl() + " as its CI failed");
+            closePullRequest(context, ghRepository, train, Markdown.UPDATEBOT_ICON + " closing this merge train as its CI failed so its pull requests will be merged on their own");
+            for (GHPullRequest car : cars) {
+                excludeFromTrain(car);
+            }
+            answer.addAll(cars);
+        } else {
+            pending = true;
+        }
+    }
+
+    // GitHub operations which are overridden in tests
+    //-------------------------------------------------------------------------
+
+    protected boolean isUpdateBotPullRequest(CommandContext context, GHPullRequest pullRequest) throws IOException {
+        return GitHubHelpers.hasLabel(getLabels(pullRequest), context.getConfiguration().getGithubPullRequestLabel());
+    }
+
+    protected boolean isMergeable(GHPullRequest train) throws IOException {
+        return GitHubHelpers.isMergeable(train);
+    }
+
+    protected GHCommitState getCommitState(CommandContext context, GHRepository ghRepository, GHPullRequest train) throws IOException {
+        return context.getConfiguration().getCommitStatusCache().getState(ghRepository, train);
+    }
+
+    /**
+     * Creates the Pull Request of a new train
+     *
+     * @return the train or null if no Pull Request was created
+     */
+    protected GHPullRequest createTrain(CommandContext context, ChangeSet changes, String base, List<Integer> numbers) throws IOException {
+        TrainCommand command = new TrainCommand(changes, base, numbers);
+        CommandContext trainContext = command.createCommandContext(context.getRepository(), context.getConfiguration());
+        command.run(trainContext);
+        return trainContext.getPullRequest();
+    }
+
+    /**
+     * Pushes the changes of the train again on top of its base branch
+     */
+    protected void rebuildTrain(CommandContext context, GHRepository ghRepository, GHPullRequest train, ChangeSet changes, List<Integer> numbers) throws IOException {
+        TrainCommand command = new TrainCommand(changes, train.getBase().getRef(), numbers);
+        command.run(command.createCommandContext(context.getRepository(), context.getConfiguration()), ghRepository, train);
+    }
+
+    protected void mergePullRequest(CommandContext context, GHPullRequest pullRequest, String message) throws IOException {
+        updatePullRequests.mergePr(context, pullRequest, message);
+    }
+
+    protected void closePullRequest(CommandContext context, GHRepository ghRepository, GHPullRequest pullRequest, String message) throws IOException {
+        pullRequest.comment(message);
+        pullRequest.close();
+        updatePullRequests.removeStoredPullRequest(context, pullRequest.getNumber());
+        if (updatePullRequests.isDeleteMergedBranches()) {
+            GitHubHelpers.deleteUpdateBotBranch(ghRepository, pullRequest.getHead().getRef());
+        }
+    }
+
+    /**
+     * Marks the Pull Request so that it is merged on its own rather than in a train
+     */
+    protected void excludeFromTrain(GHPullRequest pullRequest) throws IOException {
+        String body = pullRequest.getBody();
+        UpdateBotMetadata metadata = Metadata.parseOrCreate(body);
+        metadata.setExcludedFromTrain(true);
+        pullRequest.setBody(Metadata.updateBody(body, metadata));
+    }
+
+    /**
+     * Returns the version changes of the commands of the Pull Request or null if it has commands which cannot be
+     * combined with other Pull Requests
+     */
+    protected ChangeSet loadChanges(CommandContext context, GHRepository ghRepository, GHPullRequest pullRequest) throws IOException {
+        CompositeCommand commands = updatePullRequests.loadCommandsFromPullRequest(context, ghRepository, pullRequest);
+        if (commands == null || commands.getCommands().isEmpty()) {
+            return null;
+        }
+        ChangeSet answer = ChangeSet.EMPTY;
+        for (CommandSupport command : commands.getCommands()) {
+            if (command instanceof PushChangeSet) {
+                answer = answer.override(((PushChangeSet) command).getChanges());
+            } else if (command instanceof PushVersionChanges) {
+                answer = answer.override(ChangeSet.of(((PushVersionChanges) command).getChanges()));
+            } else {
+                return null;
+            }
+        }
+        return answer;
+    }
+
+    private static String describe(List<GHPullRequest> pullRequests) {
+        List<String> numbers = new ArrayList<>();
+        for (GHPullRequest pullRequest : pullRequests) {
+            numbers.add("#" + pullRequest.getNumber());
+        }
+        return String.join(", ", numbers);
+    }
+
+    /**
+     * Pushes the combined changes of the Pull Requests of a train recording their numbers in the train's metadata
+     */
+    private static class TrainCommand extends PushChangeSet {
+        private final String base;
+        private final List<Integer> numbers;
+
+        TrainCommand(ChangeSet changes, String base, List<Integer> numbers) {
+            super(changes);
+            this.base = base;
+            this.numbers = numbers;
+        }
+
+        @Override
+        protected CommandContext createCommandContext(LocalRepository repository, Configuration configuration) {
+            return new PushChangeSetContext(repository, configuration, getChanges(), TITLE_PREFIX + base + ": ");
+        }
+
+        @Override
+        protected ChangeSet loadOpenPullRequestChanges(CommandContext context) {
+            return ChangeSet.EMPTY;
+        }
+
+        @Override
+        protected String createPullRequestBody(CommandContext context, String commandComment) throws IOException {
+            List<String> links = new ArrayList<>();
+            for (Integer number : numbers) {
+                links.add("#" + number);
+            }
+            String body = Markdown.UPDATEBOT_ICON + " merge train combining " + String.join(", ", links) + "\n\n" +
+                    super.createPullRequestBody(context, commandComment);
+            UpdateBotMetadata metadata = Metadata.parseOrCreate(body);
+            metadata.setTrain(numbers);
+            return Metadata.updateBody(body, metadata);
+        }
+    }
+}
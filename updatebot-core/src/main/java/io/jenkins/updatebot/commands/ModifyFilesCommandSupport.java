@@ -18,19 +18,28 @@ package io.jenkins.updatebot.commands;
 import io.fabric8.utils.Objects;
 import io.fabric8.utils.Strings;
 import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.git.GitPlugin;
 import io.jenkins.updatebot.github.GitHubHelpers;
 import io.jenkins.updatebot.github.Issues;
+import io.jenkins.updatebot.github.Metadata;
 import io.jenkins.updatebot.github.PullRequests;
 import io.jenkins.updatebot.kind.DependenciesCheck;
 import io.jenkins.updatebot.kind.Kind;
 import io.jenkins.updatebot.kind.KindDependenciesCheck;
 import io.jenkins.updatebot.kind.Updater;
+import io.jenkins.updatebot.model.ChangeSet;
 import io.jenkins.updatebot.model.DependencyVersionChange;
 import io.jenkins.updatebot.model.GitRepositoryConfig;
-import io.jenkins.updatebot.model.GithubOrganisation;
 import io.jenkins.updatebot.model.GithubRepository;
+import io.jenkins.updatebot.model.IssueState;
+import io.jenkins.updatebot.model.PullRequestState;
+import io.jenkins.updatebot.model.RepositoryConfigSnapshot;
+import io.jenkins.updatebot.model.UpdateBotMetadata;
+import io.jenkins.updatebot.repository.DependencyIndex;
 import io.jenkins.updatebot.repository.LocalRepository;
+import io.jenkins.updatebot.repository.StateStore;
 import io.jenkins.updatebot.support.FileHelper;
+import io.jenkins.updatebot.support.FileOverlay;
 
 import org.kohsuke.github.GHCommitPointer;
 import org.kohsuke.github.GHIssue;
@@ -56,24 +65,106 @@ import java.util.UUID;
 public abstract class ModifyFilesCommandSupport extends CommandSupport {
     private static final transient Logger LOG = LoggerFactory.getLogger(ModifyFilesCommandSupport.class);
     private GHIssue issue;
+    private DependencyIndex dependencyIndex;
+
+    @Override
+    public ParentContext run(Configuration configuration) throws IOException {
+        try {
+            return super.run(configuration);
+        } finally {
+            if (dependencyIndex != null) {
+                dependencyIndex.save();
+            }
+        }
+    }
 
     @Override
     public void run(CommandContext context) throws IOException {
+        if (!isAffected(context)) {
+            return;
+        }
         prepareDirectory(context);
-        if (doProcess(context) && !context.getConfiguration().isDryRun()) {
+        if (doProcessInOverlay(context)) {
             gitCommitAndPullRequest(context);
         }
     }
 
     public void run(CommandContext context, GHRepository ghRepository, GHPullRequest pullRequest) throws IOException {
         prepareDirectory(context);
-        if (doProcess(context) && !context.getConfiguration().isDryRun()) {
+        if (doProcessInOverlay(context)) {
             processPullRequest(context, ghRepository, pullRequest);
         }
     }
 
+    /**
+     * Processes the command buffering all the file changes in the context's overlay so that they are only written
+     * to disk once they have been checked. For a dry run the changes are logged instead of being written.
+     *
+     * @return true if the changes have been written and should be committed
+     */
+    protected boolean doProcessInOverlay(CommandContext context) throws IOException {
+        FileOverlay overlay = context.getOverlay();
+        overlay.setBuffered(true);
+        try {
+            if (!doProcess(context)) {
+                return false;
+            }
+            if (context.getConfiguration().isDryRun()) {
+                if (overlay.isModified()) {
+                    context.info(LOG, "Dry run so not writing the changes:" + System.lineSeparator() + overlay.diff(context.getDir()));
+                }
+                return false;
+            }
+            overlay.flush();
+            return true;
+        } finally {
+            overlay.discard();
+            overlay.setBuffered(false);
+        }
+    }
+
     // Implementation methods
     //-------------------------------------------------------------------------
+
+    /**
+     * Returns the changes this command pushes into every repository so that repositories which do not reference
+     * any of them can be skipped or null if the changes are not known before processing each repository
+     */
+    protected List<DependencyVersionChange> getIndexedChanges(CommandContext context) throws IOException {
+        return null;
+    }
+
+    /**
+     * Returns false if the dependency index shows the repository does not reference any of the changes and there are
+     * no pending changes from previous pushes to retry
+     */
+    protected boolean isAffected(CommandContext context) throws IOException {
+        Configuration configuration = context.getConfiguration();
+        if (!configuration.isUseDependencyIndex()) {
+            return true;
+        }
+        List<DependencyVersionChange> changes = getIndexedChanges(context);
+        if (changes == null || getDependencyIndex(configuration).isAffected(context, changes)) {
+            return true;
+        }
+        if (!loadPendingChanges(context).isEmpty()) {
+            return true;
+        }
+        LOG.debug("Skipping " + context.getRepositoryFullName() + " as it does not reference " + DependencyVersionChange.describe(changes));
+        return false;
+    }
+
+    protected synchronized DependencyIndex getDependencyIndex(Configuration configuration) {
+        if (dependencyIndex == null) {
+            dependencyIndex = DependencyIndex.load(configuration);
+        }
+        return dependencyIndex;
+    }
+
+    protected synchronized void setDependencyIndex(DependencyIndex dependencyIndex) {
+        this.dependencyIndex = dependencyIndex;
+    }
+
     protected void prepareDirectory(CommandContext context) {
         LocalRepository localRepository = context.getRepository();
         File dir = localRepository.getDir();
@@ -95,8 +186,7 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
     protected void gitCommitAndPullRequest(CommandContext context) throws IOException {
         GHRepository ghRepository = context.gitHubRepository();
         if (ghRepository != null) {
-            List<GHPullRequest> pullRequests = PullRequests.getOpenPullRequests(ghRepository, context.getConfiguration());
-            GHPullRequest pullRequest = findPullRequest(context, pullRequests);
+            GHPullRequest pullRequest = findOpenGHPullRequest(context);
             processPullRequest(context, ghRepository, pullRequest);
         } else {
             // TODO what to do with vanilla git repos?
@@ -125,7 +215,7 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
             String localBranch = "updatebot-" + UUID.randomUUID().toString();
             doCommit(context, dir, localBranch);
 
-            String body = context.createPullRequestBody();
+            String body = createPullRequestBody(context, commandComment);
             //String head = getGithubUsername() + ":" + localBranch;
             String head = localBranch;
 
@@ -138,12 +228,9 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
             context.setPullRequest(pullRequest);
             context.info(LOG, configuration.colored(Configuration.COLOR_PENDING, "Created pull request " + pullRequest.getHtmlUrl()));
 
-            pullRequest.comment(commandComment);
-
-            addProwComment(context, pullRequest);
-
-            addIssueClosedCommentIfRequired(context, pullRequest, true);
+            // the create Pull Request API does not take labels so they are added via the issues API
             pullRequest.setLabels(configuration.getGithubPullRequestLabel());
+            storePullRequest(context, resolvePullRequestTitlePrefix(context), pullRequest, commandComment, GitPlugin.headCommit(dir));
         } else {
             GHCommitPointer head = pullRequest.getHead();
             String remoteRef = head.getRef();
@@ -151,11 +238,19 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
 
             context.setPullRequest(pullRequest);
 
-            addIssueClosedCommentIfRequired(context, pullRequest, false);
+            String body = pullRequest.getBody();
+            UpdateBotMetadata metadata = Metadata.parse(body);
+            boolean hasMetadata = metadata != null;
+            if (!hasMetadata) {
+                metadata = new UpdateBotMetadata();
+            }
+            boolean modified = addIssueLinkIfRequired(context, pullRequest, metadata, hasMetadata);
 
+            String command = null;
             // Let's see if we need to add commits into existing pull request branch
             if(isUseSinglePullRequest(context)) {
-                pullRequest.comment(commandComment);
+                modified |= addCommandCommentIfChanged(pullRequest, metadata, commandComment);
+                command = commandComment;
 
                 // lets add commit to existing pull request branch
                 doCommit(context, dir);
@@ -165,6 +260,7 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
                     // lets check if we need to rebase
                     if (configuration.isRebaseMode()) {
                         if (GitHubHelpers.isMergeable(pullRequest)) {
+                            updateMetadataIfModified(pullRequest, body, metadata, modified);
                             return;
                         }
                         pullRequest.comment("[UpdateBot](https://github.com/jenkins-x/updatebot) rebasing due to merge conflicts");
@@ -173,7 +269,8 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
                     //pullRequest.comment("Replacing previous commit");
                     pullRequest.setTitle(title);
 
-                    pullRequest.comment(commandComment);
+                    modified |= addCommandCommentIfChanged(pullRequest, metadata, commandComment);
+                    command = commandComment;
                 }
 
                 // lets remove any local branches of this name
@@ -185,11 +282,60 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
 
             if (!context.getGit().push(dir, localBranch + ":" + remoteRef)) {
                 context.warn(LOG, "Failed to push branch " + localBranch + " to existing github branch " + remoteRef + " for " + pullRequest.getHtmlUrl());
+            } else {
+                storePullRequest(context, resolvePullRequestTitlePrefix(context), pullRequest, command, GitPlugin.headCommit(dir));
             }
+            updateMetadataIfModified(pullRequest, body, metadata, modified);
             context.info(LOG, "Updated PR " + pullRequest.getHtmlUrl());
         }
     }
 
+    /**
+     * Creates the body of a new Pull Request including the command, the link to any pending changes issue and the
+     * prow command so that they do not need to be added as separate comments
+     */
+    protected String createPullRequestBody(CommandContext context, String commandComment) throws IOException {
+        UpdateBotMetadata metadata = new UpdateBotMetadata();
+        metadata.setCommand(commandComment);
+
+        StringBuilder builder = new StringBuilder(context.createPullRequestBody());
+        builder.append("\n\n");
+        builder.append(commandComment);
+        GHIssue issue = context.getIssue();
+        if (issue != null) {
+            builder.append("\n");
+            builder.append(createIssueLinkComment(issue));
+            metadata.setIssue(issue.getHtmlUrl().toString());
+        }
+        String prowCommand = context.getConfiguration().getProwPRCommand();
+        if (Strings.isNotBlank(prowCommand)) {
+            // prow handles the commands in the body of a new Pull Request
+            builder.append("\n");
+            builder.append(prowCommand);
+        }
+        return Metadata.updateBody(builder.toString(), metadata);
+    }
+
+    /**
+     * Comments the command on the Pull Request unless it is the same as the last command
+     *
+     * @return true if the metadata has been modified
+     */
+    protected boolean addCommandCommentIfChanged(GHPullRequest pullRequest, UpdateBotMetadata metadata, String commandComment) throws IOException {
+        if (Objects.equal(commandComment, metadata.getCommand())) {
+            return false;
+        }
+        pullRequest.comment(commandComment);
+        metadata.setCommand(commandComment);
+        return true;
+    }
+
+    protected void updateMetadataIfModified(GHPullRequest pullRequest, String body, UpdateBotMetadata metadata, boolean modified) throws IOException {
+        if (modified) {
+            pullRequest.setBody(Metadata.updateBody(body, metadata));
+        }
+    }
+
     protected void addProwComment(CommandContext context, GHPullRequest pullRequest) throws IOException {
         String prowCommand = context.getConfiguration().getProwPRCommand();
         if (Strings.isNotBlank(prowCommand)) {
@@ -198,7 +344,7 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
     }
 
     public String getRemoteBranch(Configuration configuration, GHRepository ghRepository) throws IOException {
-        LocalRepository repository = LocalRepository.findRepository(getLocalRepositories(configuration), ghRepository);
+        LocalRepository repository = getLocalRepository(configuration, ghRepository);
 
         return repository.getRemoteBranch();
     }
@@ -209,8 +355,7 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
         GHRepository ghRepository = context.gitHubRepository();
 
         try {
-            List<LocalRepository> list = getLocalRepositories(configuration);
-            LocalRepository repository = LocalRepository.findRepository(list, ghRepository);
+            LocalRepository repository = getLocalRepository(configuration, ghRepository);
 
             return repository.isUseSinglePullRequest();
         }
@@ -219,19 +364,30 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
         }
     }
 
-    private void addIssueClosedCommentIfRequired(CommandContext context, GHPullRequest pullRequest, boolean create) {
+    /**
+     * Links the pending changes issue from the Pull Request unless the metadata shows it is already linked.
+     * Pull Requests without metadata are checked for an existing link comment instead.
+     *
+     * @return true if the metadata has been modified
+     */
+    private boolean addIssueLinkIfRequired(CommandContext context, GHPullRequest pullRequest, UpdateBotMetadata metadata, boolean hasMetadata) {
         GHIssue issue = context.getIssue();
         if (issue == null) {
-            return;
+            return false;
         }
-        if (!create) {
+        String url = issue.getHtmlUrl().toString();
+        if (url.equals(metadata.getIssue())) {
+            return false;
+        }
+        metadata.setIssue(url);
+        if (!hasMetadata) {
             // avoid duplicate comment
             try {
                 List<GHIssueComment> comments = pullRequest.getComments();
                 for (GHIssueComment comment : comments) {
                     String body = comment.getBody();
                     if (body != null && body.startsWith(PullRequests.ISSUE_LINK_COMMENT)) {
-                        return;
+                        return true;
                     }
                 }
             } catch (IOException e) {
@@ -239,10 +395,15 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
             }
         }
         try {
-            pullRequest.comment(PullRequests.ISSUE_LINK_COMMENT + " " + issue.getHtmlUrl() + PullRequests.ISSUE_LINK_COMMENT_SUFFIX);
+            pullRequest.comment(createIssueLinkComment(issue));
         } catch (IOException e) {
             // ignore
         }
+        return true;
+    }
+
+    private static String createIssueLinkComment(GHIssue issue) {
+        return PullRequests.ISSUE_LINK_COMMENT + " " + issue.getHtmlUrl() + PullRequests.ISSUE_LINK_COMMENT_SUFFIX;
     }
 
     private boolean doCommit(CommandContext context, File dir, String branch) {
@@ -272,14 +433,46 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
     protected GHPullRequest findOpenGHPullRequest(CommandContext context) throws IOException {
         GHRepository ghRepository = context.gitHubRepository();
         if(ghRepository != null) {
+            GHPullRequest pullRequest = findStoredPullRequest(context, ghRepository);
+            if (pullRequest != null) {
+                return pullRequest;
+            }
             List<GHPullRequest> pullRequests = PullRequests.getOpenPullRequests(ghRepository, context.getConfiguration());
 
-            return findPullRequest(context, pullRequests);
+            pullRequest = findPullRequest(context, pullRequests);
+            if (pullRequest != null) {
+                storePullRequest(context, resolvePullRequestTitlePrefix(context), pullRequest, null, null);
+            }
+            return pullRequest;
         }
 
         return null;
     }
 
+    /**
+     * Returns the open pull request recorded in the state store or null if there is none or it is no longer open
+     */
+    protected GHPullRequest findStoredPullRequest(CommandContext context, GHRepository ghRepository) throws IOException {
+        StateStore store = getStateStore(context.getConfiguration());
+        if (store == null) {
+            return null;
+        }
+        String prefix = resolvePullRequestTitlePrefix(context);
+        PullRequestState state = store.getState(context).findPullRequest(prefix);
+        if (state == null) {
+            return null;
+        }
+        GHPullRequest pullRequest = ghRepository.getPullRequest(state.getNumber());
+        if (pullRequest != null && Issues.isOpen(pullRequest)) {
+            String title = pullRequest.getTitle();
+            if (title != null && title.startsWith(prefix)) {
+                return pullRequest;
+            }
+        }
+        removeStoredPullRequest(context, state.getNumber());
+        return null;
+    }
+
     /**
      * Resolve remote repository branch at runtime
      *
@@ -388,27 +581,17 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
         String prefix = resolvePullRequestTitlePrefix(context);
 
         if (pullRequests != null) {
+            RepositoryConfigSnapshot repositoryConfig = context.getConfiguration().getRepositoryConfigSnapshot();
             for (GHPullRequest pullRequest : pullRequests) {
                 String title = pullRequest.getTitle();
-
-                for(GithubOrganisation org: context.getConfiguration().loadRepositoryConfig().getGithub().getOrganisations()){
-                    for(GitRepositoryConfig repo :org.getRepositories()){
-                        if(pullRequest.getRepository().getName().equalsIgnoreCase(repo.getName())){
-
-
-                            if (title != null && title.startsWith(prefix)) {
-
-                                if(repo.getBranch() ==null || repo.getBranch().equalsIgnoreCase(pullRequest.getBase().getRef())) {
-                                    return pullRequest;
-                                }
-                            }
-                        }
-
+                if (title == null || !title.startsWith(prefix)) {
+                    continue;
+                }
+                for (GitRepositoryConfig repo : repositoryConfig.findGithubRepositories(pullRequest.getRepository().getName())) {
+                    if (repo.getBranch() == null || repo.getBranch().equalsIgnoreCase(pullRequest.getBase().getRef())) {
+                        return pullRequest;
                     }
                 }
-
-
-
             }
         }
         return null;
@@ -416,7 +599,7 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
 
     protected boolean pushVersionChangesWithoutChecks(CommandContext parentContext, List<DependencyVersionChange> steps) throws IOException {
         boolean answer = false;
-        Map<Kind, List<DependencyVersionChange>> map = DependencyVersionChange.byKind(steps);
+        Map<Kind, List<DependencyVersionChange>> map = ChangeSet.of(steps).byKind();
         for (Map.Entry<Kind, List<DependencyVersionChange>> entry : map.entrySet()) {
             Kind kind = entry.getKey();
             List<DependencyVersionChange> changes = entry.getValue();
@@ -432,28 +615,86 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
     protected boolean pushVersionsWithChecks(CommandContext context, List<DependencyVersionChange> originalSteps) throws IOException {
         List<DependencyVersionChange> pendingChanges = loadPendingChanges(context);
         List<DependencyVersionChange> steps = combinePendingChanges(originalSteps, pendingChanges);
-        boolean answer = pushVersionChangesWithoutChecks(context, steps);
-        if (answer) {
-            if (context.getConfiguration().isCheckDependencies()) {
-                DependenciesCheck check = checkDependencyChanges(context, steps);
-                List<DependencyVersionChange> invalidChanges = check.getInvalidChanges();
-                List<DependencyVersionChange> validChanges = check.getValidChanges();
-                if (invalidChanges.size() > 0) {
-                    // lets revert the current changes
-                    context.getGit().revertChanges(context.getDir());
-                    if (validChanges.size() > 0) {
-                        // lets perform just the valid changes
-                        if (!pushVersionChangesWithoutChecks(context, validChanges)) {
-                            context.warn(LOG, "Attempted to apply the subset of valid changes " + DependencyVersionChange.describe(validChanges) + " but no files were modified!");
-                            return false;
-                        }
-                    }
+        if (!context.getConfiguration().isCheckDependencies()) {
+            return pushVersionChangesWithoutChecks(context, steps);
+        }
+        DependenciesCheck check = planVersionChanges(context, steps);
+        if (check == null) {
+            return false;
+        }
+        updatePendingChanges(context, check, pendingChanges);
+        return check.getValidChanges().size() > 0;
+    }
+
+    /**
+     * Applies the changes to the context's overlay in memory one kind at a time, checking the dependencies of each kind
+     * straight after its changes are applied. Only a kind with invalid changes has its files and child contexts
+     * restored so that just its valid subset is applied again; the changes of every other kind are applied once.
+     *
+     * @return the dependency check or null if no files would be modified
+     */
+    protected DependenciesCheck planVersionChanges(CommandContext context, List<DependencyVersionChange> steps) throws IOException {
+        FileOverlay overlay = context.getOverlay();
+        boolean buffered = overlay.isBuffered();
+        Map<File, String> originalSnapshot = overlay.snapshot();
+        List<CommandContext> originalChildren = new ArrayList<>(context.getChildren());
+        overlay.setBuffered(true);
+        List<DependencyVersionChange> validChanges = new ArrayList<>();
+        List<DependencyVersionChange> invalidChanges = new ArrayList<>();
+        Map<Kind, KindDependenciesCheck> allResults = new LinkedHashMap<>();
+        boolean keep = false;
+        try {
+            boolean modified = false;
+            for (Map.Entry<Kind, List<DependencyVersionChange>> entry : ChangeSet.of(steps).byKind().entrySet()) {
+                Kind kind = entry.getKey();
+                Updater updater = kind.getUpdater();
+                Map<File, String> snapshot = overlay.snapshot();
+                List<CommandContext> children = new ArrayList<>(context.getChildren());
+                boolean pushed = updater.pushVersions(context, entry.getValue());
+                if (pushed) {
+                    modified = true;
+                }
+                KindDependenciesCheck results = updater.checkDependencies(context, entry.getValue());
+                validChanges.addAll(results.getValidChanges());
+                invalidChanges.addAll(results.getInvalidChanges());
+                allResults.put(kind, results);
+                if (!pushed || results.getInvalidChanges().isEmpty()) {
+                    continue;
                 }
-                updatePendingChanges(context, check, pendingChanges);
-                return validChanges.size() > 0;
+                // lets perform just the valid changes of this kind
+                restore(context, snapshot, children);
+                List<DependencyVersionChange> kindValidChanges = results.getValidChanges();
+                if (kindValidChanges.size() > 0 && !updater.pushVersions(context, kindValidChanges)) {
+                    context.warn(LOG, "Attempted to apply the subset of valid changes " + DependencyVersionChange.describe(kindValidChanges) + " but no files were modified!");
+                    return null;
+                }
+            }
+            if (!modified) {
+                return null;
+            }
+            keep = true;
+            return new DependenciesCheck(validChanges, invalidChanges, allResults);
+        } finally {
+            if (!keep) {
+                restore(context, originalSnapshot, originalChildren);
+            }
+            overlay.setBuffered(buffered);
+            if (keep && !buffered) {
+                overlay.flush();
+            }
+        }
+    }
+
+    /**
+     * Restores the overlay to the given snapshot removing any child contexts added since the given children
+     */
+    private static void restore(CommandContext context, Map<File, String> snapshot, List<CommandContext> children) {
+        context.getOverlay().restore(snapshot);
+        for (CommandContext child : new ArrayList<>(context.getChildren())) {
+            if (!children.contains(child)) {
+                context.removeChild(child);
             }
         }
-        return answer;
     }
 
     public void updatePendingChanges(CommandContext context, DependenciesCheck check, List<DependencyVersionChange> pendingChanges) throws IOException {
@@ -462,7 +703,7 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
         GHRepository ghRepository = context.gitHubRepository();
         if (ghRepository != null) {
             GHIssue issue = getOrFindIssue(context, ghRepository);
-            if (currentPendingChanges.equals(pendingChanges)) {
+            if (ChangeSet.of(currentPendingChanges).equals(ChangeSet.of(pendingChanges))) {
                 if (issue != null) {
                     LOG.debug("Pending changes unchanged so not modifying the issue");
                 }
@@ -474,6 +715,7 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
                     context.info(LOG, "Closing issue as we have no further pending issues " + issue.getHtmlUrl());
                     issue.comment(Issues.CLOSE_MESSAGE + operationDescrption);
                     issue.close();
+                    removeStoredIssue(context, issue.getNumber());
                 }
                 return;
             }
@@ -484,7 +726,8 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
             } else {
                 context.info(LOG, configuration.colored(Configuration.COLOR_PENDING, "Modifying issue " + issue.getHtmlUrl()));
             }
-            Issues.addConflictsComment(issue, currentPendingChanges, operationDescrption, check);
+            String comment = Issues.addConflictsComment(issue, currentPendingChanges, operationDescrption, check);
+            storeIssue(context, issue, comment, issue.getCommentsCount() + 1);
         } else {
             // TODO what to do with vanilla git repos?
         }
@@ -498,23 +741,15 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
         if (pendingChanges.isEmpty()) {
             return changes;
         }
-        List<DependencyVersionChange> answer = new ArrayList<>(changes);
-        for (DependencyVersionChange pendingStep : pendingChanges) {
-            if (!DependencyVersionChange.hasDependency(changes, pendingStep)) {
-                answer.add(pendingStep);
-            }
-        }
-        return answer;
+        return ChangeSet.of(changes).merge(ChangeSet.of(pendingChanges)).toList();
     }
 
     protected List<DependencyVersionChange> loadPendingChanges(CommandContext context) throws IOException {
         GHRepository ghRepository = context.gitHubRepository();
         if (ghRepository != null) {
-            List<GHIssue> issues = Issues.getOpenIssues(ghRepository, context.getConfiguration());
-            GHIssue issue = Issues.findIssue(context, issues);
+            GHIssue issue = getOrFindIssue(context, ghRepository);
             if (issue != null) {
-                context.setIssue(issue);
-                return Issues.loadPendingChangesFromIssue(context, issue);
+                return loadPendingChangesFromIssue(context, issue);
             }
         } else {
             // TODO what to do with vanilla git repos?
@@ -523,31 +758,21 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
     }
 
 
-    protected DependenciesCheck checkDependencyChanges(CommandContext context, List<DependencyVersionChange> steps) throws IOException {
-        Map<Kind, List<DependencyVersionChange>> map = new LinkedHashMap<>();
-        for (DependencyVersionChange change : steps) {
-            Kind kind = change.getKind();
-            List<DependencyVersionChange> list = map.get(kind);
-            if (list == null) {
-                list = new ArrayList<>();
-                map.put(kind, list);
-            }
-            list.add(change);
+    /**
+     * Loads the pending changes from the state store if no comments have been added to the issue since they were
+     * recorded, otherwise from the last pending changes comment on the issue
+     */
+    protected List<DependencyVersionChange> loadPendingChangesFromIssue(CommandContext context, GHIssue issue) throws IOException {
+        StateStore store = getStateStore(context.getConfiguration());
+        IssueState state = store != null ? store.getState(context).getIssues().get(issue.getNumber()) : null;
+        if (state != null && state.getPendingChanges() != null && state.getCommentsCount() == issue.getCommentsCount()) {
+            return Issues.parseUpdateBotIssuePendingChangesComment(state.getPendingChanges());
         }
-
-
-        List<DependencyVersionChange> validChanges = new ArrayList<>();
-        List<DependencyVersionChange> invalidChanges = new ArrayList<>();
-        Map<Kind, KindDependenciesCheck> allResults = new LinkedHashMap<>();
-
-        for (Map.Entry<Kind, List<DependencyVersionChange>> entry : map.entrySet()) {
-            Kind kind = entry.getKey();
-            Updater updater = kind.getUpdater();
-            KindDependenciesCheck results = updater.checkDependencies(context, entry.getValue());
-            validChanges.addAll(results.getValidChanges());
-            invalidChanges.addAll(results.getInvalidChanges());
-            allResults.put(kind, results);
+        String comment = Issues.findPendingChangesComment(context, issue);
+        if (comment == null) {
+            return new ArrayList<>();
         }
-        return new DependenciesCheck(validChanges, invalidChanges, allResults);
+        storeIssue(context, issue, comment, issue.getCommentsCount());
+        return Issues.parseUpdateBotIssuePendingChangesComment(comment);
     }
 }
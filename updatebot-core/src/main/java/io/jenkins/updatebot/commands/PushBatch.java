@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.commands;
+
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.github.GitHubHelpers;
+import io.jenkins.updatebot.model.ChangeSet;
+import io.jenkins.updatebot.repository.DependencyIndex;
+import io.jenkins.updatebot.repository.LocalRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Coalesces the version changes of a number of push and push-version commands so that each downstream repository
+ * gets a single commit and Pull Request update with all of the changes rather than one per command.
+ *
+ * If more than one command changes the same dependency the last one wins and the changes exported by a source
+ * repository are never pushed back into that repository.
+ */
+public class PushBatch extends CommandSupport {
+    private static final transient Logger LOG = LoggerFactory.getLogger(PushBatch.class);
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Adds the changes of the given push or push-version command to the batch
+     *
+     * @throws IllegalArgumentException if the command cannot be coalesced
+     */
+    public void add(Configuration configuration, CommandSupport command) throws IOException {
+        if (command instanceof PushVersionChanges) {
+            add(null, ChangeSet.of(((PushVersionChanges) command).getChanges()));
+        } else if (command instanceof PushSourceChanges) {
+            PushSourceChanges push = (PushSourceChanges) command;
+            push.setLocalRepositories(getLocalRepositories(configuration));
+            push.setRepositoryConfig(getRepositoryConfig(configuration));
+            push.validateConfiguration(configuration);
+            LocalRepository sourceRepository = push.getSourceRepository();
+            if (sourceRepository == null) {
+                throw new IllegalArgumentException("Could not find the source repository " + push.getCloneUrl());
+            }
+            add(push.getCloneUrl(), ChangeSet.of(PushSourceChanges.loadVersionChangesFromSource(configuration, sourceRepository)));
+        } else {
+            throw new IllegalArgumentException("Cannot coalesce the command " + command.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Adds the changes exported by the source repository with the given clone URL or null if they are not from a repository
+     */
+    public synchronized void add(String sourceCloneUrl, ChangeSet changes) {
+        entries.add(new Entry(sourceCloneUrl, changes));
+    }
+
+    public synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Returns the changes to push into the given repository
+     */
+    public synchronized ChangeSet getChanges(LocalRepository repository) {
+        ChangeSet answer = ChangeSet.EMPTY;
+        for (Entry entry : entries) {
+            if (entry.sourceCloneUrl == null || !repository.hasCloneUrl(entry.sourceCloneUrl)) {
+                answer = answer.override(entry.changes);
+            }
+        }
+        return answer;
+    }
+
+    @Override
+    public ParentContext run(Configuration configuration) throws IOException {
+        validateConfiguration(configuration);
+
+        ParentContext parentContext = new ParentContext();
+        DependencyIndex index = DependencyIndex.load(configuration);
+        try {
+            for (LocalRepository repository : cloneOrPullRepositories(configuration)) {
+                ChangeSet changes = getChanges(repository);
+                if (changes.isEmpty()) {
+                    continue;
+                }
+                LOG.debug("Pushing " + changes + " into " + repository.getFullName());
+                PushChangeSet command = new PushChangeSet(changes);
+                command.setLocalRepositories(getLocalRepositories(configuration));
+                command.setRepositoryConfig(getRepositoryConfig(configuration));
+                command.setDependencyIndex(index);
+                CommandContext context = command.createCommandContext(repository, configuration);
+                parentContext.addChild(context);
+                try {
+                    command.run(context);
+                } finally {
+                    GitHubHelpers.releaseGitHubRepository(repository);
+                }
+            }
+        } finally {
+            index.save();
+        }
+        return parentContext;
+    }
+
+    @Override
+    public void run(CommandContext context) throws IOException {
+        throw new IllegalArgumentException("This method should never be invoked!");
+    }
+
+    private static class Entry {
+        private final String sourceCloneUrl;
+        private final ChangeSet changes;
+
+        Entry(String sourceCloneUrl, ChangeSet changes) {
+            this.sourceCloneUrl = sourceCloneUrl;
+            this.changes = changes;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.commands;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.Parameters;
+import io.jenkins.updatebot.CommandNames;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.github.Metadata;
+import io.jenkins.updatebot.kind.Kind;
+import io.jenkins.updatebot.model.ChangeSet;
+import io.jenkins.updatebot.model.DependencyVersionChange;
+import io.jenkins.updatebot.model.UpdateBotMetadata;
+import io.jenkins.updatebot.repository.LocalRepository;
+import org.kohsuke.github.GHPullRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pushes a set of version changes of any kinds into each repository as a single commit and Pull Request.
+ *
+ * The Pull Request of a repository is reused for every change set so the changes of an open Pull Request are
+ * combined with the new changes and the command recorded on the Pull Request always contains all of them.
+ */
+@Parameters(commandNames = CommandNames.PUSH_CHANGES, commandDescription = "Pushes a set of version changes of any kinds into your projects " +
+        "using a single commit and Pull Request per project")
+public class PushChangeSet extends ModifyFilesCommandSupport {
+    private static final transient Logger LOG = LoggerFactory.getLogger(PushChangeSet.class);
+
+    @Parameter(description = "Pairs of the kind:dependency and version to be pushed such as maven:io.jenkins:foo 1.2.3", required = true)
+    private List<String> values;
+
+    private ChangeSet changes;
+    private ChangeSet pushedChanges;
+
+    public PushChangeSet() {
+    }
+
+    public PushChangeSet(ChangeSet changes) {
+        this.changes = changes;
+        this.values = toValues(changes);
+    }
+
+    /**
+     * Returns the command line values for the given changes
+     */
+    public static List<String> toValues(ChangeSet changes) {
+        List<String> answer = new ArrayList<>();
+        for (DependencyVersionChange change : changes) {
+            answer.add(change.getKind().getName() + ":" + change.getDependency());
+            answer.add(change.getVersion());
+        }
+        return answer;
+    }
+
+    /**
+     * Parses the changes from pairs of the kind:dependency and the version
+     */
+    public static ChangeSet parseValues(List<String> values) {
+        if (values.size() % 2 == 1) {
+            throw new ParameterException("You must specify an even number of arguments for pairs of the kind:dependency and version!");
+        }
+        List<DependencyVersionChange> list = new ArrayList<>();
+        for (int i = 0; i + 1 < values.size(); i += 2) {
+            String value = values.get(i);
+            int idx = value.indexOf(':');
+            Kind kind = idx > 0 ? Kind.fromName(value.substring(0, idx)) : null;
+            if (kind == null) {
+                throw new ParameterException("Could not find the kind of dependency " + value + " which should be of the form kind:dependency");
+            }
+            list.add(new DependencyVersionChange(kind, value.substring(idx + 1), values.get(i + 1)));
+        }
+        return ChangeSet.of(list);
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    public void setValues(List<String> values) {
+        this.changes = parseValues(values);
+        this.values = values;
+    }
+
+    public void values(String... values) {
+        setValues(Arrays.asList(values));
+    }
+
+    public synchronized ChangeSet getChanges() {
+        if (changes == null) {
+            changes = values != null ? parseValues(values) : ChangeSet.EMPTY;
+        }
+        return changes;
+    }
+
+    @Override
+    protected CommandContext createCommandContext(LocalRepository repository, Configuration configuration) {
+        return new PushChangeSetContext(repository, configuration, getChanges());
+    }
+
+    @Override
+    protected boolean doProcess(CommandContext context) throws IOException {
+        PushChangeSetContext changeSetContext;
+        if (context instanceof PushChangeSetContext) {
+            changeSetContext = (PushChangeSetContext) context;
+        } else {
+            // lets make sure the title and commit come from the change set when replaying the commands of a PR
+            changeSetContext = new PushChangeSetContext(context, getChanges());
+        }
+        ChangeSet answer = loadOpenPullRequestChanges(changeSetContext).override(getChanges());
+        changeSetContext.setChanges(answer);
+        synchronized (this) {
+            pushedChanges = answer;
+        }
+        LOG.debug("Pushing " + answer + " into " + context.getRepositoryFullName());
+        return pushVersionsWithChecks(changeSetContext, answer.toList());
+    }
+
+    @Override
+    protected List<DependencyVersionChange> getIndexedChanges(CommandContext context) {
+        return getChanges().toList();
+    }
+
+    /**
+     * Records all of the changes pushed into the current repository so that replaying the command on the
+     * Pull Request recreates all of its changes
+     */
+    @Override
+    protected void appendPullRequestCommentArguments(StringBuilder builder) {
+        ChangeSet answer;
+        synchronized (this) {
+            answer = pushedChanges != null ? pushedChanges : getChanges();
+        }
+        for (String value : toValues(answer)) {
+            builder.append(" ");
+            builder.append(value);
+        }
+    }
+
+    /**
+     * Returns the changes recorded by the push-changes commands of the open Pull Request of the context
+     */
+    protected ChangeSet loadOpenPullRequestChanges(CommandContext context) throws IOException {
+        GHPullRequest pullRequest = findOpenGHPullRequest(context);
+        if (pullRequest == null) {
+            return ChangeSet.EMPTY;
+        }
+        UpdateBotMetadata metadata = Metadata.parse(pullRequest.getBody());
+        if (metadata == null || metadata.getCommand() == null) {
+            return ChangeSet.EMPTY;
+        }
+        ChangeSet answer = ChangeSet.EMPTY;
+        CompositeCommand commands = new UpdatePullRequests().parseUpdateBotCommandComment(context, metadata.getCommand());
+        for (CommandSupport command : commands.getCommands()) {
+            if (command instanceof PushChangeSet) {
+                answer = answer.override(((PushChangeSet) command).getChanges());
+            }
+        }
+        return answer;
+    }
+}
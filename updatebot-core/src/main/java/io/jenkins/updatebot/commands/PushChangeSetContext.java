@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.commands;
+
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.model.ChangeSet;
+import io.jenkins.updatebot.model.DependencyVersionChange;
+import io.jenkins.updatebot.repository.LocalRepository;
+import io.jenkins.updatebot.support.Markdown;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The context for pushing a {@link ChangeSet} into a repository which uses the same Pull Request title prefix
+ * for every set of changes so that later changes update the open Pull Request rather than creating another one.
+ */
+public class PushChangeSetContext extends CommandContext {
+    public static final String TITLE_PREFIX = "update versions: ";
+
+    private static final int MAX_TITLE_LENGTH = 250;
+
+    private final String titlePrefix;
+    private ChangeSet changes;
+
+    public PushChangeSetContext(LocalRepository repository, Configuration configuration, ChangeSet changes) {
+        this(repository, configuration, changes, TITLE_PREFIX);
+    }
+
+    public PushChangeSetContext(LocalRepository repository, Configuration configuration, ChangeSet changes, String titlePrefix) {
+        super(repository, configuration);
+        this.changes = changes;
+        this.titlePrefix = titlePrefix;
+    }
+
+    public PushChangeSetContext(CommandContext parentContext, ChangeSet changes) {
+        super(parentContext);
+        this.changes = changes;
+        this.titlePrefix = TITLE_PREFIX;
+    }
+
+    @Override
+    public String toString() {
+        return "PushChangeSetContext{" +
+                "changes='" + changes + '\'' +
+                '}';
+    }
+
+    public ChangeSet getChanges() {
+        return changes;
+    }
+
+    public void setChanges(ChangeSet changes) {
+        this.changes = changes;
+    }
+
+    @Override
+    public String createPullRequestBody() {
+        StringBuilder builder = new StringBuilder(Markdown.UPDATEBOT_ICON + " pushed dependency versions:\n\n");
+        for (DependencyVersionChange change : changes) {
+            builder.append("* " + change.getKind() + " dependency: `" + change.getDependency() + "` to: `" + change.getVersion() + "`\n");
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String createCommit() {
+        StringBuilder builder = new StringBuilder("fix(versions): " + createPullRequestTitle() + "\n\n");
+        for (DependencyVersionChange change : changes) {
+            builder.append("Update " + change.getKind() + " dependency " + change.getDependency() + " to " + change.getVersion() + "\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns a title which changes whenever the versions change so that an open Pull Request is recommitted
+     */
+    @Override
+    public String createPullRequestTitle() {
+        List<String> versions = new ArrayList<>();
+        for (DependencyVersionChange change : changes) {
+            versions.add(change.getDependency() + " to " + change.getVersion());
+        }
+        String answer = createPullRequestTitlePrefix() + String.join(", ", versions);
+        if (answer.length() > MAX_TITLE_LENGTH) {
+            answer = createPullRequestTitlePrefix() + changes.size() + " dependencies (" + Integer.toHexString(changes.hashCode()) + ")";
+        }
+        return answer;
+    }
+
+    @Override
+    public String createPullRequestTitlePrefix() {
+        return titlePrefix;
+    }
+}
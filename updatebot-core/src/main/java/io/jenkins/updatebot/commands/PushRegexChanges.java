@@ -17,6 +17,7 @@ package io.jenkins.updatebot.commands;
 
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
+import io.fabric8.utils.Strings;
 import io.jenkins.updatebot.CommandNames;
 import io.jenkins.updatebot.Configuration;
 import io.jenkins.updatebot.kind.Kind;
@@ -28,6 +29,7 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * Push changes from a specific release pipeline into downstream projects
@@ -52,6 +54,9 @@ public class PushRegexChanges extends ModifyFilesCommandSupport {
     @Parameter(description = "The file patterns to replace", required = true)
     private List<String> files;
 
+    private Pattern compiledRegex;
+    private Pattern compiledPreviousLinePattern;
+
     public PushRegexChanges() {
     }
 
@@ -75,6 +80,26 @@ public class PushRegexChanges extends ModifyFilesCommandSupport {
         return previousLinePattern;
     }
 
+    /**
+     * Returns the compiled {@link #getRegex()} so that it is only compiled once per command
+     */
+    public Pattern getCompiledRegex() {
+        if (compiledRegex == null) {
+            compiledRegex = Pattern.compile(regex);
+        }
+        return compiledRegex;
+    }
+
+    /**
+     * Returns the compiled {@link #getPreviousLinePattern()} or null if there is no previous line pattern
+     */
+    public Pattern getCompiledPreviousLinePattern() {
+        if (compiledPreviousLinePattern == null && Strings.isNotBlank(previousLinePattern)) {
+            compiledPreviousLinePattern = Pattern.compile(previousLinePattern);
+        }
+        return compiledPreviousLinePattern;
+    }
+
     @Override
     protected CommandContext createCommandContext(LocalRepository repository, Configuration configuration) {
         return new PushRegexChangesContext(repository, configuration, this);
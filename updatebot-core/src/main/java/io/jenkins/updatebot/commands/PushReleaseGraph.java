@@ -0,0 +1,376 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.commands;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import io.jenkins.updatebot.CommandNames;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.github.GitHubHelpers;
+import io.jenkins.updatebot.repository.DependencyIndex;
+import io.jenkins.updatebot.repository.LocalRepository;
+import io.jenkins.updatebot.repository.ReleaseGraph;
+import io.jenkins.updatebot.repository.Repositories;
+import io.jenkins.updatebot.support.Systems;
+import org.kohsuke.github.GHIssueState;
+import org.kohsuke.github.GHPullRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.jenkins.updatebot.EnvironmentVariables.POLL_PERIOD;
+import static io.jenkins.updatebot.EnvironmentVariables.POLL_TIMEOUT;
+
+/**
+ * Pushes a release through all the repositories which transitively depend on the source repository.
+ *
+ * Each repository is updated as soon as the Pull Requests of all of its upstream repositories in the release have
+ * merged so the release takes as long as the longest path through the graph rather than one push after another.
+ */
+@Parameters(commandNames = CommandNames.PUSH_GRAPH, commandDescription = "Pushes version changes from your local source code through the graph of downstream projects " +
+        "updating each project once the Pull Requests of the projects it depends on have merged")
+public class PushReleaseGraph extends CommandSupport {
+    private static final transient Logger LOG = LoggerFactory.getLogger(PushReleaseGraph.class);
+
+    @Parameter(description = "The git repository to clone from for the source code")
+    private String cloneUrl;
+
+    @Parameter(names = "--threads", description = "The maximum number of repositories to push changes into at the same time", arity = 1)
+    private int threads = 4;
+
+    @Parameter(names = "--poll-time-ms", description = "The poll period", arity = 1)
+    private long pollTimeMillis = Systems.getConfigLongValue(POLL_PERIOD, 2 * 60 * 1000);
+
+    @Parameter(names = "--loop-time-ms", description = "The maximum amount of time to wait for the Pull Requests to merge before terminating.", arity = 1)
+    private long loopTime = Systems.getConfigLongValue(POLL_TIMEOUT, 60 * 60 * 1000);
+
+    private LocalRepository sourceRepository;
+
+    public String getCloneUrl() {
+        return cloneUrl;
+    }
+
+    public void setCloneUrl(String cloneUrl) {
+        this.cloneUrl = cloneUrl;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public long getPollTimeMillis() {
+        return pollTimeMillis;
+    }
+
+    public void setPollTimeMillis(long pollTimeMillis) {
+        this.pollTimeMillis = pollTimeMillis;
+    }
+
+    public long getLoopTime() {
+        return loopTime;
+    }
+
+    public void setLoopTime(long loopTime) {
+        this.loopTime = loopTime;
+    }
+
+    @Override
+    public ParentContext run(Configuration configuration) throws IOException {
+        validateConfiguration(configuration);
+
+        ParentContext parentContext = new ParentContext();
+        List<LocalRepository> repositories = new ArrayList<>(cloneOrPullRepositories(configuration));
+        if (!repositories.contains(sourceRepository)) {
+            repositories.add(sourceRepository);
+        }
+        DependencyIndex index = DependencyIndex.load(configuration);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            ReleaseGraph graph = ReleaseGraph.build(configuration, repositories, index);
+            String root = sourceRepository.getFullName();
+            List<List<LocalRepository>> waves = graph.waves(root);
+            for (int i = 0; i < waves.size(); i++) {
+                configuration.info(LOG, "Release wave " + (i + 1) + ": " + describe(waves.get(i)));
+            }
+            new Release(configuration, graph, index, root, parentContext, new ExecutorCompletionService<>(executor)).run();
+        } finally {
+            executor.shutdownNow();
+            index.save();
+        }
+        return parentContext;
+    }
+
+    @Override
+    public void run(CommandContext context) throws IOException {
+        throw new IllegalArgumentException("This method should never be invoked!");
+    }
+
+    @Override
+    protected void validateConfiguration(Configuration configuration) throws IOException {
+        super.validateConfiguration(configuration);
+        PushSourceChanges rootPush = new PushSourceChanges();
+        rootPush.setCloneUrl(cloneUrl);
+        rootPush.setLocalRepositories(getLocalRepositories(configuration));
+        rootPush.setRepositoryConfig(getRepositoryConfig(configuration));
+        rootPush.validateConfiguration(configuration);
+        sourceRepository = rootPush.getSourceRepository();
+        if (sourceRepository == null) {
+            throw new IllegalArgumentException("Could not find the source repository " + rootPush.getCloneUrl());
+        }
+    }
+
+    private static String describe(List<LocalRepository> repositories) {
+        List<String> names = new ArrayList<>();
+        for (LocalRepository repository : repositories) {
+            names.add(repository.getFullName());
+        }
+        return String.join(", ", names);
+    }
+
+    /**
+     * The state of a single release as it flows through the graph
+     */
+    class Release {
+        private final Configuration configuration;
+        private final ReleaseGraph graph;
+        private final DependencyIndex index;
+        private final ParentContext parentContext;
+        private final CompletionService<List<CommandContext>> completionService;
+        private final Set<String> plan;
+        private final Map<String, Integer> waiting;
+        private final Set<String> released = new HashSet<>();
+        private final Set<String> started = new HashSet<>();
+        private final Map<Future<List<CommandContext>>, String> running = new HashMap<>();
+        private final Map<String, List<GHPullRequest>> pending = new LinkedHashMap<>();
+
+        Release(Configuration configuration, ReleaseGraph graph, DependencyIndex index, String root, ParentContext parentContext, CompletionService<List<CommandContext>> completionService) {
+            this.configuration = configuration;
+            this.graph = graph;
+            this.index = index;
+            this.parentContext = parentContext;
+            this.completionService = completionService;
+            this.plan = graph.findAllDownstream(root);
+            this.waiting = graph.countUpstream(root, plan);
+            this.released.add(root);
+            schedule(root);
+        }
+
+        public void run() throws IOException {
+            long end = System.currentTimeMillis() + loopTime;
+            while (!running.isEmpty() || !pending.isEmpty() || startFinalWave()) {
+                if (loopTime > 0 && System.currentTimeMillis() > end) {
+                    LOG.info("UpdateBot has reached the end of its loop time and is terminating with pending Pull Requests");
+                    for (Map.Entry<String, List<GHPullRequest>> entry : pending.entrySet()) {
+                        for (GHPullRequest pullRequest : entry.getValue()) {
+                            configuration.info(LOG, entry.getKey() + " is waiting for " + pullRequest.getHtmlUrl());
+                        }
+                    }
+                    return;
+                }
+                try {
+                    Future<List<CommandContext>> future = running.isEmpty() ? null : completionService.poll(pollTimeMillis, TimeUnit.MILLISECONDS);
+                    if (future != null) {
+                        pushed(running.remove(future), future);
+                        continue;
+                    }
+                    checkPullRequests();
+                    if (running.isEmpty() && !pending.isEmpty()) {
+                        Thread.sleep(pollTimeMillis);
+                    }
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            }
+            LOG.info("UpdateBot push-graph is complete!");
+        }
+
+        /**
+         * Starts pushing into each downstream repository which is no longer waiting for any upstream repository
+         */
+        protected void schedule(String name) {
+            for (String child : graph.getDownstream(name)) {
+                if (plan.contains(child) && waiting.merge(child, -1, Integer::sum) == 0) {
+                    start(child);
+                }
+            }
+        }
+
+        /**
+         * Starts the planned repositories which never stopped waiting for an upstream repository as they are in a
+         * dependency cycle or downstream of one, like the final wave of {@link ReleaseGraph#waves(String)}. Only the
+         * repositories with a released upstream repository are started so the rest can follow once they are released.
+         *
+         * @return true if any repositories were started
+         */
+        protected boolean startFinalWave() {
+            List<String> unstarted = new ArrayList<>();
+            List<String> wave = new ArrayList<>();
+            for (String name : plan) {
+                if (!started.contains(name)) {
+                    unstarted.add(name);
+                    if (hasReleasedUpstream(name)) {
+                        wave.add(name);
+                    }
+                }
+            }
+            if (unstarted.isEmpty()) {
+                return false;
+            }
+            if (wave.isEmpty()) {
+                LOG.warn("None of the upstream repositories of " + unstarted + " have been released so they are not updated");
+                return false;
+            }
+            configuration.info(LOG, "The repositories " + unstarted + " depend on each other so releasing " + wave + " in a final wave");
+            for (String name : wave) {
+                start(name);
+            }
+            return true;
+        }
+
+        protected boolean hasReleasedUpstream(String name) {
+            for (String upstream : graph.getUpstream(name)) {
+                if (released.contains(upstream)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        protected void start(String name) {
+            if (!started.add(name)) {
+                return;
+            }
+            List<LocalRepository> sources = new ArrayList<>();
+            for (String upstream : graph.getUpstream(name)) {
+                if (released.contains(upstream)) {
+                    sources.add(graph.getRepository(upstream));
+                }
+            }
+            if (sources.isEmpty()) {
+                LOG.debug("No upstream repositories of " + name + " have been released");
+                schedule(name);
+                return;
+            }
+            LocalRepository target = graph.getRepository(name);
+            Future<List<CommandContext>> future = completionService.submit(() -> push(target, sources));
+            running.put(future, name);
+        }
+
+        /**
+         * Pushes the changes from each of the released upstream repositories into the target repository
+         */
+        protected List<CommandContext> push(LocalRepository target, List<LocalRepository> sources) throws IOException {
+            List<CommandContext> answer = new ArrayList<>();
+            try {
+                for (LocalRepository source : sources) {
+                    PushSourceChanges command = new PushSourceChanges(source);
+                    command.setLocalRepositories(getLocalRepositories(configuration));
+                    command.setRepositoryConfig(getRepositoryConfig(configuration));
+                    command.setDependencyIndex(index);
+                    CommandContext context = command.createCommandContext(target, configuration);
+                    command.run(context);
+                    answer.add(context);
+                }
+            } finally {
+                GitHubHelpers.releaseGitHubRepository(target);
+            }
+            return answer;
+        }
+
+        protected void pushed(String name, Future<List<CommandContext>> future) throws InterruptedException {
+            List<GHPullRequest> pullRequests = new ArrayList<>();
+            try {
+                for (CommandContext context : future.get()) {
+                    parentContext.addChild(context);
+                    GHPullRequest pullRequest = context.getPullRequest();
+                    if (pullRequest != null) {
+                        pullRequests.add(pullRequest);
+                    }
+                }
+            } catch (ExecutionException e) {
+                LOG.warn("Failed to push changes into " + name + ". " + e.getCause(), e.getCause());
+            }
+            if (pullRequests.isEmpty()) {
+                schedule(name);
+            } else {
+                pending.put(name, pullRequests);
+            }
+        }
+
+        /**
+         * Releases each repository whose Pull Requests have all merged so its downstream repositories can start
+         */
+        protected void checkPullRequests() throws IOException {
+            Iterator<Map.Entry<String, List<GHPullRequest>>> iter = pending.entrySet().iterator();
+            while (iter.hasNext()) {
+                Map.Entry<String, List<GHPullRequest>> entry = iter.next();
+                String name = entry.getKey();
+                boolean merged = true;
+                boolean closed = false;
+                for (GHPullRequest pullRequest : entry.getValue()) {
+                    refresh(pullRequest);
+                    if (!pullRequest.isMerged()) {
+                        merged = false;
+                        if (pullRequest.getState() == GHIssueState.CLOSED) {
+                            closed = true;
+                            LOG.warn("Pull Request " + pullRequest.getHtmlUrl() + " was closed without merging so " + name + " is not released");
+                        }
+                    }
+                }
+                if (merged || closed) {
+                    iter.remove();
+                    if (merged) {
+                        configuration.info(LOG, "Released " + name);
+                        released.add(name);
+                        pullReleasedRepository(graph.getRepository(name));
+                    }
+                    schedule(name);
+                }
+            }
+        }
+
+        protected void refresh(GHPullRequest pullRequest) throws IOException {
+            pullRequest.refresh();
+        }
+
+        /**
+         * Pulls the merged changes of a released repository so that they are pushed into its downstream repositories
+         */
+        protected void pullReleasedRepository(LocalRepository repository) throws IOException {
+            Repositories.cloneOrPullRepository(configuration, repository);
+        }
+    }
+}
@@ -57,10 +57,19 @@ public class PushSourceChanges extends ModifyFilesCommandSupport {
     private String cloneUrl;
 
     private LocalRepository sourceRepository;
+    private List<DependencyVersionChange> sourceChanges;
 
     public PushSourceChanges() {
     }
 
+    /**
+     * Creates a command to push the changes from a repository which has already been cloned
+     */
+    public PushSourceChanges(LocalRepository sourceRepository) {
+        this.sourceRepository = sourceRepository;
+        this.cloneUrl = sourceRepository.getCloneUrl();
+    }
+
     public String getRef() {
         return ref;
     }
@@ -98,7 +107,7 @@ public class PushSourceChanges extends ModifyFilesCommandSupport {
             LOG.debug("Ignoring repository " + repository.getCloneUrl() + " as this is the source repository!");
             return false;
         }
-        List<DependencyVersionChange> steps = loadVersionChangesFromSource(context);
+        List<DependencyVersionChange> steps = getSourceChanges(context);
         String sourceFullName = getRepositoryFullName();
         LocalRepository sourceRepository = getSourceRepository();
         if (sourceRepository != null) {
@@ -179,16 +188,40 @@ public class PushSourceChanges extends ModifyFilesCommandSupport {
         return sourceRepository;
     }
 
+    @Override
+    protected List<DependencyVersionChange> getIndexedChanges(CommandContext context) throws IOException {
+        return getSourceChanges(context);
+    }
+
+    /**
+     * Returns the version changes from the source repository which are loaded once and pushed into every repository
+     */
+    protected synchronized List<DependencyVersionChange> getSourceChanges(CommandContext context) throws IOException {
+        if (sourceChanges == null) {
+            sourceChanges = loadVersionChangesFromSource(context);
+        }
+        return sourceChanges;
+    }
+
     protected List<DependencyVersionChange> loadVersionChangesFromSource(CommandContext context) throws IOException {
-        Configuration configuration = context.getConfiguration();
-        List<DependencyVersionChange> list = new ArrayList<>();
         if (sourceRepository == null) {
             context.warn(LOG, "No source repository for " + context.getDir());
-            return list;
+            return new ArrayList<>();
         }
+        if (sourceRepository.getRepo() == null) {
+            context.warn(LOG, "No git repo for " + sourceRepository + " " + context.getDir());
+            return new ArrayList<>();
+        }
+        return loadVersionChangesFromSource(context.getConfiguration(), sourceRepository);
+    }
+
+    /**
+     * Returns the version changes exported by the source code of the given repository
+     */
+    public static List<DependencyVersionChange> loadVersionChangesFromSource(Configuration configuration, LocalRepository sourceRepository) throws IOException {
+        List<DependencyVersionChange> list = new ArrayList<>();
         GitRepository repo = sourceRepository.getRepo();
         if (repo == null) {
-            context.warn(LOG, "No git repo for " + sourceRepository + " " + context.getDir());
             return list;
         }
         GitRepositoryConfig repositoryDetails = repo.getRepositoryDetails();
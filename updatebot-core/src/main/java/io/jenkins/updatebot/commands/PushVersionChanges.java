@@ -28,6 +28,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -107,6 +108,22 @@ public class PushVersionChanges extends ModifyFilesCommandSupport {
         return answer;
     }
 
+    @Override
+    protected List<DependencyVersionChange> getIndexedChanges(CommandContext context) {
+        return getChanges();
+    }
+
+    /**
+     * Returns the version changes of the property name and value pairs
+     */
+    public List<DependencyVersionChange> getChanges() {
+        List<DependencyVersionChange> answer = new ArrayList<>();
+        for (int i = 0; i + 1 < values.size(); i += 2) {
+            answer.add(createDependencyVersionChange(i));
+        }
+        return answer;
+    }
+
     protected DependencyVersionChange createDependencyVersionChange(int i) {
         String propertyName = values.get(i);
         String version = values.get(i + 1);
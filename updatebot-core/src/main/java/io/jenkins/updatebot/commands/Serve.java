@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.commands;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import io.jenkins.updatebot.CommandNames;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.server.JobQueue;
+import io.jenkins.updatebot.server.UpdateBotServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs UpdateBot as a long running process which accepts commands over a local HTTP API
+ * so that pipelines do not pay for starting UpdateBot and warming its caches on every command
+ */
+@Parameters(commandNames = CommandNames.SERVE, commandDescription = "Runs a local HTTP server which queues push, push-version, push-regex, update and promote commands")
+public class Serve extends CommandSupport {
+    private static final transient Logger LOG = LoggerFactory.getLogger(Serve.class);
+
+    @Parameter(names = "--host", description = "The host name or address to listen on", arity = 1)
+    private String host = "localhost";
+
+    @Parameter(names = "--port", description = "The port to listen on", arity = 1)
+    private int port = 8085;
+
+    @Parameter(names = "--job-history", description = "The number of finished jobs to remember", arity = 1)
+    private int jobHistory = 100;
+
+    @Parameter(names = "--coalesce-window-ms", description = "If greater than zero the push and push-version commands received within this window " +
+            "are combined into a single commit and Pull Request update per repository", arity = 1)
+    private long coalesceWindowMillis;
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public long getCoalesceWindowMillis() {
+        return coalesceWindowMillis;
+    }
+
+    public void setCoalesceWindowMillis(long coalesceWindowMillis) {
+        this.coalesceWindowMillis = coalesceWindowMillis;
+    }
+
+    @Override
+    public ParentContext run(Configuration configuration) throws IOException {
+        validateConfiguration(configuration);
+
+        UpdateBotServer server = new UpdateBotServer(new JobQueue(configuration, jobHistory, coalesceWindowMillis), host, port);
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            stopped.countDown();
+        }));
+        server.start();
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            LOG.info("UpdateBot server interrupted");
+            server.stop();
+        }
+        return new ParentContext();
+    }
+
+    @Override
+    public void run(CommandContext context) throws IOException {
+        throw new IllegalArgumentException("This method should never be invoked!");
+    }
+}
@@ -28,36 +28,53 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
- * Represents the status of a repository
+ * Represents the status of a repository using only the numbers, URLs and states of its issue and pull request
+ * so that the update loop does not retain any GitHub objects between polls
  */
 public class StatusInfo {
     private static final transient Logger LOG = LoggerFactory.getLogger(StatusInfo.class);
 
-    private final LocalRepository repository;
-    private final Status status;
-    private final GHIssue issue;
-    private final GHPullRequest pullRequest;
+    private static final int MAX_THREADS = 4;
+
+    private final String fullName;
     private final String cloneUrl;
+    private final Status status;
+    private final int issueNumber;
+    private final String issueUrl;
     private final GHIssueState issueState;
+    private final int pullRequestNumber;
+    private final String pullRequestUrl;
     private final GHIssueState pullRequestState;
-    private String issueUrl;
-    private String pullRequestUrl;
+    private final String headSha;
 
     public StatusInfo(LocalRepository repository, Status status, GHIssue issue, GHPullRequest pullRequest) {
-        this.repository = repository;
-        this.issue = issue;
-        this.pullRequest = pullRequest;
-        this.issueUrl = (issue != null) ? Strings.toString(issue.getHtmlUrl()) : null;
-        this.pullRequestUrl = (pullRequest != null) ? Strings.toString(pullRequest.getHtmlUrl()) : null;
-        this.cloneUrl = repository.getCloneUrl();
-        this.issueState = state(issue);
-        this.pullRequestState = state(pullRequest);
+        this(repository.getFullName(), repository.getCloneUrl(), status,
+                issue != null ? issue.getNumber() : 0, (issue != null) ? Strings.toString(issue.getHtmlUrl()) : null, state(issue),
+                pullRequest != null ? pullRequest.getNumber() : 0, (pullRequest != null) ? Strings.toString(pullRequest.getHtmlUrl()) : null, state(pullRequest),
+                headSha(pullRequest));
+    }
+
+    protected StatusInfo(String fullName, String cloneUrl, Status status, int issueNumber, String issueUrl, GHIssueState issueState,
+                         int pullRequestNumber, String pullRequestUrl, GHIssueState pullRequestState, String headSha) {
+        this.fullName = fullName;
+        this.cloneUrl = cloneUrl;
+        this.issueNumber = issueNumber;
+        this.issueUrl = issueUrl;
+        this.issueState = issueState;
+        this.pullRequestNumber = pullRequestNumber;
+        this.pullRequestUrl = pullRequestUrl;
+        this.pullRequestState = pullRequestState;
+        this.headSha = headSha;
         if (nullOrClosed(issueState) && nullOrClosed(pullRequestState) && status.equals(Status.PENDING)) {
             status = Status.COMPLETE;
         }
@@ -94,68 +111,103 @@ public class StatusInfo {
         return null;
     }
 
+    protected static String headSha(GHPullRequest pullRequest) {
+        if (pullRequest != null && pullRequest.getHead() != null) {
+            return pullRequest.getHead().getSha();
+        }
+        return null;
+    }
+
     /**
-     * Lets return the current status by combining the old and new status maps to handle new maps
-     * not including links to old pending issues or pull requests that are now closed
+     * Returns true if the status of a repository has changed between two polls
      */
-    public static Map<String, StatusInfo> changedStatuses(Configuration configuration, Map<String, StatusInfo> oldMap, Map<String, StatusInfo> newMap) {
-        Set<String> allKeys = new LinkedHashSet(oldMap.keySet());
-        allKeys.addAll(newMap.keySet());
-        Map<String, StatusInfo> answer = new LinkedHashMap<>();
-        for (String key : allKeys) {
-            StatusInfo status = changedStatus(configuration, oldMap.get(key), newMap.get(key));
-            if (status != null) {
-                answer.put(key, status);
-            }
+    protected static boolean isChanged(StatusInfo oldStatus, StatusInfo newStatus) {
+        if (newStatus == null) {
+            return false;
         }
-        return answer;
+        if (oldStatus != null && oldStatus.equalStatus(newStatus)) {
+            return false;
+        }
+        if (oldStatus != null) {
+            LOG.info("Status changed for " + oldStatus + " " + newStatus);
+        }
+        return true;
     }
 
-    private static StatusInfo changedStatus(Configuration configuration, StatusInfo oldStatus, StatusInfo newStatus) {
-        if (oldStatus == null) {
-            return newStatus;
-        } else {
-            if (newStatus == null) {
-                return null;
-            }
-            if (oldStatus.equalStatus(newStatus)) {
-                return null;
+    /**
+     * Returns true if the new status no longer links to the issue or pull request of the old status. This usually
+     * happens when they close as they no longer appear in searches for open issues or pull requests so the old ones
+     * have to be looked up again
+     */
+    protected static boolean needsRefresh(StatusInfo oldStatus, StatusInfo newStatus) {
+        return oldStatus != null && newStatus.getIssueUrl() == null && newStatus.getPullRequestUrl() == null &&
+                (oldStatus.getIssueNumber() > 0 || oldStatus.getPullRequestNumber() > 0);
+    }
+
+    /**
+     * Looks up the current state of the issues and pull requests of the given statuses. Each GitHub repository
+     * is looked up once for all of its statuses and different repositories are looked up concurrently
+     */
+    protected static List<StatusInfo> refreshStatuses(Configuration configuration, List<StatusInfo> statuses) {
+        List<StatusInfo> answer = new ArrayList<>();
+        if (statuses.isEmpty()) {
+            return answer;
+        }
+        Map<String, List<StatusInfo>> repositories = new LinkedHashMap<>();
+        for (StatusInfo status : statuses) {
+            repositories.computeIfAbsent(status.getFullName(), k -> new ArrayList<>()).add(status);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_THREADS, repositories.size()));
+        try {
+            List<Future<List<StatusInfo>>> futures = new ArrayList<>();
+            for (Map.Entry<String, List<StatusInfo>> entry : repositories.entrySet()) {
+                futures.add(executor.submit(() -> refreshRepositoryStatuses(configuration, entry.getKey(), entry.getValue())));
             }
-            LOG.info("Status changed for " + oldStatus + " " + newStatus);
-            // lets use the status which has the issue/pull request which is usually the old one
-            // as when things close they don't appear in searches for open issues/PRs
-            if (newStatus.getIssueUrl() != null || newStatus.getPullRequestUrl() != null) {
-                LOG.info("new status has PR " + newStatus);
-                return newStatus;
-            } else {
-                return StatusInfo.createStatus(configuration, oldStatus);
+            for (Future<List<StatusInfo>> future : futures) {
+                answer.addAll(future.get());
             }
+        } catch (InterruptedException e) {
+            // ignore
+        } catch (ExecutionException e) {
+            configuration.warn(LOG, "Failed to lookup statuses. " + e.getCause(), e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
+        return answer;
     }
 
-    private static StatusInfo createStatus(Configuration configuration, StatusInfo oldStatus) {
-        GHRepository repository = null;
-        GHIssue issue = oldStatus.getIssue();
-        if (issue != null) {
-            repository = issue.getRepository();
-            try {
-                issue = repository.getIssue(issue.getNumber());
-            } catch (IOException e) {
-                configuration.warn(LOG, "Failed to lookup issue " + oldStatus.getIssueUrl() + ". " + e, e);
-            }
+    private static List<StatusInfo> refreshRepositoryStatuses(Configuration configuration, String fullName, List<StatusInfo> statuses) {
+        List<StatusInfo> answer = new ArrayList<>();
+        GHRepository repository;
+        try {
+            repository = configuration.getGithub().getRepository(fullName);
+        } catch (IOException e) {
+            configuration.warn(LOG, "Failed to lookup repository " + fullName + ". " + e, e);
+            return answer;
         }
-        GHPullRequest pullRequest = oldStatus.getPullRequest();
-        if (pullRequest != null) {
-            if (repository == null) {
-                repository = pullRequest.getRepository();
+        for (StatusInfo oldStatus : statuses) {
+            GHIssueState issueState = oldStatus.getIssueState();
+            if (oldStatus.getIssueNumber() > 0) {
+                try {
+                    issueState = repository.getIssue(oldStatus.getIssueNumber()).getState();
+                } catch (IOException e) {
+                    configuration.warn(LOG, "Failed to lookup issue " + oldStatus.getIssueUrl() + ". " + e, e);
+                }
             }
-            try {
-                pullRequest = repository.getPullRequest(pullRequest.getNumber());
-            } catch (IOException e) {
-                configuration.warn(LOG, "Failed to lookup pull request " + oldStatus.getPullRequestUrl() + ". " + e, e);
+            GHIssueState pullRequestState = oldStatus.getPullRequestState();
+            if (oldStatus.getPullRequestNumber() > 0) {
+                try {
+                    // the issues API returns the state of pull requests too without loading the pull request
+                    pullRequestState = repository.getIssue(oldStatus.getPullRequestNumber()).getState();
+                } catch (IOException e) {
+                    configuration.warn(LOG, "Failed to lookup pull request " + oldStatus.getPullRequestUrl() + ". " + e, e);
+                }
             }
+            answer.add(new StatusInfo(oldStatus.getFullName(), oldStatus.getCloneUrl(), oldStatus.getStatus(),
+                    oldStatus.getIssueNumber(), oldStatus.getIssueUrl(), issueState,
+                    oldStatus.getPullRequestNumber(), oldStatus.getPullRequestUrl(), pullRequestState, oldStatus.getHeadSha()));
         }
-        return new StatusInfo(oldStatus.getRepository(), oldStatus.getStatus(), issue, pullRequest);
+        return answer;
     }
 
     @Override
@@ -186,24 +238,24 @@ public class StatusInfo {
         return status.equals(Status.PENDING);
     }
 
-    public LocalRepository getRepository() {
-        return repository;
-    }
-
     public Status getStatus() {
         return status;
     }
 
-    public GHIssue getIssue() {
-        return issue;
+    public String getFullName() {
+        return fullName;
     }
 
-    public GHPullRequest getPullRequest() {
-        return pullRequest;
+    public int getIssueNumber() {
+        return issueNumber;
     }
 
-    public String getFullName() {
-        return getRepository().getFullName();
+    public int getPullRequestNumber() {
+        return pullRequestNumber;
+    }
+
+    public String getHeadSha() {
+        return headSha;
     }
 
     public String getCloneUrl() {
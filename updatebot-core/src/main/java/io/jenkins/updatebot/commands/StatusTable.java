@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.commands;
+
+import io.jenkins.updatebot.Configuration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The latest {@link StatusInfo} of each repository polled by the update loop.
+ *
+ * Each clone URL is given a small integer id the first time it is seen and the statuses are stored in an array
+ * indexed by that id so that each poll overwrites the previous statuses in place rather than building new maps.
+ */
+public class StatusTable {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private StatusInfo[] statuses = new StatusInfo[16];
+    private final BitSet present = new BitSet();
+
+    /**
+     * Replaces the statuses with those of the given command contexts returning the statuses which have changed
+     * since the previous poll. Repositories which are no longer polled are removed.
+     */
+    public List<StatusInfo> update(Configuration configuration, List<CommandContext> contexts) {
+        boolean first = present.isEmpty();
+        BitSet polled = new BitSet(ids.size());
+        List<StatusInfo> answer = new ArrayList<>();
+        List<StatusInfo> closed = new ArrayList<>();
+        for (CommandContext context : contexts) {
+            StatusInfo newStatus = context.createStatusInfo();
+            int id = id(newStatus.getCloneUrl());
+            StatusInfo oldStatus = present.get(id) ? statuses[id] : null;
+            if (first || StatusInfo.isChanged(oldStatus, newStatus)) {
+                if (!first && StatusInfo.needsRefresh(oldStatus, newStatus)) {
+                    closed.add(oldStatus);
+                } else {
+                    answer.add(newStatus);
+                }
+            }
+            statuses[id] = newStatus;
+            polled.set(id);
+        }
+        // clear the repositories which were not polled this time
+        for (int id = present.nextSetBit(0); id >= 0; id = present.nextSetBit(id + 1)) {
+            if (!polled.get(id)) {
+                statuses[id] = null;
+            }
+        }
+        present.clear();
+        present.or(polled);
+        answer.addAll(refreshStatuses(configuration, closed));
+        return answer;
+    }
+
+    /**
+     * Returns true if any repository has a pending status
+     */
+    public boolean isPending() {
+        for (int id = present.nextSetBit(0); id >= 0; id = present.nextSetBit(id + 1)) {
+            if (statuses[id].isPending()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the current statuses in the order the repositories were first polled
+     */
+    public List<StatusInfo> getStatuses() {
+        List<StatusInfo> answer = new ArrayList<>(present.cardinality());
+        for (int id = present.nextSetBit(0); id >= 0; id = present.nextSetBit(id + 1)) {
+            answer.add(statuses[id]);
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the current statuses indexed by clone URL
+     */
+    public Map<String, StatusInfo> toMap() {
+        Map<String, StatusInfo> answer = new LinkedHashMap<>();
+        for (StatusInfo status : getStatuses()) {
+            answer.put(status.getCloneUrl(), status);
+        }
+        return answer;
+    }
+
+    /**
+     * Looks up the current state of the issues and pull requests which are no longer linked from the new statuses
+     */
+    protected List<StatusInfo> refreshStatuses(Configuration configuration, List<StatusInfo> statuses) {
+        return StatusInfo.refreshStatuses(configuration, statuses);
+    }
+
+    public int size() {
+        return present.cardinality();
+    }
+
+    protected int id(String cloneUrl) {
+        Integer answer = ids.get(cloneUrl);
+        if (answer == null) {
+            answer = ids.size();
+            ids.put(cloneUrl, answer);
+            if (answer >= statuses.length) {
+                statuses = Arrays.copyOf(statuses, statuses.length * 2);
+            }
+        }
+        return answer;
+    }
+}
@@ -19,23 +19,19 @@ import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
 import io.jenkins.updatebot.CommandNames;
 import io.jenkins.updatebot.Configuration;
-import io.jenkins.updatebot.model.GitHubProjects;
 import io.jenkins.updatebot.model.RepositoryConfig;
 import io.jenkins.updatebot.support.Systems;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.Collection;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 
 import static io.jenkins.updatebot.EnvironmentVariables.POLL_PERIOD;
 import static io.jenkins.updatebot.EnvironmentVariables.POLL_TIMEOUT;
 import static io.jenkins.updatebot.EnvironmentVariables.MERGE;
 import static io.jenkins.updatebot.EnvironmentVariables.CHECK_PR_STATUS;
-import static io.jenkins.updatebot.commands.StatusInfo.isPending;
+import static io.jenkins.updatebot.EnvironmentVariables.MERGE_TRAIN;
 
 /**
  * A loop to keep updating Pull Requests until they all merge
@@ -50,6 +46,10 @@ public class UpdatePullRequestLoop extends CommandSupport {
     @Parameter(names = "--check-pr-status", description = "Whether we should check the status of Pull Requests before merging them", arity = 1)
     private boolean checkPrStatus = Systems.isConfigBoolean(CHECK_PR_STATUS,true);
 
+    @Parameter(names = "--merge-train", description = "Whether we should combine the open version change Pull Requests of a repository into a single merge train Pull Request " +
+            "so that CI runs once for all of them", arity = 1)
+    private boolean mergeTrain = Systems.isConfigBoolean(MERGE_TRAIN, false);
+
     @Parameter(names = "--poll-time-ms", description = "The poll period", arity = 1)
     private long pollTimeMillis = Systems.getConfigLongValue(POLL_PERIOD, 2 * 60 * 1000);
 
@@ -67,46 +67,33 @@ public class UpdatePullRequestLoop extends CommandSupport {
 
         UpdatePullRequests updatePullRequests = createUpdatePullRequestsCommand();
 
-        Map<String, StatusInfo> lastStatusMap = new LinkedHashMap();
+        StatusTable statuses = new StatusTable();
         long start = System.currentTimeMillis();
         long end = start + loopTime;
         while (true) {
-            Map<String, StatusInfo> currentStatusMap = new LinkedHashMap();
-
-            ParentContext context = updatePullRequests.run(configuration);
-            List<CommandContext> children = context.getChildren();
-            for (CommandContext child : children) {
-                StatusInfo status = child.createStatusInfo();
-                currentStatusMap.put(status.getCloneUrl(), status);
-            }
-
-            // lets get the previous state and compare them then log the differences
-            Collection<StatusInfo> changes;
+            // lets compare the new statuses with the previous ones then log the differences
             boolean logBlankLineAfter = false;
-            if (lastStatusMap.isEmpty() && !currentStatusMap.isEmpty()) {
-                changes = currentStatusMap.values();
+            List<CommandContext> children = updatePullRequests.run(configuration).getChildren();
+            if (statuses.size() == 0 && !children.isEmpty()) {
                 configuration.info(LOG, "");
                 configuration.info(LOG, "");
                 logBlankLineAfter = true;
-            } else {
-                changes = StatusInfo.changedStatuses(configuration, lastStatusMap, currentStatusMap).values();
             }
-            for (StatusInfo change : changes) {
+            for (StatusInfo change : statuses.update(configuration, children)) {
                 configuration.info(LOG, change.description(configuration));
             }
             if (logBlankLineAfter) {
                 configuration.info(LOG, "");
             }
-            lastStatusMap = currentStatusMap;
 
-            if (!isPending(lastStatusMap)) {
+            if (!statuses.isPending()) {
                 LOG.info("UpdateBot update-loop is complete!");
                 return parentContext;
             }
 
             if (loopTime > 0 && System.currentTimeMillis() > end) {
                 LOG.info("UpdateBot has reached the end of its loop time and is terminating with pending Pull Requests");
-                for (StatusInfo statusInfo : currentStatusMap.values()) {
+                for (StatusInfo statusInfo : statuses.getStatuses()) {
                     if (statusInfo.isPending()) {
                         configuration.info(LOG, statusInfo.description(configuration));
                     }
@@ -139,6 +126,7 @@ public class UpdatePullRequestLoop extends CommandSupport {
         UpdatePullRequests answer = new UpdatePullRequests();
         answer.setMergeOnSuccess(mergeOnSuccess);
         answer.setCheckPrStatus(checkPrStatus);
+        answer.setMergeTrain(mergeTrain);
         return answer;
     }
 
@@ -20,14 +20,17 @@ import com.beust.jcommander.Parameters;
 import io.jenkins.updatebot.CommandNames;
 import io.jenkins.updatebot.Configuration;
 import io.jenkins.updatebot.UpdateBot;
+import io.jenkins.updatebot.github.CommitStatusCache;
 import io.jenkins.updatebot.github.GitHubHelpers;
+import io.jenkins.updatebot.github.Metadata;
 import io.jenkins.updatebot.github.PullRequests;
+import io.jenkins.updatebot.model.PullRequestState;
+import io.jenkins.updatebot.model.UpdateBotMetadata;
 import io.jenkins.updatebot.support.Markdown;
 import io.jenkins.updatebot.support.Strings;
 import io.fabric8.utils.Objects;
 import io.jenkins.updatebot.support.Systems;
 import org.kohsuke.github.GHCommitState;
-import org.kohsuke.github.GHCommitStatus;
 import org.kohsuke.github.GHIssue;
 import org.kohsuke.github.GHIssueComment;
 import org.kohsuke.github.GHPullRequest;
@@ -44,7 +47,7 @@ import static io.jenkins.updatebot.EnvironmentVariables.CHECK_PR_STATUS;
 import static io.jenkins.updatebot.EnvironmentVariables.DELETE_MERGED_BRANCHES;
 import static io.jenkins.updatebot.EnvironmentVariables.MERGE;
 import static io.jenkins.updatebot.EnvironmentVariables.MERGE_METHOD;
-import static io.jenkins.updatebot.github.GitHubHelpers.getLastCommitStatus;
+import static io.jenkins.updatebot.EnvironmentVariables.MERGE_TRAIN;
 import static io.jenkins.updatebot.github.Issues.getLabels;
 import static io.jenkins.updatebot.github.Issues.isOpen;
 import static io.jenkins.updatebot.support.Markdown.UPDATEBOT;
@@ -68,6 +71,12 @@ public class UpdatePullRequests extends CommandSupport {
     @Parameter(names = "--merge-method", description = "merge, rebase or squash. Default is merge", arity = 1)
     private String mergeMethod = Systems.getConfigValue(MERGE_METHOD,"merge");
 
+    @Parameter(names = "--merge-train", description = "Whether we should combine the open version change Pull Requests of a repository into a single merge train Pull Request " +
+            "so that CI runs once for all of them. Requires --merge and --check-pr-status", arity = 1)
+    private boolean mergeTrain = Systems.isConfigBoolean(MERGE_TRAIN, false);
+
+    private boolean mergeTrainWarned;
+
     public boolean isMergeOnSuccess() {
         return mergeOnSuccess;
     }
@@ -100,6 +109,14 @@ public class UpdatePullRequests extends CommandSupport {
         this.mergeMethod = mergeMethod;
     }
 
+    public boolean isMergeTrain() {
+        return mergeTrain;
+    }
+
+    public void setMergeTrain(boolean mergeTrain) {
+        this.mergeTrain = mergeTrain;
+    }
+
     @Override
     public void run(CommandContext context) throws IOException {
         Status contextStatus = Status.COMPLETE;
@@ -114,6 +131,17 @@ public class UpdatePullRequests extends CommandSupport {
             }
 
             List<GHPullRequest> pullRequests = PullRequests.getOpenPullRequests(ghRepository, context.getConfiguration());
+            if (mergeTrain && !(mergeOnSuccess && checkPrStatus) && !mergeTrainWarned) {
+                context.warn(LOG, "Ignoring --merge-train as it requires both --merge and --check-pr-status to be true");
+                mergeTrainWarned = true;
+            }
+            if (mergeTrain && mergeOnSuccess && checkPrStatus) {
+                MergeTrain train = new MergeTrain(this);
+                pullRequests = train.process(context, ghRepository, pullRequests);
+                if (train.isPending()) {
+                    contextStatus = Status.PENDING;
+                }
+            }
             for (GHPullRequest pullRequest : pullRequests) {
                 Configuration configuration = context.getConfiguration();
                 if (GitHubHelpers.hasLabel(getLabels(pullRequest), configuration.getGithubPullRequestLabel())) {
@@ -129,14 +157,12 @@ public class UpdatePullRequests extends CommandSupport {
 
                     if (mergeOnSuccess && checkPrStatus) {
                         try {
-                            GHCommitStatus status = getLastCommitStatus(ghRepository, pullRequest);
-                            ghRepository.getLastCommitStatus(pullRequest.getHead().getSha());
-                            if (status != null) {
-                                GHCommitState state = status.getState();
-                                if (state != null && state.equals(GHCommitState.SUCCESS) && GitHubHelpers.checkCommitStatus(ghRepository,pullRequest,GHCommitState.SUCCESS)) {
-                                    String message = Markdown.UPDATEBOT_ICON + " merging this pull request as its CI was successful";
-                                    mergePr(pullRequest, message);
-                                }
+                            CommitStatusCache statusCache = configuration.getCommitStatusCache();
+                            GHCommitState state = statusCache.getState(ghRepository, pullRequest);
+                            if (GHCommitState.SUCCESS.equals(state)) {
+                                String message = Markdown.UPDATEBOT_ICON + " merging this pull request as its CI was successful";
+                                mergePr(context, pullRequest, message);
+                                statusCache.remove(Strings.toString(pullRequest.getUrl()));
                             }
                         } catch (IOException e) {
                             context.warn(LOG, "Failed to find last commit status for PR " + pullRequest.getHtmlUrl() + " " + e, e);
@@ -147,7 +173,7 @@ public class UpdatePullRequests extends CommandSupport {
                     if (!checkPrStatus) {
                         try {
                             String message = Markdown.UPDATEBOT_ICON + " merging this pull request - checks on PR status were skipped";
-                            mergePr(pullRequest,message);
+                            mergePr(context, pullRequest, message);
                         } catch (IOException e) {
                             context.warn(LOG, "Failed to merge PR " + pullRequest.getHtmlUrl() + " " + e, e);
                         }
@@ -161,6 +187,14 @@ public class UpdatePullRequests extends CommandSupport {
         context.setStatus(contextStatus);
     }
 
+    /**
+     * Merges the Pull Request and removes it from the state store
+     */
+    public void mergePr(CommandContext context, GHPullRequest pullRequest, String message) throws IOException {
+        mergePr(pullRequest, message);
+        removeStoredPullRequest(context, pullRequest.getNumber());
+    }
+
     public void mergePr(GHPullRequest pullRequest, String message) throws IOException {
         //match merge method to enum, case insensitive
         GHPullRequest.MergeMethod gitMergeMethod = Arrays.stream(GHPullRequest.MergeMethod.values())
@@ -176,6 +210,29 @@ public class UpdatePullRequests extends CommandSupport {
      * Lets load the old command context from comments on the PullRequest so that we can re-run a command to rebase things.
      */
     protected CompositeCommand loadCommandsFromPullRequest(CommandContext context, GHRepository ghRepository, GHPullRequest pullRequest) throws IOException {
+        String lastCommand = loadLastCommand(context, pullRequest);
+        if (lastCommand == null) {
+            context.warn(LOG, "No UpdateBot comment found on pull request " + pullRequest.getHtmlUrl() + " so cannot rebase!");
+            return null;
+        }
+        return parseUpdateBotCommandComment(context, lastCommand);
+    }
+
+    /**
+     * Returns the last UpdateBot command from the state store if the Pull Request has not been pushed to since it
+     * was recorded, otherwise from the metadata in the body of the Pull Request falling back to its comments
+     */
+    protected String loadLastCommand(CommandContext context, GHPullRequest pullRequest) throws IOException {
+        PullRequestState state = getStoredPullRequest(context, pullRequest);
+        String headSha = pullRequest.getHead().getSha();
+        if (state != null && state.getCommand() != null && Objects.equal(state.getHeadSha(), headSha)) {
+            return state.getCommand();
+        }
+        UpdateBotMetadata metadata = Metadata.parse(pullRequest.getBody());
+        if (metadata != null && metadata.getCommand() != null) {
+            updateStoredPullRequest(context, pullRequest, metadata.getCommand(), headSha);
+            return metadata.getCommand();
+        }
         List<GHIssueComment> comments = pullRequest.getComments();
         String lastCommand = null;
         for (GHIssueComment comment : comments) {
@@ -184,11 +241,10 @@ public class UpdatePullRequests extends CommandSupport {
                 lastCommand = command;
             }
         }
-        if (lastCommand == null) {
-            context.warn(LOG, "No UpdateBot comment found on pull request " + pullRequest.getHtmlUrl() + " so cannot rebase!");
-            return null;
+        if (lastCommand != null) {
+            updateStoredPullRequest(context, pullRequest, lastCommand, headSha);
         }
-        return parseUpdateBotCommandComment(context, lastCommand);
+        return lastCommand;
     }
 
     public CompositeCommand parseUpdateBotCommandComment(CommandContext context, String fullCommand) {
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.git;
+
+import io.fabric8.utils.IOHelpers;
+import io.fabric8.utils.Objects;
+import io.jenkins.updatebot.support.Strings;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The name and email used for the commits made by UpdateBot
+ */
+public final class GitIdentity {
+    private final String name;
+    private final String email;
+
+    public GitIdentity(String name, String email) {
+        this.name = name;
+        this.email = email;
+    }
+
+    /**
+     * Reads the <code>user.name</code> and <code>user.email</code> from the <code>.git/config</code> file of the
+     * given directory without running git
+     */
+    public static GitIdentity readRepositoryIdentity(File dir) throws IOException {
+        File file = new File(dir, ".git/config");
+        if (!file.isFile()) {
+            return new GitIdentity(null, null);
+        }
+        String name = null;
+        String email = null;
+        boolean userSection = false;
+        List<String> lines = IOHelpers.readLines(file);
+        for (String line : lines) {
+            String text = line.trim();
+            if (text.startsWith("[")) {
+                userSection = text.equalsIgnoreCase("[user]");
+            } else if (userSection) {
+                int idx = text.indexOf('=');
+                if (idx > 0) {
+                    String key = text.substring(0, idx).trim();
+                    String value = text.substring(idx + 1).trim();
+                    if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+                        value = value.substring(1, value.length() - 1);
+                    }
+                    if (key.equalsIgnoreCase("name")) {
+                        name = value;
+                    } else if (key.equalsIgnoreCase("email")) {
+                        email = value;
+                    }
+                }
+            }
+        }
+        return new GitIdentity(name, email);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * Returns the environment variables which make git use this identity for the author and committer of a commit
+     */
+    public Map<String, String> getEnvironmentVariables() {
+        Map<String, String> answer = new HashMap<>();
+        if (Strings.notEmpty(name)) {
+            answer.put("GIT_AUTHOR_NAME", name);
+            answer.put("GIT_COMMITTER_NAME", name);
+        }
+        if (Strings.notEmpty(email)) {
+            answer.put("GIT_AUTHOR_EMAIL", email);
+            answer.put("GIT_COMMITTER_EMAIL", email);
+        }
+        return answer;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        GitIdentity that = (GitIdentity) o;
+        return Objects.equal(name, that.name) && Objects.equal(email, that.email);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (name != null ? name.hashCode() : 0) + (email != null ? email.hashCode() : 0);
+    }
+
+    @Override
+    public String toString() {
+        return name + " <" + email + ">";
+    }
+}
@@ -39,6 +39,21 @@ public interface GitPlugin {
         }
     }
 
+    /**
+     * Returns the commit SHA of the HEAD of the given directory or null if it cannot be found
+     */
+    static String headCommit(File dir) {
+        try {
+            String output = ProcessHelper.runCommandCaptureOutput(dir, "git", "rev-parse", "HEAD");
+            if (output != null) {
+                output = output.trim();
+            }
+            return Strings.notEmpty(output) ? output : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     void setRemoteURL(File dir, String remoteURL);
 
     boolean push(File dir, String localBranch);
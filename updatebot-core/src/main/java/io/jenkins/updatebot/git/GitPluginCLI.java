@@ -25,12 +25,16 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  */
 public class GitPluginCLI implements GitPlugin {
     private static final transient Logger LOG = LoggerFactory.getLogger(GitPluginCLI.class);
     private final Configuration configuration;
+    private final Map<File, GitIdentity> configuredIdentities = new ConcurrentHashMap<>();
+    private GitIdentity identity;
 
     public GitPluginCLI(Configuration configuration) {
         this.configuration = configuration;
@@ -63,34 +67,64 @@ public class GitPluginCLI implements GitPlugin {
 
     @Override
     public void configUserNameAndEmail(File dir) {
-        String email = null;
-        String personName = null;
+        GitIdentity login = getIdentity();
+        String email = login.getEmail();
+        String personName = login.getName();
+        if (login.equals(configuredIdentities.get(dir))) {
+            return;
+        }
+        GitIdentity current;
         try {
-            GitHub github = configuration.getGithub();
-            if (github != null && !configuration.isDryRun()) {
-                GHMyself myself = github.getMyself();
-                if (myself != null) {
-                    email = myself.getEmail();
-                    personName = myself.getName();
-                    if (Strings.empty(personName)) {
-                        configuration.warn(LOG, "No name available for GitHub login!");
-                        personName = myself.getLogin();
-                    }
-                }
-            }
+            current = GitIdentity.readRepositoryIdentity(dir);
         } catch (IOException e) {
-            configuration.warn(LOG, "Failed to load github username and email: " + e, e);
+            LOG.debug("Failed to read the git config in " + dir + ". " + e, e);
+            current = new GitIdentity(null, null);
         }
         if (Strings.notEmpty(email)) {
-            ProcessHelper.runCommandAndLogOutput(configuration, LOG, dir, "git", "config", "user.email", email);
+            if (!email.equals(current.getEmail())) {
+                ProcessHelper.runCommandAndLogOutput(configuration, LOG, dir, "git", "config", "user.email", email);
+            }
         } else {
             configuration.error(LOG, "No email available for GitHub login!");
         }
         if (Strings.notEmpty(personName)) {
-            ProcessHelper.runCommandAndLogOutput(configuration, LOG, dir, "git", "config", "user.name", personName);
+            if (!personName.equals(current.getName())) {
+                ProcessHelper.runCommandAndLogOutput(configuration, LOG, dir, "git", "config", "user.name", personName);
+            }
         } else {
             configuration.error(LOG, "No name available for GitHub login!");
         }
+        configuredIdentities.put(dir, login);
+    }
+
+    /**
+     * Returns the name and email of the GitHub login which is only looked up once
+     */
+    public synchronized GitIdentity getIdentity() {
+        if (identity == null) {
+            String email = null;
+            String personName = null;
+            try {
+                GitHub github = configuration.getGithub();
+                if (github != null && !configuration.isDryRun()) {
+                    GHMyself myself = github.getMyself();
+                    if (myself != null) {
+                        email = myself.getEmail();
+                        personName = myself.getName();
+                        if (Strings.empty(personName)) {
+                            configuration.warn(LOG, "No name available for GitHub login!");
+                            personName = myself.getLogin();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                configuration.warn(LOG, "Failed to load github username and email: " + e, e);
+                // lets try again next time
+                return new GitIdentity(null, null);
+            }
+            identity = new GitIdentity(personName, email);
+        }
+        return identity;
     }
 
     @Override
@@ -109,7 +143,9 @@ public class GitPluginCLI implements GitPlugin {
     @Override
     public boolean addAndCommit(File dir, String commitComment) {
         if (ProcessHelper.runCommandIgnoreOutput(dir, "git", "add", "*") == 0) {
-            if (ProcessHelper.runCommand(dir, "git", "commit", "-m", commitComment) == 0) {
+            // the identity is passed to git so commits do not depend on the repository config
+            Map<String, String> environmentVariables = getIdentity().getEnvironmentVariables();
+            if (ProcessHelper.runCommand(dir, environmentVariables, true, "git", "commit", "-m", commitComment) == 0) {
                 return true;
             }
         }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.github;
+
+import io.jenkins.updatebot.support.Strings;
+import org.kohsuke.github.GHCommitState;
+import org.kohsuke.github.GHPullRequest;
+import org.kohsuke.github.GHRepository;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Caches the CI state of the head commit of Pull Requests by commit SHA so that polling does not query the statuses
+ * of a commit again once they are known.
+ *
+ * Successful states are kept until the head of the Pull Request moves to another commit whereas pending and failed
+ * states are only kept for a short time so that a commit is checked again on a later poll, as a failed build can be
+ * re-run or a late context can still report a failure.
+ */
+public class CommitStatusCache {
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 30 * 1000;
+
+    private final long timeToLiveMillis;
+    private final Map<String, Entry> states = new HashMap<>();
+    private final Map<String, String> heads = new HashMap<>();
+
+    public CommitStatusCache() {
+        this(DEFAULT_TIME_TO_LIVE_MILLIS);
+    }
+
+    public CommitStatusCache(long timeToLiveMillis) {
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    /**
+     * Returns true if the state is kept for as long as the commit is the head of its key
+     */
+    public static boolean isPermanent(GHCommitState state) {
+        return state == GHCommitState.SUCCESS;
+    }
+
+    /**
+     * Returns the CI state of the head commit of the Pull Request
+     */
+    public GHCommitState getState(GHRepository repository, GHPullRequest pullRequest) throws IOException {
+        String sha = pullRequest.getHead().getSha();
+        return getState(Strings.toString(pullRequest.getUrl()), sha, () -> GitHubHelpers.getCommitState(repository, sha));
+    }
+
+    /**
+     * Returns the state of the given commit which is the head of the given key, loading it if it is not cached
+     */
+    public GHCommitState getState(String key, String sha, Callable<GHCommitState> loader) throws IOException {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            String oldSha = heads.put(key, sha);
+            if (oldSha != null && !oldSha.equals(sha)) {
+                states.remove(oldSha);
+            }
+            Entry entry = states.get(sha);
+            if (entry != null && (isPermanent(entry.state) || now < entry.expires)) {
+                return entry.state;
+            }
+        }
+        GHCommitState state;
+        try {
+            state = loader.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        synchronized (this) {
+            if (sha.equals(heads.get(key))) {
+                states.put(sha, new Entry(state, now + timeToLiveMillis));
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Removes the state of the head commit of the given key such as when a Pull Request is closed
+     */
+    public synchronized void remove(String key) {
+        String sha = heads.remove(key);
+        if (sha != null) {
+            states.remove(sha);
+        }
+    }
+
+    public synchronized int size() {
+        return states.size();
+    }
+
+    private static class Entry {
+        private final GHCommitState state;
+        private final long expires;
+
+        Entry(GHCommitState state, long expires) {
+            this.state = state;
+            this.expires = expires;
+        }
+    }
+}
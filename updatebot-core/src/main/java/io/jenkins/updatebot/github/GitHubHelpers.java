@@ -20,8 +20,10 @@ import io.jenkins.updatebot.model.GitRepository;
 import io.jenkins.updatebot.model.GithubRepository;
 import io.jenkins.updatebot.repository.LocalRepository;
 import org.kohsuke.github.GHBranch;
+import org.kohsuke.github.GHCommitCombinedStatus;
 import org.kohsuke.github.GHCommitState;
 import org.kohsuke.github.GHCommitStatus;
+import org.kohsuke.github.GHException;
 import org.kohsuke.github.GHIssue;
 import org.kohsuke.github.GHLabel;
 import org.kohsuke.github.GHPerson;
@@ -29,14 +31,11 @@ import org.kohsuke.github.GHPullRequest;
 import org.kohsuke.github.GHRepository;
 import org.kohsuke.github.GitHub;
 import org.kohsuke.github.HttpException;
-import org.kohsuke.github.PagedIterable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
@@ -84,6 +83,17 @@ public class GitHubHelpers {
         return null;
     }
 
+    /**
+     * Releases the underlying GitHub repository if this repository is on github so that it can be garbage collected
+     * until it is next used
+     */
+    public static void releaseGitHubRepository(LocalRepository repository) {
+        GitRepository repo = repository.getRepo();
+        if (repo instanceof GithubRepository) {
+            ((GithubRepository) repo).release();
+        }
+    }
+
     public static boolean hasLabel(Collection<GHLabel> labels, String label) {
         if (labels != null) {
             for (GHLabel ghLabel : labels) {
@@ -170,42 +180,38 @@ public class GitHubHelpers {
     }
 
     /**
-     * Make sure all the statuses reported on the commit match the expected, at least for first page
+     * Returns the state of the commit from the latest status of each of its contexts.
+     *
+     * The first failing context is returned without requesting any more statuses, otherwise the state is pending
+     * if there are no statuses or any of them is pending and success if they have all succeeded
      */
-    public static boolean checkCommitStatus(GHRepository repository, GHPullRequest pullRequest, GHCommitState expectedStatus) throws IOException {
-        boolean statusesMatch = true;
-        PagedIterable<GHCommitStatus> statuses = repository.getCommit(pullRequest.getHead().getSha()).listStatuses();
-
-        // note lets assume that the first status for a given target URL is the current value
-        // as we get a Success followed by a number of Pending statuses for a given URL
-        Map<String, GHCommitState> targetUrlToState = new HashMap<>();
+    public static GHCommitState getCommitState(GHRepository repository, String sha) throws IOException {
+        try {
+            return getCommitState(GHCommitCombinedStatus.listStatuses(repository, sha));
+        } catch (GHException e) {
+            throw unwrap(e);
+        }
+    }
 
+    public static GHCommitState getCommitState(Iterable<GHCommitStatus> statuses) {
         int count = 0;
-        if (statuses != null) {
-            Iterator<GHCommitStatus> iterator = statuses.iterator();
-
-            while (iterator != null && iterator.hasNext()) {
-                GHCommitStatus status = iterator.next();
-                GHCommitState state = status.getState();
-                String key = status.getTargetUrl();
-                if (key == null) {
-                    continue;
-                }
-                count++;
-                GHCommitState previous = targetUrlToState.get(key);
-                if (previous != null) {
-                    LOG.info("Ignoring subsequent state " + state + " for targetUrl " + key + " as we first got a state of " + previous);
-                    continue;
-                }
-                if (state != null) {
-                    targetUrlToState.put(key, state);
-                }
-                if (status == null || !state.equals(expectedStatus)) {
-                    statusesMatch = false;
-                }
+        boolean pending = false;
+        for (GHCommitStatus status : statuses) {
+            count++;
+            GHCommitState state = status.getState();
+            if (state == GHCommitState.FAILURE || state == GHCommitState.ERROR) {
+                return state;
+            }
+            if (state != GHCommitState.SUCCESS) {
+                pending = true;
             }
         }
-        return statusesMatch && count > 0;
+        return count > 0 && !pending ? GHCommitState.SUCCESS : GHCommitState.PENDING;
+    }
+
+    private static IOException unwrap(GHException e) {
+        Throwable cause = e.getCause();
+        return cause instanceof IOException ? (IOException) cause : new IOException(e.getMessage(), e);
     }
 
     public static GHCommitStatus getLastCommitStatus(GHRepository repository, GHPullRequest pullRequest) throws IOException {
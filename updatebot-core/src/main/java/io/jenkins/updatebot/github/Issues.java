@@ -21,7 +21,9 @@ import io.jenkins.updatebot.kind.DependenciesCheck;
 import io.jenkins.updatebot.kind.Kind;
 import io.jenkins.updatebot.kind.KindDependenciesCheck;
 import io.jenkins.updatebot.kind.npm.dependency.DependencyCheck;
+import io.jenkins.updatebot.model.ChangeSet;
 import io.jenkins.updatebot.model.DependencyVersionChange;
+import io.jenkins.updatebot.model.UpdateBotMetadata;
 import io.jenkins.updatebot.support.Markdown;
 import io.jenkins.updatebot.support.Strings;
 import io.fabric8.utils.Objects;
@@ -73,6 +75,22 @@ public class Issues {
 
 
     public static List<DependencyVersionChange> loadPendingChangesFromIssue(CommandContext context, GHIssue issue) throws IOException {
+        String lastCommand = findPendingChangesComment(context, issue);
+        if (lastCommand == null) {
+            return new ArrayList<>();
+        }
+        return parseUpdateBotIssuePendingChangesComment(lastCommand);
+    }
+
+    /**
+     * Returns the last pending changes comment added to the issue by UpdateBot from the metadata in the body of the
+     * issue, falling back to reading its comments, or null if there is none
+     */
+    public static String findPendingChangesComment(CommandContext context, GHIssue issue) throws IOException {
+        UpdateBotMetadata metadata = Metadata.parse(issue.getBody());
+        if (metadata != null && metadata.getPendingChanges() != null) {
+            return metadata.getPendingChanges();
+        }
         List<GHIssueComment> comments = issue.getComments();
         String lastCommand = null;
         for (GHIssueComment comment : comments) {
@@ -83,9 +101,8 @@ public class Issues {
         }
         if (lastCommand == null) {
             LOG.warn("No UpdateBot comment found on issue " + issue.getHtmlUrl());
-            return new ArrayList<>();
         }
-        return parseUpdateBotIssuePendingChangesComment(lastCommand);
+        return lastCommand;
     }
 
     public static List<DependencyVersionChange> parseUpdateBotIssuePendingChangesComment(String command) {
@@ -147,19 +164,29 @@ public class Issues {
     }
 
 
-    public static void addConflictsComment(GHIssue issue, List<DependencyVersionChange> pendingChanges, String operationDescription, DependenciesCheck check) throws IOException {
+    /**
+     * Adds the pending changes comment to the issue and records it in the metadata in the body of the issue
+     *
+     * @return the comment which was added
+     */
+    public static String addConflictsComment(GHIssue issue, List<DependencyVersionChange> pendingChanges, String operationDescription, DependenciesCheck check) throws IOException {
         String prefix = PENDING_CHANGE_COMMENT_PREFIX + operationDescription + "\n";
         String issueComment = prefix + conflictChangesComment(pendingChanges, check);
         issue.comment(issueComment);
+        UpdateBotMetadata metadata = Metadata.parseOrCreate(issue.getBody());
+        metadata.setPendingChanges(issueComment);
+        issue.setBody(Metadata.updateBody(issue.getBody(), metadata));
+        return issueComment;
     }
 
     public static String conflictChangesComment(List<DependencyVersionChange> pendingChanges, DependenciesCheck check) {
         StringBuilder builder = new StringBuilder();
         Map<Kind, KindDependenciesCheck> failures = check.getFailures();
+        ChangeSet changeSet = ChangeSet.of(pendingChanges);
         for (Map.Entry<Kind, KindDependenciesCheck> entry : failures.entrySet()) {
             Kind kind = entry.getKey();
             KindDependenciesCheck kindCheck = entry.getValue();
-            List<DependencyVersionChange> kindChanges = DependencyVersionChange.forKind(kind, pendingChanges);
+            List<DependencyVersionChange> kindChanges = changeSet.forKind(kind).toList();
             List<DependencyCheck> kindConflicts = kindCheck.getFailedChecksFor(kindChanges);
 
             boolean hasConflicts = kindConflicts.size() > 0;
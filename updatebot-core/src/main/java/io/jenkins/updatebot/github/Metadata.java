@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.github;
+
+import io.jenkins.updatebot.model.UpdateBotMetadata;
+import io.jenkins.updatebot.support.MarkupHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes the hidden {@link UpdateBotMetadata} block in the body of a Pull Request or issue which is
+ * an HTML comment containing JSON so that it is not rendered
+ */
+public class Metadata {
+    private static final transient Logger LOG = LoggerFactory.getLogger(Metadata.class);
+
+    public static final int VERSION = 1;
+    public static final String BLOCK_PREFIX = "<!-- updatebot-metadata ";
+    public static final String BLOCK_SUFFIX = " -->";
+
+    /**
+     * Returns the metadata in the given body or null if there is none or it cannot be parsed
+     */
+    public static UpdateBotMetadata parse(String body) {
+        if (body == null) {
+            return null;
+        }
+        int start = body.indexOf(BLOCK_PREFIX);
+        if (start < 0) {
+            return null;
+        }
+        int end = body.indexOf(BLOCK_SUFFIX, start + BLOCK_PREFIX.length());
+        if (end < 0) {
+            return null;
+        }
+        String json = body.substring(start + BLOCK_PREFIX.length(), end);
+        try {
+            UpdateBotMetadata answer = MarkupHelper.loadJson(json, UpdateBotMetadata.class);
+            if (answer.getVersion() > VERSION) {
+                LOG.debug("Reading metadata version " + answer.getVersion() + " written by a newer UpdateBot");
+            }
+            return answer;
+        } catch (IOException e) {
+            LOG.warn("Ignoring invalid UpdateBot metadata " + json + ". " + e, e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the metadata in the given body or new empty metadata
+     */
+    public static UpdateBotMetadata parseOrCreate(String body) {
+        UpdateBotMetadata answer = parse(body);
+        return answer != null ? answer : new UpdateBotMetadata();
+    }
+
+    /**
+     * Returns the body with its metadata block replaced by the given metadata or appended if it has none
+     */
+    public static String updateBody(String body, UpdateBotMetadata metadata) throws IOException {
+        metadata.setVersion(VERSION);
+        String block = BLOCK_PREFIX + toJson(metadata) + BLOCK_SUFFIX;
+        if (body == null || body.isEmpty()) {
+            return block;
+        }
+        int start = body.indexOf(BLOCK_PREFIX);
+        int end = start < 0 ? -1 : body.indexOf(BLOCK_SUFFIX, start + BLOCK_PREFIX.length());
+        if (end < 0) {
+            return body + "\n\n" + block;
+        }
+        return body.substring(0, start) + block + body.substring(end + BLOCK_SUFFIX.length());
+    }
+
+    /**
+     * Returns the JSON with every <code>&gt;</code> escaped so that the text cannot end the HTML comment early
+     */
+    private static String toJson(UpdateBotMetadata metadata) throws IOException {
+        return MarkupHelper.toJson(metadata).replace(">", "\\u003e");
+    }
+}
@@ -17,6 +17,7 @@ package io.jenkins.updatebot.kind;
 
 import io.jenkins.updatebot.commands.CommandContext;
 import io.jenkins.updatebot.model.Dependencies;
+import io.jenkins.updatebot.model.DependencyReferences;
 import io.jenkins.updatebot.model.DependencyVersionChange;
 
 import java.io.IOException;
@@ -76,6 +77,18 @@ public class CompositeUpdater implements Updater {
         }
     }
 
+    @Override
+    public boolean addDependencyReferences(CommandContext context, DependencyReferences references) throws IOException {
+        Kind[] kinds = Kind.values();
+        for (Kind kind : kinds) {
+            Updater updater = kind.getUpdater();
+            if (!updater.addDependencyReferences(context, references)) {
+                references.addUnindexed(kind);
+            }
+        }
+        return true;
+    }
+
     @Override
     public KindDependenciesCheck checkDependencies(CommandContext context, List<DependencyVersionChange> changes) throws IOException {
         // TODO does not handle differnet kinds!!!
@@ -73,7 +73,7 @@ public class KindDependenciesCheck {
      * Returns the conflicts sorted in order of the given changes so that they are in the same order then
      * add any checks not listed in the list
      */
-    public List<DependencyCheck> getFailedChecksFor(List<DependencyVersionChange> changes) {
+    public List<DependencyCheck> getFailedChecksFor(Iterable<DependencyVersionChange> changes) {
         Set<String> processed = new HashSet<>();
         List<DependencyCheck> answer = new ArrayList<>();
         for (DependencyVersionChange change : changes) {
@@ -17,6 +17,7 @@ package io.jenkins.updatebot.kind;
 
 import io.jenkins.updatebot.commands.CommandContext;
 import io.jenkins.updatebot.model.Dependencies;
+import io.jenkins.updatebot.model.DependencyReferences;
 import io.jenkins.updatebot.model.DependencyVersionChange;
 
 import java.io.IOException;
@@ -34,4 +35,12 @@ public interface Updater {
     KindDependenciesCheck checkDependencies(CommandContext context, List<DependencyVersionChange> value) throws IOException;
 
     boolean pushVersions(CommandContext parentContext, List<DependencyVersionChange> changes) throws IOException;
+
+    /**
+     * Adds the dependencies referenced by the files in the context's directory which {@link #pushVersions(CommandContext, List)}
+     * could change
+     *
+     * @return false if the references cannot be determined from the files so that changes are always pushed
+     */
+    boolean addDependencyReferences(CommandContext context, DependencyReferences references) throws IOException;
 }
@@ -17,6 +17,7 @@ package io.jenkins.updatebot.kind;
 
 import io.jenkins.updatebot.commands.CommandContext;
 import io.jenkins.updatebot.commands.PushRegexChanges;
+import io.jenkins.updatebot.model.DependencyReferences;
 import io.jenkins.updatebot.model.DependencyVersionChange;
 
 import java.io.IOException;
@@ -37,4 +38,9 @@ public abstract class UpdaterSupport implements Updater {
         return new KindDependenciesCheck(value);
     }
 
+    @Override
+    public boolean addDependencyReferences(CommandContext context, DependencyReferences references) throws IOException {
+        return false;
+    }
+
 }
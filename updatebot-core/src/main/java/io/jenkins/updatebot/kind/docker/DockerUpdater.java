@@ -16,25 +16,35 @@
 package io.jenkins.updatebot.kind.docker;
 
 import io.fabric8.utils.Files;
-import io.fabric8.utils.IOHelpers;
 import io.jenkins.updatebot.commands.CommandContext;
 import io.jenkins.updatebot.commands.PushVersionChangesContext;
+import io.jenkins.updatebot.kind.Kind;
 import io.jenkins.updatebot.kind.UpdaterSupport;
 import io.jenkins.updatebot.model.Dependencies;
+import io.jenkins.updatebot.model.DependencyReferences;
 import io.jenkins.updatebot.model.DependencyVersionChange;
 import io.jenkins.updatebot.support.FileHelper;
+import io.jenkins.updatebot.support.FileOverlay;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  */
 public class DockerUpdater extends UpdaterSupport {
     private static final transient Logger LOG = LoggerFactory.getLogger(DockerUpdater.class);
 
+    private static final String FROM_PREFIX = "FROM ";
+    private static final String ENV_PREFIX = "ENV ";
+
     @Override
     public boolean isApplicable(CommandContext context) {
         return FileHelper.isFile(context.file("Dockerfile"));
@@ -48,88 +58,149 @@ public class DockerUpdater extends UpdaterSupport {
     public boolean pushVersions(CommandContext parentContext, List<DependencyVersionChange> changes) throws IOException {
         boolean answer = false;
         if (isApplicable(parentContext)) {
+            Map<String, PushVersionChangesContext> contexts = new LinkedHashMap<>();
+            Map<String, String> versions = new HashMap<>();
             for (DependencyVersionChange step : changes) {
                 PushVersionChangesContext context = new PushVersionChangesContext(parentContext, step);
-                boolean updated = pushVersions(context);
-                if (updated) {
+                PushVersionChangesContext old = contexts.put(step.getDependency(), context);
+                if (old != null) {
+                    parentContext.removeChild(old);
+                }
+                versions.put(step.getDependency(), step.getVersion());
+            }
+
+            // lets visit each Dockerfile once applying all the changes in a single pass
+            Set<String> updatedNames = new HashSet<>();
+            File dir = parentContext.getDir();
+            if (Files.isDirectory(dir)) {
+                checkDirectory(parentContext.getOverlay(), dir, versions, updatedNames);
+            }
+            for (Map.Entry<String, PushVersionChangesContext> entry : contexts.entrySet()) {
+                if (updatedNames.contains(entry.getKey())) {
                     answer = true;
                 } else {
-                    parentContext.removeChild(context);
+                    parentContext.removeChild(entry.getValue());
                 }
             }
         }
         return answer;
     }
 
-    protected boolean pushVersions(PushVersionChangesContext context) throws IOException {
-        boolean answer = false;
-        List<PushVersionChangesContext.Change> changes = context.getChanges();
-        for (PushVersionChangesContext.Change change : changes) {
-            if (doPushVersionChange(context, context.getName(), context.getValue())) {
-                answer = true;
-            }
+    @Override
+    public boolean addDependencyReferences(CommandContext context, DependencyReferences references) throws IOException {
+        File dir = context.getDir();
+        if (Files.isDirectory(dir)) {
+            addReferences(dir, references);
         }
-        DependencyVersionChange step = context.getStep();
-        if (step != null) {
-            if (doPushVersionChange(context, step.getDependency(), context.getValue())) {
-                answer = true;
+        return true;
+    }
+
+    private void addReferences(File dir, DependencyReferences references) throws IOException {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    addReferences(file, references);
+                } else {
+                    String fileName = file.getName();
+                    if (Files.isFile(file) && fileName.equals("Dockerfile") || fileName.startsWith("Dockerfile.")) {
+                        for (String line : FileHelper.readLines(file)) {
+                            if (line.startsWith(FROM_PREFIX)) {
+                                addStatementNames(line, FROM_PREFIX, ':', references, file);
+                            } else if (line.startsWith(ENV_PREFIX)) {
+                                addStatementNames(line, ENV_PREFIX, ' ', references, file);
+                            }
+                        }
+                    }
+                }
             }
         }
-        return answer;
     }
 
-    private boolean checkDirectory(File dir, PushVersionChangesContext context, String name, String value) throws IOException {
-        boolean answer = false;
-		File[] files = dir.listFiles();
-		for (File file : files) {
-			if (file.isDirectory()) {
-				boolean newAnswer = checkDirectory(file, context, name, value);
-                if (!answer) {
-					answer = newAnswer;
-				}
-			} else {
-                String fileName = file.getName();
-                if (Files.isFile(file) && fileName.equals("Dockerfile") || fileName.startsWith("Dockerfile.")) {
-                    if (updateDockerfile(context, file, name, value)) {
-                        answer = true;
+    /**
+     * Adds every candidate name that {@link #replaceStatement(String, String, char, Map, Set)} could look up
+     */
+    private static void addStatementNames(String line, String prefix, char separator, DependencyReferences references, File file) {
+        int start = prefix.length();
+        int idx = line.indexOf(separator, start);
+        while (idx > start) {
+            references.addReference(Kind.DOCKER, line.substring(start, idx), file);
+            idx = line.indexOf(separator, idx + 1);
+        }
+    }
+
+    private void checkDirectory(FileOverlay overlay, File dir, Map<String, String> versions, Set<String> updatedNames) throws IOException {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    checkDirectory(overlay, file, versions, updatedNames);
+                } else {
+                    String fileName = file.getName();
+                    if (Files.isFile(file) && fileName.equals("Dockerfile") || fileName.startsWith("Dockerfile.")) {
+                        updateDockerfile(overlay, file, versions, updatedNames);
                     }
                 }
-			}
-		}
-        return answer;
-	}
+            }
+        }
+    }
 
-    private boolean doPushVersionChange(PushVersionChangesContext context, String name, String value) throws IOException {
-        boolean answer = false;
-        File dir = context.getDir();
-        if (Files.isDirectory(dir)) {
-            answer = checkDirectory(dir, context, name, value);
+    private boolean updateDockerfile(FileOverlay overlay, File file, Map<String, String> versions, Set<String> updatedNames) throws IOException {
+        List<String> lines = overlay.readLines(file);
+        boolean answer = replaceDockerfileStatements(lines, versions, updatedNames);
+        if (answer) {
+            overlay.writeLines(file, lines);
         }
         return answer;
     }
 
-    private boolean updateDockerfile(PushVersionChangesContext context, File file, String name, String value) throws IOException {
-        String[] linePrefixes = {
-                "FROM " + name + ":",
-                "ENV " + name + " "
-        };
-        List<String> lines = IOHelpers.readLines(file);
+    /**
+     * Replaces any <code>FROM name:version</code> or <code>ENV name version</code> statements for the given
+     * map of names to versions, adding the names of any changed statements to the <code>updatedNames</code>.
+     *
+     * Rather than testing every line against every change we split each <code>FROM</code> or <code>ENV</code>
+     * line at its delimiters and look up the candidate names so that the cost is independent of the number of changes.
+     *
+     * @return true if any line was modified
+     */
+    public static boolean replaceDockerfileStatements(List<String> lines, Map<String, String> versions, Set<String> updatedNames) {
         boolean answer = false;
         for (int i = 0, size = lines.size(); i < size; i++) {
             String line = lines.get(i);
-            for (String linePrefix : linePrefixes) {
-                if (line.startsWith(linePrefix)) {
-                    String remaining = line.substring(linePrefix.length());
-                    if (!remaining.trim().equals(value)) {
-                        answer = true;
-                        lines.set(i, linePrefix + value);
-                    }
-                }
+            String newLine = null;
+            if (line.startsWith(FROM_PREFIX)) {
+                newLine = replaceStatement(line, FROM_PREFIX, ':', versions, updatedNames);
+            } else if (line.startsWith(ENV_PREFIX)) {
+                newLine = replaceStatement(line, ENV_PREFIX, ' ', versions, updatedNames);
+            }
+            if (newLine != null) {
+                lines.set(i, newLine);
+                answer = true;
             }
-        }
-        if (answer) {
-            IOHelpers.writeLines(file, lines);
         }
         return answer;
     }
+
+    /**
+     * Returns the replaced line or null if there is no matching name or the value is unchanged
+     */
+    private static String replaceStatement(String line, String prefix, char separator, Map<String, String> versions, Set<String> updatedNames) {
+        int start = prefix.length();
+        int idx = line.indexOf(separator, start);
+        while (idx > start) {
+            String name = line.substring(start, idx);
+            String value = versions.get(name);
+            if (value != null) {
+                String linePrefix = line.substring(0, idx + 1);
+                String remaining = line.substring(idx + 1);
+                if (remaining.trim().equals(value)) {
+                    return null;
+                }
+                updatedNames.add(name);
+                return linePrefix + value;
+            }
+            idx = line.indexOf(separator, idx + 1);
+        }
+        return null;
+    }
 }
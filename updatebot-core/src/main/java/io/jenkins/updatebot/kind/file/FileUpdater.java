@@ -16,10 +16,12 @@
 package io.jenkins.updatebot.kind.file;
 
 import io.jenkins.updatebot.commands.CommandContext;
+import io.jenkins.updatebot.kind.Kind;
 import io.jenkins.updatebot.kind.Updater;
 import io.jenkins.updatebot.kind.UpdaterSupport;
 import io.jenkins.updatebot.kind.maven.PomHelper;
 import io.jenkins.updatebot.model.Dependencies;
+import io.jenkins.updatebot.model.DependencyReferences;
 import io.jenkins.updatebot.model.DependencyVersionChange;
 import io.jenkins.updatebot.model.FileDependencies;
 import io.jenkins.updatebot.model.GitRepositoryConfig;
@@ -62,7 +64,7 @@ public class FileUpdater extends UpdaterSupport implements Updater {
         File file = context.file("pom.xml");
         boolean answer = false;
         if (Files.isFile(file)) {
-            if (PomHelper.updatePomVersionsInPoms(context.getDir(), changes)) {
+            if (PomHelper.updatePomVersionsInPoms(context.getOverlay(), context.getDir(), changes)) {
                 return true;
             }
         }
@@ -70,5 +72,11 @@ public class FileUpdater extends UpdaterSupport implements Updater {
 
     }
 
-
+    @Override
+    public boolean addDependencyReferences(CommandContext context, DependencyReferences references) throws IOException {
+        if (Files.isFile(context.file("pom.xml"))) {
+            PomHelper.addDependencyReferences(context.getDir(), Kind.FILE, references);
+        }
+        return true;
+    }
 }
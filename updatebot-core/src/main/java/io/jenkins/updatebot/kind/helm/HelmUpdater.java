@@ -21,9 +21,12 @@ import io.jenkins.updatebot.commands.CommandContext;
 import io.jenkins.updatebot.kind.Kind;
 import io.jenkins.updatebot.kind.UpdaterSupport;
 import io.jenkins.updatebot.kind.helm.model.Chart;
+import io.jenkins.updatebot.kind.helm.model.ChartDependency;
 import io.jenkins.updatebot.kind.helm.model.Requirements;
 import io.jenkins.updatebot.model.Dependencies;
+import io.jenkins.updatebot.model.DependencyReferences;
 import io.jenkins.updatebot.model.DependencyVersionChange;
+import io.jenkins.updatebot.support.FileHelper;
 import io.jenkins.updatebot.support.MarkupHelper;
 import io.jenkins.updatebot.support.Strings;
 
@@ -31,6 +34,8 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import static io.jenkins.updatebot.kind.helm.HelmFiles.CHART_YAML;
 import static io.jenkins.updatebot.kind.helm.HelmFiles.REQUIREMENTS_YAML;
@@ -40,13 +45,14 @@ import static io.jenkins.updatebot.support.FileHelper.isFile;
 /**
  */
 public class HelmUpdater extends UpdaterSupport {
+    private final Map<CommandContext, List<File>> chartDirsCache = new WeakHashMap<>();
 
     public static boolean applyRequirementsChanges(CommandContext context, List<DependencyVersionChange> changes, Requirements requirements, File requirementsFile) throws IOException {
         boolean answer = requirements.applyChanges(changes);
         if (answer) {
             // lets store the updated requirements
             try {
-                MarkupHelper.saveYaml(requirements, requirementsFile);
+                context.getOverlay().writeText(requirementsFile, MarkupHelper.toYaml(requirements));
             } catch (IOException e) {
                 throw new IOException("Failed to save chart requirements " + requirementsFile + ". " + e, e);
             }
@@ -56,35 +62,38 @@ public class HelmUpdater extends UpdaterSupport {
 
     @Override
     public boolean isApplicable(CommandContext context) {
-        boolean answer = isFile(context.file(CHART_YAML));
-        if (!answer) {
-            answer = fileExistsInDir(context.getDir(), CHART_YAML);
-            if (!answer) {
-                return isFile(context.file(VALUES_YAML));
+        return !findChartDirs(context).isEmpty() || isFile(context.file(VALUES_YAML));
+    }
+
+    /**
+     * Returns the directories containing a chart in the given context, walking the directory tree only once
+     * per context so that checking if we are applicable and pushing versions do not both walk the tree
+     */
+    protected List<File> findChartDirs(CommandContext context) {
+        synchronized (chartDirsCache) {
+            List<File> answer = chartDirsCache.get(context);
+            if (answer == null) {
+                answer = new ArrayList<>();
+                addChartDirs(context.getDir(), answer);
+                chartDirsCache.put(context, answer);
             }
+            return answer;
         }
-        return answer;
     }
 
-    protected boolean fileExistsInDir(File dir, String fileName) {
-        if (dir.isFile()) {
-            return dir.getName().equals(fileName);
-        } else if (dir.isDirectory()) {
-            if (isFile(new File(dir, fileName))) {
-                return true;
-            }
+    protected void addChartDirs(File dir, List<File> chartDirs) {
+        if (isFile(new File(dir, CHART_YAML))) {
+            chartDirs.add(dir);
+        } else {
             File[] files = dir.listFiles();
             if (files != null) {
                 for (File file : files) {
                     if (Files.isDirectory(file)) {
-                        if (fileExistsInDir(file, fileName)) {
-                            return true;
-                        }
+                        addChartDirs(file, chartDirs);
                     }
                 }
             }
         }
-        return false;
     }
 
     /**
@@ -117,20 +126,25 @@ public class HelmUpdater extends UpdaterSupport {
 
     @Override
     public boolean pushVersions(CommandContext context, List<DependencyVersionChange> changes) throws IOException {
-        return pushVersionsForDir(context, changes, context.getDir());
+        boolean answer = false;
+        for (File chartDir : findChartDirs(context)) {
+            if (pushVersionsForChart(context, changes, chartDir)) {
+                answer = true;
+            }
+        }
+        return answer;
     }
 
-    protected boolean pushVersionsForDir(CommandContext context, List<DependencyVersionChange> changes, File dir) throws IOException {
-        File chartsFile = new File(dir, CHART_YAML);
-        boolean answer = false;
-        if (isFile(chartsFile)) {
-            File valuesFile = new File(dir, VALUES_YAML);
+    @Override
+    public boolean addDependencyReferences(CommandContext context, DependencyReferences references) throws IOException {
+        for (File chartDir : findChartDirs(context)) {
+            File valuesFile = new File(chartDir, VALUES_YAML);
             if (isFile(valuesFile)) {
-                if (updateValuesFile(context, changes, valuesFile)) {
-                    answer = true;
+                for (String image : new ValuesImages(FileHelper.readLines(valuesFile)).getImageNames()) {
+                    references.addReference(Kind.HELM, image, valuesFile);
                 }
             }
-            File requirementsFile = new File(dir, REQUIREMENTS_YAML);
+            File requirementsFile = new File(chartDir, REQUIREMENTS_YAML);
             if (isFile(requirementsFile)) {
                 Requirements requirements;
                 try {
@@ -138,52 +152,48 @@ public class HelmUpdater extends UpdaterSupport {
                 } catch (IOException e) {
                     throw new IOException("Failed to load chart requirements " + requirementsFile + ". " + e, e);
                 }
-                if (requirements != null) {
-                    if (applyRequirementsChanges(context, changes, requirements, requirementsFile)) {
-                        answer = true;
-                    }
-                }
-            }
-        } else {
-            File[] files = dir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if (Files.isDirectory(file)) {
-                        if (pushVersionsForDir(context, changes, file)) {
-                            answer = true;
+                if (requirements != null && requirements.getDependencies() != null) {
+                    for (ChartDependency dependency : requirements.getDependencies()) {
+                        if (dependency.getName() != null) {
+                            references.addReference(Kind.HELM, dependency.getName(), requirementsFile);
                         }
                     }
                 }
             }
         }
-        return answer;
+        return true;
     }
 
-    private boolean updateValuesFile(CommandContext context, List<DependencyVersionChange> changes, File file) throws IOException {
-        List<String> lines = IOHelpers.readLines(file);
+    protected boolean pushVersionsForChart(CommandContext context, List<DependencyVersionChange> changes, File dir) throws IOException {
         boolean answer = false;
-        for (DependencyVersionChange change : changes) {
-            String linePrefix = "Image: " + change.getDependency() + ":";
-            String value = change.getVersion();
-
-            for (int i = 0, size = lines.size(); i < size; i++) {
-                String line = lines.get(i);
-                if (line.trim().startsWith(linePrefix)) {
-                    String remaining = line.substring(linePrefix.length());
-                    if (!remaining.trim().equals(value)) {
-                        answer = true;
-                        String whitespace = "";
-                        int idx = line.indexOf(linePrefix);
-                        if (idx > 0) {
-                            whitespace = line.substring(0, idx);
-                        }
-                        lines.set(i, whitespace + linePrefix + value);
-                    }
+        File valuesFile = new File(dir, VALUES_YAML);
+        if (isFile(valuesFile)) {
+            if (updateValuesFile(context, changes, valuesFile)) {
+                answer = true;
+            }
+        }
+        File requirementsFile = new File(dir, REQUIREMENTS_YAML);
+        if (isFile(requirementsFile)) {
+            Requirements requirements;
+            try {
+                requirements = MarkupHelper.loadYaml(context.getOverlay().readText(requirementsFile), Requirements.class);
+            } catch (IOException e) {
+                throw new IOException("Failed to load chart requirements " + requirementsFile + ". " + e, e);
+            }
+            if (requirements != null) {
+                if (applyRequirementsChanges(context, changes, requirements, requirementsFile)) {
+                    answer = true;
                 }
             }
         }
+        return answer;
+    }
+
+    private boolean updateValuesFile(CommandContext context, List<DependencyVersionChange> changes, File file) throws IOException {
+        ValuesImages images = new ValuesImages(context.getOverlay().readLines(file));
+        boolean answer = images.applyChanges(changes);
         if (answer) {
-            IOHelpers.writeLines(file, lines);
+            context.getOverlay().writeLines(file, images.getLines());
         }
         return answer;
     }
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.helm;
+
+import io.jenkins.updatebot.model.DependencyVersionChange;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An index of the docker image references in the lines of a helm <code>values.yaml</code> file.
+ *
+ * Both the inline form <code>image: repository:tag</code> and <code>repository</code> / <code>tag</code>
+ * sibling keys at any depth are indexed by the image name so that applying a change is a single lookup.
+ * The lines are edited in place so that comments and formatting are preserved.
+ */
+public class ValuesImages {
+    private static final String IMAGE_KEY = "image";
+    private static final String REPOSITORY_KEY = "repository";
+    private static final String TAG_KEY = "tag";
+
+    private final List<String> lines;
+    private final Map<String, List<TagReference>> references = new HashMap<>();
+
+    public ValuesImages(List<String> lines) {
+        this.lines = lines;
+        for (int i = 0, size = lines.size(); i < size; i++) {
+            indexLine(i);
+        }
+    }
+
+    public List<String> getLines() {
+        return lines;
+    }
+
+    /**
+     * Returns true if there is a reference to the given image name
+     */
+    public boolean hasImage(String name) {
+        return references.containsKey(name);
+    }
+
+    /**
+     * Returns the names of the referenced images
+     */
+    public Set<String> getImageNames() {
+        return references.keySet();
+    }
+
+    public boolean applyChanges(Iterable<DependencyVersionChange> changes) {
+        boolean answer = false;
+        for (DependencyVersionChange change : changes) {
+            if (applyChange(change)) {
+                answer = true;
+            }
+        }
+        return answer;
+    }
+
+    public boolean applyChange(DependencyVersionChange change) {
+        List<TagReference> list = references.get(change.getDependency());
+        boolean answer = false;
+        if (list != null) {
+            String version = change.getVersion();
+            for (TagReference reference : list) {
+                String line = lines.get(reference.line);
+                String oldVersion = line.substring(reference.start, reference.end);
+                if (!Objects.equals(oldVersion, version)) {
+                    lines.set(reference.line, line.substring(0, reference.start) + version + line.substring(reference.end));
+                    reference.end = reference.start + version.length();
+                    answer = true;
+                }
+            }
+        }
+        return answer;
+    }
+
+    protected void indexLine(int index) {
+        String line = lines.get(index);
+        int keyStart = keyIndent(line);
+        int colon = line.indexOf(':', keyStart);
+        if (colon < 0 || keyStart >= line.length() || line.charAt(keyStart) == '#') {
+            return;
+        }
+        String key = line.substring(keyStart, colon).trim();
+        if (key.equalsIgnoreCase(IMAGE_KEY)) {
+            indexInlineImage(index, line, colon + 1);
+        } else if (key.equals(REPOSITORY_KEY)) {
+            indexRepositoryAndTag(index, line, keyStart, colon + 1);
+        }
+    }
+
+    /**
+     * Indexes <code>image: name:tag</code> using the last colon after any registry host and port as the tag separator
+     */
+    private void indexInlineImage(int index, String line, int valueIndex) {
+        int[] value = scalarValue(line, valueIndex);
+        if (value == null) {
+            return;
+        }
+        String image = line.substring(value[0], value[1]);
+        int tagSeparator = image.lastIndexOf(':');
+        if (tagSeparator <= 0 || tagSeparator < image.lastIndexOf('/')) {
+            return;
+        }
+        String name = image.substring(0, tagSeparator);
+        addReference(name, new TagReference(index, value[0] + tagSeparator + 1, value[1]));
+    }
+
+    /**
+     * Indexes a <code>repository: name</code> key with a sibling <code>tag: version</code> key in the same mapping
+     */
+    private void indexRepositoryAndTag(int index, String line, int indent, int valueIndex) {
+        int[] value = scalarValue(line, valueIndex);
+        if (value == null) {
+            return;
+        }
+        String name = line.substring(value[0], value[1]);
+        TagReference tag = findSiblingTag(index, indent, 1);
+        if (tag == null && !isSequenceEntry(line)) {
+            tag = findSiblingTag(index, indent, -1);
+        }
+        if (tag != null) {
+            addReference(name, tag);
+        }
+    }
+
+    private TagReference findSiblingTag(int index, int indent, int direction) {
+        for (int i = index + direction, size = lines.size(); i >= 0 && i < size; i += direction) {
+            String line = lines.get(i);
+            int lineIndent = keyIndent(line);
+            if (lineIndent >= line.length() || line.charAt(lineIndent) == '#') {
+                continue;
+            }
+            boolean sequenceEntry = isSequenceEntry(line);
+            if (lineIndent < indent || (sequenceEntry && direction > 0)) {
+                // we have left the mapping
+                return null;
+            }
+            if (lineIndent == indent && line.startsWith(TAG_KEY + ":", lineIndent)) {
+                int[] value = scalarValue(line, lineIndent + TAG_KEY.length() + 1);
+                if (value != null) {
+                    return new TagReference(i, value[0], value[1]);
+                }
+                return null;
+            }
+            if (sequenceEntry) {
+                // we have reached the start of the mapping
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private void addReference(String name, TagReference reference) {
+        references.computeIfAbsent(name, k -> new ArrayList<>()).add(reference);
+    }
+
+    /**
+     * Returns the start and end of the scalar value starting at the given index, excluding any quotes
+     * and trailing comment or null if there is no value
+     */
+    private static int[] scalarValue(String line, int index) {
+        int length = line.length();
+        int start = index;
+        while (start < length && Character.isWhitespace(line.charAt(start))) {
+            start++;
+        }
+        if (start >= length || line.charAt(start) == '#') {
+            return null;
+        }
+        char quote = line.charAt(start);
+        int end;
+        if (quote == '"' || quote == '\'') {
+            start++;
+            end = line.indexOf(quote, start);
+            if (end < 0) {
+                return null;
+            }
+        } else {
+            end = line.indexOf(" #", start);
+            if (end < 0) {
+                end = length;
+            }
+            while (end > start && Character.isWhitespace(line.charAt(end - 1))) {
+                end--;
+            }
+        }
+        if (end <= start) {
+            return null;
+        }
+        return new int[]{start, end};
+    }
+
+    /**
+     * Returns the index of the first key on the line, skipping any indentation and sequence entry
+     */
+    private static int keyIndent(String line) {
+        int idx = indentOf(line);
+        if (line.startsWith("- ", idx)) {
+            idx += 2;
+            while (idx < line.length() && line.charAt(idx) == ' ') {
+                idx++;
+            }
+        }
+        return idx;
+    }
+
+    private static boolean isSequenceEntry(String line) {
+        return line.startsWith("- ", indentOf(line));
+    }
+
+    private static int indentOf(String line) {
+        int idx = 0;
+        while (idx < line.length() && line.charAt(idx) == ' ') {
+            idx++;
+        }
+        return idx;
+    }
+
+    /**
+     * The location of a tag value within a line
+     */
+    private static class TagReference {
+        private final int line;
+        private final int start;
+        private int end;
+
+        TagReference(int line, int start, int end) {
+            this.line = line;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
@@ -16,19 +16,29 @@
 package io.jenkins.updatebot.kind.make;
 
 import io.fabric8.utils.Files;
-import io.fabric8.utils.IOHelpers;
 import io.jenkins.updatebot.commands.CommandContext;
 import io.jenkins.updatebot.commands.PushVersionChangesContext;
+import io.jenkins.updatebot.kind.Kind;
 import io.jenkins.updatebot.kind.UpdaterSupport;
 import io.jenkins.updatebot.model.Dependencies;
+import io.jenkins.updatebot.model.DependencyReferences;
 import io.jenkins.updatebot.model.DependencyVersionChange;
 import io.jenkins.updatebot.support.FileHelper;
+import io.jenkins.updatebot.support.FileOverlay;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -37,6 +47,10 @@ import java.util.regex.Pattern;
 public class MakeUpdater extends UpdaterSupport {
     private static final transient Logger LOG = LoggerFactory.getLogger(MakeUpdater.class);
 
+    private static final String ASSIGNMENT = ":=";
+    private static final Pattern VARIABLE_NAME = Pattern.compile("[A-Za-z0-9_\\-]+");
+    private static final Map<String, Pattern> PATTERN_CACHE = new ConcurrentHashMap<>();
+
     @Override
     public boolean isApplicable(CommandContext context) {
         return FileHelper.isFile(context.file("Makefile"));
@@ -50,69 +64,146 @@ public class MakeUpdater extends UpdaterSupport {
     public boolean pushVersions(CommandContext parentContext, List<DependencyVersionChange> changes) throws IOException {
         boolean answer = false;
         if (isApplicable(parentContext)) {
+            Map<String, PushVersionChangesContext> contexts = new LinkedHashMap<>();
+            Map<String, String> versions = new HashMap<>();
             for (DependencyVersionChange step : changes) {
                 PushVersionChangesContext context = new PushVersionChangesContext(parentContext, step);
-                boolean updated = pushVersions(context);
-                if (updated) {
+                PushVersionChangesContext old = contexts.put(step.getDependency(), context);
+                if (old != null) {
+                    parentContext.removeChild(old);
+                }
+                versions.put(step.getDependency(), step.getVersion());
+            }
+
+            Set<String> updatedNames = new HashSet<>();
+            File dir = parentContext.getDir();
+            if (Files.isDirectory(dir)) {
+                File[] files = dir.listFiles();
+                if (files != null) {
+                    for (File file : files) {
+                        String fileName = file.getName();
+                        if (Files.isFile(file) && fileName.equals("Makefile") || fileName.startsWith("Makefile.")) {
+                            updateMakefile(parentContext.getOverlay(), file, versions, updatedNames);
+                        }
+                    }
+                }
+            }
+            for (Map.Entry<String, PushVersionChangesContext> entry : contexts.entrySet()) {
+                if (updatedNames.contains(entry.getKey())) {
                     answer = true;
                 } else {
-                    parentContext.removeChild(context);
+                    parentContext.removeChild(entry.getValue());
                 }
             }
         }
         return answer;
     }
 
-    protected boolean pushVersions(PushVersionChangesContext context) throws IOException {
-        boolean answer = false;
-        List<PushVersionChangesContext.Change> changes = context.getChanges();
-        for (PushVersionChangesContext.Change change : changes) {
-            if (doPushVersionChange(context, context.getName(), context.getValue())) {
-                answer = true;
+    /**
+     * Adds the assigned variable names; names which are regular expressions rather than plain names are only
+     * matched if they are identical to the assigned name
+     */
+    @Override
+    public boolean addDependencyReferences(CommandContext context, DependencyReferences references) throws IOException {
+        File[] files = context.getDir().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String fileName = file.getName();
+                if (Files.isFile(file) && fileName.equals("Makefile") || fileName.startsWith("Makefile.")) {
+                    for (String line : FileHelper.readLines(file)) {
+                        int idx = line.indexOf(ASSIGNMENT);
+                        if (idx > 0 && valueStart(line, idx) >= 0) {
+                            references.addReference(Kind.MAKE, line.substring(0, idx).trim(), file);
+                        }
+                    }
+                }
             }
         }
-        DependencyVersionChange step = context.getStep();
-        if (step != null) {
-            if (doPushVersionChange(context, step.getDependency(), context.getValue())) {
-                answer = true;
-            }
+        return true;
+    }
+
+    private boolean updateMakefile(FileOverlay overlay, File file, Map<String, String> versions, Set<String> updatedNames) throws IOException {
+        List<String> lines = overlay.readLines(file);
+        boolean answer = replaceMakefileStatements(lines, versions, updatedNames);
+        if (answer) {
+            overlay.writeLines(file, lines);
         }
         return answer;
     }
 
+    public static boolean replaceMakefileStatement(List<String> lines, String name, String value) {
+        return replaceMakefileStatements(lines, Collections.singletonMap(name, value), new HashSet<>());
+    }
 
-    private boolean doPushVersionChange(PushVersionChangesContext context, String name, String value) throws IOException {
+    /**
+     * Replaces the <code>name := value</code> statements for all the given variable names to versions,
+     * adding the names of any changed statements to the <code>updatedNames</code>.
+     *
+     * The lines are indexed once by their assigned variable name so that each change is a hash lookup;
+     * names which are not plain variable names fall back to a cached regular expression.
+     *
+     * @return true if any line was modified
+     */
+    public static boolean replaceMakefileStatements(List<String> lines, Map<String, String> versions, Set<String> updatedNames) {
         boolean answer = false;
-        File dir = context.getDir();
-        if (Files.isDirectory(dir)) {
-            File[] files = dir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    String fileName = file.getName();
-                    if (Files.isFile(file) && fileName.equals("Makefile") || fileName.startsWith("Makefile.")) {
-                        if (updateMakefile(context, file, name, value)) {
-                            answer = true;
-                        }
-                    }
+        Map<String, List<Integer>> assignments = null;
+        for (Map.Entry<String, String> entry : versions.entrySet()) {
+            String name = entry.getKey();
+            String value = entry.getValue();
+            boolean updated;
+            if (VARIABLE_NAME.matcher(name).matches()) {
+                if (assignments == null) {
+                    assignments = indexAssignments(lines);
                 }
+                updated = replaceAssignments(lines, assignments.get(name), value);
+            } else {
+                updated = replaceMatchingStatements(lines, name, value);
+            }
+            if (updated) {
+                updatedNames.add(name);
+                answer = true;
             }
         }
         return answer;
     }
 
-    private boolean updateMakefile(PushVersionChangesContext context, File file, String name, String value) throws IOException {
-        List<String> lines = IOHelpers.readLines(file);
-        boolean answer = replaceMakefileStatement(lines, name, value);
-        if (answer) {
-            IOHelpers.writeLines(file, lines);
+    /**
+     * Returns the line indices of each <code>name := value</code> assignment indexed by the variable name
+     */
+    protected static Map<String, List<Integer>> indexAssignments(List<String> lines) {
+        Map<String, List<Integer>> answer = new HashMap<>();
+        for (int i = 0, size = lines.size(); i < size; i++) {
+            String line = lines.get(i);
+            int idx = line.indexOf(ASSIGNMENT);
+            if (idx > 0 && valueStart(line, idx) >= 0) {
+                String name = trimTrailingWhitespace(line.substring(0, idx));
+                if (VARIABLE_NAME.matcher(name).matches()) {
+                    answer.computeIfAbsent(name, k -> new ArrayList<>()).add(i);
+                }
+            }
         }
         return answer;
     }
 
-    public static boolean replaceMakefileStatement(List<String> lines, String name, String value) {
+    private static boolean replaceAssignments(List<String> lines, List<Integer> indices, String value) {
+        boolean answer = false;
+        if (indices != null) {
+            for (Integer i : indices) {
+                String line = lines.get(i);
+                int start = valueStart(line, line.indexOf(ASSIGNMENT));
+                String newLine = line.substring(0, start) + value;
+                if (!line.equals(newLine)) {
+                    lines.set(i, newLine);
+                    answer = true;
+                }
+            }
+        }
+        return answer;
+    }
+
+    private static boolean replaceMatchingStatements(List<String> lines, String name, String value) {
         boolean answer = false;
-        String regex = name + "\\s*:=\\s*(.+)";
-        Pattern pattern = Pattern.compile(regex);
+        Pattern pattern = PATTERN_CACHE.computeIfAbsent(name, n -> Pattern.compile(n + "\\s*:=\\s*(.+)"));
         for (int i = 0, size = lines.size(); i < size; i++) {
             String line = lines.get(i);
             Matcher m = pattern.matcher(line);
@@ -131,4 +222,30 @@ public class MakeUpdater extends UpdaterSupport {
         }
         return answer;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the index of the value after the <code>:=</code> at the given index, behaving like the
+     * expression <code>:=\s*(.+)</code>, or -1 if there is no value
+     */
+    private static int valueStart(String line, int assignmentIndex) {
+        int start = assignmentIndex + ASSIGNMENT.length();
+        int length = line.length();
+        if (start >= length) {
+            return -1;
+        }
+        int idx = start;
+        while (idx < length && Character.isWhitespace(line.charAt(idx))) {
+            idx++;
+        }
+        // if there is only whitespace the last character becomes the value
+        return idx < length ? idx : length - 1;
+    }
+
+    private static String trimTrailingWhitespace(String text) {
+        int end = text.length();
+        while (end > 0 && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+}
@@ -17,9 +17,11 @@ package io.jenkins.updatebot.kind.maven;
 
 import io.jenkins.updatebot.Configuration;
 import io.jenkins.updatebot.commands.CommandContext;
+import io.jenkins.updatebot.kind.Kind;
 import io.jenkins.updatebot.kind.Updater;
 import io.jenkins.updatebot.kind.UpdaterSupport;
 import io.jenkins.updatebot.model.Dependencies;
+import io.jenkins.updatebot.model.DependencyReferences;
 import io.jenkins.updatebot.model.DependencyVersionChange;
 import io.jenkins.updatebot.model.MavenArtifactVersionChange;
 import io.jenkins.updatebot.model.MavenArtifactVersionChanges;
@@ -105,7 +107,7 @@ public class MavenUpdater extends UpdaterSupport implements Updater {
         File file = context.file("pom.xml");
         boolean answer = false;
         if (Files.isFile(file)) {
-            if (PomHelper.updatePomVersionsInPoms(context.getDir(), changes)) {
+            if (PomHelper.updatePomVersionsInPoms(context.getOverlay(), context.getDir(), changes)) {
                 return true;
             }
         }
@@ -113,6 +115,14 @@ public class MavenUpdater extends UpdaterSupport implements Updater {
 
     }
 
+    @Override
+    public boolean addDependencyReferences(CommandContext context, DependencyReferences references) throws IOException {
+        if (Files.isFile(context.file("pom.xml"))) {
+            PomHelper.addDependencyReferences(context.getDir(), Kind.MAVEN, references);
+        }
+        return true;
+    }
+
     protected File createVersionsYamlFile(CommandContext context) {
         return new File(context.getDir(), "target/updatebot-versions.yaml");
     }
@@ -17,9 +17,13 @@ package io.jenkins.updatebot.kind.maven;
 
 import de.pdark.decentxml.Document;
 import de.pdark.decentxml.Element;
+import io.jenkins.updatebot.kind.Kind;
+import io.jenkins.updatebot.model.ChangeSet;
+import io.jenkins.updatebot.model.DependencyReferences;
 import io.jenkins.updatebot.model.DependencyVersionChange;
 import io.jenkins.updatebot.model.MavenArtifactKey;
 import io.jenkins.updatebot.support.DecentXmlHelper;
+import io.jenkins.updatebot.support.FileOverlay;
 import io.jenkins.updatebot.support.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,15 +45,20 @@ public class PomHelper {
 
 
     public static boolean updatePomVersionsInPoms(File dir, List<DependencyVersionChange> changes) throws IOException {
+        return updatePomVersionsInPoms(new FileOverlay(), dir, changes);
+    }
+
+    public static boolean updatePomVersionsInPoms(FileOverlay overlay, File dir, List<DependencyVersionChange> changes) throws IOException {
         List<PomUpdateStatus> pomsToChange = new ArrayList<>();
-        addPomFiles(dir, pomsToChange);
+        addPomFiles(overlay, dir, pomsToChange);
         return updatePomVersions(pomsToChange, changes);
     }
 
     public static boolean updatePomVersions(List<PomUpdateStatus> pomsToChange, List<DependencyVersionChange> changes) throws IOException {
         Map<String, String> propertyChanges = new TreeMap<>();
+        ChangeSet changeSet = ChangeSet.of(changes);
         for (PomUpdateStatus status : pomsToChange) {
-            status.updateVersions(changes, propertyChanges);
+            status.updateVersions(changeSet, propertyChanges);
         }
 
         if (!propertyChanges.isEmpty()) {
@@ -66,11 +75,11 @@ public class PomHelper {
         return answer;
     }
 
-    protected static void addPomFiles(File file, List<PomUpdateStatus> pomsToChange) {
+    protected static void addPomFiles(FileOverlay overlay, File file, List<PomUpdateStatus> pomsToChange) {
         if (file.isFile()) {
             if (file.getName().equals("pom.xml")) {
                 try {
-                    PomUpdateStatus updateStatus = PomUpdateStatus.createPomUpdateStatus(file);
+                    PomUpdateStatus updateStatus = PomUpdateStatus.createPomUpdateStatus(overlay, file);
                     if (pomsToChange.isEmpty()) {
                         updateStatus.setRootPom(true);
                     }
@@ -83,39 +92,97 @@ public class PomHelper {
             File[] files = file.listFiles();
             if (files != null) {
                 for (File child : files) {
-                    addPomFiles(child, pomsToChange);
+                    addPomFiles(overlay, child, pomsToChange);
                 }
             }
         }
     }
-    public static boolean updateParentVersion(Document doc, DependencyVersionChange change, Map<String, String> propertyChanges){
-        Element rootElement = doc.getRootElement();
-        List<Element> parents = DecentXmlHelper.findElementsWithName(rootElement, "parent");
 
-        boolean found = false;
-        String newVersion = change.getVersion();
-        boolean update = false;
-        for (Element element : parents) {
-            String groupId = DecentXmlHelper.firstChildTextContent(element, "groupId");
-            String artifactId = DecentXmlHelper.firstChildTextContent(element, "artifactId");
-            if (change.matches(groupId, artifactId)) {
-                found = true;
-                String version = DecentXmlHelper.firstChildTextContent(element, "version");
-                if (Strings.notEmpty(version)) {
-                    if (version.startsWith("${") && version.endsWith("}")) {
-                        String versionProperty = version.substring(2, version.length() - 1);
-                        propertyChanges.put(versionProperty, newVersion);
-                    } else {
-                        if (DecentXmlHelper.updateFirstChild(element, "version", newVersion)) {
-                            update = true;
+    /**
+     * Adds the parent, dependency and plugin artifacts of all the poms in the given directory tree
+     * using the names which {@link DependencyVersionChange#matches(String, String)} accepts
+     */
+    public static void addDependencyReferences(File file, Kind kind, DependencyReferences references) {
+        if (file.isFile()) {
+            if (file.getName().equals("pom.xml")) {
+                Document doc;
+                try {
+                    doc = DecentXmlHelper.parseXmlFile(file);
+                } catch (Exception e) {
+                    LOG.warn("Failed to parse " + file + ". " + e, e);
+                    return;
+                }
+                Element rootElement = doc.getRootElement();
+                for (String name : new String[]{"parent", "dependency", "plugin"}) {
+                    for (Element element : DecentXmlHelper.findElementsWithName(rootElement, name)) {
+                        String groupId = DecentXmlHelper.firstChildTextContent(element, "groupId");
+                        String artifactId = DecentXmlHelper.firstChildTextContent(element, "artifactId");
+                        if (groupId == null) {
+                            references.addReference(kind, MavenArtifactKey.DEFAULT_MAVEN_PLUGIN_GROUP + ":" + artifactId, file);
                         }
+                        references.addReference(kind, new MavenArtifactKey(groupId, artifactId).toString(), file);
                     }
                 }
             }
+        } else if (file.isDirectory()) {
+            File[] files = file.listFiles();
+            if (files != null) {
+                for (File child : files) {
+                    addDependencyReferences(child, kind, references);
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the parent and dependency versions for all the given changes in a single pass over the pom
+     * looking up each element in the changes indexed by dependency
+     */
+    public static boolean updateParentAndDependencyVersions(Document doc, Map<String, DependencyVersionChange> changes, Map<String, String> propertyChanges) {
+        if (changes.isEmpty()) {
+            return false;
+        }
+        Element rootElement = doc.getRootElement();
+        boolean update = false;
+        for (String name : new String[]{"parent", "dependency"}) {
+            for (Element element : DecentXmlHelper.findElementsWithName(rootElement, name)) {
+                String groupId = DecentXmlHelper.firstChildTextContent(element, "groupId");
+                String artifactId = DecentXmlHelper.firstChildTextContent(element, "artifactId");
+                DependencyVersionChange change = findChange(changes, groupId, artifactId);
+                if (change != null && updateVersion(element, change.getVersion(), propertyChanges)) {
+                    update = true;
+                }
+            }
         }
         return update;
     }
 
+    /**
+     * Returns the change for the given artifact using the same rules as {@link DependencyVersionChange#matches(String, String)}
+     */
+    private static DependencyVersionChange findChange(Map<String, DependencyVersionChange> changes, String groupId, String artifactId) {
+        if (groupId == null) {
+            DependencyVersionChange change = changes.get(MavenArtifactKey.DEFAULT_MAVEN_PLUGIN_GROUP + ":" + artifactId);
+            if (change != null) {
+                return change;
+            }
+        }
+        return changes.get(new MavenArtifactKey(groupId, artifactId).toString());
+    }
+
+    private static boolean updateVersion(Element element, String newVersion, Map<String, String> propertyChanges) {
+        String version = DecentXmlHelper.firstChildTextContent(element, "version");
+        if (Strings.notEmpty(version)) {
+            if (version.startsWith("${") && version.endsWith("}")) {
+                String versionProperty = version.substring(2, version.length() - 1);
+                propertyChanges.put(versionProperty, newVersion);
+            } else {
+                return DecentXmlHelper.updateFirstChild(element, "version", newVersion);
+            }
+        }
+        return false;
+    }
+
     public static boolean updatePluginVersion(Document doc, DependencyVersionChange change, Map<String, String> propertyChanges, boolean lazyAdd) {
         Element rootElement = doc.getRootElement();
         List<Element> plugins = DecentXmlHelper.findElementsWithName(rootElement, "plugin");
@@ -170,31 +237,6 @@ public class PomHelper {
     }
 
 
-    public static boolean updateDependencyVersion(Document doc, DependencyVersionChange change, Map<String, String> propertyChanges) {
-        Element rootElement = doc.getRootElement();
-        List<Element> dependencies = DecentXmlHelper.findElementsWithName(rootElement, "dependency");
-        String newVersion = change.getVersion();
-        boolean update = false;
-        for (Element element : dependencies) {
-            String groupId = DecentXmlHelper.firstChildTextContent(element, "groupId");
-            String artifactId = DecentXmlHelper.firstChildTextContent(element, "artifactId");
-            if (change.matches(groupId, artifactId)) {
-                String version = DecentXmlHelper.firstChildTextContent(element, "version");
-                if (Strings.notEmpty(version)) {
-                    if (version.startsWith("${") && version.endsWith("}")) {
-                        String versionProperty = version.substring(2, version.length() - 1);
-                        propertyChanges.put(versionProperty, newVersion);
-                    } else {
-                        if (DecentXmlHelper.updateFirstChild(element, "version", newVersion)) {
-                            update = true;
-                        }
-                    }
-                }
-            }
-        }
-        return update;
-    }
-
     public static boolean updateProperties(Document doc, Map<String, String> propertyChanges) {
         Element rootElement = doc.getRootElement();
         boolean update = false;
@@ -16,9 +16,9 @@
 package io.jenkins.updatebot.kind.maven;
 
 import de.pdark.decentxml.Document;
+import io.jenkins.updatebot.model.ChangeSet;
 import io.jenkins.updatebot.model.DependencyVersionChange;
-import io.jenkins.updatebot.support.DecentXmlHelper;
-import io.fabric8.utils.IOHelpers;
+import io.jenkins.updatebot.support.FileOverlay;
 import io.fabric8.utils.Objects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,17 +37,27 @@ public class PomUpdateStatus {
 
     private final File pom;
     private final Document doc;
+    private final FileOverlay overlay;
     private boolean updated;
     private boolean rootPom;
 
     public PomUpdateStatus(File pom, Document doc) {
+        this(pom, doc, new FileOverlay());
+    }
+
+    public PomUpdateStatus(File pom, Document doc, FileOverlay overlay) {
         this.pom = pom;
         this.doc = doc;
+        this.overlay = overlay;
     }
 
     public static PomUpdateStatus createPomUpdateStatus(File file) throws IOException {
-        Document doc = DecentXmlHelper.parseXmlFile(file);
-        return new PomUpdateStatus(file, doc);
+        return createPomUpdateStatus(new FileOverlay(), file);
+    }
+
+    public static PomUpdateStatus createPomUpdateStatus(FileOverlay overlay, File file) throws IOException {
+        Document doc = overlay.loadXml(file);
+        return new PomUpdateStatus(file, doc, overlay);
     }
 
     public boolean isUpdated() {
@@ -87,7 +97,7 @@ public class PomUpdateStatus {
         if (updated) {
             LOG.info("Updating " + pom);
             try {
-                IOHelpers.writeFully(pom, doc.toXML());
+                overlay.writeText(pom, doc.toXML());
             } catch (Exception e) {
                 throw new IOException("failed to save " + pom + ". " + e, e);
             }
@@ -96,21 +106,24 @@ public class PomUpdateStatus {
     }
 
     public void updateVersions(List<DependencyVersionChange> changes, Map<String, String> propertyChanges) {
+        updateVersions(ChangeSet.of(changes), propertyChanges);
+    }
+
+    public void updateVersions(ChangeSet changes, Map<String, String> propertyChanges) {
+        Map<String, DependencyVersionChange> dependencyChanges = new HashMap<>();
         for (DependencyVersionChange change : changes) {
             String scope = change.getScope();
             boolean lazyAdd = shouldLazyAdd(change);
             if (Objects.equal(MavenScopes.PLUGIN, scope)) {
                 updatePluginVersion(change, lazyAdd, propertyChanges);
             } else {
-                if (PomHelper.updateParentVersion(doc, change,propertyChanges)){
-                    updated = true;
-                }
-                if (PomHelper.updateDependencyVersion(doc, change, propertyChanges)) {
-                    updated = true;
-                }
-                // TODO check for BOM
+                dependencyChanges.put(change.getDependency(), change);
             }
         }
+        if (PomHelper.updateParentAndDependencyVersions(doc, dependencyChanges, propertyChanges)) {
+            updated = true;
+        }
+        // TODO check for BOM
     }
 
     public void updatePluginVersion(String dependency,  String version, boolean lazyAdd) {
@@ -22,6 +22,7 @@ import io.jenkins.updatebot.support.ProcessHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 
@@ -37,11 +38,12 @@ public class DefaultNpmDependencyTreeGenerator implements NpmDependencyTreeGener
 
         Configuration configuration = context.getConfiguration();
         String npmBinary = configuration.getNpmCommand();
-        ProcessHelper.runCommandIgnoreOutput(dir, configuration.getNpmEnvironmentVariables(), npmBinary, "install");
-
         File outputFile = new File(dir, dependencyFileName);
         File errorFile = new File(dir, "npm-list-errors.log");
-        try (FileDeleter ignored = new FileDeleter(errorFile)) {
+        // npm needs to see any pending changes to package.json
+        try (Closeable ignored = context.getOverlay().materialize(); FileDeleter ignored2 = new FileDeleter(errorFile)) {
+            ProcessHelper.runCommandIgnoreOutput(dir, configuration.getNpmEnvironmentVariables(), npmBinary, "install");
+
             if (ProcessHelper.runCommand(dir, outputFile, errorFile, npmBinary, "list", "-json") != 0) {
                 context.warn(LOG, "Failed to generate dependencies file " + outputFile);
             } else {
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.npm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.commands.CommandContext;
+import io.jenkins.updatebot.support.MarkupHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import static io.jenkins.updatebot.kind.npm.NpmDependencyKinds.DEPENDENCIES;
+import static io.jenkins.updatebot.kind.npm.NpmDependencyKinds.DEPENDENCY_KEYS;
+
+/**
+ * Generates the dependency tree from the <code>package-lock.json</code>, <code>npm-shrinkwrap.json</code> or
+ * <code>yarn.lock</code> file so that no <code>npm install</code> is required.
+ *
+ * The tree has the same shape as the output of <code>npm list -json</code> for the current <code>package.json</code>:
+ * a transitive dependency shares the direct dependency version if it satisfies the required range, otherwise the
+ * locked version is used as npm would nest it. Generated trees are cached by the hash of the lock file and
+ * <code>package.json</code> contents. If there is no lock file the fallback generator is used.
+ */
+public class LockFileNpmDependencyTreeGenerator implements NpmDependencyTreeGenerator {
+    private static final transient Logger LOG = LoggerFactory.getLogger(LockFileNpmDependencyTreeGenerator.class);
+
+    private static final String VERSION = "version";
+
+    private final NpmDependencyTreeGenerator fallback;
+
+    public LockFileNpmDependencyTreeGenerator() {
+        this(new DefaultNpmDependencyTreeGenerator());
+    }
+
+    public LockFileNpmDependencyTreeGenerator(NpmDependencyTreeGenerator fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void generateDependencyTree(CommandContext context, String dependencyFileName) throws IOException {
+        File dir = context.getDir();
+        Configuration configuration = context.getConfiguration();
+        File lockFile = configuration.isNpmUseLockFiles() ? NpmLockFile.findLockFile(dir) : null;
+        if (lockFile == null) {
+            fallback.generateDependencyTree(context, dependencyFileName);
+            return;
+        }
+        File packageJson = new File(dir, "package.json");
+        File outputFile = new File(dir, dependencyFileName);
+        File cacheDir = new File(configuration.getCacheDir(), "npm-dependency-trees");
+        String packageJsonText = context.getOverlay().readText(packageJson);
+        File cacheFile = new File(cacheDir, contentHash(lockFile, packageJsonText) + ".json");
+        if (cacheFile.isFile()) {
+            LOG.debug("Using cached dependency tree " + cacheFile + " for " + dir);
+            Files.copy(cacheFile.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return;
+        }
+
+        context.info(LOG, "Generating dependency tree file " + dependencyFileName + " from " + lockFile.getName() + " in " + dir);
+        JsonNode tree = createDependencyTree(NpmLockFile.load(lockFile), MarkupHelper.loadJson(packageJsonText));
+        MarkupHelper.savePrettyJson(outputFile, tree);
+
+        cacheDir.mkdirs();
+        File tempFile = File.createTempFile(cacheFile.getName(), ".tmp", cacheDir);
+        try {
+            Files.copy(outputFile.toPath(), tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Failed to cache dependency tree " + cacheFile + ". " + e, e);
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Creates the dependency tree in the <code>npm list -json</code> format for the given package.json
+     * using the locked packages
+     */
+    public static JsonNode createDependencyTree(NpmLockFile lockFile, JsonNode packageJson) {
+        ObjectNode answer = new ObjectMapper().createObjectNode();
+        Map<String, String> directVersions = new HashMap<>();
+        Map<String, NpmLockFile.LockedPackage> directPackages = new HashMap<>();
+        for (String dependencyKey : DEPENDENCY_KEYS) {
+            JsonNode dependencies = packageJson.get(dependencyKey);
+            if (dependencies == null || !dependencies.isObject()) {
+                continue;
+            }
+            Iterator<Map.Entry<String, JsonNode>> iter = dependencies.fields();
+            while (iter.hasNext()) {
+                Map.Entry<String, JsonNode> entry = iter.next();
+                String name = entry.getKey();
+                String range = entry.getValue().asText();
+                NpmLockFile.LockedPackage lockedPackage = lockFile.findTopLevelPackage(name, range);
+                String version;
+                if (lockedPackage != null && NpmVersionRanges.satisfies(lockedPackage.getVersion(), range)) {
+                    version = lockedPackage.getVersion();
+                } else {
+                    // the package.json has been changed since the lock file was written
+                    version = NpmVersionRanges.minimumVersion(range);
+                    lockedPackage = null;
+                }
+                directVersions.put(name, version);
+                if (lockedPackage != null) {
+                    directPackages.put(name, lockedPackage);
+                }
+                answer.with(dependencyKey).putObject(name).put(VERSION, version);
+            }
+        }
+
+        Set<NpmLockFile.LockedPackage> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String dependencyKey : DEPENDENCY_KEYS) {
+            JsonNode dependencies = answer.get(dependencyKey);
+            if (dependencies == null) {
+                continue;
+            }
+            Iterator<Map.Entry<String, JsonNode>> iter = dependencies.fields();
+            while (iter.hasNext()) {
+                Map.Entry<String, JsonNode> entry = iter.next();
+                NpmLockFile.LockedPackage lockedPackage = directPackages.get(entry.getKey());
+                if (lockedPackage != null) {
+                    addRequirements((ObjectNode) entry.getValue(), lockedPackage, directVersions, directPackages, visited);
+                }
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Adds the requirements of each locked package once so that every dependency link appears in the tree
+     * without expanding shared packages repeatedly
+     */
+    private static void addRequirements(ObjectNode node, NpmLockFile.LockedPackage lockedPackage, Map<String, String> directVersions,
+                                        Map<String, NpmLockFile.LockedPackage> directPackages, Set<NpmLockFile.LockedPackage> visited) {
+        if (!visited.add(lockedPackage) || lockedPackage.getRequires().isEmpty()) {
+            return;
+        }
+        ObjectNode dependencies = node.putObject(DEPENDENCIES);
+        for (Map.Entry<String, String> entry : lockedPackage.getRequires().entrySet()) {
+            String name = entry.getKey();
+            String range = entry.getValue();
+            NpmLockFile.LockedPackage resolved = lockedPackage.getResolved(name);
+            String directVersion = directVersions.get(name);
+            String version;
+            if (directVersion != null && NpmVersionRanges.satisfies(directVersion, range)) {
+                version = directVersion;
+                resolved = directPackages.get(name);
+            } else if (resolved != null) {
+                version = resolved.getVersion();
+            } else {
+                version = NpmVersionRanges.minimumVersion(range);
+            }
+            ObjectNode child = dependencies.putObject(name);
+            child.put(VERSION, version);
+            if (resolved != null && resolved != directPackages.get(name)) {
+                addRequirements(child, resolved, directVersions, directPackages, visited);
+            }
+        }
+    }
+
+    private static String contentHash(File lockFile, String packageJson) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        byte[] buffer = new byte[8192];
+        digest.update(lockFile.getName().getBytes(StandardCharsets.UTF_8));
+        try (InputStream in = new DigestInputStream(Files.newInputStream(lockFile.toPath()), digest)) {
+            while (in.read(buffer) >= 0) {
+                // digest the contents
+            }
+        }
+        digest.update(packageJson.getBytes(StandardCharsets.UTF_8));
+        StringBuilder builder = new StringBuilder();
+        for (byte b : digest.digest()) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+}
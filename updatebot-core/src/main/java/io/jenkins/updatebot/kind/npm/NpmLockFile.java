@@ -0,0 +1,359 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.npm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.jenkins.updatebot.support.JsonNodes;
+import io.jenkins.updatebot.support.MarkupHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The packages installed by a <code>package-lock.json</code>, <code>npm-shrinkwrap.json</code> or
+ * <code>yarn.lock</code> file along with how each package's requirements resolve to other locked packages.
+ */
+public class NpmLockFile {
+    public static final String NPM_SHRINKWRAP_JSON = "npm-shrinkwrap.json";
+    public static final String PACKAGE_LOCK_JSON = "package-lock.json";
+    public static final String YARN_LOCK = "yarn.lock";
+
+    /**
+     * The lock file names in the order npm and yarn use them
+     */
+    public static final String[] LOCK_FILE_NAMES = {NPM_SHRINKWRAP_JSON, PACKAGE_LOCK_JSON, YARN_LOCK};
+
+    private static final String NODE_MODULES = "node_modules/";
+    private static final String NESTED_NODE_MODULES = "/node_modules/";
+    private static final String[] REQUIRE_KEYS = {"dependencies", "optionalDependencies"};
+
+    private final File file;
+    private final Map<String, LockedPackage> topLevelPackages = new LinkedHashMap<>();
+    private final Map<String, LockedPackage> yarnSpecs = new HashMap<>();
+
+    protected NpmLockFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the lock file in the given directory or null if there is none
+     */
+    public static File findLockFile(File dir) {
+        for (String name : LOCK_FILE_NAMES) {
+            File file = new File(dir, name);
+            if (file.isFile()) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Loads the given lock file
+     */
+    public static NpmLockFile load(File file) throws IOException {
+        NpmLockFile answer = new NpmLockFile(file);
+        if (file.getName().equals(YARN_LOCK)) {
+            answer.parseYarnLock(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+        } else {
+            JsonNode json = MarkupHelper.loadJson(file);
+            JsonNode packages = json.get("packages");
+            if (packages != null && packages.isObject()) {
+                answer.parsePackages(packages);
+            } else {
+                answer.parseDependencies(json.get("dependencies"), null, new HashMap<>());
+            }
+        }
+        return answer;
+    }
+
+    @Override
+    public String toString() {
+        return "NpmLockFile{" + file + "}";
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the package which is installed for a direct dependency of the given range or null if it is not locked
+     */
+    public LockedPackage findTopLevelPackage(String name, String range) {
+        LockedPackage answer = findYarnPackage(name, range);
+        if (answer == null) {
+            answer = topLevelPackages.get(name);
+        }
+        return answer;
+    }
+
+    // package-lock.json version 1
+    //-------------------------------------------------------------------------
+
+    private void parseDependencies(JsonNode dependencies, LockedPackage parent, Map<String, LockedPackage> scope) {
+        if (dependencies == null || !dependencies.isObject()) {
+            return;
+        }
+        List<LockedPackage> packages = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> iter = dependencies.fields();
+        while (iter.hasNext()) {
+            Map.Entry<String, JsonNode> entry = iter.next();
+            LockedPackage lockedPackage = new LockedPackage(entry.getKey(), JsonNodes.textValue(entry.getValue(), "version"));
+            addRequires(lockedPackage, entry.getValue().get("requires"));
+            scope.put(lockedPackage.name, lockedPackage);
+            if (parent == null) {
+                topLevelPackages.put(lockedPackage.name, lockedPackage);
+            }
+            packages.add(lockedPackage);
+        }
+
+        // now lets resolve the requirements of each package by walking up the nested scopes like node does
+        iter = dependencies.fields();
+        for (LockedPackage lockedPackage : packages) {
+            JsonNode properties = iter.next().getValue();
+            Map<String, LockedPackage> nestedScope = new HashMap<>(scope);
+            parseDependencies(properties.get("dependencies"), lockedPackage, nestedScope);
+            for (String name : lockedPackage.requires.keySet()) {
+                LockedPackage resolved = nestedScope.get(name);
+                if (resolved != null) {
+                    lockedPackage.resolved.put(name, resolved);
+                }
+            }
+        }
+    }
+
+    // package-lock.json version 2 and later
+    //-------------------------------------------------------------------------
+
+    private void parsePackages(JsonNode packages) {
+        Map<String, LockedPackage> paths = new HashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> iter = packages.fields();
+        while (iter.hasNext()) {
+            Map.Entry<String, JsonNode> entry = iter.next();
+            String path = entry.getKey();
+            int idx = path.lastIndexOf(NODE_MODULES);
+            if (idx < 0) {
+                continue;
+            }
+            JsonNode properties = entry.getValue();
+            LockedPackage lockedPackage = new LockedPackage(path.substring(idx + NODE_MODULES.length()), JsonNodes.textValue(properties, "version"));
+            for (String key : REQUIRE_KEYS) {
+                addRequires(lockedPackage, properties.get(key));
+            }
+            paths.put(path, lockedPackage);
+            if (idx == 0) {
+                topLevelPackages.put(lockedPackage.name, lockedPackage);
+            }
+        }
+        for (Map.Entry<String, LockedPackage> entry : paths.entrySet()) {
+            LockedPackage lockedPackage = entry.getValue();
+            for (String name : lockedPackage.requires.keySet()) {
+                LockedPackage resolved = resolvePackagePath(paths, entry.getKey(), name);
+                if (resolved != null) {
+                    lockedPackage.resolved.put(name, resolved);
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves the package from the install path of the requiring package up to the root <code>node_modules</code>
+     */
+    private static LockedPackage resolvePackagePath(Map<String, LockedPackage> paths, String path, String name) {
+        String base = path;
+        while (true) {
+            LockedPackage answer = paths.get(base.isEmpty() ? NODE_MODULES + name : base + NESTED_NODE_MODULES + name);
+            if (answer != null || base.isEmpty()) {
+                return answer;
+            }
+            int idx = base.lastIndexOf(NESTED_NODE_MODULES);
+            base = idx < 0 ? "" : base.substring(0, idx);
+        }
+    }
+
+    // yarn.lock
+    //-------------------------------------------------------------------------
+
+    private void parseYarnLock(List<String> lines) {
+        List<LockedPackage> packages = new ArrayList<>();
+        LockedPackage current = null;
+        boolean inRequires = false;
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            int indent = line.indexOf(trimmed);
+            if (indent == 0) {
+                current = null;
+                inRequires = false;
+                if (trimmed.endsWith(":")) {
+                    current = parseYarnEntry(trimmed.substring(0, trimmed.length() - 1));
+                    if (current != null) {
+                        packages.add(current);
+                    }
+                }
+            } else if (current != null) {
+                String[] keyValue = yarnKeyValue(trimmed);
+                if (indent <= 2) {
+                    inRequires = false;
+                    if (keyValue[1].isEmpty()) {
+                        for (String key : REQUIRE_KEYS) {
+                            if (key.equals(keyValue[0])) {
+                                inRequires = true;
+                            }
+                        }
+                    } else if (keyValue[0].equals("version")) {
+                        current.version = keyValue[1];
+                    }
+                } else if (inRequires && !keyValue[1].isEmpty()) {
+                    current.requires.put(keyValue[0], keyValue[1]);
+                }
+            }
+        }
+        for (LockedPackage lockedPackage : packages) {
+            for (Map.Entry<String, String> entry : lockedPackage.requires.entrySet()) {
+                LockedPackage resolved = findYarnPackage(entry.getKey(), entry.getValue());
+                if (resolved != null) {
+                    lockedPackage.resolved.put(entry.getKey(), resolved);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses an entry header such as <code>"lodash@^4.17.0", lodash@^4.17.4</code>
+     */
+    private LockedPackage parseYarnEntry(String header) {
+        LockedPackage answer = null;
+        for (String spec : header.replace("\"", "").split(",")) {
+            spec = spec.trim();
+            int idx = spec.lastIndexOf('@');
+            if (idx <= 0) {
+                continue;
+            }
+            String name = spec.substring(0, idx);
+            if (answer == null) {
+                answer = new LockedPackage(name, null);
+                topLevelPackages.putIfAbsent(name, answer);
+            }
+            yarnSpecs.put(spec, answer);
+        }
+        return answer;
+    }
+
+    private LockedPackage findYarnPackage(String name, String range) {
+        LockedPackage answer = yarnSpecs.get(name + "@" + range);
+        if (answer == null) {
+            answer = yarnSpecs.get(name + "@npm:" + range);
+        }
+        return answer;
+    }
+
+    /**
+     * Splits a yarn line of the form <code>key "value"</code> or <code>key: value</code>
+     */
+    private static String[] yarnKeyValue(String text) {
+        String key;
+        String value;
+        if (text.startsWith("\"")) {
+            int end = text.indexOf('"', 1);
+            if (end < 0) {
+                end = text.length();
+            }
+            key = text.substring(1, end);
+            value = end < text.length() ? text.substring(end + 1) : "";
+        } else {
+            int end = 0;
+            while (end < text.length() && !Character.isWhitespace(text.charAt(end))) {
+                end++;
+            }
+            key = text.substring(0, end);
+            value = text.substring(end);
+        }
+        if (key.endsWith(":")) {
+            key = key.substring(0, key.length() - 1);
+        }
+        value = value.trim();
+        if (value.startsWith(":")) {
+            value = value.substring(1).trim();
+        }
+        if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        return new String[]{key, value};
+    }
+
+    private static void addRequires(LockedPackage lockedPackage, JsonNode requires) {
+        if (requires != null && requires.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> iter = requires.fields();
+            while (iter.hasNext()) {
+                Map.Entry<String, JsonNode> entry = iter.next();
+                lockedPackage.requires.put(entry.getKey(), entry.getValue().asText());
+            }
+        }
+    }
+
+    /**
+     * A package installed by the lock file
+     */
+    public static class LockedPackage {
+        private final String name;
+        private String version;
+        private final Map<String, String> requires = new LinkedHashMap<>();
+        private final Map<String, LockedPackage> resolved = new HashMap<>();
+
+        LockedPackage(String name, String version) {
+            this.name = name;
+            this.version = version;
+        }
+
+        @Override
+        public String toString() {
+            return name + "@" + version;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * Returns the version ranges this package requires indexed by package name
+         */
+        public Map<String, String> getRequires() {
+            return requires;
+        }
+
+        /**
+         * Returns the locked package the given requirement resolves to or null if it is not locked
+         */
+        public LockedPackage getResolved(String name) {
+            return resolved.get(name);
+        }
+    }
+}
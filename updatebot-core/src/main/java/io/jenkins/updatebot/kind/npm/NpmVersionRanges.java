@@ -0,0 +1,311 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.npm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A minimal implementation of the <a href="https://docs.npmjs.com/misc/semver">npm semver ranges</a> used to
+ * decide whether a dependency version would be shared with a package requiring a range.
+ *
+ * Supports exact versions, comparators, <code>^</code>, <code>~</code>, X-ranges, hyphen ranges and <code>||</code>.
+ * Ranges which are not version ranges (such as tags, URLs or git references) never match.
+ */
+public class NpmVersionRanges {
+    private static final Pattern VERSION = Pattern.compile("v?(\\d+|[xX*])(?:\\.(\\d+|[xX*]))?(?:\\.(\\d+|[xX*]))?(?:-([0-9A-Za-z.\\-]+))?(?:\\+[0-9A-Za-z.\\-]+)?");
+    private static final Pattern COMPARATOR = Pattern.compile("\\s*(<=|>=|<|>|=|\\^|~>?)?\\s*(\\S+)");
+
+    /**
+     * Returns true if the given version satisfies the range
+     */
+    public static boolean satisfies(String version, String range) {
+        Version v = Version.parse(version);
+        if (v == null || range == null) {
+            return false;
+        }
+        range = range.trim();
+        for (String set : range.split("\\|\\|")) {
+            List<Comparator> comparators = parseComparatorSet(set.trim());
+            if (comparators != null && matchesAll(v, comparators)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the lowest version described by the range or the range itself if it is not a version range
+     */
+    public static String minimumVersion(String range) {
+        if (range == null) {
+            return null;
+        }
+        Matcher m = COMPARATOR.matcher(range.trim());
+        if (m.lookingAt()) {
+            Version v = Version.parse(m.group(2));
+            if (v != null) {
+                return v.toString();
+            }
+        }
+        return range;
+    }
+
+    private static boolean matchesAll(Version version, List<Comparator> comparators) {
+        for (Comparator comparator : comparators) {
+            if (!comparator.matches(version)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the comparators for the set or null if it cannot be parsed
+     */
+    private static List<Comparator> parseComparatorSet(String set) {
+        List<Comparator> answer = new ArrayList<>();
+        if (set.isEmpty() || set.equals("*") || set.equalsIgnoreCase("x")) {
+            answer.add(new Comparator(">=", new Version(0, 0, 0, null)));
+            return answer;
+        }
+        int hyphen = set.indexOf(" - ");
+        if (hyphen > 0) {
+            Partial from = Partial.parse(set.substring(0, hyphen).trim());
+            Partial to = Partial.parse(set.substring(hyphen + 3).trim());
+            if (from == null || to == null) {
+                return null;
+            }
+            answer.add(new Comparator(">=", from.lowest()));
+            if (to.minor == null) {
+                answer.add(new Comparator("<", new Version(to.major + 1, 0, 0, null)));
+            } else if (to.patch == null) {
+                answer.add(new Comparator("<", new Version(to.major, to.minor + 1, 0, null)));
+            } else {
+                answer.add(new Comparator("<=", to.lowest()));
+            }
+            return answer;
+        }
+        Matcher m = COMPARATOR.matcher(set);
+        int index = 0;
+        while (index < set.length()) {
+            if (!m.find(index)) {
+                break;
+            }
+            String operator = m.group(1) != null ? m.group(1) : "";
+            Partial partial = Partial.parse(m.group(2));
+            if (partial == null) {
+                return null;
+            }
+            addComparators(answer, operator, partial);
+            index = m.end();
+        }
+        return answer;
+    }
+
+    private static void addComparators(List<Comparator> answer, String operator, Partial p) {
+        Version lowest = p.lowest();
+        switch (operator) {
+            case "^":
+                answer.add(new Comparator(">=", lowest));
+                if (p.major > 0 || p.minor == null) {
+                    answer.add(new Comparator("<", new Version(p.major + 1, 0, 0, null)));
+                } else if (p.minor > 0 || p.patch == null) {
+                    answer.add(new Comparator("<", new Version(0, p.minor + 1, 0, null)));
+                } else {
+                    answer.add(new Comparator("<", new Version(0, 0, p.patch + 1, null)));
+                }
+                break;
+            case "~":
+            case "~>":
+                answer.add(new Comparator(">=", lowest));
+                if (p.minor == null) {
+                    answer.add(new Comparator("<", new Version(p.major + 1, 0, 0, null)));
+                } else {
+                    answer.add(new Comparator("<", new Version(p.major, p.minor + 1, 0, null)));
+                }
+                break;
+            case ">":
+                if (p.minor == null) {
+                    answer.add(new Comparator(">=", new Version(p.major + 1, 0, 0, null)));
+                } else if (p.patch == null) {
+                    answer.add(new Comparator(">=", new Version(p.major, p.minor + 1, 0, null)));
+                } else {
+                    answer.add(new Comparator(">", lowest));
+                }
+                break;
+            case "<=":
+                if (p.minor == null) {
+                    answer.add(new Comparator("<", new Version(p.major + 1, 0, 0, null)));
+                } else if (p.patch == null) {
+                    answer.add(new Comparator("<", new Version(p.major, p.minor + 1, 0, null)));
+                } else {
+                    answer.add(new Comparator("<=", lowest));
+                }
+                break;
+            case ">=":
+            case "<":
+                answer.add(new Comparator(operator, lowest));
+                break;
+            default:
+                // exact version or X-range
+                if (p.minor == null) {
+                    answer.add(new Comparator(">=", lowest));
+                    answer.add(new Comparator("<", new Version(p.major + 1, 0, 0, null)));
+                } else if (p.patch == null) {
+                    answer.add(new Comparator(">=", lowest));
+                    answer.add(new Comparator("<", new Version(p.major, p.minor + 1, 0, null)));
+                } else {
+                    answer.add(new Comparator("=", lowest));
+                }
+        }
+    }
+
+    private static class Comparator {
+        private final String operator;
+        private final Version version;
+
+        Comparator(String operator, Version version) {
+            this.operator = operator;
+            this.version = version;
+        }
+
+        boolean matches(Version v) {
+            int compare = v.compareTo(version);
+            switch (operator) {
+                case "<":
+                    return compare < 0;
+                case "<=":
+                    return compare <= 0;
+                case ">":
+                    return compare > 0;
+                case ">=":
+                    return compare >= 0;
+                default:
+                    return compare == 0;
+            }
+        }
+    }
+
+    /**
+     * A version which may be missing its minor or patch parts such as <code>1.x</code>
+     */
+    private static class Partial {
+        private final long major;
+        private final Long minor;
+        private final Long patch;
+        private final String preRelease;
+
+        Partial(long major, Long minor, Long patch, String preRelease) {
+            this.major = major;
+            this.minor = minor;
+            this.patch = patch;
+            this.preRelease = preRelease;
+        }
+
+        static Partial parse(String text) {
+            if (text.startsWith("=")) {
+                text = text.substring(1);
+            }
+            Matcher m = VERSION.matcher(text.trim());
+            if (!m.matches()) {
+                return null;
+            }
+            try {
+                Long major = number(m.group(1));
+                if (major == null) {
+                    return new Partial(0, null, null, null);
+                }
+                Long minor = number(m.group(2));
+                Long patch = minor != null ? number(m.group(3)) : null;
+                return new Partial(major, minor, patch, patch != null ? m.group(4) : null);
+            } catch (NumberFormatException e) {
+                // a part too large for a long can not be compared so the version does not match anything
+                return null;
+            }
+        }
+
+        Version lowest() {
+            return new Version(major, minor != null ? minor : 0, patch != null ? patch : 0, preRelease);
+        }
+
+        private static Long number(String text) {
+            if (text == null || text.equalsIgnoreCase("x") || text.equals("*")) {
+                return null;
+            }
+            long answer = Long.parseLong(text);
+            if (answer == Long.MAX_VALUE) {
+                // ranges compare against the next major, minor or patch version
+                throw new NumberFormatException("Version part too large: " + text);
+            }
+            return answer;
+        }
+    }
+
+    private static class Version implements Comparable<Version> {
+        private final long major;
+        private final long minor;
+        private final long patch;
+        private final String preRelease;
+
+        Version(long major, long minor, long patch, String preRelease) {
+            this.major = major;
+            this.minor = minor;
+            this.patch = patch;
+            this.preRelease = preRelease;
+        }
+
+        static Version parse(String text) {
+            if (text == null) {
+                return null;
+            }
+            Partial partial = Partial.parse(text.trim());
+            if (partial == null || partial.patch == null) {
+                return null;
+            }
+            return partial.lowest();
+        }
+
+        @Override
+        public int compareTo(Version that) {
+            int answer = Long.compare(major, that.major);
+            if (answer == 0) {
+                answer = Long.compare(minor, that.minor);
+            }
+            if (answer == 0) {
+                answer = Long.compare(patch, that.patch);
+            }
+            if (answer == 0) {
+                if (preRelease == null) {
+                    answer = that.preRelease == null ? 0 : 1;
+                } else if (that.preRelease == null) {
+                    answer = -1;
+                } else {
+                    answer = preRelease.compareTo(that.preRelease);
+                }
+            }
+            return answer;
+        }
+
+        @Override
+        public String toString() {
+            String answer = major + "." + minor + "." + patch;
+            return preRelease != null ? answer + "-" + preRelease : answer;
+        }
+    }
+}
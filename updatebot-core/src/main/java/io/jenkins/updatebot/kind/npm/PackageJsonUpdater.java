@@ -26,11 +26,13 @@ import io.jenkins.updatebot.kind.Updater;
 import io.jenkins.updatebot.kind.npm.dependency.DependencyCheck;
 import io.jenkins.updatebot.kind.npm.dependency.DependencyTree;
 import io.jenkins.updatebot.model.Dependencies;
+import io.jenkins.updatebot.model.DependencyReferences;
 import io.jenkins.updatebot.model.DependencySet;
 import io.jenkins.updatebot.model.DependencyVersionChange;
 import io.jenkins.updatebot.model.NpmDependencies;
 import io.jenkins.updatebot.support.FileDeleter;
 import io.jenkins.updatebot.support.FileHelper;
+import io.jenkins.updatebot.support.FileOverlay;
 import io.jenkins.updatebot.support.JsonNodes;
 import io.jenkins.updatebot.support.MarkupHelper;
 import io.jenkins.updatebot.support.ProcessHelper;
@@ -44,6 +46,8 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -73,40 +77,85 @@ public class PackageJsonUpdater implements Updater {
     }
 
     protected boolean pushVersions(PushVersionChangesContext context) throws IOException {
-        File file = context.file("package.json");
-        JsonNode tree = MarkupHelper.loadJson(file);
+        return pushVersions(context.getOverlay(), context.file("package.json"), Collections.singletonList(context));
+    }
+
+    @Override
+    public boolean pushVersions(CommandContext parentContext, List<DependencyVersionChange> changes) throws IOException {
         boolean answer = false;
+        if (isApplicable(parentContext)) {
+            List<PushVersionChangesContext> contexts = new ArrayList<>(changes.size());
+            for (DependencyVersionChange step : changes) {
+                contexts.add(new PushVersionChangesContext(parentContext, step));
+            }
+            pushVersions(parentContext.getOverlay(), parentContext.file("package.json"), contexts);
+            for (PushVersionChangesContext context : contexts) {
+                if (context.getChanges().isEmpty()) {
+                    parentContext.removeChild(context);
+                } else {
+                    answer = true;
+                }
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Applies all the changes to the given <code>package.json</code> loading and saving it at most once.
+     * The dependency sections are indexed by dependency name so each change is a single lookup.
+     */
+    protected boolean pushVersions(FileOverlay overlay, File file, List<PushVersionChangesContext> contexts) throws IOException {
+        JsonNode tree = overlay.loadJson(file);
+        Map<String, List<String>> dependencyKeysByName = new HashMap<>();
         for (String dependencyKey : NpmDependencyKinds.DEPENDENCY_KEYS) {
             JsonNode dependencies = tree.get(dependencyKey);
             if (dependencies instanceof ObjectNode) {
-                ObjectNode objectNode = (ObjectNode) dependencies;
+                Iterator<String> iter = dependencies.fieldNames();
+                while (iter.hasNext()) {
+                    dependencyKeysByName.computeIfAbsent(iter.next(), k -> new ArrayList<>(1)).add(dependencyKey);
+                }
+            }
+        }
+        boolean answer = false;
+        for (PushVersionChangesContext context : contexts) {
+            List<String> dependencyKeys = dependencyKeysByName.get(context.getName());
+            if (dependencyKeys == null) {
+                continue;
+            }
+            boolean updated = false;
+            for (String dependencyKey : dependencyKeys) {
+                ObjectNode objectNode = (ObjectNode) tree.get(dependencyKey);
                 if (doPushVersionChange(dependencyKey, objectNode, context)) {
-                    answer = true;
+                    updated = true;
                 }
             }
+            if (updated) {
+                context.updatedFile(file);
+                answer = true;
+            }
         }
         if (answer) {
-            MarkupHelper.savePrettyJson(file, tree);
-            context.updatedFile(file);
+            overlay.savePrettyJson(file, tree);
         }
         return answer;
     }
 
     @Override
-    public boolean pushVersions(CommandContext parentContext, List<DependencyVersionChange> changes) throws IOException {
-        boolean answer = false;
-        if (isApplicable(parentContext)) {
-            for (DependencyVersionChange step : changes) {
-                PushVersionChangesContext context = new PushVersionChangesContext(parentContext, step);
-                boolean updated = pushVersions(context);
-                if (updated) {
-                    answer = true;
-                } else {
-                    parentContext.removeChild(context);
+    public boolean addDependencyReferences(CommandContext context, DependencyReferences references) throws IOException {
+        File file = context.file("package.json");
+        if (Files.isFile(file)) {
+            JsonNode tree = MarkupHelper.loadJson(file);
+            for (String dependencyKey : NpmDependencyKinds.DEPENDENCY_KEYS) {
+                JsonNode dependencies = tree.get(dependencyKey);
+                if (dependencies instanceof ObjectNode) {
+                    Iterator<String> iter = dependencies.fieldNames();
+                    while (iter.hasNext()) {
+                        references.addReference(Kind.NPM, iter.next(), file);
+                    }
                 }
             }
         }
-        return answer;
+        return true;
     }
 
     /**
@@ -144,7 +193,7 @@ public class PackageJsonUpdater implements Updater {
         File file = context.file(fileName);
         if (Files.isFile(file)) {
             try {
-                tree = MarkupHelper.loadJson(file);
+                tree = context.getOverlay().loadJson(file);
             } catch (IOException e) {
                 LOG.warn("Failed to parse JSON " + file + ". " + e, e);
             }
@@ -159,16 +208,17 @@ public class PackageJsonUpdater implements Updater {
         Map<String, DependencyCheck> failedChecks = new TreeMap<>();
 
         String dependencyFileName = ".dependency-tree.json";
-        JsonNode json = null;
+        DependencyTree dependencyTree = null;
         File file = new File(context.getDir(), dependencyFileName);
         try (FileDeleter ignore = new FileDeleter(file)) {
             generateDependencyTree(context, dependencyFileName);
-            json = getJsonFile(context, dependencyFileName);
+            if (Files.isFile(file)) {
+                dependencyTree = DependencyTree.parseTree(file);
+            }
         } catch (IOException e) {
             LOG.warn("Caught " + e, e);
         }
-        if (json != null) {
-            DependencyTree dependencyTree = DependencyTree.parseTree(json);
+        if (dependencyTree != null) {
             for (DependencyVersionChange change : changes) {
                 DependencyCheck dependencyCheck = dependencyTree.dependencyCheck(change.getDependency());
                 if (dependencyCheck.isValid()) {
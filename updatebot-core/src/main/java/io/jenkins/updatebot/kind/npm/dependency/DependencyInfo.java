@@ -22,8 +22,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
 
@@ -34,7 +36,7 @@ public class DependencyInfo {
 
     private final String dependency;
     private String version;
-    private Map<String, List<DependencyLink>> versions = new TreeMap<>();
+    private Map<String, Set<DependencyLink>> versions = new TreeMap<>();
 
     public DependencyInfo(String dependency) {
         this.dependency = dependency;
@@ -57,10 +59,10 @@ public class DependencyInfo {
 
     private String conflictedDependencyText() {
         List<String> messages = new ArrayList<>();
-        for (Map.Entry<String, List<DependencyLink>> entry : versions.entrySet()) {
+        for (Map.Entry<String, Set<DependencyLink>> entry : versions.entrySet()) {
             String key = entry.getKey();
             if (!Objects.equal(version, key)) {
-                List<DependencyLink> dependencies = entry.getValue();
+                Set<DependencyLink> dependencies = entry.getValue();
                 String dependencyNames = dependencies.stream().map(link -> link.getParent().toString()).collect(Collectors.joining(", "));
                 messages.add(dependencyNames + " => " + key);
             }
@@ -72,7 +74,7 @@ public class DependencyInfo {
         return dependency;
     }
 
-    public Map<String, List<DependencyLink>> getVersions() {
+    public Map<String, Set<DependencyLink>> getVersions() {
         return versions;
     }
 
@@ -85,7 +87,8 @@ public class DependencyInfo {
     }
 
     /**
-     * Associates this dependency as a transient dependency of the parent
+     * Associates this dependency as a transient dependency of the parent.
+     * A link which is repeated elsewhere in the tree is only stored once.
      *
      * @param parent        the parent who is dependent on this package
      * @param version       the version of this package the parent depends on
@@ -95,9 +98,9 @@ public class DependencyInfo {
         if (version == null) {
             LOG.debug("Dependency " + parent + " does not specify a version for " + this.dependency);
         } else {
-            List<DependencyLink> dependencyLinks = versions.get(version);
+            Set<DependencyLink> dependencyLinks = versions.get(version);
             if (dependencyLinks == null) {
-                dependencyLinks = new ArrayList<>();
+                dependencyLinks = new LinkedHashSet<>();
                 versions.put(version, dependencyLinks);
             }
             dependencyLinks.add(new DependencyLink(parent, this, version, dependencyKey));
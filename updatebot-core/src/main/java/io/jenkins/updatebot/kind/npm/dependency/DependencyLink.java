@@ -15,6 +15,8 @@
  */
 package io.jenkins.updatebot.kind.npm.dependency;
 
+import java.util.Objects;
+
 /**
  * A dependency link from a parent dependency to a child dependency
  */
@@ -41,6 +43,25 @@ public class DependencyLink {
                 '}';
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        DependencyLink that = (DependencyLink) o;
+        return parent == that.parent && child == that.child &&
+                Objects.equals(version, that.version) &&
+                Objects.equals(dependencyKind, that.dependencyKind);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(System.identityHashCode(parent), System.identityHashCode(child), version, dependencyKind);
+    }
+
     public DependencyInfo getParent() {
         return parent;
     }
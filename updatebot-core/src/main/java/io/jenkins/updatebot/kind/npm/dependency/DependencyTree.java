@@ -15,47 +15,104 @@
  */
 package io.jenkins.updatebot.kind.npm.dependency;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import io.jenkins.updatebot.support.JsonNodes;
 
-import java.util.Iterator;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static io.jenkins.updatebot.kind.npm.NpmDependencyKinds.DEPENDENCY_KEYS;
 
 /**
+ * The dependencies of a project parsed from the output of <code>npm list -json</code>.
+ *
+ * The tree is parsed from the JSON tokens as they are read so that the whole document is never held in memory;
+ * names and versions are shared across all the occurrences of a package so memory use grows with the number
+ * of unique packages rather than the size of the tree.
  */
 public class DependencyTree {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
     private Map<String, DependencyInfo> dependencies = new LinkedHashMap<>();
+    private Map<String, String> versions = new HashMap<>();
+
+    public static DependencyTree parseTree(File file) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(file)) {
+            return parseTree(parser);
+        }
+    }
 
     public static DependencyTree parseTree(JsonNode tree) {
+        try (JsonParser parser = tree.traverse()) {
+            return parseTree(parser);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to parse dependency tree: " + e, e);
+        }
+    }
+
+    public static DependencyTree parseTree(JsonParser parser) throws IOException {
         DependencyTree dependencyTree = new DependencyTree();
-        dependencyTree.parse(tree, null);
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Dependency tree does not start with an object");
+        }
+        dependencyTree.parseObject(parser, null);
         return dependencyTree;
     }
 
-    protected void parse(JsonNode tree, DependencyInfo parent) {
+    /**
+     * Parses the fields of the current object adding any dependencies to the parent, returning the version
+     */
+    protected String parseObject(JsonParser parser, DependencyInfo parent) throws IOException {
+        String version = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            String dependencyKey = token == JsonToken.START_OBJECT ? dependencyKey(field) : null;
+            if (dependencyKey != null) {
+                parseDependencies(parser, parent, dependencyKey);
+            } else if ("version".equals(field) && token == JsonToken.VALUE_STRING) {
+                version = internVersion(parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return version;
+    }
+
+    protected void parseDependencies(JsonParser parser, DependencyInfo parent, String dependencyKey) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            DependencyInfo dependencyInfo = getOrCreateDependencyInfo(parser.getCurrentName());
+            String version = null;
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                version = parseObject(parser, dependencyInfo);
+            } else {
+                parser.skipChildren();
+            }
+            if (parent == null) {
+                dependencyInfo.setVersion(version);
+            } else {
+                dependencyInfo.addDependency(parent, version, dependencyKey);
+            }
+        }
+    }
+
+    private static String dependencyKey(String field) {
         for (String dependencyKey : DEPENDENCY_KEYS) {
-            JsonNode deps = tree.get(dependencyKey);
-            if (deps instanceof ObjectNode) {
-                ObjectNode objectNode = (ObjectNode) deps;
-                Iterator<String> iter = objectNode.fieldNames();
-                while (iter.hasNext()) {
-                    String field = iter.next();
-                    JsonNode properties = objectNode.get(field);
-                    String version = JsonNodes.textValue(properties, "version");
-                    DependencyInfo dependencyInfo = getOrCreateDependencyInfo(field);
-                    if (parent == null) {
-                        dependencyInfo.setVersion(version);
-                    } else {
-                        dependencyInfo.addDependency(parent, version, dependencyKey);
-                    }
-                    parse(properties, dependencyInfo);
-                }
+            if (dependencyKey.equals(field)) {
+                return dependencyKey;
             }
         }
+        return null;
+    }
+
+    private String internVersion(String version) {
+        String answer = versions.putIfAbsent(version, version);
+        return answer != null ? answer : version;
     }
 
     public DependencyCheck dependencyCheck(String dependency) {
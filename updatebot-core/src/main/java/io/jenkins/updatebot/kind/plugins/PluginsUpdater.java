@@ -15,6 +15,7 @@
  */
 package io.jenkins.updatebot.kind.plugins;
 
+import io.jenkins.updatebot.Configuration;
 import io.jenkins.updatebot.commands.CommandContext;
 import io.jenkins.updatebot.kind.Updater;
 import io.jenkins.updatebot.kind.UpdaterSupport;
@@ -23,14 +24,12 @@ import io.jenkins.updatebot.model.DependencyVersionChange;
 import io.jenkins.updatebot.model.GitRepositoryConfig;
 import io.jenkins.updatebot.model.PluginsDependencies;
 import io.jenkins.updatebot.support.FileMatcher;
-import io.jenkins.updatebot.support.MarkupHelper;
 import io.fabric8.utils.IOHelpers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -45,8 +44,6 @@ public class PluginsUpdater extends UpdaterSupport implements Updater {
     public static final String PLUGINS_SEPARATOR = ":";
     private static final transient Logger LOG = LoggerFactory.getLogger(PluginsUpdater.class);
 
-    private PluginVersions pluginVersions;
-
     @Override
     public boolean isApplicable(CommandContext context) {
 /*
@@ -99,20 +96,28 @@ public class PluginsUpdater extends UpdaterSupport implements Updater {
         return answer;
     }
 
+    /**
+     * Returns the plugin versions which are loaded once per {@link Configuration} and shared by all repositories
+     */
     public PluginVersions getPluginVersions(CommandContext context) throws IOException {
+        Configuration configuration = context.getConfiguration();
+        PluginVersions pluginVersions = configuration.getPluginVersions();
         if (pluginVersions == null) {
             pluginVersions = loadNewPluginVersions(context);
-            Set<Map.Entry<String, PluginVersion>> entries = pluginVersions.getPlugins().entrySet();
-            for (Map.Entry<String, PluginVersion> entry : entries) {
-                LOG.info("Plugin " + entry.getKey() + " version: " + entry.getValue().getVersion());
+            configuration.setPluginVersions(pluginVersions);
+            LOG.info("Loaded " + pluginVersions.getPlugins().size() + " plugin versions from " + configuration.getJenkinsUpdateCenterUrl());
+            if (LOG.isDebugEnabled()) {
+                Set<Map.Entry<String, PluginVersion>> entries = pluginVersions.getPlugins().entrySet();
+                for (Map.Entry<String, PluginVersion> entry : entries) {
+                    LOG.debug("Plugin " + entry.getKey() + " version: " + entry.getValue().getVersion());
+                }
             }
         }
         return pluginVersions;
     }
 
     protected PluginVersions loadNewPluginVersions(CommandContext context) throws IOException {
-        URL url = new URL("http://ftp-chi.osuosl.org/pub/jenkins/updates/current/update-center.actual.json");
-        return MarkupHelper.loadJson(url, PluginVersions.class);
+        return UpdateCenter.loadPluginVersions(context.getConfiguration());
     }
 
     @Override
@@ -134,7 +139,7 @@ public class PluginsUpdater extends UpdaterSupport implements Updater {
 
     private boolean pullVersionsInFile(CommandContext context, File file, PluginVersions pluginVersions) throws IOException {
         LOG.info("Processing file " + file);
-        List<String> lines = IOHelpers.readLines(file);
+        List<String> lines = context.getOverlay().readLines(file);
         List<String> answer = new ArrayList<>(lines.size());
 
         boolean changed = false;
@@ -159,7 +164,7 @@ public class PluginsUpdater extends UpdaterSupport implements Updater {
             answer.add(line);
         }
         if (changed) {
-            IOHelpers.writeLines(file, answer);
+            context.getOverlay().writeLines(file, answer);
         }
         return changed;
     }
@@ -167,7 +172,7 @@ public class PluginsUpdater extends UpdaterSupport implements Updater {
 
     private boolean updateVersionsInFile(CommandContext context, File file, PluginsDependencies plugins, List<DependencyVersionChange> changes) throws IOException {
         LOG.info("Processing file " + file);
-        List<String> lines = IOHelpers.readLines(file);
+        List<String> lines = context.getOverlay().readLines(file);
         List<String> answer = new ArrayList<>(lines.size());
 
         Map<String, String> versionMap = new HashMap<>();
@@ -193,7 +198,7 @@ public class PluginsUpdater extends UpdaterSupport implements Updater {
             }
         }
         if (changed) {
-            IOHelpers.writeLines(file, answer);
+            context.getOverlay().writeLines(file, answer);
         }
         return changed;
     }
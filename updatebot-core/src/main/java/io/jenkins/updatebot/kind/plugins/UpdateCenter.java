@@ -0,0 +1,219 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.plugins;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.support.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Loads the plugin versions from the Jenkins update center.
+ *
+ * The downloaded JSON is cached on disk and revalidated using <code>ETag</code> and <code>Last-Modified</code>
+ * headers; only the plugin names and versions are extracted from it using a streaming parser.
+ */
+public class UpdateCenter {
+    private static final transient Logger LOG = LoggerFactory.getLogger(UpdateCenter.class);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "lastModified";
+
+    /**
+     * Loads the plugin versions from the update center URL of the configuration
+     */
+    public static PluginVersions loadPluginVersions(Configuration configuration) throws IOException {
+        URL url = new URL(configuration.getJenkinsUpdateCenterUrl());
+        if (!url.getProtocol().startsWith("http")) {
+            try (InputStream in = url.openStream()) {
+                return parsePluginVersions(in);
+            }
+        }
+        File file = downloadToCache(configuration, url);
+        try (InputStream in = new FileInputStream(file)) {
+            return parsePluginVersions(in);
+        }
+    }
+
+    /**
+     * Downloads the URL into the cache directory unless the cached copy is still valid, returning the cached file
+     */
+    protected static File downloadToCache(Configuration configuration, URL url) throws IOException {
+        File cacheDir = configuration.getCacheDir();
+        cacheDir.mkdirs();
+        String name = "update-center-" + Integer.toHexString(url.toString().hashCode());
+        File file = new File(cacheDir, name + ".json");
+        File metadataFile = new File(cacheDir, name + ".properties");
+
+        Properties metadata = new Properties();
+        if (file.isFile() && metadataFile.isFile()) {
+            try (InputStream in = new FileInputStream(metadataFile)) {
+                metadata.load(in);
+            }
+        }
+
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) url.openConnection();
+            String etag = metadata.getProperty(ETAG);
+            if (Strings.notEmpty(etag)) {
+                connection.setRequestProperty("If-None-Match", etag);
+            }
+            String lastModified = metadata.getProperty(LAST_MODIFIED);
+            if (Strings.notEmpty(lastModified)) {
+                connection.setRequestProperty("If-Modified-Since", lastModified);
+            }
+            int code = connection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                LOG.debug("Using cached update center " + file + " for " + url);
+                return file;
+            }
+            if (code != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Failed to download " + url + " status code: " + code);
+            }
+            File tempFile = File.createTempFile(name, ".tmp", cacheDir);
+            try {
+                try (InputStream in = connection.getInputStream(); OutputStream out = new FileOutputStream(tempFile)) {
+                    copy(in, out);
+                }
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                tempFile.delete();
+            }
+            storeMetadata(connection, metadataFile);
+            return file;
+        } catch (IOException e) {
+            if (file.isFile()) {
+                configuration.warn(LOG, "Failed to revalidate " + url + " so using the cached copy " + file + ". " + e);
+                return file;
+            }
+            throw e;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private static void storeMetadata(URLConnection connection, File metadataFile) throws IOException {
+        Properties metadata = new Properties();
+        String etag = connection.getHeaderField("ETag");
+        if (Strings.notEmpty(etag)) {
+            metadata.setProperty(ETAG, etag);
+        }
+        String lastModified = connection.getHeaderField("Last-Modified");
+        if (Strings.notEmpty(lastModified)) {
+            metadata.setProperty(LAST_MODIFIED, lastModified);
+        }
+        try (OutputStream out = new FileOutputStream(metadataFile)) {
+            metadata.store(out, "UpdateBot update center cache");
+        }
+    }
+
+    /**
+     * Parses the <code>plugins</code> names and versions from the update center JSON without binding the rest of
+     * the document. Any JSONP wrapper such as <code>updateCenter.post(</code> is skipped.
+     */
+    public static PluginVersions parsePluginVersions(InputStream in) throws IOException {
+        Map<String, PluginVersion> plugins = new HashMap<>();
+        BufferedInputStream buffered = new BufferedInputStream(in);
+        skipToJsonObject(buffered);
+        try (JsonParser parser = JSON_FACTORY.createParser(buffered)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Update center JSON does not start with an object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("plugins".equals(field) && token == JsonToken.START_OBJECT) {
+                    parsePlugins(parser, plugins);
+                    break;
+                }
+                parser.skipChildren();
+            }
+        }
+        PluginVersions answer = new PluginVersions();
+        answer.setPlugins(plugins);
+        return answer;
+    }
+
+    private static void parsePlugins(JsonParser parser, Map<String, PluginVersion> plugins) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            String version = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("version".equals(field) && token == JsonToken.VALUE_STRING) {
+                    version = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (version != null) {
+                PluginVersion plugin = new PluginVersion();
+                plugin.setVersion(version);
+                plugins.put(name, plugin);
+            }
+        }
+    }
+
+    private static void skipToJsonObject(InputStream in) throws IOException {
+        while (true) {
+            in.mark(1);
+            int ch = in.read();
+            if (ch < 0) {
+                return;
+            }
+            if (ch == '{') {
+                in.reset();
+                return;
+            }
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, count);
+        }
+    }
+}
@@ -16,29 +16,32 @@
 package io.jenkins.updatebot.kind.regex;
 
 import io.fabric8.utils.Files;
-import io.fabric8.utils.IOHelpers;
-import io.fabric8.utils.Strings;
 import io.jenkins.updatebot.commands.CommandContext;
 import io.jenkins.updatebot.commands.PushRegexChanges;
 import io.jenkins.updatebot.kind.UpdaterSupport;
 import io.jenkins.updatebot.model.Dependencies;
 import io.jenkins.updatebot.model.DependencyVersionChange;
 import io.jenkins.updatebot.support.FileMatcher;
+import io.jenkins.updatebot.support.FileOverlay;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.nio.charset.Charset;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.nio.file.StandardCopyOption;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -70,48 +73,203 @@ public class RegexUpdater extends UpdaterSupport {
         }
         FileMatcher matcher = new FileMatcher(command.getFiles(), excludeFiles);
         List<File> files = matcher.matchFiles(context.getDir());
-        boolean answer = false;
-        for (File file : files) {
-            if (doPushRegex(command, context, file)) {
-                answer = true;
-            }
+
+        // lets compile the expressions once for all the files
+        Pattern pattern = command.getCompiledRegex();
+        Pattern previousLinePattern = command.getCompiledPreviousLinePattern();
+        String value = command.getValue();
+        FileOverlay overlay = context.getOverlay();
+
+        long start = System.currentTimeMillis();
+        AtomicLong bytes = new AtomicLong();
+        boolean answer;
+        try {
+            answer = files.parallelStream().map(file -> {
+                try {
+                    bytes.addAndGet(file.length());
+                    return doPushRegex(overlay, pattern, previousLinePattern, value, file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to update " + file + ". " + e, e);
+                }
+            }).reduce(false, (a, b) -> a || b);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+        logThroughput(files.size(), bytes.get(), System.currentTimeMillis() - start);
         return answer;
     }
 
     protected boolean doPushRegex(PushRegexChanges command, CommandContext context, File file) throws IOException {
-        boolean answer = false;
-        Pattern previousLinePattern = null;
-        String previousLinePatternText = command.getPreviousLinePattern();
-        if (Strings.isNotBlank(previousLinePatternText)) {
-            previousLinePattern = Pattern.compile(previousLinePatternText);
+        return doPushRegex(context.getOverlay(), command.getCompiledRegex(), command.getCompiledPreviousLinePattern(), command.getValue(), file);
+    }
+
+    /**
+     * Replaces the matching lines of the file through the overlay if it is buffered, otherwise directly on disk.
+     *
+     * Buffered rewrites are streamed into a temporary file which the overlay keeps as the pending change so that
+     * large files are never held in memory.
+     */
+    protected boolean doPushRegex(FileOverlay overlay, Pattern pattern, Pattern previousLinePattern, String value, File file) throws IOException {
+        if (!overlay.isBuffered()) {
+            return doPushRegex(pattern, previousLinePattern, value, file);
+        }
+        if (!overlay.exists(file)) {
+            return false;
         }
-        if (Files.isFile(file)) {
-            String text = IOHelpers.readFully(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
-            String[] lines = text.split("\n");
-            String regex = command.getRegex();
-            String value = command.getValue();
-
-            Pattern pattern = Pattern.compile(regex);
-            for (int i = 0, size = lines.length; i < size; i++) {
-                String line = lines[i];
-                Matcher m = pattern.matcher(line);
-                if (m.matches() && (previousLinePattern == null || (i > 0 && previousLinePattern.matcher(lines[i-1]).matches()))) {
-                    int start = m.start(1);
-                    int end = m.end(1);
-                    String newLine = line.substring(0, start) + value + line.substring(end);
-                    if (!line.equals(newLine)) {
-                        lines[i] = newLine;
-                        answer = true;
+        try (LineReader reader = new LineReader(overlay.openReader(file))) {
+            if (!replaceLines(reader, null, pattern, previousLinePattern, value)) {
+                return false;
+            }
+        }
+        File tempFile = overlay.createTempFile(file);
+        try {
+            try (LineReader reader = new LineReader(overlay.openReader(file));
+                 Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+                replaceLines(reader, writer, pattern, previousLinePattern, value);
+            }
+            overlay.writeFile(file, tempFile);
+        } catch (IOException | RuntimeException e) {
+            tempFile.delete();
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the first group of the pattern with the value on all matching lines of the file.
+     *
+     * The file is streamed line by line so that large files are never read into memory; it is only scanned
+     * a second time and rewritten if one of the lines actually changes.
+     */
+    protected boolean doPushRegex(Pattern pattern, Pattern previousLinePattern, String value, File file) throws IOException {
+        if (!Files.isFile(file)) {
+            return false;
+        }
+        try (LineReader reader = new LineReader(file)) {
+            if (!replaceLines(reader, null, pattern, previousLinePattern, value)) {
+                return false;
+            }
+        }
+        File tempFile = File.createTempFile(".updatebot-", ".tmp", file.getParentFile());
+        try {
+            try (LineReader reader = new LineReader(file);
+                 Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+                replaceLines(reader, writer, pattern, previousLinePattern, value);
+            }
+            copyPermissions(file, tempFile);
+            java.nio.file.Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tempFile.delete();
+        }
+        return true;
+    }
+
+    /**
+     * Streams the lines from the reader replacing any matching lines. If there is no writer we return as soon
+     * as we find the first line which changes.
+     *
+     * @return true if a line was changed
+     */
+    private static boolean replaceLines(LineReader reader, Writer writer, Pattern pattern, Pattern previousLinePattern, String value) throws IOException {
+        boolean answer = false;
+        StringBuilder buffer = new StringBuilder();
+        String previousLine = null;
+        while (true) {
+            boolean terminated = reader.readLine(buffer);
+            if (!terminated && buffer.length() == 0) {
+                break;
+            }
+            String line = buffer.toString();
+            String newLine = line;
+            Matcher m = pattern.matcher(line);
+            if (m.matches() && (previousLinePattern == null || (previousLine != null && previousLinePattern.matcher(previousLine).matches()))) {
+                newLine = line.substring(0, m.start(1)) + value + line.substring(m.end(1));
+                if (!line.equals(newLine)) {
+                    answer = true;
+                    if (writer == null) {
+                        return true;
                     }
                 }
             }
-            if (answer) {
-                String updatedText = String.join(System.lineSeparator(), lines);
-                Files.writeToFile(file, updatedText, StandardCharsets.UTF_8);
+            if (writer != null) {
+                writer.write(newLine);
+                if (terminated) {
+                    writer.write('\n');
+                }
+            }
+            if (!terminated) {
+                break;
             }
+            previousLine = line;
         }
         return answer;
     }
 
-}
\ No newline at end of file
+    private static void copyPermissions(File from, File to) throws IOException {
+        try {
+            java.nio.file.Files.setPosixFilePermissions(to.toPath(), java.nio.file.Files.getPosixFilePermissions(from.toPath()));
+        } catch (UnsupportedOperationException e) {
+            // not a posix file system
+        }
+    }
+
+    private static void logThroughput(int fileCount, long bytes, long millis) {
+        double seconds = Math.max(millis, 1) / 1000.0;
+        double megabytes = bytes / (1024.0 * 1024.0);
+        LOG.info(String.format("Processed %d files (%.2f MB) in %d ms: %.1f files/s, %.2f MB/s",
+                fileCount, megabytes, millis, fileCount / seconds, megabytes / seconds));
+    }
+
+    /**
+     * Reads lines split on <code>\n</code> through a fixed size buffer, keeping any <code>\r</code>
+     * as part of the line
+     */
+    private static class LineReader implements Closeable {
+        private final Reader reader;
+        private final char[] chars = new char[8192];
+        private int position;
+        private int length;
+
+        LineReader(File file) throws IOException {
+            this(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+        }
+
+        LineReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Reads the next line into the buffer excluding the terminator
+         *
+         * @return true if the line was terminated
+         */
+        boolean readLine(StringBuilder buffer) throws IOException {
+            buffer.setLength(0);
+            while (true) {
+                if (position >= length) {
+                    length = reader.read(chars);
+                    position = 0;
+                    if (length <= 0) {
+                        length = 0;
+                        return false;
+                    }
+                }
+                int start = position;
+                while (position < length) {
+                    if (chars[position] == '\n') {
+                        buffer.append(chars, start, position - start);
+                        position++;
+                        return true;
+                    }
+                    position++;
+                }
+                buffer.append(chars, start, position - start);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.model;
+
+import io.jenkins.updatebot.kind.Kind;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable set of {@link DependencyVersionChange} objects keyed by their kind and dependency so that
+ * there is at most one change per dependency and lookups, merges and per kind views do not scan the changes.
+ *
+ * The iteration order is the order in which the dependencies were first added.
+ */
+public final class ChangeSet implements Iterable<DependencyVersionChange> {
+    public static final ChangeSet EMPTY = new ChangeSet(new LinkedHashMap<>());
+
+    private final Map<Key, DependencyVersionChange> changes;
+    private volatile Map<Kind, List<DependencyVersionChange>> byKind;
+
+    private ChangeSet(LinkedHashMap<Key, DependencyVersionChange> changes) {
+        this.changes = Collections.unmodifiableMap(changes);
+    }
+
+    /**
+     * Creates a change set from the given changes; if there is more than one change for a dependency the last one wins
+     */
+    public static ChangeSet of(Collection<? extends DependencyVersionChange> list) {
+        if (list instanceof ChangeSet.View) {
+            return ((View) list).changeSet;
+        }
+        if (list.isEmpty()) {
+            return EMPTY;
+        }
+        LinkedHashMap<Key, DependencyVersionChange> map = new LinkedHashMap<>();
+        for (DependencyVersionChange change : list) {
+            map.put(new Key(change), change);
+        }
+        return new ChangeSet(map);
+    }
+
+    public int size() {
+        return changes.size();
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    @Override
+    public Iterator<DependencyVersionChange> iterator() {
+        return changes.values().iterator();
+    }
+
+    /**
+     * Returns the change for the given kind and dependency or null if there is none
+     */
+    public DependencyVersionChange get(Kind kind, String dependency) {
+        return changes.get(new Key(kind, dependency));
+    }
+
+    /**
+     * Returns true if this set has a change for the same kind and dependency as the given change
+     */
+    public boolean contains(DependencyVersionChange change) {
+        return changes.containsKey(new Key(change));
+    }
+
+    /**
+     * Returns a change set with all of these changes plus the changes from the other set for dependencies
+     * which are not in this set
+     */
+    public ChangeSet merge(ChangeSet that) {
+        if (that.isEmpty()) {
+            return this;
+        }
+        if (this.isEmpty()) {
+            return that;
+        }
+        LinkedHashMap<Key, DependencyVersionChange> map = new LinkedHashMap<>(this.changes);
+        for (Map.Entry<Key, DependencyVersionChange> entry : that.changes.entrySet()) {
+            map.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        return new ChangeSet(map);
+    }
+
+    /**
+     * Returns a change set with all of these changes replaced or extended by the changes from the other set
+     */
+    public ChangeSet override(ChangeSet that) {
+        if (that.isEmpty()) {
+            return this;
+        }
+        if (this.isEmpty()) {
+            return that;
+        }
+        LinkedHashMap<Key, DependencyVersionChange> map = new LinkedHashMap<>(this.changes);
+        map.putAll(that.changes);
+        return new ChangeSet(map);
+    }
+
+    /**
+     * Returns the changes in this set which are not in the other set or which have a different version or scope
+     */
+    public ChangeSet diff(ChangeSet that) {
+        if (that.isEmpty()) {
+            return this;
+        }
+        LinkedHashMap<Key, DependencyVersionChange> map = new LinkedHashMap<>();
+        for (Map.Entry<Key, DependencyVersionChange> entry : this.changes.entrySet()) {
+            DependencyVersionChange change = entry.getValue();
+            if (!change.equals(that.changes.get(entry.getKey()))) {
+                map.put(entry.getKey(), change);
+            }
+        }
+        return map.isEmpty() ? EMPTY : new ChangeSet(map);
+    }
+
+    /**
+     * Returns the changes for the given kind
+     */
+    public ChangeSet forKind(Kind kind) {
+        List<DependencyVersionChange> list = byKind().get(kind);
+        return list != null ? ((View) list).changeSet : EMPTY;
+    }
+
+    /**
+     * Returns the changes grouped by kind in the order each kind was first added
+     */
+    public Map<Kind, List<DependencyVersionChange>> byKind() {
+        Map<Kind, List<DependencyVersionChange>> answer = byKind;
+        if (answer == null) {
+            Map<Kind, LinkedHashMap<Key, DependencyVersionChange>> maps = new LinkedHashMap<>();
+            for (Map.Entry<Key, DependencyVersionChange> entry : changes.entrySet()) {
+                maps.computeIfAbsent(entry.getKey().kind, k -> new LinkedHashMap<>()).put(entry.getKey(), entry.getValue());
+            }
+            answer = new LinkedHashMap<>();
+            for (Map.Entry<Kind, LinkedHashMap<Key, DependencyVersionChange>> entry : maps.entrySet()) {
+                answer.put(entry.getKey(), new ChangeSet(entry.getValue()).toList());
+            }
+            answer = Collections.unmodifiableMap(answer);
+            byKind = answer;
+        }
+        return answer;
+    }
+
+    /**
+     * Returns a read only list of the changes which can be passed to the updaters
+     */
+    public List<DependencyVersionChange> toList() {
+        return new View(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ChangeSet that = (ChangeSet) o;
+        return this.changes.size() == that.changes.size() && this.diff(that).isEmpty();
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+        for (DependencyVersionChange change : changes.values()) {
+            result += change.hashCode();
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return DependencyVersionChange.describe(toList());
+    }
+
+    private static final class Key {
+        private final Kind kind;
+        private final String dependency;
+
+        Key(DependencyVersionChange change) {
+            this(change.getKind(), change.getDependency());
+        }
+
+        Key(Kind kind, String dependency) {
+            this.kind = kind;
+            this.dependency = dependency;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key that = (Key) o;
+            return kind == that.kind && Objects.equals(dependency, that.dependency);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(kind) + Objects.hashCode(dependency);
+        }
+    }
+
+    /**
+     * A read only list backed by a change set so that converting back with {@link #of(Collection)} is free
+     */
+    private static final class View extends AbstractList<DependencyVersionChange> {
+        private final ChangeSet changeSet;
+        private List<DependencyVersionChange> list;
+
+        View(ChangeSet changeSet) {
+            this.changeSet = changeSet;
+        }
+
+        @Override
+        public DependencyVersionChange get(int index) {
+            return list().get(index);
+        }
+
+        @Override
+        public int size() {
+            return changeSet.size();
+        }
+
+        @Override
+        public Iterator<DependencyVersionChange> iterator() {
+            return Collections.unmodifiableCollection(changeSet.changes.values()).iterator();
+        }
+
+        private List<DependencyVersionChange> list() {
+            if (list == null) {
+                list = new ArrayList<>(changeSet.changes.values());
+            }
+            return list;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.jenkins.updatebot.kind.Kind;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The dependencies referenced by the files in a repository at a given commit, indexed by kind and dependency
+ * with the relative paths of the files which reference them.
+ *
+ * Kinds which cannot list their references from the files are recorded as unindexed so that changes of those
+ * kinds are always applied to the repository.
+ */
+public class DependencyReferences extends DtoSupport {
+    private String head;
+    private Set<Kind> unindexed = new TreeSet<>();
+    private Map<Kind, Map<String, Set<String>>> references = new TreeMap<>();
+    @JsonIgnore
+    private File dir;
+
+    public DependencyReferences() {
+    }
+
+    public DependencyReferences(File dir, String head) {
+        this.dir = dir;
+        this.head = head;
+    }
+
+    /**
+     * Returns true if the given change could modify a file referenced by this repository
+     */
+    public boolean mayReference(DependencyVersionChange change) {
+        Kind kind = change.getKind();
+        if (change.isAdd() || unindexed.contains(kind)) {
+            return true;
+        }
+        Map<String, Set<String>> map = references.get(kind);
+        return map != null && map.containsKey(change.getDependency());
+    }
+
+    /**
+     * Returns the relative paths of the files which reference the given dependency
+     */
+    public Set<String> getFiles(Kind kind, String dependency) {
+        Map<String, Set<String>> map = references.get(kind);
+        Set<String> answer = map != null ? map.get(dependency) : null;
+        return answer != null ? answer : new TreeSet<>();
+    }
+
+    public void addReference(Kind kind, String dependency, File file) {
+        String path = file.getPath();
+        if (dir != null) {
+            path = dir.toPath().relativize(file.toPath()).toString();
+        }
+        references.computeIfAbsent(kind, k -> new TreeMap<>()).computeIfAbsent(dependency, k -> new TreeSet<>()).add(path);
+    }
+
+    public void addUnindexed(Kind kind) {
+        unindexed.add(kind);
+    }
+
+    public String getHead() {
+        return head;
+    }
+
+    public void setHead(String head) {
+        this.head = head;
+    }
+
+    public Set<Kind> getUnindexed() {
+        return unindexed;
+    }
+
+    public void setUnindexed(Set<Kind> unindexed) {
+        this.unindexed = unindexed;
+    }
+
+    public Map<Kind, Map<String, Set<String>>> getReferences() {
+        return references;
+    }
+
+    public void setReferences(Map<Kind, Map<String, Set<String>>> references) {
+        this.references = references;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The repositories found in a GitHub organisation or user at a point in time which is cached between runs
+ */
+public class GithubOrganisationListing extends DtoSupport {
+    private String name;
+    private long timestamp;
+    private List<GithubRepositoryDescriptor> repositories = new ArrayList<>();
+
+    public GithubOrganisationListing() {
+    }
+
+    public GithubOrganisationListing(String name, long timestamp) {
+        this.name = name;
+        this.timestamp = timestamp;
+    }
+
+    public void addRepository(GithubRepositoryDescriptor repository) {
+        repositories.add(repository);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public List<GithubRepositoryDescriptor> getRepositories() {
+        return repositories;
+    }
+
+    public void setRepositories(List<GithubRepositoryDescriptor> repositories) {
+        this.repositories = repositories;
+    }
+}
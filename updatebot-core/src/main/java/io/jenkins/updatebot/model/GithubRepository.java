@@ -18,22 +18,26 @@ package io.jenkins.updatebot.model;
 import io.jenkins.updatebot.Configuration;
 import io.jenkins.updatebot.support.Strings;
 import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GitHub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URL;
 
 /**
  */
 public class GithubRepository extends GitRepository {
-    private final GHRepository repository;
+    private static final transient Logger LOG = LoggerFactory.getLogger(GithubRepository.class);
+
+    private final GithubRepositoryDescriptor descriptor;
+    private final GitHub github;
+    private GHRepository repository;
 
     public GithubRepository(GHRepository repository) {
+        this(null, GithubRepositoryDescriptor.create(repository));
         this.repository = repository;
-        URL htmlUrl = repository.getHtmlUrl();
-        if (htmlUrl != null) {
-            setHtmlUrl(htmlUrl.toString());
-        }
-        setName(repository.getName());
-        setCloneUrl(repository.getGitTransportUrl());
     }
 
     public GithubRepository(GHRepository ghRepository, GitRepositoryConfig details) {
@@ -41,6 +45,22 @@ public class GithubRepository extends GitRepository {
         setRepositoryDetails(details);
     }
 
+    /**
+     * Creates a repository from its descriptor which only looks up the {@link GHRepository} when it is first used
+     */
+    public GithubRepository(GitHub github, GithubRepositoryDescriptor descriptor) {
+        this.github = github;
+        this.descriptor = descriptor;
+        setHtmlUrl(descriptor.getHtmlUrl());
+        setName(descriptor.getName());
+        setCloneUrl(descriptor.getCloneUrl());
+    }
+
+    public GithubRepository(GitHub github, GithubRepositoryDescriptor descriptor, GitRepositoryConfig details) {
+        this(github, descriptor);
+        setRepositoryDetails(details);
+    }
+
     @Override
     public String toString() {
         return "GithubRepository{" +
@@ -49,14 +69,37 @@ public class GithubRepository extends GitRepository {
                 '}';
     }
 
-    public GHRepository getRepository() {
+    /**
+     * Returns the GitHub repository looking it up if it has not been used since it was last released
+     * or null if it cannot be found
+     */
+    public synchronized GHRepository getRepository() {
+        if (repository == null && github != null) {
+            try {
+                repository = github.getRepository(descriptor.getFullName());
+            } catch (IOException e) {
+                LOG.warn("Failed to find GitHub repository " + descriptor.getFullName() + ". " + e, e);
+            }
+        }
         return repository;
     }
 
+    /**
+     * Releases the GitHub repository once the commands have finished with it so that only the descriptor is retained
+     */
+    public synchronized void release() {
+        if (github != null) {
+            repository = null;
+        }
+    }
+
+    public GithubRepositoryDescriptor getDescriptor() {
+        return descriptor;
+    }
+
     @Override
     public String getFullName() {
-        return repository.getFullName();
-
+        return descriptor.getFullName();
     }
 
     @Override
@@ -65,11 +108,10 @@ public class GithubRepository extends GitRepository {
             return true;
         }
         return Strings.equalAnyValue(url,
-                repository.getGitTransportUrl(),
-                repository.gitHttpTransportUrl(),
-                repository.getSshUrl(),
-                repository.getUrl(),
-                repository.getSvnUrl());
+                descriptor.getCloneUrl(),
+                descriptor.getHttpUrl(),
+                descriptor.getSshUrl(),
+                descriptor.getHtmlUrl());
     }
 
     @Override
@@ -83,7 +125,12 @@ public class GithubRepository extends GitRepository {
                 throw new IllegalArgumentException("Missing githubPassword in configuration!");
             }
 
-            URL url = repository.getHtmlUrl();
+            URL url;
+            try {
+                url = new URL(descriptor.getHtmlUrl());
+            } catch (MalformedURLException e) {
+                throw new IllegalArgumentException("Invalid html URL for " + getFullName() + ": " + e, e);
+            }
             String host = username + ":" + password + "@" + url.getHost();
             String file = url.getFile();
             if (!file.startsWith("/")) {
@@ -95,7 +142,7 @@ public class GithubRepository extends GitRepository {
             }
             return answer;
         } else {
-            return repository.getSshUrl();
+            return descriptor.getSshUrl();
         }
     }
 }
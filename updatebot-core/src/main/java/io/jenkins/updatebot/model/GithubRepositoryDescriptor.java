@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.kohsuke.github.GHRepository;
+
+import java.net.URL;
+
+/**
+ * The immutable details of a GitHub repository which UpdateBot needs to clone it and look it up again later
+ * without keeping hold of the {@link GHRepository} and its cached payload
+ */
+public final class GithubRepositoryDescriptor extends DtoSupport {
+    private final String owner;
+    private final String name;
+    private final String htmlUrl;
+    private final String cloneUrl;
+    private final String httpUrl;
+    private final String sshUrl;
+    private final String defaultBranch;
+
+    @JsonCreator
+    public GithubRepositoryDescriptor(@JsonProperty("owner") String owner,
+                                      @JsonProperty("name") String name,
+                                      @JsonProperty("htmlurl") String htmlUrl,
+                                      @JsonProperty("cloneurl") String cloneUrl,
+                                      @JsonProperty("httpurl") String httpUrl,
+                                      @JsonProperty("sshurl") String sshUrl,
+                                      @JsonProperty("defaultbranch") String defaultBranch) {
+        this.owner = owner;
+        this.name = name;
+        this.htmlUrl = htmlUrl;
+        this.cloneUrl = cloneUrl;
+        this.httpUrl = httpUrl;
+        this.sshUrl = sshUrl;
+        this.defaultBranch = defaultBranch;
+    }
+
+    public static GithubRepositoryDescriptor create(GHRepository repository) {
+        URL htmlUrl = repository.getHtmlUrl();
+        return new GithubRepositoryDescriptor(repository.getOwnerName(), repository.getName(),
+                htmlUrl != null ? htmlUrl.toString() : null, repository.getGitTransportUrl(),
+                repository.gitHttpTransportUrl(), repository.getSshUrl(), repository.getDefaultBranch());
+    }
+
+    @Override
+    public String toString() {
+        return "GithubRepositoryDescriptor{" +
+                "fullName='" + getFullName() + '\'' +
+                ", cloneUrl='" + cloneUrl + '\'' +
+                '}';
+    }
+
+    @JsonIgnore
+    public String getFullName() {
+        return owner + "/" + name;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHtmlUrl() {
+        return htmlUrl;
+    }
+
+    public String getCloneUrl() {
+        return cloneUrl;
+    }
+
+    public String getHttpUrl() {
+        return httpUrl;
+    }
+
+    public String getSshUrl() {
+        return sshUrl;
+    }
+
+    public String getDefaultBranch() {
+        return defaultBranch;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.model;
+
+/**
+ * The last known state of an UpdateBot pending changes issue so that it can be found without listing the open issues
+ * or reading all of its comments
+ */
+public class IssueState extends DtoSupport {
+    private int number;
+    private String titlePrefix;
+    private int commentsCount;
+    private String pendingChanges;
+
+    public IssueState() {
+    }
+
+    public IssueState(int number, String titlePrefix) {
+        this.number = number;
+        this.titlePrefix = titlePrefix;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public void setNumber(int number) {
+        this.number = number;
+    }
+
+    public String getTitlePrefix() {
+        return titlePrefix;
+    }
+
+    public void setTitlePrefix(String titlePrefix) {
+        this.titlePrefix = titlePrefix;
+    }
+
+    /**
+     * Returns the number of comments on the issue when the pending changes were recorded
+     */
+    public int getCommentsCount() {
+        return commentsCount;
+    }
+
+    public void setCommentsCount(int commentsCount) {
+        this.commentsCount = commentsCount;
+    }
+
+    /**
+     * Returns the last pending changes comment added to the issue
+     */
+    public String getPendingChanges() {
+        return pendingChanges;
+    }
+
+    public void setPendingChanges(String pendingChanges) {
+        this.pendingChanges = pendingChanges;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.model;
+
+/**
+ * The last known state of an UpdateBot Pull Request so that it can be found without listing the open Pull Requests
+ * or reading all of its comments
+ */
+public class PullRequestState extends DtoSupport {
+    private int number;
+    private String titlePrefix;
+    private String headRef;
+    private String baseRef;
+    private String headSha;
+    private String command;
+
+    public PullRequestState() {
+    }
+
+    public PullRequestState(int number, String titlePrefix) {
+        this.number = number;
+        this.titlePrefix = titlePrefix;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public void setNumber(int number) {
+        this.number = number;
+    }
+
+    public String getTitlePrefix() {
+        return titlePrefix;
+    }
+
+    public void setTitlePrefix(String titlePrefix) {
+        this.titlePrefix = titlePrefix;
+    }
+
+    public String getHeadRef() {
+        return headRef;
+    }
+
+    public void setHeadRef(String headRef) {
+        this.headRef = headRef;
+    }
+
+    public String getBaseRef() {
+        return baseRef;
+    }
+
+    public void setBaseRef(String baseRef) {
+        this.baseRef = baseRef;
+    }
+
+    /**
+     * Returns the commit the Pull Request branch was at when the command was recorded
+     */
+    public String getHeadSha() {
+        return headSha;
+    }
+
+    public void setHeadSha(String headSha) {
+        this.headSha = headSha;
+    }
+
+    /**
+     * Returns the last UpdateBot command comment added to the Pull Request
+     */
+    public String getCommand() {
+        return command;
+    }
+
+    public void setCommand(String command) {
+        this.command = command;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A {@link RepositoryConfig} loaded once per run along with an index of the configured GitHub repositories by name
+ * so that they can be looked up without loading the configuration again or scanning every organisation.
+ */
+public final class RepositoryConfigSnapshot {
+    private final RepositoryConfig config;
+    private final Map<String, List<GitRepositoryConfig>> githubRepositories;
+
+    public RepositoryConfigSnapshot(RepositoryConfig config) {
+        this.config = config;
+        Map<String, List<GitRepositoryConfig>> map = new HashMap<>();
+        GitHubProjects github = config.getGithub();
+        if (github != null && github.getOrganisations() != null) {
+            for (GithubOrganisation organisation : github.getOrganisations()) {
+                if (organisation == null || organisation.getRepositories() == null) {
+                    continue;
+                }
+                for (GitRepositoryConfig repository : organisation.getRepositories()) {
+                    if (repository.getName() != null) {
+                        map.computeIfAbsent(key(repository.getName()), k -> new ArrayList<>()).add(repository);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<String, List<GitRepositoryConfig>> entry : map.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        this.githubRepositories = Collections.unmodifiableMap(map);
+    }
+
+    public RepositoryConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Returns the configuration of the GitHub repositories with the given name, ignoring case, in any organisation
+     */
+    public List<GitRepositoryConfig> findGithubRepositories(String name) {
+        if (name == null) {
+            return Collections.emptyList();
+        }
+        List<GitRepositoryConfig> answer = githubRepositories.get(key(name));
+        return answer != null ? answer : Collections.emptyList();
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ENGLISH);
+    }
+}
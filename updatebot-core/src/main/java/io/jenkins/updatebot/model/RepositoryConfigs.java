@@ -42,10 +42,7 @@ public class RepositoryConfigs {
      * Returns the UpdateBot project configurations from the given configFile (File or URL) and source directory
      */
     public static RepositoryConfig loadRepositoryConfig(Configuration configuration, String configFile, File sourceDir) throws IOException {
-        File file = new File(configFile);
-        if (Files.isDirectory(sourceDir) && !file.isAbsolute()) {
-            file = new File(sourceDir, configFile);
-        }
+        File file = resolveConfigFile(configFile, sourceDir);
         if (!Files.isFile(file)) {
             URL url = null;
             try {
@@ -71,6 +68,18 @@ public class RepositoryConfigs {
         return loadYaml(file, RepositoryConfig.class);
     }
 
+    /**
+     * Returns the local file for the given configFile which is resolved relative to the source directory.
+     * The file does not exist if the configuration is loaded from a URL
+     */
+    public static File resolveConfigFile(String configFile, File sourceDir) {
+        File file = new File(configFile);
+        if (Files.isDirectory(sourceDir) && !file.isAbsolute()) {
+            file = new File(sourceDir, configFile);
+        }
+        return file;
+    }
+
     /**
      * Lets try detect the github organisation level configuration for a project.
      * <p>
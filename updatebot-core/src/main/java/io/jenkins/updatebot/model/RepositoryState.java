@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.model;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The UpdateBot Pull Requests and issues of a repository indexed by their number
+ */
+public class RepositoryState extends DtoSupport {
+    private Map<Integer, PullRequestState> pullRequests = new TreeMap<>();
+    private Map<Integer, IssueState> issues = new TreeMap<>();
+
+    /**
+     * Returns the Pull Request with the given title prefix or null if there is none
+     */
+    public PullRequestState findPullRequest(String titlePrefix) {
+        for (PullRequestState state : pullRequests.values()) {
+            if (titlePrefix.equals(state.getTitlePrefix())) {
+                return state;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the issue with the given title prefix or null if there is none
+     */
+    public IssueState findIssue(String titlePrefix) {
+        for (IssueState state : issues.values()) {
+            if (titlePrefix.equals(state.getTitlePrefix())) {
+                return state;
+            }
+        }
+        return null;
+    }
+
+    public Map<Integer, PullRequestState> getPullRequests() {
+        return pullRequests;
+    }
+
+    public void setPullRequests(Map<Integer, PullRequestState> pullRequests) {
+        this.pullRequests = pullRequests;
+    }
+
+    public Map<Integer, IssueState> getIssues() {
+        return issues;
+    }
+
+    public void setIssues(Map<Integer, IssueState> issues) {
+        this.issues = issues;
+    }
+}
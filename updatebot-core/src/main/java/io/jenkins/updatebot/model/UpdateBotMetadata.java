@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The state UpdateBot keeps in a hidden block in the body of its Pull Requests and issues so that it can be
+ * recovered without reading all of their comments
+ */
+public class UpdateBotMetadata extends DtoSupport {
+    private int version;
+    private String command;
+    private String pendingChanges;
+    private String issue;
+    private List<Integer> train = new ArrayList<>();
+    private boolean excludedFromTrain;
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    /**
+     * Returns the last UpdateBot command comment added to a Pull Request
+     */
+    public String getCommand() {
+        return command;
+    }
+
+    public void setCommand(String command) {
+        this.command = command;
+    }
+
+    /**
+     * Returns the last pending changes comment added to an issue
+     */
+    public String getPendingChanges() {
+        return pendingChanges;
+    }
+
+    public void setPendingChanges(String pendingChanges) {
+        this.pendingChanges = pendingChanges;
+    }
+
+    /**
+     * Returns the URL of the pending changes issue linked from a Pull Request
+     */
+    public String getIssue() {
+        return issue;
+    }
+
+    public void setIssue(String issue) {
+        this.issue = issue;
+    }
+
+    /**
+     * Returns the numbers of the Pull Requests combined by a merge train Pull Request
+     */
+    public List<Integer> getTrain() {
+        return train;
+    }
+
+    public void setTrain(List<Integer> train) {
+        this.train = train;
+    }
+
+    /**
+     * Returns true if the CI of a merge train containing this Pull Request failed so it is merged on its own
+     */
+    public boolean isExcludedFromTrain() {
+        return excludedFromTrain;
+    }
+
+    public void setExcludedFromTrain(boolean excludedFromTrain) {
+        this.excludedFromTrain = excludedFromTrain;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.commands.CommandContext;
+import io.jenkins.updatebot.git.GitPlugin;
+import io.jenkins.updatebot.kind.CompositeUpdater;
+import io.jenkins.updatebot.kind.Kind;
+import io.jenkins.updatebot.model.DependencyReferences;
+import io.jenkins.updatebot.model.DependencyVersionChange;
+import io.jenkins.updatebot.support.MarkupHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A persistent reverse index from the kind and name of a dependency to the repositories and files which reference it
+ * so that pushing a version change can skip the repositories which do not use the dependency.
+ *
+ * The references of each repository are stored with the commit they were indexed at and are only collected again
+ * when the HEAD of the local clone changes.
+ */
+public class DependencyIndex {
+    private static final transient Logger LOG = LoggerFactory.getLogger(DependencyIndex.class);
+
+    public static final String FILE_NAME = "dependency-index.json";
+
+    private static final TypeReference<TreeMap<String, DependencyReferences>> INDEX_TYPE = new TypeReference<TreeMap<String, DependencyReferences>>() {
+    };
+
+    private final File file;
+    private final Map<String, DependencyReferences> repositories;
+    private boolean modified;
+
+    public DependencyIndex(File file, Map<String, DependencyReferences> repositories) {
+        this.file = file;
+        this.repositories = repositories;
+    }
+
+    /**
+     * Loads the index from the cache directory of the configuration
+     */
+    public static DependencyIndex load(Configuration configuration) {
+        File file = new File(configuration.getCacheDir(), FILE_NAME);
+        Map<String, DependencyReferences> repositories = null;
+        if (file.isFile()) {
+            try {
+                repositories = new ObjectMapper().readValue(file, INDEX_TYPE);
+            } catch (IOException e) {
+                LOG.warn("Ignoring invalid dependency index " + file + ". " + e, e);
+            }
+        }
+        if (repositories == null) {
+            repositories = new TreeMap<>();
+        }
+        return new DependencyIndex(file, repositories);
+    }
+
+    /**
+     * Returns true if any of the changes could modify a file in the repository of the given context
+     */
+    public boolean isAffected(CommandContext context, Iterable<DependencyVersionChange> changes) throws IOException {
+        DependencyReferences references = getReferences(context);
+        for (DependencyVersionChange change : changes) {
+            if (references.mayReference(change)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the references of the repository of the given context indexing the files again if its HEAD has changed
+     */
+    public synchronized DependencyReferences getReferences(CommandContext context) throws IOException {
+        File dir = context.getDir();
+        String key = repositoryKey(context.getRepository());
+        String head = new File(dir, ".git").exists() ? GitPlugin.headCommit(dir) : null;
+        DependencyReferences answer = repositories.get(key);
+        if (answer != null && head != null && Objects.equals(head, answer.getHead())) {
+            return answer;
+        }
+        LOG.debug("Indexing the dependencies of " + key + " at " + head);
+        answer = new DependencyReferences(dir, head);
+        new CompositeUpdater().addDependencyReferences(context, answer);
+        if (head != null) {
+            repositories.put(key, answer);
+            modified = true;
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the names of the indexed repositories which reference the given dependency
+     */
+    public synchronized Set<String> findRepositories(Kind kind, String dependency) {
+        Set<String> answer = new TreeSet<>();
+        DependencyVersionChange change = new DependencyVersionChange(kind, dependency, "");
+        for (Map.Entry<String, DependencyReferences> entry : repositories.entrySet()) {
+            if (entry.getValue().mayReference(change)) {
+                answer.add(entry.getKey());
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Writes the index if any repository has been indexed since it was loaded
+     */
+    public synchronized void save() throws IOException {
+        if (!modified) {
+            return;
+        }
+        File dir = file.getParentFile();
+        dir.mkdirs();
+        File tempFile = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            MarkupHelper.savePrettyJson(tempFile, repositories);
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tempFile.delete();
+        }
+        modified = false;
+    }
+
+    protected static String repositoryKey(LocalRepository repository) {
+        String answer = repository.getFullName();
+        if (answer == null) {
+            answer = repository.getDir().getAbsolutePath();
+        }
+        return answer;
+    }
+}
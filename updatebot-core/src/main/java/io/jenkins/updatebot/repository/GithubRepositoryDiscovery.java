@@ -0,0 +1,236 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.utils.Filter;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.github.GitHubHelpers;
+import io.jenkins.updatebot.model.GitRepositoryConfig;
+import io.jenkins.updatebot.model.GithubOrganisation;
+import io.jenkins.updatebot.model.GithubOrganisationListing;
+import io.jenkins.updatebot.model.GithubRepository;
+import io.jenkins.updatebot.model.GithubRepositoryDescriptor;
+import io.jenkins.updatebot.support.MarkupHelper;
+import io.jenkins.updatebot.support.Strings;
+import org.kohsuke.github.GHPerson;
+import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GitHub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Finds the repositories of a GitHub organisation or user.
+ *
+ * The listing of the organisation is streamed a page at a time keeping only a {@link GithubRepositoryDescriptor}
+ * for each repository and is cached in the cache directory so that runs within the time to live of the cache
+ * do not make any calls to GitHub. Named repositories which are not in the listing are looked up concurrently.
+ */
+public class GithubRepositoryDiscovery {
+    private static final transient Logger LOG = LoggerFactory.getLogger(GithubRepositoryDiscovery.class);
+
+    public static final String CACHE_DIR_NAME = "github-organisations";
+
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_THREADS = 8;
+
+    private final GitHub github;
+    private final File cacheDir;
+    private final long timeToLiveMillis;
+
+    public GithubRepositoryDiscovery(GitHub github, File cacheDir, long timeToLiveMillis) {
+        this.github = github;
+        this.cacheDir = cacheDir;
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    public static GithubRepositoryDiscovery create(Configuration configuration) throws IOException {
+        long timeToLiveMillis = configuration.getDiscoveryCacheMinutes() * 60 * 1000L;
+        return new GithubRepositoryDiscovery(configuration.getGithub(), new File(configuration.getCacheDir(), CACHE_DIR_NAME), timeToLiveMillis);
+    }
+
+    /**
+     * Returns the named repositories of the organisation followed by the repositories which match its filter
+     */
+    public List<GithubRepository> findRepositories(GithubOrganisation organisation) throws IOException {
+        String orgName = organisation.getName();
+        GithubOrganisationListing listing = loadListing(orgName);
+        if (listing == null) {
+            GHPerson person = GitHubHelpers.getOrganisationOrUser(github, orgName);
+            if (person == null) {
+                return new ArrayList<>();
+            }
+            listing = listRepositories(orgName, person);
+            saveListing(listing);
+        }
+        Map<String, GithubRepositoryDescriptor> descriptors = new HashMap<>();
+        for (GithubRepositoryDescriptor descriptor : listing.getRepositories()) {
+            descriptors.put(descriptor.getName().toLowerCase(), descriptor);
+        }
+
+        Map<String, GithubRepository> answer = new LinkedHashMap<>();
+        Map<String, GitRepositoryConfig> unresolved = new LinkedHashMap<>();
+        List<GitRepositoryConfig> namedRepositories = organisation.getRepositories();
+        if (namedRepositories != null) {
+            for (GitRepositoryConfig namedRepository : namedRepositories) {
+                String name = namedRepository.getName();
+                if (Strings.notEmpty(name) && !answer.containsKey(name)) {
+                    GithubRepositoryDescriptor descriptor = descriptors.get(name.toLowerCase());
+                    answer.put(name, descriptor != null ? new GithubRepository(github, descriptor, namedRepository) : null);
+                    if (descriptor == null) {
+                        unresolved.put(name, namedRepository);
+                    }
+                }
+            }
+        }
+        if (!unresolved.isEmpty()) {
+            boolean modified = false;
+            for (Map.Entry<String, GithubRepositoryDescriptor> entry : resolveRepositories(orgName, unresolved.keySet()).entrySet()) {
+                String name = entry.getKey();
+                GithubRepositoryDescriptor descriptor = entry.getValue();
+                if (descriptor != null) {
+                    answer.put(name, new GithubRepository(github, descriptor, unresolved.get(name)));
+                    listing.addRepository(descriptor);
+                    modified = true;
+                }
+            }
+            if (modified) {
+                saveListing(listing);
+            }
+        }
+        answer.values().removeIf(repository -> repository == null);
+
+        Filter<String> filter = organisation.createFilter();
+        for (GithubRepositoryDescriptor descriptor : listing.getRepositories()) {
+            String name = descriptor.getName();
+            if (filter.matches(name) && !answer.containsKey(name)) {
+                answer.put(name, new GithubRepository(github, descriptor));
+            }
+        }
+        return new ArrayList<>(answer.values());
+    }
+
+    /**
+     * Streams the repositories of the organisation or user a page at a time keeping only their descriptors
+     */
+    protected GithubOrganisationListing listRepositories(String orgName, GHPerson person) {
+        GithubOrganisationListing answer = new GithubOrganisationListing(orgName, System.currentTimeMillis());
+        for (GHRepository repository : person.listRepositories(PAGE_SIZE)) {
+            answer.addRepository(GithubRepositoryDescriptor.create(repository));
+        }
+        LOG.debug("Found " + answer.getRepositories().size() + " repositories in " + orgName);
+        return answer;
+    }
+
+    /**
+     * Looks up the given repositories of the organisation concurrently returning null for any which are not found
+     */
+    protected Map<String, GithubRepositoryDescriptor> resolveRepositories(String orgName, Collection<String> names) throws IOException {
+        Map<String, Future<GithubRepositoryDescriptor>> futures = new LinkedHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_THREADS, names.size()));
+        try {
+            for (String name : names) {
+                futures.put(name, executor.submit(() -> resolveRepository(orgName, name)));
+            }
+            Map<String, GithubRepositoryDescriptor> answer = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<GithubRepositoryDescriptor>> entry : futures.entrySet()) {
+                try {
+                    answer.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    LOG.warn("Github repository " + orgName + "/" + entry.getKey() + " not found: " + e.getCause());
+                    answer.put(entry.getKey(), null);
+                }
+            }
+            return answer;
+        } catch (InterruptedException e) {
+            throw new IOException("Interrupted looking up the repositories of " + orgName, e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    protected GithubRepositoryDescriptor resolveRepository(String orgName, String name) {
+        try {
+            GHRepository repository = github.getRepository(orgName + "/" + name);
+            if (repository != null) {
+                return GithubRepositoryDescriptor.create(repository);
+            }
+            LOG.warn("Github repository " + orgName + "/" + name + " not found!");
+        } catch (IOException e) {
+            LOG.warn("Github repository " + orgName + "/" + name + " not found: " + e);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the cached listing of the organisation or null if there is none or it has expired
+     */
+    protected GithubOrganisationListing loadListing(String orgName) {
+        File file = getListingFile(orgName);
+        if (timeToLiveMillis <= 0 || !file.isFile()) {
+            return null;
+        }
+        try {
+            GithubOrganisationListing listing = new ObjectMapper().readValue(file, GithubOrganisationListing.class);
+            if (System.currentTimeMillis() - listing.getTimestamp() < timeToLiveMillis) {
+                return listing;
+            }
+            LOG.debug("The cached repositories of " + orgName + " have expired");
+        } catch (IOException e) {
+            LOG.warn("Ignoring invalid repository cache " + file + ". " + e, e);
+        }
+        return null;
+    }
+
+    protected void saveListing(GithubOrganisationListing listing) {
+        if (timeToLiveMillis <= 0) {
+            return;
+        }
+        File file = getListingFile(listing.getName());
+        File dir = file.getParentFile();
+        dir.mkdirs();
+        try {
+            File tempFile = File.createTempFile(file.getName(), ".tmp", dir);
+            try {
+                MarkupHelper.savePrettyJson(tempFile, listing);
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                tempFile.delete();
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to cache the repositories of " + listing.getName() + " in " + file + ". " + e, e);
+        }
+    }
+
+    protected File getListingFile(String orgName) {
+        return new File(cacheDir, orgName.toLowerCase() + ".json");
+    }
+}
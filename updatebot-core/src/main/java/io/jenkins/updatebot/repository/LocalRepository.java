@@ -200,10 +200,14 @@ public class LocalRepository {
             return config.getBranch();
         } // Try detect Github repository and use its default branch
         else if(repo instanceof GithubRepository) {
-            GHRepository ghRepository = GitHubHelpers.getGitHubRepository(this);
-            if (ghRepository != null) {
-                config.setBranch(ghRepository.getDefaultBranch());
+            String defaultBranch = ((GithubRepository) repo).getDescriptor().getDefaultBranch();
+            if (Strings.empty(defaultBranch)) {
+                GHRepository ghRepository = GitHubHelpers.getGitHubRepository(this);
+                if (ghRepository != null) {
+                    defaultBranch = ghRepository.getDefaultBranch();
+                }
             }
+            config.setBranch(defaultBranch);
         }
 
         // Fallback to master branch for Git repositories
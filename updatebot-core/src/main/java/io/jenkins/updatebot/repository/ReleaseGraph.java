@@ -0,0 +1,178 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.repository;
+
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.commands.CommandContext;
+import io.jenkins.updatebot.commands.PushSourceChanges;
+import io.jenkins.updatebot.model.DependencyReferences;
+import io.jenkins.updatebot.model.DependencyVersionChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The graph of repositories where an edge goes from a repository to each repository which references one of the
+ * artifacts it exports so that a release can be pushed through the graph in topological order.
+ */
+public class ReleaseGraph {
+    private static final transient Logger LOG = LoggerFactory.getLogger(ReleaseGraph.class);
+
+    private final Map<String, LocalRepository> repositories = new LinkedHashMap<>();
+    private final Map<String, Set<String>> downstream = new HashMap<>();
+    private final Map<String, Set<String>> upstream = new HashMap<>();
+
+    /**
+     * Creates the graph from the artifacts exported by the source of each repository and the dependencies
+     * each repository references in the dependency index
+     */
+    public static ReleaseGraph build(Configuration configuration, List<LocalRepository> repositories, DependencyIndex index) throws IOException {
+        ReleaseGraph answer = new ReleaseGraph();
+        Map<String, List<DependencyVersionChange>> exports = new LinkedHashMap<>();
+        for (LocalRepository repository : repositories) {
+            answer.addRepository(repository);
+            exports.put(repository.getFullName(), PushSourceChanges.loadVersionChangesFromSource(configuration, repository));
+        }
+        for (LocalRepository repository : repositories) {
+            String name = repository.getFullName();
+            DependencyReferences references = index.getReferences(new CommandContext(repository, configuration));
+            for (Map.Entry<String, List<DependencyVersionChange>> entry : exports.entrySet()) {
+                String exporter = entry.getKey();
+                if (exporter.equals(name)) {
+                    continue;
+                }
+                for (DependencyVersionChange change : entry.getValue()) {
+                    if (!references.getFiles(change.getKind(), change.getDependency()).isEmpty()) {
+                        answer.addDependency(exporter, name);
+                        break;
+                    }
+                }
+            }
+        }
+        return answer;
+    }
+
+    public void addRepository(LocalRepository repository) {
+        repositories.put(repository.getFullName(), repository);
+    }
+
+    /**
+     * Adds an edge so that the downstream repository is released after the upstream repository
+     */
+    public void addDependency(String upstreamName, String downstreamName) {
+        downstream.computeIfAbsent(upstreamName, k -> new LinkedHashSet<>()).add(downstreamName);
+        upstream.computeIfAbsent(downstreamName, k -> new LinkedHashSet<>()).add(upstreamName);
+    }
+
+    public LocalRepository getRepository(String name) {
+        return repositories.get(name);
+    }
+
+    public Set<String> getDownstream(String name) {
+        return downstream.getOrDefault(name, Collections.emptySet());
+    }
+
+    public Set<String> getUpstream(String name) {
+        return upstream.getOrDefault(name, Collections.emptySet());
+    }
+
+    /**
+     * Returns the names of the repositories which are downstream of the given repository either directly or transitively
+     */
+    public Set<String> findAllDownstream(String root) {
+        Set<String> answer = new LinkedHashSet<>();
+        Deque<String> queue = new ArrayDeque<>(getDownstream(root));
+        while (!queue.isEmpty()) {
+            String name = queue.removeFirst();
+            if (!name.equals(root) && answer.add(name)) {
+                queue.addAll(getDownstream(name));
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the repositories downstream of the given repository grouped into waves where each repository only
+     * depends on the given repository or the repositories in earlier waves. Any repositories in a cycle are added
+     * as a final wave.
+     */
+    public List<List<LocalRepository>> waves(String root) {
+        Set<String> reachable = findAllDownstream(root);
+        Map<String, Integer> remaining = countUpstream(root, reachable);
+        List<List<LocalRepository>> answer = new ArrayList<>();
+        List<String> current = Collections.singletonList(root);
+        Set<String> done = new LinkedHashSet<>();
+        while (true) {
+            List<String> next = new ArrayList<>();
+            for (String name : current) {
+                for (String child : getDownstream(name)) {
+                    if (reachable.contains(child) && remaining.merge(child, -1, Integer::sum) == 0) {
+                        next.add(child);
+                    }
+                }
+            }
+            if (next.isEmpty()) {
+                break;
+            }
+            done.addAll(next);
+            answer.add(toRepositories(next));
+            current = next;
+        }
+        if (done.size() < reachable.size()) {
+            List<String> cycle = new ArrayList<>(reachable);
+            cycle.removeAll(done);
+            LOG.warn("The repositories " + cycle + " depend on each other so they are released in a final wave");
+            answer.add(toRepositories(cycle));
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the number of upstream repositories of each of the given repositories which are part of the release
+     */
+    public Map<String, Integer> countUpstream(String root, Set<String> names) {
+        Map<String, Integer> answer = new HashMap<>();
+        for (String name : names) {
+            int count = 0;
+            for (String parent : getUpstream(name)) {
+                if (parent.equals(root) || names.contains(parent)) {
+                    count++;
+                }
+            }
+            answer.put(name, count);
+        }
+        return answer;
+    }
+
+    private List<LocalRepository> toRepositories(List<String> names) {
+        List<LocalRepository> answer = new ArrayList<>(names.size());
+        for (String name : names) {
+            answer.add(repositories.get(name));
+        }
+        return answer;
+    }
+}
@@ -15,21 +15,14 @@
  */
 package io.jenkins.updatebot.repository;
 
-import io.fabric8.utils.Filter;
 import io.jenkins.updatebot.Configuration;
-import io.jenkins.updatebot.github.GitHubHelpers;
 import io.jenkins.updatebot.model.GitHubProjects;
 import io.jenkins.updatebot.model.GitRepository;
-import io.jenkins.updatebot.model.GitRepositoryConfig;
 import io.jenkins.updatebot.model.GithubOrganisation;
 import io.jenkins.updatebot.model.GithubRepository;
 import io.jenkins.updatebot.model.RepositoryConfig;
 import io.jenkins.updatebot.support.FileHelper;
-import io.jenkins.updatebot.support.Strings;
 
-import org.kohsuke.github.GHPerson;
-import org.kohsuke.github.GHRepository;
-import org.kohsuke.github.GitHub;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,8 +32,6 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
 
 /**
  */
@@ -103,12 +94,12 @@ public class Repositories {
         if (githubProjects != null) {
             List<GithubOrganisation> organisations = githubProjects.getOrganisations();
             if (organisations != null && !organisations.isEmpty()) {
-                GitHub github = configuration.getGithub();
+                GithubRepositoryDiscovery discovery = GithubRepositoryDiscovery.create(configuration);
                 for (GithubOrganisation organisation : organisations) {
                     if (organisation != null) {
                         String name = organisation.getName();
                         if (name != null) {
-                            addGitHubRepositories(configuration, map, github, organisation, new File(gitHubDir, name));
+                            addGitHubRepositories(configuration, map, discovery, organisation, new File(gitHubDir, name));
                         } else {
                             LOG.warn("Organisation has no name! " + organisation);
                         }
@@ -135,48 +126,13 @@ public class Repositories {
         map.putIfAbsent(localRepository.getCloneUrl(), localRepository);
     }
 
-    protected static void addGitHubRepositories(Configuration configuration, Map<String, LocalRepository> map, GitHub github, GithubOrganisation organisation, File file) {
-        String orgName = organisation.getName();
-        Filter<String> filter = organisation.createFilter();
-
-        GHPerson person = GitHubHelpers.getOrganisationOrUser(github, orgName);
-        if (person != null) {
-            try {
-                Set<String> foundNames = new TreeSet<>();
-                List<GitRepositoryConfig> namedRepositories = organisation.getRepositories();
-                if (namedRepositories != null) {
-                    for (GitRepositoryConfig namedRepository : namedRepositories) {
-                        String name = namedRepository.getName();
-                        if (Strings.notEmpty(name) && foundNames.add(name)) {
-                            GHRepository ghRepository = null;
-                            try {
-                                ghRepository = person.getRepository(name);
-                            } catch (IOException e) {
-                                LOG.warn("Github repository " + orgName + "/" + name + " not found: " + e);
-                                continue;
-                            }
-                            if (ghRepository != null) {
-                                GitRepository gitRepository = new GithubRepository(ghRepository, namedRepository);
-                                addRepository(configuration, map, file, gitRepository);
-                            } else {
-                                LOG.warn("Github repository " + orgName + "/" + name + " not found!");
-                            }
-                        }
-                    }
-                }
-                Map<String, GHRepository> repositories = person.getRepositories();
-                for (Map.Entry<String, GHRepository> entry : repositories.entrySet()) {
-                    String repoName = entry.getKey();
-                    if (filter.matches(repoName) && foundNames.add(repoName)) {
-                        GitRepository gitRepository = new GithubRepository(entry.getValue());
-                        addRepository(configuration, map, file, gitRepository);
-                    }
-                }
-            } catch (IOException e) {
-                LOG.warn("Failed to load organisation: " + orgName + ". " + e, e);
+    protected static void addGitHubRepositories(Configuration configuration, Map<String, LocalRepository> map, GithubRepositoryDiscovery discovery, GithubOrganisation organisation, File file) {
+        try {
+            for (GithubRepository repository : discovery.findRepositories(organisation)) {
+                addRepository(configuration, map, file, repository);
             }
+        } catch (IOException e) {
+            LOG.warn("Failed to load organisation: " + organisation.getName() + ". " + e, e);
         }
     }
-
-
 }
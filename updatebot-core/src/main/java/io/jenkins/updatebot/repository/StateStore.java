@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.commands.CommandContext;
+import io.jenkins.updatebot.model.RepositoryState;
+import io.jenkins.updatebot.support.MarkupHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * A local store of the UpdateBot Pull Requests and issues of each repository so that they can be found with a single
+ * lookup rather than listing and searching them on GitHub. The store is only a hint; callers verify what they find
+ * against GitHub and fall back to searching if it is stale.
+ *
+ * Each update is a transaction which locks the file, applies the change to the latest contents and replaces the
+ * file with an atomic rename so that concurrent processes never lose each other's changes.
+ */
+public class StateStore {
+    private static final transient Logger LOG = LoggerFactory.getLogger(StateStore.class);
+
+    public static final String FILE_NAME = "updatebot-state.json";
+
+    private static final TypeReference<TreeMap<String, RepositoryState>> STATE_TYPE = new TypeReference<TreeMap<String, RepositoryState>>() {
+    };
+
+    private final File file;
+    private Map<String, RepositoryState> repositories;
+    private long lastModified;
+
+    public StateStore(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the store from the cache directory of the configuration
+     */
+    public static StateStore load(Configuration configuration) {
+        return new StateStore(new File(configuration.getCacheDir(), FILE_NAME));
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the state of the repository of the given context which should not be modified other than via
+     * {@link #update(CommandContext, Consumer)}
+     */
+    public synchronized RepositoryState getState(CommandContext context) {
+        if (repositories == null || file.lastModified() != lastModified) {
+            repositories = read();
+        }
+        RepositoryState answer = repositories.get(DependencyIndex.repositoryKey(context.getRepository()));
+        return answer != null ? answer : new RepositoryState();
+    }
+
+    /**
+     * Applies the given change to the latest state of the repository of the given context and writes it to disk
+     */
+    public synchronized void update(CommandContext context, Consumer<RepositoryState> transaction) throws IOException {
+        String key = DependencyIndex.repositoryKey(context.getRepository());
+        File dir = file.getParentFile();
+        dir.mkdirs();
+        File lockFile = new File(dir, file.getName() + ".lock");
+        synchronized (StateStore.class) {
+            try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock lock = channel.lock()) {
+                repositories = read();
+                transaction.accept(repositories.computeIfAbsent(key, k -> new RepositoryState()));
+                File tempFile = File.createTempFile(file.getName(), ".tmp", dir);
+                try {
+                    MarkupHelper.savePrettyJson(tempFile, repositories);
+                    Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    tempFile.delete();
+                }
+                lastModified = file.lastModified();
+            }
+        }
+    }
+
+    private Map<String, RepositoryState> read() {
+        lastModified = file.lastModified();
+        if (file.isFile()) {
+            try {
+                return new ObjectMapper().readValue(file, STATE_TYPE);
+            } catch (IOException e) {
+                LOG.warn("Ignoring invalid state store " + file + ". " + e, e);
+            }
+        }
+        return new TreeMap<>();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.server;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.jenkins.updatebot.model.DtoSupport;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A command queued on the UpdateBot server along with its state and the output it has logged so far
+ */
+public class Job extends DtoSupport {
+    private final String id;
+    private final List<String> args;
+    private final String dir;
+    private final long created = System.currentTimeMillis();
+    private long started;
+    private long finished;
+    private JobState state = JobState.QUEUED;
+    private String error;
+    private List<String> pullRequests = new ArrayList<>();
+    @JsonIgnore
+    private byte[] log = new byte[1024];
+    @JsonIgnore
+    private int logSize;
+
+    public Job(String id, List<String> args, String dir) {
+        this.id = id;
+        this.args = args;
+        this.dir = dir;
+    }
+
+    @Override
+    public String toString() {
+        return "Job{" +
+                "id='" + id + '\'' +
+                ", args=" + args +
+                ", state=" + state +
+                '}';
+    }
+
+    public synchronized void running() {
+        state = JobState.RUNNING;
+        started = System.currentTimeMillis();
+    }
+
+    public synchronized void succeeded(List<String> pullRequests) {
+        this.pullRequests = pullRequests;
+        finish(JobState.SUCCEEDED);
+    }
+
+    public synchronized void failed(Throwable e) {
+        this.error = e.toString();
+        finish(JobState.FAILED);
+    }
+
+    private void finish(JobState state) {
+        this.state = state;
+        this.finished = System.currentTimeMillis();
+        notifyAll();
+    }
+
+    /**
+     * Returns the stream the command logs to
+     */
+    @JsonIgnore
+    public OutputStream getLogOutputStream() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                appendLog(bytes, offset, length);
+            }
+        };
+    }
+
+    protected synchronized void appendLog(byte[] bytes, int offset, int length) {
+        if (logSize + length > log.length) {
+            log = Arrays.copyOf(log, Math.max(log.length * 2, logSize + length));
+        }
+        System.arraycopy(bytes, offset, log, logSize, length);
+        logSize += length;
+        notifyAll();
+    }
+
+    /**
+     * Returns the output logged after the given offset waiting up to the given time for more output if there is none
+     * yet, which is an empty array if the wait timed out. Returns null once the job has finished and all of its
+     * output has been read so that the end of the log is reported atomically with the last output.
+     */
+    public synchronized byte[] readLog(int offset, long timeoutMillis) throws InterruptedException {
+        if (logSize <= offset && !state.isFinished()) {
+            wait(timeoutMillis);
+        }
+        if (logSize <= offset) {
+            return state.isFinished() ? null : new byte[0];
+        }
+        return Arrays.copyOfRange(log, offset, logSize);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public List<String> getArgs() {
+        return args;
+    }
+
+    public String getDir() {
+        return dir;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public synchronized long getStarted() {
+        return started;
+    }
+
+    public synchronized long getFinished() {
+        return finished;
+    }
+
+    public synchronized JobState getState() {
+        return state;
+    }
+
+    public synchronized String getError() {
+        return error;
+    }
+
+    public synchronized List<String> getPullRequests() {
+        return pullRequests;
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.server;
+
+import com.beust.jcommander.ParameterException;
+import io.jenkins.updatebot.CommandNames;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.UpdateBot;
+import io.jenkins.updatebot.commands.CommandSupport;
+import io.jenkins.updatebot.commands.ParentContext;
+import io.jenkins.updatebot.commands.PushBatch;
+import io.jenkins.updatebot.support.Strings;
+import org.kohsuke.github.GHPullRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the commands submitted to the UpdateBot server one at a time against a single shared {@link Configuration}
+ * so that the GitHub client, the repository configuration and the other caches stay warm between commands.
+ *
+ * If a coalesce window is configured the push and push-version commands submitted within the window are run
+ * together as a {@link PushBatch} so each downstream repository gets a single commit and Pull Request update.
+ */
+public class JobQueue {
+    private static final transient Logger LOG = LoggerFactory.getLogger(JobQueue.class);
+
+    public static final Set<String> COMMANDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            CommandNames.PUSH_SOURCE, CommandNames.PUSH_VERSION, CommandNames.PUSH_REGEX, CommandNames.UPDATE, CommandNames.PROMOTE)));
+
+    public static final Set<String> COALESCED_COMMANDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            CommandNames.PUSH_SOURCE, CommandNames.PUSH_VERSION)));
+
+    private final Configuration configuration;
+    private final int history;
+    private final long coalesceMillis;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicLong counter = new AtomicLong();
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+    private List<Job> window = new ArrayList<>();
+
+    public JobQueue(Configuration configuration, int history) {
+        this(configuration, history, 0);
+    }
+
+    public JobQueue(Configuration configuration, int history, long coalesceMillis) {
+        this.configuration = configuration;
+        this.history = history;
+        this.coalesceMillis = coalesceMillis;
+    }
+
+    /**
+     * Validates the command of the request and queues it
+     *
+     * @throws IllegalArgumentException if the command cannot be run by the server
+     */
+    public Job submit(JobRequest request) {
+        List<String> args = request.getArgs();
+        if (args == null || args.isEmpty()) {
+            throw new IllegalArgumentException("No command arguments given");
+        }
+        String command = args.get(0);
+        if (!COMMANDS.contains(command)) {
+            throw new IllegalArgumentException("Unsupported command '" + command + "'. Supported commands are " + COMMANDS +
+                    " and global options have to be given when starting the server");
+        }
+        try {
+            // lets check the arguments parse without touching the shared configuration
+            UpdateBot.parseCommand(args.toArray(new String[args.size()]), new Configuration(), false);
+        } catch (ParameterException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        Job job = new Job(Long.toString(counter.incrementAndGet()), new ArrayList<>(args), request.getDir());
+        synchronized (this) {
+            jobs.put(job.getId(), job);
+            removeOldJobs();
+            if (coalesceMillis > 0 && COALESCED_COMMANDS.contains(command)) {
+                window.add(job);
+                if (window.size() == 1) {
+                    scheduler.schedule(this::closeWindow, coalesceMillis, TimeUnit.MILLISECONDS);
+                }
+                return job;
+            }
+        }
+        executor.submit(() -> run(job));
+        return job;
+    }
+
+    public synchronized Job getJob(String id) {
+        return jobs.get(id);
+    }
+
+    public synchronized List<Job> getJobs() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues the jobs submitted within the current coalesce window to run as a single batch
+     */
+    protected void closeWindow() {
+        List<Job> batch;
+        synchronized (this) {
+            batch = window;
+            window = new ArrayList<>();
+        }
+        if (!batch.isEmpty()) {
+            executor.submit(() -> runBatch(batch));
+        }
+    }
+
+    protected void run(Job job) {
+        run(Collections.singletonList(job), () -> inSourceDir(job, () -> execute(job)));
+    }
+
+    protected void runBatch(List<Job> batch) {
+        run(batch, () -> executeBatch(batch));
+    }
+
+    /**
+     * Runs the task writing its output to the logs of all of the given jobs
+     */
+    private void run(List<Job> batch, Callable<List<String>> task) {
+        for (Job job : batch) {
+            job.running();
+        }
+        PrintStream oldPrintStream = configuration.getPrintStream();
+        try (PrintStream printStream = new PrintStream(createLogOutputStream(batch), true, "UTF-8")) {
+            configuration.setPrintStream(printStream);
+            try {
+                List<String> pullRequests = task.call();
+                for (Job job : batch) {
+                    if (!job.getState().isFinished()) {
+                        job.succeeded(pullRequests);
+                    }
+                }
+            } catch (Exception e) {
+                LOG.warn("Jobs " + describe(batch) + " failed: " + e, e);
+                e.printStackTrace(printStream);
+                for (Job job : batch) {
+                    if (!job.getState().isFinished()) {
+                        job.failed(e);
+                    }
+                }
+            }
+        } catch (UnsupportedEncodingException e) {
+            for (Job job : batch) {
+                job.failed(e);
+            }
+        } finally {
+            configuration.setPrintStream(oldPrintStream);
+        }
+    }
+
+    /**
+     * Runs the given task with the source directory of the job if it has one
+     */
+    private <T> T inSourceDir(Job job, Callable<T> task) throws Exception {
+        if (Strings.empty(job.getDir())) {
+            return task.call();
+        }
+        String oldSourcePath = configuration.getSourcePath();
+        configuration.setSourcePath(job.getDir());
+        configuration.setSourceDir(null);
+        try {
+            return task.call();
+        } finally {
+            configuration.setSourcePath(oldSourcePath);
+            configuration.setSourceDir(null);
+        }
+    }
+
+    /**
+     * Runs the command of the job returning the URLs of the Pull Requests it created or updated
+     */
+    protected List<String> execute(Job job) throws Exception {
+        return toUrls(parseCommand(job).run(configuration));
+    }
+
+    /**
+     * Coalesces the changes of the push and push-version commands of the jobs into a single push per repository
+     * returning the URLs of the Pull Requests it created or updated. Any job whose changes cannot be found is failed.
+     */
+    protected List<String> executeBatch(List<Job> batch) throws Exception {
+        configuration.info(LOG, "Coalescing jobs " + describe(batch));
+        PushBatch pushBatch = new PushBatch();
+        for (Job job : batch) {
+            try {
+                inSourceDir(job, () -> {
+                    pushBatch.add(configuration, parseCommand(job));
+                    return null;
+                });
+            } catch (Exception e) {
+                LOG.warn("Job " + job.getId() + " " + job.getArgs() + " failed: " + e, e);
+                job.failed(e);
+            }
+        }
+        if (pushBatch.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return toUrls(pushBatch.run(configuration));
+    }
+
+    protected CommandSupport parseCommand(Job job) {
+        List<String> args = job.getArgs();
+        return UpdateBot.parseCommand(args.toArray(new String[args.size()]), configuration, false);
+    }
+
+    private static List<String> toUrls(ParentContext context) {
+        List<String> answer = new ArrayList<>();
+        if (context != null) {
+            for (GHPullRequest pullRequest : context.getPullRequests()) {
+                answer.add(Strings.toString(pullRequest.getHtmlUrl()));
+            }
+        }
+        return answer;
+    }
+
+    private static OutputStream createLogOutputStream(List<Job> batch) {
+        if (batch.size() == 1) {
+            return batch.get(0).getLogOutputStream();
+        }
+        List<OutputStream> outputs = new ArrayList<>();
+        for (Job job : batch) {
+            outputs.add(job.getLogOutputStream());
+        }
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                for (OutputStream output : outputs) {
+                    output.write(b);
+                }
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                for (OutputStream output : outputs) {
+                    output.write(bytes, offset, length);
+                }
+            }
+        };
+    }
+
+    private static String describe(List<Job> batch) {
+        List<String> ids = new ArrayList<>();
+        for (Job job : batch) {
+            ids.add(job.getId());
+        }
+        return String.join(", ", ids);
+    }
+
+    /**
+     * Removes the oldest finished jobs so that only the given number of jobs are remembered
+     */
+    private void removeOldJobs() {
+        Iterator<Job> iter = jobs.values().iterator();
+        while (jobs.size() > history && iter.hasNext()) {
+            if (iter.next().getState().isFinished()) {
+                iter.remove();
+            }
+        }
+    }
+}
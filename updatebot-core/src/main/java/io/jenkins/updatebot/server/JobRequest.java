@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.server;
+
+import io.jenkins.updatebot.model.DtoSupport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The body of a request to run a command on the UpdateBot server
+ */
+public class JobRequest extends DtoSupport {
+    private List<String> args = new ArrayList<>();
+    private String dir;
+
+    public List<String> getArgs() {
+        return args;
+    }
+
+    public void setArgs(List<String> args) {
+        this.args = args;
+    }
+
+    /**
+     * Returns the source directory of the command if it is not the directory of the server
+     */
+    public String getDir() {
+        return dir;
+    }
+
+    public void setDir(String dir) {
+        this.dir = dir;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A local HTTP API for queuing UpdateBot commands:
+ * <ul>
+ * <li><code>POST /jobs</code> queues the command given by the JSON {@link JobRequest} body</li>
+ * <li><code>GET /jobs</code> lists the recent jobs</li>
+ * <li><code>GET /jobs/{id}</code> returns the state of a job</li>
+ * <li><code>GET /jobs/{id}/log</code> streams the output of a job until it finishes</li>
+ * </ul>
+ */
+public class UpdateBotServer {
+    private static final transient Logger LOG = LoggerFactory.getLogger(UpdateBotServer.class);
+
+    private static final String JOBS_PATH = "/jobs";
+    private static final long LOG_POLL_MILLIS = 1000;
+
+    private final JobQueue queue;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public UpdateBotServer(JobQueue queue, String host, int port) throws IOException {
+        this.queue = queue;
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        this.server.createContext(JOBS_PATH, this::handle);
+        this.server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+        LOG.info("UpdateBot is listening on http://" + server.getAddress().getHostString() + ":" + getPort() + JOBS_PATH);
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+        queue.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    protected void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            String[] segments = path.substring(JOBS_PATH.length()).replaceAll("^/+|/+$", "").split("/");
+            String id = segments[0];
+            if (id.isEmpty()) {
+                if (method.equals("POST")) {
+                    submit(exchange);
+                } else if (method.equals("GET")) {
+                    sendJson(exchange, 200, queue.getJobs());
+                } else {
+                    sendText(exchange, 405, "Method not allowed");
+                }
+                return;
+            }
+            Job job = queue.getJob(id);
+            if (job == null || segments.length > 2 || (segments.length == 2 && !segments[1].equals("log"))) {
+                sendText(exchange, 404, "Not found: " + path);
+            } else if (!method.equals("GET")) {
+                sendText(exchange, 405, "Method not allowed");
+            } else if (segments.length == 2) {
+                streamLog(exchange, job);
+            } else {
+                sendJson(exchange, 200, job);
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to handle " + exchange.getRequestURI() + ". " + e, e);
+            sendText(exchange, 500, e.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    protected void submit(HttpExchange exchange) throws IOException {
+        JobRequest request;
+        try {
+            request = mapper.readValue(exchange.getRequestBody(), JobRequest.class);
+        } catch (IOException e) {
+            sendText(exchange, 400, "Invalid job request: " + e.getMessage());
+            return;
+        }
+        Job job;
+        try {
+            job = queue.submit(request);
+        } catch (IllegalArgumentException e) {
+            sendText(exchange, 400, e.getMessage());
+            return;
+        }
+        exchange.getResponseHeaders().set("Location", JOBS_PATH + "/" + job.getId());
+        sendJson(exchange, 202, job);
+    }
+
+    /**
+     * Writes the output of the job as it is logged until the job has finished
+     */
+    protected void streamLog(HttpExchange exchange, Job job) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        int offset = 0;
+        try {
+            while (true) {
+                byte[] bytes = job.readLog(offset, LOG_POLL_MILLIS);
+                if (bytes == null) {
+                    break;
+                }
+                if (bytes.length > 0) {
+                    out.write(bytes);
+                    out.flush();
+                    offset += bytes.length;
+                }
+            }
+        } catch (InterruptedException e) {
+            // ignore
+        }
+        out.close();
+    }
+
+    protected void sendJson(HttpExchange exchange, int status, Object value) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        send(exchange, status, mapper.writeValueAsBytes(value));
+    }
+
+    protected void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        send(exchange, status, (text + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void send(HttpExchange exchange, int status, byte[] bytes) throws IOException {
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
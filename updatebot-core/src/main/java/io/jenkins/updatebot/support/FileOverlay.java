@@ -0,0 +1,365 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import de.pdark.decentxml.Document;
+import de.pdark.decentxml.XMLParser;
+import de.pdark.decentxml.XMLStringSource;
+import io.fabric8.utils.IOHelpers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * An in-memory overlay of the files modified in a local repository.
+ *
+ * When buffered, updaters read and write files through the overlay so nothing reaches the disk until
+ * {@link #flush()} replaces each modified file with an atomic rename; {@link #discard()} drops all the pending
+ * changes and {@link #diff(File)} describes them for dry runs. When not buffered writes go straight to disk.
+ *
+ * Large rewrites can be streamed to a temporary file next to the original which is then passed to
+ * {@link #writeFile(File, File)} rather than held in memory; flushing then just renames the spooled file.
+ */
+public class FileOverlay {
+    private static final transient Logger LOG = LoggerFactory.getLogger(FileOverlay.class);
+
+    private final Map<File, String> contents = new ConcurrentSkipListMap<>();
+    private final Map<File, File> spooled = new ConcurrentSkipListMap<>();
+    private boolean buffered;
+
+    public boolean isBuffered() {
+        return buffered;
+    }
+
+    public void setBuffered(boolean buffered) {
+        this.buffered = buffered;
+    }
+
+    /**
+     * Returns true if there are changes which have not been flushed to disk
+     */
+    public boolean isModified() {
+        return !contents.isEmpty() || !spooled.isEmpty();
+    }
+
+    public Set<File> getModifiedFiles() {
+        Set<File> answer = new TreeSet<>(contents.keySet());
+        answer.addAll(spooled.keySet());
+        return answer;
+    }
+
+    public boolean exists(File file) {
+        File key = key(file);
+        return contents.containsKey(key) || spooled.containsKey(key) || file.isFile();
+    }
+
+    public String readText(File file) throws IOException {
+        File key = key(file);
+        String answer = contents.get(key);
+        if (answer == null) {
+            answer = new String(Files.readAllBytes(source(key, file).toPath()), StandardCharsets.UTF_8);
+        }
+        return answer;
+    }
+
+    public Reader openReader(File file) throws IOException {
+        File key = key(file);
+        String text = contents.get(key);
+        if (text == null) {
+            return new InputStreamReader(new FileInputStream(source(key, file)), StandardCharsets.UTF_8);
+        }
+        return new StringReader(text);
+    }
+
+    public List<String> readLines(File file) throws IOException {
+        File key = key(file);
+        String text = contents.get(key);
+        if (text == null) {
+            return IOHelpers.readLines(source(key, file));
+        }
+        try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+
+    public JsonNode loadJson(File file) throws IOException {
+        File key = key(file);
+        String text = contents.get(key);
+        if (text == null) {
+            return MarkupHelper.loadJson(source(key, file));
+        }
+        return MarkupHelper.loadJson(text);
+    }
+
+    public Document loadXml(File file) throws IOException {
+        File key = key(file);
+        String text = contents.get(key);
+        if (text == null) {
+            return DecentXmlHelper.parseXmlFile(source(key, file));
+        }
+        return new XMLParser().parse(new XMLStringSource(text));
+    }
+
+    public void writeText(File file, String text) throws IOException {
+        if (buffered) {
+            File key = key(file);
+            contents.put(key, text);
+            deleteSpooled(key);
+        } else {
+            IOHelpers.writeFully(file, text);
+        }
+    }
+
+    /**
+     * Creates an empty temporary file next to the given file into which its new contents can be streamed before
+     * passing it to {@link #writeFile(File, File)}
+     */
+    public File createTempFile(File file) throws IOException {
+        File dir = key(file).getParentFile();
+        dir.mkdirs();
+        return File.createTempFile(".updatebot-", ".tmp", dir);
+    }
+
+    /**
+     * Replaces the contents of the file with the given temporary file from {@link #createTempFile(File)} which the
+     * overlay then owns. When buffered the temporary file is kept as the pending change, otherwise it replaces the
+     * file with an atomic rename.
+     */
+    public void writeFile(File file, File tempFile) throws IOException {
+        if (buffered) {
+            File key = key(file);
+            contents.remove(key);
+            File oldTempFile = spooled.put(key, tempFile);
+            if (oldTempFile != null) {
+                oldTempFile.delete();
+            }
+        } else {
+            moveAtomically(tempFile, file);
+        }
+    }
+
+    public void writeLines(File file, List<String> lines) throws IOException {
+        String separator = System.lineSeparator();
+        StringBuilder builder = new StringBuilder();
+        for (String line : lines) {
+            builder.append(line).append(separator);
+        }
+        writeText(file, builder.toString());
+    }
+
+    public void savePrettyJson(File file, Object value) throws IOException {
+        writeText(file, MarkupHelper.toNpmPrettyJson(value) + System.lineSeparator());
+    }
+
+    /**
+     * Returns a copy of the pending changes which can be passed to {@link #restore(Map)}; any spooled changes are
+     * read back into memory so only take snapshots when the changes may need to be rolled back
+     */
+    public Map<File, String> snapshot() throws IOException {
+        Map<File, String> answer = new TreeMap<>(contents);
+        for (Map.Entry<File, File> entry : spooled.entrySet()) {
+            answer.put(entry.getKey(), new String(Files.readAllBytes(entry.getValue().toPath()), StandardCharsets.UTF_8));
+        }
+        return answer;
+    }
+
+    /**
+     * Replaces the pending changes with a previous {@link #snapshot()}
+     */
+    public void restore(Map<File, String> snapshot) {
+        discard();
+        contents.putAll(snapshot);
+    }
+
+    /**
+     * Drops all the pending changes
+     */
+    public void discard() {
+        contents.clear();
+        for (File key : new ArrayList<>(spooled.keySet())) {
+            deleteSpooled(key);
+        }
+    }
+
+    /**
+     * Writes all the pending changes to disk, replacing each file with an atomic rename
+     *
+     * @return the files which were written
+     */
+    public List<File> flush() throws IOException {
+        List<File> answer = new ArrayList<>(getModifiedFiles());
+        for (Map.Entry<File, String> entry : contents.entrySet()) {
+            File file = entry.getKey();
+            LOG.debug("Writing " + file);
+            writeAtomically(file, entry.getValue());
+        }
+        contents.clear();
+        for (File file : new ArrayList<>(spooled.keySet())) {
+            LOG.debug("Writing " + file);
+            moveAtomically(spooled.remove(file), file);
+        }
+        return answer;
+    }
+
+    /**
+     * Temporarily writes the pending changes to disk for tools which need to see them such as <code>npm install</code>;
+     * closing the result restores the original files
+     */
+    public Closeable materialize() throws IOException {
+        Map<File, byte[]> originals = new HashMap<>();
+        for (Map.Entry<File, String> entry : contents.entrySet()) {
+            File file = entry.getKey();
+            originals.put(file, file.isFile() ? Files.readAllBytes(file.toPath()) : null);
+            IOHelpers.writeFully(file, entry.getValue());
+        }
+        for (Map.Entry<File, File> entry : spooled.entrySet()) {
+            File file = entry.getKey();
+            originals.put(file, file.isFile() ? Files.readAllBytes(file.toPath()) : null);
+            Files.copy(entry.getValue().toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return () -> {
+            for (Map.Entry<File, byte[]> entry : originals.entrySet()) {
+                File file = entry.getKey();
+                byte[] data = entry.getValue();
+                if (data == null) {
+                    file.delete();
+                } else {
+                    Files.write(file.toPath(), data);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns a description of the pending changes to each file with paths relative to the given directory
+     */
+    public String diff(File dir) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (File file : getModifiedFiles()) {
+            String path = dir != null ? key(dir).toPath().relativize(file.toPath()).toString() : file.getPath();
+            List<String> oldLines = file.isFile() ? IOHelpers.readLines(file) : new ArrayList<>();
+            appendDiff(builder, path, oldLines, readLines(file));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Appends the changed lines between the first and last difference; version changes rarely add or remove lines
+     * so lines are compared by position once the common prefix and suffix are removed
+     */
+    private static void appendDiff(StringBuilder builder, String path, List<String> oldLines, List<String> newLines) {
+        int start = 0;
+        while (start < oldLines.size() && start < newLines.size() && Objects.equals(oldLines.get(start), newLines.get(start))) {
+            start++;
+        }
+        int oldEnd = oldLines.size();
+        int newEnd = newLines.size();
+        while (oldEnd > start && newEnd > start && Objects.equals(oldLines.get(oldEnd - 1), newLines.get(newEnd - 1))) {
+            oldEnd--;
+            newEnd--;
+        }
+        if (start == oldEnd && start == newEnd) {
+            return;
+        }
+        builder.append("--- a/").append(path).append(System.lineSeparator());
+        builder.append("+++ b/").append(path).append(System.lineSeparator());
+        boolean sameLength = oldEnd - start == newEnd - start;
+        boolean header = true;
+        for (int i = start; i < Math.max(oldEnd, newEnd); i++) {
+            String oldLine = i < oldEnd ? oldLines.get(i) : null;
+            String newLine = i < newEnd ? newLines.get(i) : null;
+            if (sameLength && Objects.equals(oldLine, newLine)) {
+                header = true;
+                continue;
+            }
+            if (header) {
+                builder.append("@@ line ").append(i + 1).append(" @@").append(System.lineSeparator());
+                header = false;
+            }
+            if (oldLine != null) {
+                builder.append('-').append(oldLine).append(System.lineSeparator());
+            }
+            if (newLine != null) {
+                builder.append('+').append(newLine).append(System.lineSeparator());
+            }
+        }
+    }
+
+    private static void writeAtomically(File file, String text) throws IOException {
+        File dir = file.getParentFile();
+        dir.mkdirs();
+        File tempFile = File.createTempFile(".updatebot-", ".tmp", dir);
+        try {
+            IOHelpers.writeFully(tempFile, text);
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        moveAtomically(tempFile, file);
+    }
+
+    private static void moveAtomically(File tempFile, File file) throws IOException {
+        try {
+            if (file.exists()) {
+                tempFile.setExecutable(file.canExecute());
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Returns the file holding the current contents of the given file which is either its spooled change or itself
+     */
+    private File source(File key, File file) {
+        File answer = spooled.get(key);
+        return answer != null ? answer : file;
+    }
+
+    private void deleteSpooled(File key) {
+        File tempFile = spooled.remove(key);
+        if (tempFile != null) {
+            tempFile.delete();
+        }
+    }
+
+    private static File key(File file) {
+        return file.getAbsoluteFile().toPath().normalize().toFile();
+    }
+}
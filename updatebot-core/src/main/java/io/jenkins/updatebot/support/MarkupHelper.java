@@ -134,6 +134,10 @@ public class MarkupHelper {
         return OBJECT_MAPPER.readTree(file);
     }
 
+    public static JsonNode loadJson(String text) throws IOException {
+        return OBJECT_MAPPER.readTree(text);
+    }
+
     /**
      * Loads the JSON
      */
@@ -141,15 +145,24 @@ public class MarkupHelper {
         return OBJECT_MAPPER.readValue(src, clazz);
     }
 
+    public static <T> T loadJson(String text, Class<T> clazz) throws IOException {
+        return OBJECT_MAPPER.readValue(text, clazz);
+    }
+
     public static void savePrettyJson(File file, Object value) throws IOException {
+        IOHelpers.writeFully(file, toNpmPrettyJson(value) + System.lineSeparator());
+    }
+
+    /**
+     * Returns the JSON using the same layout as npm uses for <code>package.json</code> files
+     */
+    public static String toNpmPrettyJson(Object value) throws JsonProcessingException {
         // lets use the node layout
         NpmJsonPrettyPrinter printer = new NpmJsonPrettyPrinter();
 
         ObjectMapper objectMapper = createPrettyJsonObjectMapper();
         objectMapper.setDefaultPrettyPrinter(printer);
-        String json = objectMapper.writer().writeValueAsString(value);
-
-        IOHelpers.writeFully(file, json + System.lineSeparator());
+        return objectMapper.writer().writeValueAsString(value);
     }
 
 }
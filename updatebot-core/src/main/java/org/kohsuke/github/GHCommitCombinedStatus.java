@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.kohsuke.github;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The combined status of a commit from the <code>/repos/:owner/:repo/commits/:ref/status</code> endpoint which
+ * has the latest status of each context. The GitHub API client does not support this endpoint so this class lives
+ * in its package to reuse its authenticated requests, rate limit handling and JSON mapping.
+ */
+public class GHCommitCombinedStatus {
+    public static final int PAGE_SIZE = 100;
+
+    String state;
+    String sha;
+    int total_count;
+    GHCommitStatus[] statuses;
+
+    /**
+     * Returns the combined status of the given page of contexts for the commit
+     */
+    public static GHCommitCombinedStatus getCombinedStatus(GHRepository repository, String sha, int page) throws IOException {
+        String tailApiUrl = "/repos/" + repository.getOwnerName() + "/" + repository.getName() + "/commits/" + sha +
+                "/status?per_page=" + PAGE_SIZE + "&page=" + page;
+        GHCommitCombinedStatus answer = repository.root.retrieve().to(tailApiUrl, GHCommitCombinedStatus.class);
+        if (answer.statuses != null) {
+            for (GHCommitStatus status : answer.statuses) {
+                status.wrapUp(repository.root);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the latest status of each context of the commit, requesting each page only when the previous page
+     * has been iterated so that callers can stop at the first status they are interested in
+     */
+    public static Iterable<GHCommitStatus> listStatuses(GHRepository repository, String sha) {
+        return () -> new Iterator<GHCommitStatus>() {
+            private int page;
+            private int count;
+            private int total = -1;
+            private Iterator<GHCommitStatus> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (total >= 0 && count >= total) {
+                        return false;
+                    }
+                    GHCommitCombinedStatus combined;
+                    try {
+                        combined = getCombinedStatus(repository, sha, ++page);
+                    } catch (IOException e) {
+                        throw new GHException("Failed to retrieve the combined status of " + sha, e);
+                    }
+                    GHCommitStatus[] list = combined.getStatuses();
+                    if (list.length == 0) {
+                        return false;
+                    }
+                    total = combined.getTotalCount();
+                    count += list.length;
+                    current = Arrays.asList(list).iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public GHCommitStatus next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    public GHCommitState getState() {
+        return state != null ? GHCommitState.valueOf(state.toUpperCase()) : null;
+    }
+
+    public String getSha() {
+        return sha;
+    }
+
+    public int getTotalCount() {
+        return total_count;
+    }
+
+    public GHCommitStatus[] getStatuses() {
+        return statuses != null ? statuses : new GHCommitStatus[0];
+    }
+}
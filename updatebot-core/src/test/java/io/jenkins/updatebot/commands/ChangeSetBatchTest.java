@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.commands;
+
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.UpdateBot;
+import io.jenkins.updatebot.kind.Kind;
+import io.jenkins.updatebot.model.ChangeSet;
+import io.jenkins.updatebot.model.DependencyVersionChange;
+import io.jenkins.updatebot.model.GitRepository;
+import io.jenkins.updatebot.repository.LocalRepository;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class ChangeSetBatchTest {
+    protected Configuration configuration = new Configuration();
+
+    @Test
+    public void testChangesAreCoalescedPerRepository() throws Exception {
+        PushBatch batch = new PushBatch();
+        batch.add(configuration, new PushVersionChanges(Kind.NPM, "foo", "1.0.0", "bar", "2.0.0"));
+        batch.add("https://github.com/acme/lib.git", changes(new DependencyVersionChange(Kind.MAVEN, "io.acme:lib", "3.0.0")));
+        batch.add(configuration, new PushVersionChanges(Kind.NPM, "foo", "1.1.0"));
+
+        assertThat(batch.getChanges(repository("acme/app", "https://github.com/acme/app.git")).toString())
+                .isEqualTo("foo => 1.1.0, bar => 2.0.0, io.acme:lib => 3.0.0");
+        assertThat(batch.getChanges(repository("acme/lib", "https://github.com/acme/lib.git")).toString())
+                .isEqualTo("foo => 1.1.0, bar => 2.0.0");
+    }
+
+    @Test
+    public void testPushChangeSetCommandLine() throws Exception {
+        ChangeSet changes = changes(new DependencyVersionChange(Kind.NPM, "foo", "1.0.0"),
+                new DependencyVersionChange(Kind.MAVEN, "io.acme:lib", "3.0.0"));
+        PushChangeSet command = new PushChangeSet(changes);
+        assertThat(command.createPullRequestComment()).endsWith("push-changes npm:foo 1.0.0 maven:io.acme:lib 3.0.0\n");
+
+        CommandSupport parsed = UpdateBot.parseCommand(new String[]{"push-changes", "npm:foo", "1.0.0", "maven:io.acme:lib", "3.0.0"}, new Configuration(), false);
+        assertThat(parsed).isInstanceOf(PushChangeSet.class);
+        assertThat(((PushChangeSet) parsed).getChanges()).isEqualTo(changes);
+
+        PushChangeSetContext context = new PushChangeSetContext(repository("acme/app", "https://github.com/acme/app.git"), configuration, changes);
+        assertThat(context.createPullRequestTitle()).startsWith(context.createPullRequestTitlePrefix())
+                .isEqualTo("update versions: foo to 1.0.0, io.acme:lib to 3.0.0");
+    }
+
+    protected static ChangeSet changes(DependencyVersionChange... changes) {
+        return ChangeSet.of(Arrays.asList(changes));
+    }
+
+    protected static LocalRepository repository(String name, String cloneUrl) {
+        GitRepository repo = new GitRepository(name);
+        repo.setCloneUrl(cloneUrl);
+        return new LocalRepository(repo, new File(name));
+    }
+}
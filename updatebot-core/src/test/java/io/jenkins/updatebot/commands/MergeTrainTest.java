@@ -0,0 +1,266 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.commands;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.github.Metadata;
+import io.jenkins.updatebot.kind.Kind;
+import io.jenkins.updatebot.model.ChangeSet;
+import io.jenkins.updatebot.model.DependencyVersionChange;
+import io.jenkins.updatebot.model.GitRepository;
+import io.jenkins.updatebot.model.GitRepositoryConfig;
+import io.jenkins.updatebot.model.UpdateBotMetadata;
+import io.jenkins.updatebot.repository.LocalRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.kohsuke.github.GHCommitState;
+import org.kohsuke.github.GHPullRequest;
+import org.kohsuke.github.GHRepository;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class MergeTrainTest {
+    protected static final ObjectMapper MAPPER = new ObjectMapper()
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    protected CommandContext context;
+    protected StubMergeTrain mergeTrain = new StubMergeTrain();
+
+    @Before
+    public void init() throws Exception {
+        GitRepository repository = new GitRepository("acme/app");
+        repository.setRepositoryDetails(new GitRepositoryConfig("app"));
+        context = new CommandContext(new LocalRepository(repository, new File("app")), new Configuration());
+    }
+
+    @Test
+    public void testCreateTrain() throws Exception {
+        GHPullRequest foo = pullRequest(1, "master", null);
+        GHPullRequest other = pullRequest(2, "develop", null);
+        GHPullRequest bar = pullRequest(3, "master", null);
+        GHPullRequest excluded = pullRequest(4, "master", excludedMetadata());
+        GHPullRequest unlabelled = pullRequest(5, "master", null);
+        mergeTrain.unlabelled.add(5);
+        mergeTrain.changes.put(1, changes(new DependencyVersionChange(Kind.NPM, "foo", "1.0.0")));
+        mergeTrain.changes.put(3, changes(new DependencyVersionChange(Kind.NPM, "bar", "2.0.0")));
+
+        List<GHPullRequest> answer = mergeTrain.process(context, null, Arrays.asList(foo, other, bar, excluded, unlabelled));
+
+        assertThat(answer).containsExactlyInAnyOrder(other, excluded, unlabelled);
+        assertThat(mergeTrain.actions).containsExactly("create master [1, 3] foo => 1.0.0, bar => 2.0.0");
+        assertThat(mergeTrain.isPending()).isTrue();
+    }
+
+    @Test
+    public void testSinglePullRequestDoesNotCreateTrain() throws Exception {
+        GHPullRequest foo = pullRequest(1, "master", null);
+        GHPullRequest bar = pullRequest(2, "master", null);
+        mergeTrain.changes.put(1, changes(new DependencyVersionChange(Kind.NPM, "foo", "1.0.0")));
+
+        assertThat(mergeTrain.process(context, null, Arrays.asList(foo, bar))).containsExactlyInAnyOrder(foo, bar);
+        assertThat(mergeTrain.actions).isEmpty();
+        assertThat(mergeTrain.isPending()).isFalse();
+    }
+
+    @Test
+    public void testStaleTrainIsClosedAndReplaced() throws Exception {
+        GHPullRequest train = pullRequest(10, "master", trainMetadata(1, 2));
+        GHPullRequest foo = pullRequest(1, "master", null);
+        GHPullRequest bar = pullRequest(3, "master", null);
+        mergeTrain.changes.put(1, changes(new DependencyVersionChange(Kind.NPM, "foo", "1.0.0")));
+        mergeTrain.changes.put(3, changes(new DependencyVersionChange(Kind.NPM, "bar", "2.0.0")));
+
+        List<GHPullRequest> answer = mergeTrain.process(context, null, Arrays.asList(train, foo, bar));
+
+        assertThat(answer).isEmpty();
+        assertThat(mergeTrain.actions).containsExactly("close #10", "create master [1, 3] foo => 1.0.0, bar => 2.0.0");
+    }
+
+    @Test
+    public void testUnmergeableTrainIsRebuilt() throws Exception {
+        GHPullRequest train = pullRequest(10, "master", trainMetadata(1, 3));
+        GHPullRequest foo = pullRequest(1, "master", null);
+        GHPullRequest bar = pullRequest(3, "master", null);
+        GHPullRequest later = pullRequest(4, "master", null);
+        mergeTrain.unmergeable.add(10);
+        mergeTrain.changes.put(1, changes(new DependencyVersionChange(Kind.NPM, "foo", "1.0.0")));
+        mergeTrain.changes.put(3, changes(new DependencyVersionChange(Kind.NPM, "bar", "2.0.0")));
+
+        List<GHPullRequest> answer = mergeTrain.process(context, null, Arrays.asList(train, foo, bar, later));
+
+        assertThat(answer).isEmpty();
+        assertThat(mergeTrain.actions).containsExactly("rebuild #10 [1, 3] foo => 1.0.0, bar => 2.0.0");
+        assertThat(mergeTrain.isPending()).isTrue();
+    }
+
+    @Test
+    public void testSuccessfulTrainIsMerged() throws Exception {
+        GHPullRequest train = pullRequest(10, "master", trainMetadata(1, 3));
+        GHPullRequest foo = pullRequest(1, "master", null);
+        GHPullRequest bar = pullRequest(3, "master", null);
+        mergeTrain.state = GHCommitState.SUCCESS;
+
+        List<GHPullRequest> answer = mergeTrain.process(context, null, Arrays.asList(train, foo, bar));
+
+        assertThat(answer).isEmpty();
+        assertThat(mergeTrain.actions).containsExactly("merge #10", "close #1", "close #3");
+        assertThat(mergeTrain.isPending()).isFalse();
+    }
+
+    @Test
+    public void testPendingTrainIsLeftAlone() throws Exception {
+        GHPullRequest train = pullRequest(10, "master", trainMetadata(1, 3));
+        GHPullRequest foo = pullRequest(1, "master", null);
+        GHPullRequest bar = pullRequest(3, "master", null);
+
+        assertThat(mergeTrain.process(context, null, Arrays.asList(train, foo, bar))).isEmpty();
+        assertThat(mergeTrain.actions).isEmpty();
+        assertThat(mergeTrain.isPending()).isTrue();
+    }
+
+    @Test
+    public void testFailedTrainIsClosedAndItsPullRequestsExcluded() throws Exception {
+        GHPullRequest train = pullRequest(10, "master", trainMetadata(1, 3));
+        GHPullRequest foo = pullRequest(1, "master", null);
+        GHPullRequest bar = pullRequest(3, "master", null);
+        mergeTrain.state = GHCommitState.FAILURE;
+
+        List<GHPullRequest> answer = mergeTrain.process(context, null, Arrays.asList(train, foo, bar));
+
+        assertThat(answer).containsExactly(foo, bar);
+        assertThat(mergeTrain.actions).containsExactly("close #10", "exclude #1", "exclude #3");
+        assertThat(mergeTrain.isPending()).isFalse();
+    }
+
+
+    @Test
+    public void testLaterPullRequestsWin() throws Exception {
+        Map<Integer, ChangeSet> changes = new HashMap<>();
+        changes.put(12, changes(new DependencyVersionChange(Kind.NPM, "foo", "1.2.0")));
+        changes.put(7, changes(new DependencyVersionChange(Kind.NPM, "foo", "1.1.0"),
+                new DependencyVersionChange(Kind.MAVEN, "io.acme:lib", "3.0.0")));
+        changes.put(9, changes(new DependencyVersionChange(Kind.NPM, "bar", "2.0.0")));
+
+        assertThat(MergeTrain.combineChanges(changes).toString()).isEqualTo("foo => 1.2.0, io.acme:lib => 3.0.0, bar => 2.0.0");
+        assertThat(MergeTrain.combineChanges(new HashMap<>())).isEqualTo(ChangeSet.EMPTY);
+    }
+
+    protected static ChangeSet changes(DependencyVersionChange... changes) {
+        return ChangeSet.of(Arrays.asList(changes));
+    }
+
+    protected static UpdateBotMetadata trainMetadata(Integer... numbers) {
+        UpdateBotMetadata metadata = new UpdateBotMetadata();
+        metadata.setTrain(Arrays.asList(numbers));
+        return metadata;
+    }
+
+    protected static UpdateBotMetadata excludedMetadata() {
+        UpdateBotMetadata metadata = new UpdateBotMetadata();
+        metadata.setExcludedFromTrain(true);
+        return metadata;
+    }
+
+    protected static GHPullRequest pullRequest(int number, String base, UpdateBotMetadata metadata) throws IOException {
+        ObjectNode json = MAPPER.createObjectNode();
+        json.put("number", number);
+        json.put("html_url", "https://github.com/acme/app/pull/" + number);
+        json.put("body", metadata != null ? Metadata.updateBody("", metadata) : "");
+        json.putObject("base").put("ref", base);
+        json.putObject("head").put("ref", "updatebot-" + number);
+        return MAPPER.treeToValue(json, GHPullRequest.class);
+    }
+
+    /**
+     * Records the GitHub operations of the merge train rather than calling GitHub
+     */
+    protected static class StubMergeTrain extends MergeTrain {
+        protected List<String> actions = new ArrayList<>();
+        protected Map<Integer, ChangeSet> changes = new HashMap<>();
+        protected Set<Integer> unlabelled = new HashSet<>();
+        protected Set<Integer> unmergeable = new HashSet<>();
+        protected GHCommitState state = GHCommitState.PENDING;
+
+        public StubMergeTrain() {
+            super(new UpdatePullRequests());
+        }
+
+        @Override
+        protected boolean isUpdateBotPullRequest(CommandContext context, GHPullRequest pullRequest) {
+            return !unlabelled.contains(pullRequest.getNumber());
+        }
+
+        @Override
+        protected boolean isMergeable(GHPullRequest train) {
+            return !unmergeable.contains(train.getNumber());
+        }
+
+        @Override
+        protected GHCommitState getCommitState(CommandContext context, GHRepository ghRepository, GHPullRequest train) {
+            return state;
+        }
+
+        @Override
+        protected ChangeSet loadChanges(CommandContext context, GHRepository ghRepository, GHPullRequest pullRequest) {
+            return changes.get(pullRequest.getNumber());
+        }
+
+        @Override
+        protected GHPullRequest createTrain(CommandContext context, ChangeSet changes, String base, List<Integer> numbers) throws IOException {
+            actions.add("create " + base + " " + numbers + " " + changes);
+            return pullRequest(100, base, trainMetadata(numbers.toArray(new Integer[0])));
+        }
+
+        @Override
+        protected void rebuildTrain(CommandContext context, GHRepository ghRepository, GHPullRequest train, ChangeSet changes, List<Integer> numbers) {
+            actions.add("rebuild #" + train.getNumber() + " " + numbers + " " + changes);
+        }
+
+        @Override
+        protected void mergePullRequest(CommandContext context, GHPullRequest pullRequest, String message) {
+            actions.add("merge #" + pullRequest.getNumber());
+        }
+
+        @Override
+        protected void closePullRequest(CommandContext context, GHRepository ghRepository, GHPullRequest pullRequest, String message) {
+            actions.add("close #" + pullRequest.getNumber());
+        }
+
+        @Override
+        protected void excludeFromTrain(GHPullRequest pullRequest) {
+            actions.add("exclude #" + pullRequest.getNumber());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.commands;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.model.GitRepository;
+import io.jenkins.updatebot.repository.LocalRepository;
+import io.jenkins.updatebot.repository.ReleaseGraph;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kohsuke.github.GHPullRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the scheduling of a push-graph release with pushes which immediately create merged Pull Requests
+ */
+public class ReleaseGraphPushTest {
+    protected static final ObjectMapper MAPPER = new ObjectMapper()
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    protected Configuration configuration = new Configuration();
+    protected ReleaseGraph graph = new ReleaseGraph();
+    protected PushReleaseGraph command = new PushReleaseGraph();
+    protected ExecutorService executor = Executors.newSingleThreadExecutor();
+    protected List<String> pushed = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void init() {
+        for (String name : new String[]{"base", "left", "app", "deploy", "site", "unrelated"}) {
+            graph.addRepository(new LocalRepository(new GitRepository(name), new File(name)));
+        }
+        graph.addDependency("base", "left");
+        graph.addDependency("left", "app");
+        graph.addDependency("app", "deploy");
+        graph.addDependency("deploy", "site");
+        command.setPollTimeMillis(10);
+        command.setLoopTime(30 * 1000);
+    }
+
+    @After
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testReleaseWithoutCycles() throws Exception {
+        release();
+
+        assertThat(pushed).containsExactly("left", "app", "deploy", "site");
+    }
+
+    @Test
+    public void testCyclesAndTheirDownstreamRepositoriesAreReleased() throws Exception {
+        graph.addDependency("deploy", "app");
+
+        release();
+
+        assertThat(pushed).containsExactly("left", "app", "deploy", "site");
+    }
+
+    protected void release() throws IOException {
+        command.new Release(configuration, graph, null, "base", new ParentContext(), new ExecutorCompletionService<>(executor)) {
+            @Override
+            protected List<CommandContext> push(LocalRepository target, List<LocalRepository> sources) throws IOException {
+                pushed.add(target.getFullName());
+                CommandContext context = new CommandContext(target, configuration);
+                context.setPullRequest(mergedPullRequest(pushed.size()));
+                return Collections.singletonList(context);
+            }
+
+            @Override
+            protected void refresh(GHPullRequest pullRequest) {
+            }
+
+            @Override
+            protected void pullReleasedRepository(LocalRepository repository) {
+            }
+        }.run();
+    }
+
+    protected static GHPullRequest mergedPullRequest(int number) throws IOException {
+        String json = "{\"number\": " + number + ", \"state\": \"closed\", \"merged\": true, \"mergeable_state\": \"clean\", " +
+                "\"html_url\": \"https://github.com/acme/app/pull/" + number + "\"}";
+        return MAPPER.readValue(json, GHPullRequest.class);
+    }
+}
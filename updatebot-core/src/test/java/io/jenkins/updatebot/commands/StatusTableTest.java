@@ -0,0 +1,144 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.commands;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.model.GitRepository;
+import io.jenkins.updatebot.repository.LocalRepository;
+import org.junit.Test;
+import org.kohsuke.github.GHIssueState;
+import org.kohsuke.github.GHPullRequest;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class StatusTableTest {
+    protected static final ObjectMapper MAPPER = new ObjectMapper()
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    protected Configuration configuration = new Configuration();
+    protected List<StatusInfo> refreshed = new ArrayList<>();
+    protected StatusTable table = new StatusTable() {
+        @Override
+        protected List<StatusInfo> refreshStatuses(Configuration configuration, List<StatusInfo> statuses) {
+            // the pull requests have been closed since they were last polled
+            List<StatusInfo> answer = new ArrayList<>();
+            for (StatusInfo status : statuses) {
+                refreshed.add(status);
+                answer.add(new StatusInfo(status.getFullName(), status.getCloneUrl(), status.getStatus(),
+                        status.getIssueNumber(), status.getIssueUrl(), status.getIssueState(),
+                        status.getPullRequestNumber(), status.getPullRequestUrl(), GHIssueState.CLOSED, status.getHeadSha()));
+            }
+            return answer;
+        }
+    };
+
+    @Test
+    public void testOnlyChangedStatusesAreReturned() throws Exception {
+        CommandContext foo = context("foo");
+        CommandContext bar = context("bar");
+        bar.setStatus(Status.FAILED);
+
+        assertThat(names(table.update(configuration, Arrays.asList(foo, bar)))).containsExactly("foo", "bar");
+        assertThat(table.update(configuration, Arrays.asList(context("foo"), bar))).isEmpty();
+        assertThat(table.isPending()).isFalse();
+
+        CommandContext failedFoo = context("foo");
+        failedFoo.setStatus(Status.FAILED);
+        assertThat(names(table.update(configuration, Arrays.asList(failedFoo, bar)))).containsExactly("foo");
+        assertThat(table.toMap()).containsOnlyKeys("git@github.com:acme/foo.git", "git@github.com:acme/bar.git");
+    }
+
+    @Test
+    public void testRepositoriesNoLongerPolledAreRemoved() throws Exception {
+        table.update(configuration, Arrays.asList(context("foo"), context("bar")));
+        assertThat(table.size()).isEqualTo(2);
+
+        table.update(configuration, Arrays.asList(context("bar")));
+        assertThat(table.size()).isEqualTo(1);
+        assertThat(names(table.getStatuses())).containsExactly("bar");
+
+        assertThat(names(table.update(configuration, Arrays.asList(context("foo"), context("bar"))))).containsExactly("foo");
+        assertThat(names(table.getStatuses())).containsExactly("foo", "bar");
+    }
+
+    @Test
+    public void testClosedPullRequestsAreRefreshed() throws Exception {
+        CommandContext foo = context("foo");
+        foo.setPullRequest(pullRequest("foo", 1));
+        foo.setStatus(Status.PENDING);
+        table.update(configuration, Arrays.asList(foo, context("bar")));
+        assertThat(table.isPending()).isTrue();
+        assertThat(refreshed).isEmpty();
+
+        // the closed pull request no longer appears in the search for open pull requests
+        CommandContext newFoo = context("foo");
+        newFoo.setStatus(Status.PENDING);
+        List<StatusInfo> changed = table.update(configuration, Arrays.asList(newFoo, context("bar")));
+
+        assertThat(refreshed).hasSize(1);
+        assertThat(refreshed.get(0).getPullRequestNumber()).isEqualTo(1);
+        assertThat(changed).hasSize(1);
+        StatusInfo status = changed.get(0);
+        assertThat(status.getFullName()).isEqualTo("foo");
+        assertThat(status.getPullRequestUrl()).isEqualTo("https://github.com/acme/foo/pull/1");
+        assertThat(status.getPullRequestState()).isEqualTo(GHIssueState.CLOSED);
+        assertThat(status.getStatus()).isEqualTo(Status.COMPLETE);
+        assertThat(table.isPending()).isFalse();
+    }
+
+    @Test
+    public void testNeedsRefresh() throws Exception {
+        CommandContext open = context("foo");
+        open.setPullRequest(pullRequest("foo", 1));
+        StatusInfo oldStatus = open.createStatusInfo();
+
+        assertThat(StatusInfo.needsRefresh(oldStatus, context("foo").createStatusInfo())).isTrue();
+        assertThat(StatusInfo.needsRefresh(oldStatus, open.createStatusInfo())).isFalse();
+        assertThat(StatusInfo.needsRefresh(null, context("foo").createStatusInfo())).isFalse();
+        assertThat(StatusInfo.needsRefresh(context("foo").createStatusInfo(), context("foo").createStatusInfo())).isFalse();
+    }
+
+    protected static GHPullRequest pullRequest(String name, int number) throws Exception {
+        String json = "{\"number\": " + number + ", \"state\": \"open\", \"html_url\": \"https://github.com/acme/" + name + "/pull/" + number + "\"}";
+        return MAPPER.readValue(json, GHPullRequest.class);
+    }
+
+    protected CommandContext context(String name) {
+        LocalRepository repository = new LocalRepository(new GitRepository(name, "git@github.com:acme/" + name + ".git"), new File(name));
+        return new CommandContext(repository, configuration);
+    }
+
+    protected static List<String> names(List<StatusInfo> statuses) {
+        List<String> answer = new ArrayList<>();
+        for (StatusInfo status : statuses) {
+            answer.add(status.getFullName());
+        }
+        return answer;
+    }
+}
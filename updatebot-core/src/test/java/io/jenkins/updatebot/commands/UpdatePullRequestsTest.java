@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.commands;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.fabric8.updatebot.test.Tests;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.github.Metadata;
+import io.jenkins.updatebot.model.GitRepository;
+import io.jenkins.updatebot.model.PullRequestState;
+import io.jenkins.updatebot.model.UpdateBotMetadata;
+import io.jenkins.updatebot.repository.LocalRepository;
+import io.jenkins.updatebot.repository.StateStore;
+import org.junit.Before;
+import org.junit.Test;
+import org.kohsuke.github.GHPullRequest;
+
+import java.io.File;
+import java.io.IOException;
+
+import static io.jenkins.updatebot.commands.MergeTrainTest.MAPPER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class UpdatePullRequestsTest {
+    protected static final String COMMAND = "updatebot push-version -k npm foo 1.2.3";
+
+    protected Configuration configuration = new Configuration();
+    protected CommandContext context;
+    protected UpdatePullRequests updatePullRequests = new UpdatePullRequests() {
+        @Override
+        public void mergePr(GHPullRequest pullRequest, String message) {
+        }
+    };
+
+    @Before
+    public void init() throws Exception {
+        File testDir = new File(Tests.getCleanWorkDir(getClass()));
+        configuration.setCacheDir(new File(testDir, "cache"));
+        configuration.setUseStateStore(true);
+        context = new CommandContext(new LocalRepository(new GitRepository("acme/app"), new File(testDir, "app")), configuration);
+    }
+
+    @Test
+    public void testLoadLastCommandDoesNotStoreUnknownPullRequests() throws Exception {
+        assertThat(updatePullRequests.loadLastCommand(context, pullRequest(12, "abc"))).isEqualTo(COMMAND);
+
+        assertThat(StateStore.load(configuration).getState(context).getPullRequests()).isEmpty();
+    }
+
+    @Test
+    public void testLoadLastCommandUpdatesStoredPullRequest() throws Exception {
+        StateStore.load(configuration).update(context, state -> state.getPullRequests().put(12, new PullRequestState(12, "fix(versions)")));
+
+        assertThat(updatePullRequests.loadLastCommand(context, pullRequest(12, "abc"))).isEqualTo(COMMAND);
+
+        PullRequestState state = StateStore.load(configuration).getState(context).findPullRequest("fix(versions)");
+        assertThat(state.getCommand()).isEqualTo(COMMAND);
+        assertThat(state.getHeadSha()).isEqualTo("abc");
+    }
+
+    @Test
+    public void testMergeRemovesStoredPullRequest() throws Exception {
+        StateStore.load(configuration).update(context, state -> state.getPullRequests().put(12, new PullRequestState(12, "fix(versions)")));
+
+        updatePullRequests.mergePr(context, pullRequest(12, "abc"), "merging");
+
+        assertThat(StateStore.load(configuration).getState(context).getPullRequests()).isEmpty();
+    }
+
+    protected static GHPullRequest pullRequest(int number, String headSha) throws IOException {
+        UpdateBotMetadata metadata = new UpdateBotMetadata();
+        metadata.setCommand(COMMAND);
+        ObjectNode json = MAPPER.createObjectNode();
+        json.put("number", number);
+        json.put("body", Metadata.updateBody("", metadata));
+        json.putObject("base").put("ref", "master");
+        json.putObject("head").put("ref", "updatebot-" + number).put("sha", headSha);
+        return MAPPER.treeToValue(json, GHPullRequest.class);
+    }
+}
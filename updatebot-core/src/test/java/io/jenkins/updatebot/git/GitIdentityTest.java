@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.git;
+
+import io.fabric8.utils.IOHelpers;
+import io.fabric8.updatebot.test.Tests;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class GitIdentityTest {
+    @Test
+    public void testReadRepositoryIdentity() throws Exception {
+        File dir = new File(Tests.getCleanWorkDir(getClass()));
+        File gitDir = new File(dir, ".git");
+        gitDir.mkdirs();
+        IOHelpers.writeFully(new File(gitDir, "config"), "[core]\n" +
+                "\tbare = false\n" +
+                "[user]\n" +
+                "\temail = bot@example.com\n" +
+                "\tname = \"Update Bot\"\n" +
+                "[remote \"origin\"]\n" +
+                "\turl = https://github.com/foo/bar.git\n");
+
+        GitIdentity identity = GitIdentity.readRepositoryIdentity(dir);
+        assertThat(identity).isEqualTo(new GitIdentity("Update Bot", "bot@example.com"));
+        assertThat(identity.getEnvironmentVariables()).containsEntry("GIT_AUTHOR_NAME", "Update Bot").
+                containsEntry("GIT_COMMITTER_EMAIL", "bot@example.com");
+    }
+
+    @Test
+    public void testMissingConfig() throws Exception {
+        File dir = new File(Tests.getCleanWorkDir(getClass()), "missing");
+        assertThat(GitIdentity.readRepositoryIdentity(dir)).isEqualTo(new GitIdentity(null, null));
+        assertThat(new GitIdentity(null, null).getEnvironmentVariables()).isEmpty();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.github;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.kohsuke.github.GHCommitState;
+import org.kohsuke.github.GHCommitStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class CommitStatusCacheTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    protected AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void testSuccessIsCachedUntilTheHeadMoves() throws Exception {
+        CommitStatusCache cache = new CommitStatusCache(0);
+        assertThat(cache.getState("pr/1", "abc", () -> load(GHCommitState.SUCCESS))).isEqualTo(GHCommitState.SUCCESS);
+        assertThat(cache.getState("pr/1", "abc", () -> load(GHCommitState.FAILURE))).isEqualTo(GHCommitState.SUCCESS);
+        assertThat(loads.get()).isEqualTo(1);
+
+        assertThat(cache.getState("pr/1", "def", () -> load(GHCommitState.FAILURE))).isEqualTo(GHCommitState.FAILURE);
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(1);
+
+        cache.remove("pr/1");
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testPendingStatesExpire() throws Exception {
+        CommitStatusCache cache = new CommitStatusCache(60 * 1000);
+        assertThat(cache.getState("pr/1", "abc", () -> load(GHCommitState.PENDING))).isEqualTo(GHCommitState.PENDING);
+        assertThat(cache.getState("pr/1", "abc", () -> load(GHCommitState.SUCCESS))).isEqualTo(GHCommitState.PENDING);
+        assertThat(loads.get()).isEqualTo(1);
+
+        cache = new CommitStatusCache(0);
+        assertThat(cache.getState("pr/1", "abc", () -> load(GHCommitState.PENDING))).isEqualTo(GHCommitState.PENDING);
+        assertThat(cache.getState("pr/1", "abc", () -> load(GHCommitState.SUCCESS))).isEqualTo(GHCommitState.SUCCESS);
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testFailedStatesExpire() throws Exception {
+        CommitStatusCache cache = new CommitStatusCache(60 * 1000);
+        assertThat(cache.getState("pr/1", "abc", () -> load(GHCommitState.FAILURE))).isEqualTo(GHCommitState.FAILURE);
+        assertThat(cache.getState("pr/1", "abc", () -> load(GHCommitState.SUCCESS))).isEqualTo(GHCommitState.FAILURE);
+        assertThat(loads.get()).isEqualTo(1);
+
+        // a re-run build can turn a failed or errored commit green
+        cache = new CommitStatusCache(0);
+        assertThat(cache.getState("pr/1", "abc", () -> load(GHCommitState.ERROR))).isEqualTo(GHCommitState.ERROR);
+        assertThat(cache.getState("pr/1", "abc", () -> load(GHCommitState.FAILURE))).isEqualTo(GHCommitState.FAILURE);
+        assertThat(cache.getState("pr/1", "abc", () -> load(GHCommitState.SUCCESS))).isEqualTo(GHCommitState.SUCCESS);
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void testCommitStateStopsAtFirstFailure() throws Exception {
+        List<GHCommitStatus> statuses = new ArrayList<>(Arrays.asList(
+                status("success", "http://ci/1"), status("pending", "http://ci/2"), status("failure", "http://ci/3")));
+        AtomicInteger iterated = new AtomicInteger();
+        Iterable<GHCommitStatus> iterable = () -> new Iterator<GHCommitStatus>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public GHCommitStatus next() {
+                // fails the test if the statuses after the failure are requested
+                return statuses.get(iterated.getAndIncrement());
+            }
+        };
+        assertThat(GitHubHelpers.getCommitState(iterable)).isEqualTo(GHCommitState.FAILURE);
+        assertThat(iterated.get()).isEqualTo(3);
+
+        assertThat(GitHubHelpers.getCommitState(statuses.subList(0, 2))).isEqualTo(GHCommitState.PENDING);
+        assertThat(GitHubHelpers.getCommitState(Arrays.asList(status("success", "http://ci/1"), status("failure", null))))
+                .isEqualTo(GHCommitState.FAILURE);
+        assertThat(GitHubHelpers.getCommitState(Arrays.asList(status("success", "http://ci/1"), status("pending", null))))
+                .isEqualTo(GHCommitState.PENDING);
+        assertThat(GitHubHelpers.getCommitState(Arrays.asList(status("success", "http://ci/1"), status("success", null))))
+                .isEqualTo(GHCommitState.SUCCESS);
+        assertThat(GitHubHelpers.getCommitState(new ArrayList<>())).isEqualTo(GHCommitState.PENDING);
+    }
+
+    protected GHCommitState load(GHCommitState state) {
+        loads.incrementAndGet();
+        return state;
+    }
+
+    protected static GHCommitStatus status(String state, String targetUrl) throws Exception {
+        String json = "{\"state\": \"" + state + "\"" + (targetUrl != null ? ", \"target_url\": \"" + targetUrl + "\"" : "") + "}";
+        return MAPPER.readValue(json, GHCommitStatus.class);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.github;
+
+import io.jenkins.updatebot.model.UpdateBotMetadata;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class MetadataTest {
+
+    @Test
+    public void testUpdateBodyInPlace() throws Exception {
+        String command = PullRequests.COMMAND_COMMENT_PREFIX + "\n\n    updatebot push-version --kind npm foo 1.2.3 --> 1.2.4\n";
+        UpdateBotMetadata metadata = new UpdateBotMetadata();
+        metadata.setCommand(command);
+
+        String body = Metadata.updateBody("generated by UpdateBot", metadata);
+        assertThat(body).startsWith("generated by UpdateBot\n\n" + Metadata.BLOCK_PREFIX).endsWith(Metadata.BLOCK_SUFFIX);
+        assertThat(body.indexOf(Metadata.BLOCK_SUFFIX)).isEqualTo(body.length() - Metadata.BLOCK_SUFFIX.length());
+
+        UpdateBotMetadata parsed = Metadata.parse(body);
+        assertThat(parsed.getVersion()).isEqualTo(Metadata.VERSION);
+        assertThat(parsed.getCommand()).isEqualTo(command);
+
+        parsed.setPendingChanges("pending");
+        String updated = Metadata.updateBody(body + "\nedited by a human", parsed);
+        assertThat(updated).startsWith("generated by UpdateBot\n\n" + Metadata.BLOCK_PREFIX).endsWith("\nedited by a human");
+        assertThat(updated.split("updatebot-metadata", -1)).hasSize(2);
+        assertThat(Metadata.parse(updated).getPendingChanges()).isEqualTo("pending");
+    }
+
+    @Test
+    public void testMergeTrainMetadata() throws Exception {
+        UpdateBotMetadata metadata = new UpdateBotMetadata();
+        metadata.setTrain(Arrays.asList(3, 5));
+        UpdateBotMetadata parsed = Metadata.parse(Metadata.updateBody("merge train", metadata));
+        assertThat(parsed.getTrain()).containsExactly(3, 5);
+        assertThat(parsed.isExcludedFromTrain()).isFalse();
+
+        parsed.setExcludedFromTrain(true);
+        assertThat(Metadata.parse(Metadata.updateBody("merge train", parsed)).isExcludedFromTrain()).isTrue();
+        assertThat(Metadata.parseOrCreate("just some text").getTrain()).isEmpty();
+    }
+
+    @Test
+    public void testBodiesWithoutMetadata() throws Exception {
+        assertThat(Metadata.parse(null)).isNull();
+        assertThat(Metadata.parse("just some text")).isNull();
+        assertThat(Metadata.parse(Metadata.BLOCK_PREFIX + "{not json" + Metadata.BLOCK_SUFFIX)).isNull();
+        assertThat(Metadata.parseOrCreate("just some text").getCommand()).isNull();
+    }
+}
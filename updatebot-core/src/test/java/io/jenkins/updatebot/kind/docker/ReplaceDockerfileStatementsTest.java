@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.docker;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class ReplaceDockerfileStatementsTest {
+
+    @Test
+    public void testReplacesAllChangesInOnePass() throws Exception {
+        List<String> lines = new ArrayList<>(Arrays.asList(
+                "FROM jenkinsxio/builder-base:0.0.1",
+                "ENV SKAFFOLD_VERSION 0.1.0",
+                "ENV HELM_VERSION 2.8.0",
+                "RUN echo hello"));
+        Map<String, String> versions = new HashMap<>();
+        versions.put("jenkinsxio/builder-base", "0.0.2");
+        versions.put("SKAFFOLD_VERSION", "0.2.0");
+        versions.put("HELM_VERSION", "2.8.0");
+        versions.put("cheese", "1.0.0");
+        Set<String> updatedNames = new HashSet<>();
+
+        boolean answer = DockerUpdater.replaceDockerfileStatements(lines, versions, updatedNames);
+
+        assertThat(answer).isTrue();
+        assertThat(lines).containsExactly(
+                "FROM jenkinsxio/builder-base:0.0.2",
+                "ENV SKAFFOLD_VERSION 0.2.0",
+                "ENV HELM_VERSION 2.8.0",
+                "RUN echo hello");
+        assertThat(updatedNames).containsOnly("jenkinsxio/builder-base", "SKAFFOLD_VERSION");
+    }
+
+    @Test
+    public void testImageNameWithRegistryPort() throws Exception {
+        List<String> lines = new ArrayList<>(Arrays.asList("FROM myregistry:5000/foo:1.0"));
+        Map<String, String> versions = new HashMap<>();
+        versions.put("myregistry:5000/foo", "1.1");
+        Set<String> updatedNames = new HashSet<>();
+
+        assertThat(DockerUpdater.replaceDockerfileStatements(lines, versions, updatedNames)).isTrue();
+        assertThat(lines).containsExactly("FROM myregistry:5000/foo:1.1");
+    }
+
+    @Test
+    public void testDoesNotChangeOtherStatements() throws Exception {
+        List<String> lines = new ArrayList<>(Arrays.asList("FROM centos:7", "ENV PATH /usr/bin"));
+        Map<String, String> versions = new HashMap<>();
+        versions.put("jenkinsxio/builder-base", "0.0.2");
+        Set<String> updatedNames = new HashSet<>();
+
+        assertThat(DockerUpdater.replaceDockerfileStatements(lines, versions, updatedNames)).isFalse();
+        assertThat(updatedNames).isEmpty();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.helm;
+
+import io.jenkins.updatebot.kind.Kind;
+import io.jenkins.updatebot.model.DependencyVersionChange;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class ValuesImagesTest {
+
+    @Test
+    public void testUpdateImageReferences() throws Exception {
+        List<String> lines = new ArrayList<>(Arrays.asList(
+                "Image: jenkinsxio/jenkinsx:0.0.1",
+                "controller:",
+                "  image: \"myregistry:5000/jenkinsxio/controller:1.0.0\" # pinned",
+                "exposecontroller:",
+                "  image:",
+                "    repository: jenkinsxio/exposecontroller",
+                "    pullPolicy: IfNotPresent",
+                "    tag: 2.3.34",
+                "sidecars:",
+                "  - tag: 0.1.0",
+                "    repository: jenkinsxio/sidecar",
+                "  - repository: jenkinsxio/other",
+                "other:",
+                "  repository: jenkinsxio/notag",
+                "  nested:",
+                "    tag: 1.0.0"));
+
+        ValuesImages images = new ValuesImages(lines);
+        boolean answer = images.applyChanges(Arrays.asList(
+                new DependencyVersionChange(Kind.HELM, "jenkinsxio/jenkinsx", "0.0.2"),
+                new DependencyVersionChange(Kind.HELM, "myregistry:5000/jenkinsxio/controller", "1.1.0"),
+                new DependencyVersionChange(Kind.HELM, "jenkinsxio/exposecontroller", "2.3.35"),
+                new DependencyVersionChange(Kind.HELM, "jenkinsxio/sidecar", "0.2.0"),
+                new DependencyVersionChange(Kind.HELM, "jenkinsxio/notag", "9.9.9")));
+
+        assertThat(answer).isTrue();
+        assertThat(lines).containsExactly(
+                "Image: jenkinsxio/jenkinsx:0.0.2",
+                "controller:",
+                "  image: \"myregistry:5000/jenkinsxio/controller:1.1.0\" # pinned",
+                "exposecontroller:",
+                "  image:",
+                "    repository: jenkinsxio/exposecontroller",
+                "    pullPolicy: IfNotPresent",
+                "    tag: 2.3.35",
+                "sidecars:",
+                "  - tag: 0.2.0",
+                "    repository: jenkinsxio/sidecar",
+                "  - repository: jenkinsxio/other",
+                "other:",
+                "  repository: jenkinsxio/notag",
+                "  nested:",
+                "    tag: 1.0.0");
+    }
+
+    @Test
+    public void testUnchangedVersion() throws Exception {
+        List<String> lines = new ArrayList<>(Arrays.asList("image: jenkinsxio/jenkinsx:0.0.1"));
+
+        ValuesImages images = new ValuesImages(lines);
+
+        assertThat(images.hasImage("jenkinsxio/jenkinsx")).isTrue();
+        assertThat(images.applyChange(new DependencyVersionChange(Kind.HELM, "jenkinsxio/jenkinsx", "0.0.1"))).isFalse();
+    }
+}
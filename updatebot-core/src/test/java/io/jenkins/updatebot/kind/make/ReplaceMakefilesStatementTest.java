@@ -19,7 +19,12 @@ package io.jenkins.updatebot.kind.make;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -49,4 +54,28 @@ public class ReplaceMakefilesStatementTest {
         assertReplace("cheese := whatnot", "CHART_VERSION", "1.2.3", false, "cheese := whatnot");
     }
 
+    @Test
+    public void testReplaceMultipleStatementsInOnePass() throws Exception {
+        List<String> lines = new ArrayList<>(Arrays.asList(
+                "CHART_VERSION := 0.0.1",
+                "JX_VERSION:=1.0.0",
+                "cheese := whatnot",
+                "\tCHART_VERSION := 0.0.1"));
+        Map<String, String> versions = new LinkedHashMap<>();
+        versions.put("CHART_VERSION", "1.2.3");
+        versions.put("JX_VERSION", "1.0.0");
+        versions.put("OTHER_VERSION", "2.0.0");
+        Set<String> updatedNames = new HashSet<>();
+
+        boolean answer = MakeUpdater.replaceMakefileStatements(lines, versions, updatedNames);
+
+        assertThat(answer).isTrue();
+        assertThat(lines).containsExactly(
+                "CHART_VERSION := 1.2.3",
+                "JX_VERSION:=1.0.0",
+                "cheese := whatnot",
+                "\tCHART_VERSION := 0.0.1");
+        assertThat(updatedNames).containsOnly("CHART_VERSION");
+    }
+
 }
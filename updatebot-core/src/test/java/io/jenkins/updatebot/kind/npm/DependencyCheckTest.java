@@ -27,6 +27,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -71,6 +72,25 @@ public class DependencyCheckTest {
         assertDependencyCheck(tree, "ngx-fabric8-wit", true);
     }
 
+    @Test
+    public void testStreamingParserMatchesTreeParser() throws Exception {
+        File testFile = new File(testDir, "fabric8-planner-change-ngx-base.json");
+        fileName = testFile.getName();
+        for (DependencyTree tree : Arrays.asList(DependencyTree.parseTree(testFile), assertLoadDependencyTree(testFile))) {
+            assertDependencyCheck(tree, "ngx-base", false);
+            assertDependencyCheck(tree, "ngx-fabric8-wit", true);
+            assertDependencyCheck(tree, "rxjs", false);
+            assertDependencyCheck(tree, "@angular/core", false);
+
+            assertThat(tree.dependencyCheck("ngx-base").getMessage())
+                    .isEqualTo("Direct dependency is 1.3.0 but has conflicts: ngx-fabric8-wit@6.18.11 => 1.2.9");
+            assertThat(tree.dependencyCheck("rxjs").getMessage())
+                    .isEqualTo("Direct dependency is 5.2.0 but has conflicts: patternfly-ng@0.0.13 => 5.0.1, ngx-login-client@0.6.33 => 5.4.3");
+            assertThat(tree.dependencyCheck("@angular/core").getMessage())
+                    .isEqualTo("Direct dependency is null but has conflicts: ngx-base@1.3.0, ngx-login-client@0.6.33 => 4.3.6, ng2-truncate@1.3.7 => 4.4.3");
+        }
+    }
+
     public DependencyTree assertLoadDependencyTree(String fileName) throws IOException {
         this.fileName = fileName;
         return assertLoadDependencyTree(new File(testDir, fileName));
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.npm;
+
+import io.fabric8.updatebot.test.Tests;
+import io.jenkins.updatebot.kind.npm.dependency.DependencyTree;
+import io.jenkins.updatebot.support.MarkupHelper;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+
+/**
+ * Compares parsing the real world <code>npm list -json</code> output of fabric8-planner by streaming the file
+ * against binding it to a <code>JsonNode</code> tree first. The results of both parsers are checked in
+ * {@link DependencyCheckTest}; this benchmark is excluded from the build and is run with
+ * <code>mvn test -Dtest=DependencyTreeBenchmarkTest</code>
+ */
+public class DependencyTreeBenchmarkTest {
+    private static final transient Logger LOG = LoggerFactory.getLogger(DependencyTreeBenchmarkTest.class);
+
+    protected static final int ITERATIONS = 10;
+
+    protected File testFile = new File(Tests.getBasedir(), "src/test/resources/npm/dependencies/fabric8-planner-change-ngx-base.json");
+
+    @Test
+    public void testParseTreeTimes() throws Exception {
+        long treeTime = 0;
+        long streamTime = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            DependencyTree.parseTree(MarkupHelper.loadJson(testFile));
+            treeTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            DependencyTree.parseTree(testFile);
+            streamTime += System.nanoTime() - start;
+        }
+        LOG.info(String.format("Parsed %s (%d KB) %d times: JsonNode tree %d ms, streaming %d ms",
+                testFile.getName(), testFile.length() / 1024, ITERATIONS, treeTime / 1000000, streamTime / 1000000));
+    }
+}
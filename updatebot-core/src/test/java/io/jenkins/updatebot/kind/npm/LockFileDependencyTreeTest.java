@@ -0,0 +1,136 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.npm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.Files;
+import io.jenkins.updatebot.kind.npm.dependency.DependencyCheck;
+import io.jenkins.updatebot.kind.npm.dependency.DependencyTree;
+import io.jenkins.updatebot.support.MarkupHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class LockFileDependencyTreeTest {
+    protected static final String PACKAGE_LOCK_V1 = "{\"lockfileVersion\": 1, \"dependencies\": {" +
+            "\"ngx-base\": {\"version\": \"1.0.0\"}," +
+            "\"widget\": {\"version\": \"1.0.0\", \"requires\": {\"ngx-base\": \"^1.0.0\", \"left-pad\": \"^1.1.0\"}," +
+            "  \"dependencies\": {\"left-pad\": {\"version\": \"1.3.0\"}}}" +
+            "}}";
+
+    protected static final String PACKAGE_LOCK_V2 = "{\"lockfileVersion\": 2, \"packages\": {" +
+            "\"\": {\"dependencies\": {\"ngx-base\": \"1.0.0\", \"widget\": \"^1.0.0\"}}," +
+            "\"node_modules/ngx-base\": {\"version\": \"1.0.0\"}," +
+            "\"node_modules/widget\": {\"version\": \"1.0.0\", \"dependencies\": {\"ngx-base\": \"^1.0.0\", \"left-pad\": \"^1.1.0\"}}," +
+            "\"node_modules/widget/node_modules/left-pad\": {\"version\": \"1.3.0\"}" +
+            "}}";
+
+    protected static final String YARN_LOCK = "# THIS IS AN AUTOGENERATED FILE. DO NOT EDIT THIS FILE DIRECTLY.\n" +
+            "# yarn lockfile v1\n\n\n" +
+            "left-pad@^1.1.0:\n" +
+            "  version \"1.3.0\"\n\n" +
+            "ngx-base@1.0.0, ngx-base@^1.0.0:\n" +
+            "  version \"1.0.0\"\n\n" +
+            "widget@^1.0.0:\n" +
+            "  version \"1.0.0\"\n" +
+            "  dependencies:\n" +
+            "    left-pad \"^1.1.0\"\n" +
+            "    ngx-base \"^1.0.0\"\n";
+
+    protected File testDir;
+
+    @Before
+    public void init() throws Exception {
+        testDir = new File(Tests.getCleanWorkDir(getClass()));
+        testDir.mkdirs();
+    }
+
+    @Test
+    public void testPackageLockVersion1() throws Exception {
+        assertLockFileChecks(NpmLockFile.PACKAGE_LOCK_JSON, PACKAGE_LOCK_V1);
+    }
+
+    @Test
+    public void testPackageLockVersion2() throws Exception {
+        assertLockFileChecks(NpmLockFile.PACKAGE_LOCK_JSON, PACKAGE_LOCK_V2);
+    }
+
+    @Test
+    public void testYarnLock() throws Exception {
+        assertLockFileChecks(NpmLockFile.YARN_LOCK, YARN_LOCK);
+    }
+
+    @Test
+    public void testVersionRanges() throws Exception {
+        assertThat(NpmVersionRanges.satisfies("1.2.3", "^1.0.0")).isTrue();
+        assertThat(NpmVersionRanges.satisfies("2.0.0", "^1.0.0")).isFalse();
+        assertThat(NpmVersionRanges.satisfies("0.2.5", "^0.2.0")).isTrue();
+        assertThat(NpmVersionRanges.satisfies("0.3.0", "^0.2.0")).isFalse();
+        assertThat(NpmVersionRanges.satisfies("1.2.9", "~1.2.3")).isTrue();
+        assertThat(NpmVersionRanges.satisfies("1.3.0", "~1.2.3")).isFalse();
+        assertThat(NpmVersionRanges.satisfies("1.5.0", ">=1.2.0 <2")).isTrue();
+        assertThat(NpmVersionRanges.satisfies("3.0.0", "1.x || >=2.5.0")).isTrue();
+        assertThat(NpmVersionRanges.satisfies("2.1.0", "1.0.0 - 2.0.0")).isFalse();
+        assertThat(NpmVersionRanges.satisfies("1.0.0", "*")).isTrue();
+        assertThat(NpmVersionRanges.satisfies("1.0.0", "latest")).isFalse();
+        assertThat(NpmVersionRanges.minimumVersion("^1.2.0")).isEqualTo("1.2.0");
+
+        // version parts larger than an int such as timestamps
+        assertThat(NpmVersionRanges.satisfies("0.0.20190101120000", "^0.0.20190101120000")).isTrue();
+        assertThat(NpmVersionRanges.satisfies("0.0.20190101120001", "^0.0.20190101120000")).isFalse();
+        assertThat(NpmVersionRanges.satisfies("1.2.99999999999", "~1.2.0")).isTrue();
+        // parts too large to compare do not match rather than failing
+        assertThat(NpmVersionRanges.satisfies("1.2.99999999999999999999", "~1.2.0")).isFalse();
+        assertThat(NpmVersionRanges.satisfies("1.2.3", "^1.99999999999999999999.0")).isFalse();
+        assertThat(NpmVersionRanges.minimumVersion("^1.99999999999999999999.0")).isEqualTo("^1.99999999999999999999.0");
+    }
+
+    protected void assertLockFileChecks(String lockFileName, String lockFileText) throws Exception {
+        File lockFile = new File(testDir, lockFileName);
+        Files.writeToFile(lockFile, lockFileText, StandardCharsets.UTF_8);
+        NpmLockFile npmLockFile = NpmLockFile.load(lockFile);
+
+        DependencyTree unchanged = createDependencyTree(npmLockFile, "1.0.0");
+        assertThat(unchanged.dependencyCheck("ngx-base").isValid()).describedAs("unchanged").isTrue();
+        assertThat(unchanged.getDependencyInfo("left-pad").getVersions()).containsOnlyKeys("1.3.0");
+
+        DependencyTree compatible = createDependencyTree(npmLockFile, "1.2.0");
+        assertThat(compatible.dependencyCheck("ngx-base").isValid()).describedAs("compatible").isTrue();
+
+        DependencyTree conflict = createDependencyTree(npmLockFile, "2.0.0");
+        DependencyCheck check = conflict.dependencyCheck("ngx-base");
+        assertThat(check.isValid()).describedAs("conflict").isFalse();
+        assertThat(check.getMessage()).isEqualTo("Direct dependency is 2.0.0 but has conflicts: widget@1.0.0 => 1.0.0");
+    }
+
+    protected DependencyTree createDependencyTree(NpmLockFile lockFile, String ngxBaseVersion) throws Exception {
+        JsonNode packageJson = MarkupHelper.loadJson(writePackageJson(ngxBaseVersion));
+        return DependencyTree.parseTree(LockFileNpmDependencyTreeGenerator.createDependencyTree(lockFile, packageJson));
+    }
+
+    protected File writePackageJson(String ngxBaseVersion) throws Exception {
+        File file = new File(testDir, "package.json");
+        Files.writeToFile(file, "{\"dependencies\": {\"ngx-base\": \"" + ngxBaseVersion + "\", \"widget\": \"^1.0.0\"}}", StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.npm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.fabric8.updatebot.test.Tests;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.commands.CommandContext;
+import io.jenkins.updatebot.kind.Kind;
+import io.jenkins.updatebot.model.DependencyVersionChange;
+import io.jenkins.updatebot.repository.LocalRepository;
+import io.jenkins.updatebot.support.MarkupHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.fabric8.updatebot.test.MarkupAssertions.assertTextValue;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class PackageJsonBatchUpdateTest {
+    protected PackageJsonUpdater updater = new PackageJsonUpdater();
+    protected CommandContext parentContext;
+    protected File packageJson;
+    protected Configuration configuration = new Configuration();
+
+    @Before
+    public void init() throws Exception {
+        File testDir = Tests.copyPackageSources(getClass());
+        parentContext = new CommandContext(LocalRepository.fromDirectory(configuration, testDir), configuration);
+        packageJson = Tests.testFile(testDir, "package.json");
+    }
+
+    @Test
+    public void testUpdateMultipleDependencies() throws Exception {
+        List<DependencyVersionChange> changes = new ArrayList<>();
+        changes.add(new DependencyVersionChange(Kind.NPM, "@angular/core", "4.3.7"));
+        changes.add(new DependencyVersionChange(Kind.NPM, "@angular/compiler", "4.3.7"));
+        changes.add(new DependencyVersionChange(Kind.NPM, "does-not-exist", "1.0.0"));
+
+        assertThat(updater.pushVersions(parentContext, changes)).isTrue();
+        assertThat(parentContext.getChildren()).describedAs("child contexts which changed").hasSize(2);
+
+        JsonNode tree = MarkupHelper.loadJson(packageJson);
+        assertThat(assertTextValue(tree, "dependencies", "@angular/core")).isEqualTo("4.3.7");
+        assertThat(assertTextValue(tree, "devDependencies", "@angular/compiler")).isEqualTo("4.3.7");
+    }
+}
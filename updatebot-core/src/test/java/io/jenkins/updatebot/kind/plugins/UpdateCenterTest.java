@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.plugins;
+
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.Files;
+import io.jenkins.updatebot.Configuration;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class UpdateCenterTest {
+    protected static final String UPDATE_CENTER_JSON = "updateCenter.post(\n{\"connectionCheckUrl\":\"http://www.google.com/\"," +
+            "\"core\":{\"name\":\"core\",\"version\":\"2.107\"}," +
+            "\"plugins\":{" +
+            "\"branch-api\":{\"dependencies\":[{\"name\":\"cloudbees-folder\",\"version\":\"6.1.0\"}],\"name\":\"branch-api\",\"version\":\"2.0.18\"}," +
+            "\"git\":{\"labels\":[\"scm\"],\"version\":\"3.7.0\",\"wiki\":\"https://wiki.jenkins.io/display/JENKINS/Git+Plugin\"}" +
+            "},\"signature\":{}}\n);";
+
+    @Test
+    public void testParsePluginVersions() throws Exception {
+        PluginVersions pluginVersions = UpdateCenter.parsePluginVersions(new ByteArrayInputStream(UPDATE_CENTER_JSON.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(pluginVersions.getPlugins()).hasSize(2);
+        assertThat(pluginVersions.getVersion("branch-api")).isEqualTo("2.0.18");
+        assertThat(pluginVersions.getVersion("git")).isEqualTo("3.7.0");
+        assertThat(pluginVersions.getVersion("core")).isNull();
+    }
+
+    @Test
+    public void testLoadFromConfiguredUrl() throws Exception {
+        File file = new File(Tests.getCleanWorkDir(getClass()), "update-center.json");
+        file.getParentFile().mkdirs();
+        Files.writeToFile(file, UPDATE_CENTER_JSON, StandardCharsets.UTF_8);
+
+        Configuration configuration = new Configuration();
+        configuration.setJenkinsUpdateCenterUrl(file.toURI().toString());
+
+        PluginVersions pluginVersions = UpdateCenter.loadPluginVersions(configuration);
+        assertThat(pluginVersions.getVersion("git")).isEqualTo("3.7.0");
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.kind.regex;
+
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.Files;
+import io.jenkins.updatebot.support.FileOverlay;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class RegexUpdaterTest {
+    protected RegexUpdater updater = new RegexUpdater();
+    protected File testDir;
+
+    @Before
+    public void init() throws Exception {
+        testDir = new File(Tests.getCleanWorkDir(getClass()));
+        testDir.mkdirs();
+    }
+
+    @Test
+    public void testReplacesMatchingLines() throws Exception {
+        File file = writeFile("versions.txt", "# jx\nversion: 1.0.0\nother: 1.0.0\n# jx\nversion: 1.0.0");
+
+        boolean answer = updater.doPushRegex(Pattern.compile("version: (.*)"), Pattern.compile("# jx"), "2.0.0", file);
+
+        assertThat(answer).isTrue();
+        assertThat(Files.toString(file)).isEqualTo("# jx\nversion: 2.0.0\nother: 1.0.0\n# jx\nversion: 2.0.0");
+    }
+
+    @Test
+    public void testDoesNotRewriteUnchangedFile() throws Exception {
+        File file = writeFile("versions.txt", "version: 2.0.0\n");
+        long lastModified = file.lastModified() - 10000;
+        file.setLastModified(lastModified);
+
+        boolean answer = updater.doPushRegex(Pattern.compile("version: (.*)"), null, "2.0.0", file);
+
+        assertThat(answer).isFalse();
+        assertThat(file.lastModified()).isEqualTo(lastModified);
+        assertThat(Files.toString(file)).isEqualTo("version: 2.0.0\n");
+    }
+
+    @Test
+    public void testStreamsBufferedChangesThroughTheOverlay() throws Exception {
+        File file = writeFile("versions.txt", "version: 1.0.0\nother: 1.0.0\n");
+        FileOverlay overlay = new FileOverlay();
+        overlay.setBuffered(true);
+
+        assertThat(updater.doPushRegex(overlay, Pattern.compile("version: (.*)"), null, "2.0.0", file)).isTrue();
+        assertThat(updater.doPushRegex(overlay, Pattern.compile("other: (.*)"), null, "3.0.0", file)).isTrue();
+
+        assertThat(Files.toString(file)).isEqualTo("version: 1.0.0\nother: 1.0.0\n");
+        assertThat(overlay.readText(file)).isEqualTo("version: 2.0.0\nother: 3.0.0\n");
+        assertThat(testDir.list()).hasSize(2);
+
+        assertThat(overlay.flush()).containsExactly(file.getAbsoluteFile());
+        assertThat(Files.toString(file)).isEqualTo("version: 2.0.0\nother: 3.0.0\n");
+        assertThat(testDir.list()).containsExactly("versions.txt");
+    }
+
+    protected File writeFile(String name, String text) throws Exception {
+        File file = new File(testDir, name);
+        Files.writeToFile(file, text, StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.model;
+
+import io.jenkins.updatebot.kind.Kind;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class ChangeSetTest {
+    protected DependencyVersionChange npmBase1 = new DependencyVersionChange(Kind.NPM, "ngx-base", "1.0.0");
+    protected DependencyVersionChange npmBase2 = new DependencyVersionChange(Kind.NPM, "ngx-base", "2.0.0");
+    protected DependencyVersionChange npmWidget = new DependencyVersionChange(Kind.NPM, "widget", "1.0.0");
+    protected DependencyVersionChange mavenBase = new DependencyVersionChange(Kind.MAVEN, "ngx-base", "3.0.0");
+
+    @Test
+    public void testMergeAndOverride() throws Exception {
+        ChangeSet changes = ChangeSet.of(Arrays.asList(npmBase1, mavenBase));
+        ChangeSet pending = ChangeSet.of(Arrays.asList(npmBase2, npmWidget));
+
+        assertThat(changes.merge(pending)).containsExactly(npmBase1, mavenBase, npmWidget);
+        assertThat(changes.override(pending)).containsExactly(npmBase2, mavenBase, npmWidget);
+        assertThat(ChangeSet.of(Arrays.asList(npmBase1, npmBase2))).containsExactly(npmBase2);
+        assertThat(changes.contains(npmBase2)).isTrue();
+        assertThat(changes.get(Kind.MAVEN, "ngx-base")).isEqualTo(mavenBase);
+    }
+
+    @Test
+    public void testDiffAndEquality() throws Exception {
+        ChangeSet changes = ChangeSet.of(Arrays.asList(npmBase1, npmWidget));
+
+        assertThat(changes.diff(ChangeSet.of(Arrays.asList(npmWidget, npmBase2)))).containsExactly(npmBase1);
+        assertThat(changes.diff(ChangeSet.of(Arrays.asList(npmWidget, npmBase1)))).isEmpty();
+        assertThat(changes).isEqualTo(ChangeSet.of(Arrays.asList(npmWidget, npmBase1)));
+        assertThat(changes).isNotEqualTo(ChangeSet.of(Arrays.asList(npmWidget, npmBase2)));
+    }
+
+    @Test
+    public void testKindViews() throws Exception {
+        ChangeSet changes = ChangeSet.of(Arrays.asList(npmBase1, mavenBase, npmWidget));
+
+        assertThat(changes.byKind().keySet()).containsExactly(Kind.NPM, Kind.MAVEN);
+        assertThat(changes.forKind(Kind.NPM)).containsExactly(npmBase1, npmWidget);
+        assertThat(changes.forKind(Kind.HELM).isEmpty()).isTrue();
+        assertThat(ChangeSet.of(changes.toList())).isSameAs(changes);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.model;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.updatebot.test.Tests;
+import org.junit.Test;
+import org.kohsuke.github.GHRepository;
+
+import java.io.File;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class GithubRepositoryDescriptorTest {
+    protected File testFile = new File(Tests.getBasedir(), "src/test/resources/github/repository.json");
+
+    @Test
+    public void testDescriptorMatchesRepository() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().
+                setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE).
+                setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY).
+                configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        GHRepository ghRepository = mapper.readValue(testFile, GHRepository.class);
+        GithubRepository hydrated = new GithubRepository(ghRepository);
+        GithubRepository described = new GithubRepository(null, GithubRepositoryDescriptor.create(ghRepository));
+        assertThat(described.getFullName()).isEqualTo("jenkins-x/updatebot").isEqualTo(hydrated.getFullName());
+        assertThat(described.getCloneUrl()).isEqualTo("git://github.com/jenkins-x/updatebot.git");
+        assertThat(described.getDescriptor().getDefaultBranch()).isEqualTo("master");
+        assertThat(described.hasCloneUrl("git@github.com:jenkins-x/updatebot.git")).isTrue();
+        assertThat(described.hasCloneUrl("https://github.com/jenkins-x/updatebot.git")).isTrue();
+    }
+}
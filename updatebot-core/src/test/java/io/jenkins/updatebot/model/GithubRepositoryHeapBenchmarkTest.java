@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.model;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
+import org.junit.Test;
+import org.kohsuke.github.GHRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the heap retained by repositories which hold on to their {@link GHRepository} against repositories
+ * which only keep a {@link GithubRepositoryDescriptor}. As the results depend on the garbage collector this
+ * benchmark is excluded from the build and is run with <code>mvn test -Dtest=GithubRepositoryHeapBenchmarkTest</code>
+ */
+public class GithubRepositoryHeapBenchmarkTest {
+    private static final transient Logger LOG = LoggerFactory.getLogger(GithubRepositoryHeapBenchmarkTest.class);
+
+    protected static final int REPOSITORIES = 2000;
+
+    protected File testFile = new File(Tests.getBasedir(), "src/test/resources/github/repository.json");
+
+    @Test
+    public void testDescriptorsRetainLessHeap() throws Exception {
+        String json = IOHelpers.readFully(testFile);
+        ObjectMapper mapper = new ObjectMapper().
+                setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE).
+                setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY).
+                configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        List<GithubRepository> repositories = new ArrayList<>(REPOSITORIES);
+        long before = usedHeap();
+        for (int i = 0; i < REPOSITORIES; i++) {
+            repositories.add(new GithubRepository(mapper.readValue(json, GHRepository.class)));
+        }
+        long hydratedHeap = usedHeap() - before;
+        repositories.clear();
+
+        before = usedHeap();
+        for (int i = 0; i < REPOSITORIES; i++) {
+            GHRepository repository = mapper.readValue(json, GHRepository.class);
+            repositories.add(new GithubRepository(null, GithubRepositoryDescriptor.create(repository)));
+        }
+        long describedHeap = usedHeap() - before;
+        assertThat(repositories).hasSize(REPOSITORIES);
+
+        LOG.info(String.format("Retained heap for %d repositories: GHRepository %d KB, descriptor %d KB",
+                REPOSITORIES, hydratedHeap / 1024, describedHeap / 1024));
+        assertThat(describedHeap).describedAs("descriptor heap").isLessThan(hydratedHeap / 2);
+    }
+
+    protected static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
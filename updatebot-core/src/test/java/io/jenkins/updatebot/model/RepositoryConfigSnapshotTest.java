@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.model;
+
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.Files;
+import io.jenkins.updatebot.Configuration;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class RepositoryConfigSnapshotTest {
+
+    @Test
+    public void testFindGithubRepositoriesByName() throws Exception {
+        RepositoryConfig config = new RepositoryConfig();
+        GitRepositoryConfig app = config.github().organisation("acme").repository("App");
+        app.setBranch("develop");
+        GitRepositoryConfig fork = config.github().organisation("forks").repository("app");
+        config.github().organisation("acme").repository("lib");
+
+        RepositoryConfigSnapshot snapshot = new RepositoryConfigSnapshot(config);
+
+        assertThat(snapshot.getConfig()).isSameAs(config);
+        assertThat(snapshot.findGithubRepositories("app")).containsExactly(app, fork);
+        assertThat(snapshot.findGithubRepositories("LIB")).hasSize(1);
+        assertThat(snapshot.findGithubRepositories("other")).isEmpty();
+        assertThat(snapshot.findGithubRepositories(null)).isEmpty();
+    }
+
+    @Test
+    public void testSnapshotIsReloadedWhenTheConfigFileChanges() throws Exception {
+        File dir = new File(Tests.getCleanWorkDir(getClass()));
+        dir.mkdirs();
+        File file = new File(dir, Configuration.DEFAULT_CONFIG_FILE);
+        Files.writeToFile(file, "github:\n  organisations:\n  - name: acme\n    repositories:\n    - name: app\n", StandardCharsets.UTF_8);
+        Configuration configuration = new Configuration();
+        configuration.setSourceDir(dir);
+
+        RepositoryConfigSnapshot snapshot = configuration.getRepositoryConfigSnapshot();
+        assertThat(snapshot.findGithubRepositories("app")).hasSize(1);
+        assertThat(configuration.getRepositoryConfigSnapshot()).isSameAs(snapshot);
+
+        Files.writeToFile(file, "github:\n  organisations:\n  - name: acme\n    repositories:\n    - name: lib\n", StandardCharsets.UTF_8);
+        file.setLastModified(file.lastModified() + 2000);
+        snapshot = configuration.getRepositoryConfigSnapshot();
+        assertThat(snapshot.findGithubRepositories("app")).isEmpty();
+        assertThat(snapshot.findGithubRepositories("lib")).hasSize(1);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.repository;
+
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.Files;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.commands.CommandContext;
+import io.jenkins.updatebot.kind.Kind;
+import io.jenkins.updatebot.model.DependencyReferences;
+import io.jenkins.updatebot.model.DependencyVersionChange;
+import io.jenkins.updatebot.model.GitRepository;
+import io.jenkins.updatebot.support.ProcessHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class DependencyIndexTest {
+    protected File testDir;
+    protected File repoDir;
+    protected Configuration configuration = new Configuration();
+    protected CommandContext context;
+
+    @Before
+    public void init() throws Exception {
+        testDir = new File(Tests.getCleanWorkDir(getClass()));
+        repoDir = new File(testDir, "app");
+        repoDir.mkdirs();
+        configuration.setCacheDir(new File(testDir, "cache"));
+        context = new CommandContext(new LocalRepository(new GitRepository("acme/app"), repoDir), configuration);
+
+        write("pom.xml", "<project><dependencies><dependency><groupId>io.acme</groupId><artifactId>core</artifactId>" +
+                "<version>1.0.0</version></dependency></dependencies><build><plugins><plugin><artifactId>maven-jar-plugin</artifactId>" +
+                "</plugin></plugins></build></project>");
+        write("package.json", "{\"dependencies\": {\"ngx-base\": \"1.0.0\"}, \"devDependencies\": {\"karma\": \"^1.0.0\"}}");
+        write("docker/Dockerfile", "FROM jenkinsxio/builder-base:0.0.1\nENV HELM_VERSION 2.8.0\n");
+        write("Makefile", "VERSION := 1.0.0\n");
+    }
+
+    @Test
+    public void testFindsReferencedDependencies() throws Exception {
+        DependencyIndex index = DependencyIndex.load(configuration);
+        DependencyReferences references = index.getReferences(context);
+
+        assertThat(references.getFiles(Kind.MAVEN, "io.acme:core")).containsExactly("pom.xml");
+        assertThat(references.getFiles(Kind.DOCKER, "jenkinsxio/builder-base")).containsExactly("docker/Dockerfile");
+        assertThat(references.mayReference(change(Kind.MAVEN, "org.apache.maven.plugins:maven-jar-plugin"))).isTrue();
+        assertThat(references.mayReference(change(Kind.NPM, "karma"))).isTrue();
+        assertThat(references.mayReference(change(Kind.DOCKER, "HELM_VERSION"))).isTrue();
+        assertThat(references.mayReference(change(Kind.MAKE, "VERSION"))).isTrue();
+        assertThat(references.mayReference(change(Kind.REGEX, "anything"))).isTrue();
+
+        assertThat(index.isAffected(context, Arrays.asList(change(Kind.MAVEN, "io.acme:other"), change(Kind.NPM, "lodash")))).isFalse();
+        assertThat(index.isAffected(context, Collections.singletonList(change(Kind.NPM, "ngx-base")))).isTrue();
+    }
+
+    @Test
+    public void testIndexIsStoredUntilHeadChanges() throws Exception {
+        git("init", "-q");
+        git("add", "-A");
+        git("commit", "-q", "-m", "initial");
+
+        DependencyIndex index = DependencyIndex.load(configuration);
+        index.getReferences(context);
+        index.save();
+
+        DependencyIndex loaded = DependencyIndex.load(configuration);
+        assertThat(loaded.findRepositories(Kind.NPM, "ngx-base")).containsExactly("acme/app");
+        assertThat(loaded.findRepositories(Kind.NPM, "lodash")).isEmpty();
+
+        write("package.json", "{\"dependencies\": {\"lodash\": \"4.0.0\"}}");
+        assertThat(loaded.isAffected(context, Collections.singletonList(change(Kind.NPM, "lodash")))).describedAs("same HEAD").isFalse();
+
+        git("commit", "-q", "-a", "-m", "use lodash");
+        assertThat(loaded.isAffected(context, Collections.singletonList(change(Kind.NPM, "lodash")))).describedAs("new HEAD").isTrue();
+    }
+
+    protected DependencyVersionChange change(Kind kind, String dependency) {
+        return new DependencyVersionChange(kind, dependency, "2.0.0");
+    }
+
+    protected void write(String path, String text) throws Exception {
+        File file = new File(repoDir, path);
+        file.getParentFile().mkdirs();
+        Files.writeToFile(file, text, StandardCharsets.UTF_8);
+    }
+
+    protected void git(String... args) throws Exception {
+        String[] commands = new String[args.length + 5];
+        commands[0] = "git";
+        commands[1] = "-c";
+        commands[2] = "user.name=updatebot";
+        commands[3] = "-c";
+        commands[4] = "user.email=updatebot@example.com";
+        System.arraycopy(args, 0, commands, 5, args.length);
+        ProcessHelper.runCommandCaptureOutput(repoDir, commands);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.repository;
+
+import io.fabric8.updatebot.test.Tests;
+import io.jenkins.updatebot.model.GitRepositoryConfig;
+import io.jenkins.updatebot.model.GithubOrganisation;
+import io.jenkins.updatebot.model.GithubOrganisationListing;
+import io.jenkins.updatebot.model.GithubRepository;
+import io.jenkins.updatebot.model.GithubRepositoryDescriptor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class GithubRepositoryDiscoveryTest {
+    protected File cacheDir;
+
+    @Before
+    public void init() throws Exception {
+        cacheDir = new File(Tests.getCleanWorkDir(getClass()), "cache");
+    }
+
+    @Test
+    public void testCachedListingNeedsNoGitHub() throws Exception {
+        GithubRepositoryDiscovery discovery = new GithubRepositoryDiscovery(null, cacheDir, 60 * 1000L);
+        GithubOrganisationListing listing = new GithubOrganisationListing("Acme", System.currentTimeMillis());
+        for (String name : new String[]{"updatebot", "updatebot-docs", "website", "App"}) {
+            listing.addRepository(descriptor(name));
+        }
+        discovery.saveListing(listing);
+
+        GithubOrganisation organisation = new GithubOrganisation("Acme");
+        organisation.include("updatebot*");
+        organisation.exclude("updatebot-d*");
+        organisation.getRepositories().add(new GitRepositoryConfig("app"));
+
+        List<GithubRepository> repositories = discovery.findRepositories(organisation);
+        assertThat(names(repositories)).containsExactly("Acme/App", "Acme/updatebot");
+        assertThat(repositories.get(0).getRepositoryDetails().getName()).isEqualTo("app");
+        assertThat(repositories.get(1).getCloneUrl()).isEqualTo("git://github.com/Acme/updatebot.git");
+    }
+
+    @Test
+    public void testExpiredListingIsIgnored() throws Exception {
+        GithubRepositoryDiscovery discovery = new GithubRepositoryDiscovery(null, cacheDir, 60 * 1000L);
+        GithubOrganisationListing listing = new GithubOrganisationListing("acme", System.currentTimeMillis() - 2 * 60 * 1000L);
+        listing.addRepository(descriptor("updatebot"));
+        discovery.saveListing(listing);
+
+        assertThat(discovery.loadListing("acme")).isNull();
+        assertThat(new GithubRepositoryDiscovery(null, cacheDir, 0).loadListing("acme")).isNull();
+        assertThat(new GithubRepositoryDiscovery(null, cacheDir, 5 * 60 * 1000L).loadListing("acme").getRepositories()).hasSize(1);
+    }
+
+    protected static GithubRepositoryDescriptor descriptor(String name) {
+        return new GithubRepositoryDescriptor("Acme", name, "https://github.com/Acme/" + name,
+                "git://github.com/Acme/" + name + ".git", "https://github.com/Acme/" + name + ".git",
+                "git@github.com:Acme/" + name + ".git", "master");
+    }
+
+    protected static List<String> names(List<GithubRepository> repositories) {
+        List<String> answer = new ArrayList<>();
+        for (GithubRepository repository : repositories) {
+            answer.add(repository.getFullName());
+        }
+        return answer;
+    }
+}
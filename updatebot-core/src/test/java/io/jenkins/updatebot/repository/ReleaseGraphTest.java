@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.repository;
+
+import io.jenkins.updatebot.model.GitRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class ReleaseGraphTest {
+    protected ReleaseGraph graph = new ReleaseGraph();
+
+    @Before
+    public void init() {
+        for (String name : new String[]{"base", "left", "right", "app", "deploy", "unrelated"}) {
+            graph.addRepository(new LocalRepository(new GitRepository(name), new File(name)));
+        }
+        // a fork join where app depends on both left and right which depend on base
+        graph.addDependency("base", "left");
+        graph.addDependency("base", "right");
+        graph.addDependency("left", "app");
+        graph.addDependency("right", "app");
+        graph.addDependency("base", "app");
+        graph.addDependency("app", "deploy");
+    }
+
+    @Test
+    public void testForkJoinWaves() throws Exception {
+        assertThat(names(graph.waves("base"))).containsExactly("[left, right]", "[app]", "[deploy]");
+        assertThat(names(graph.waves("right"))).containsExactly("[app]", "[deploy]");
+        assertThat(graph.waves("unrelated")).isEmpty();
+        assertThat(graph.findAllDownstream("left")).containsExactly("app", "deploy");
+    }
+
+    @Test
+    public void testCyclesAreReleasedInFinalWave() throws Exception {
+        graph.addDependency("deploy", "app");
+
+        assertThat(names(graph.waves("base"))).containsExactly("[left, right]", "[app, deploy]");
+    }
+
+    protected static List<String> names(List<List<LocalRepository>> waves) {
+        List<String> answer = new ArrayList<>();
+        for (List<LocalRepository> wave : waves) {
+            List<String> names = new ArrayList<>();
+            for (LocalRepository repository : wave) {
+                names.add(repository.getFullName());
+            }
+            answer.add(names.toString());
+        }
+        return answer;
+    }
+}
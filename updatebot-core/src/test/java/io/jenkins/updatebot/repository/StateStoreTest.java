@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.repository;
+
+import io.fabric8.updatebot.test.Tests;
+import io.jenkins.updatebot.Configuration;
+import io.jenkins.updatebot.commands.CommandContext;
+import io.jenkins.updatebot.model.GitRepository;
+import io.jenkins.updatebot.model.IssueState;
+import io.jenkins.updatebot.model.PullRequestState;
+import io.jenkins.updatebot.model.RepositoryState;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class StateStoreTest {
+    protected Configuration configuration = new Configuration();
+    protected CommandContext context;
+
+    @Before
+    public void init() throws Exception {
+        File testDir = new File(Tests.getCleanWorkDir(getClass()));
+        configuration.setCacheDir(new File(testDir, "cache"));
+        context = new CommandContext(new LocalRepository(new GitRepository("acme/app"), new File(testDir, "app")), configuration);
+    }
+
+    @Test
+    public void testStateIsSharedBetweenStores() throws Exception {
+        StateStore store = StateStore.load(configuration);
+        assertThat(store.getState(context).findPullRequest("fix(versions)")).isNull();
+
+        store.update(context, state -> {
+            PullRequestState pullRequest = new PullRequestState(12, "fix(versions)");
+            pullRequest.setHeadSha("abc");
+            pullRequest.setCommand("updatebot push-version -k npm foo 1.2.3");
+            state.getPullRequests().put(12, pullRequest);
+        });
+        StateStore other = StateStore.load(configuration);
+        other.update(context, state -> {
+            IssueState issue = new IssueState(3, "UpdateBot pending");
+            issue.setCommentsCount(2);
+            state.getIssues().put(3, issue);
+        });
+
+        RepositoryState state = store.getState(context);
+        PullRequestState pullRequest = state.findPullRequest("fix(versions)");
+        assertThat(pullRequest.getNumber()).isEqualTo(12);
+        assertThat(pullRequest.getHeadSha()).isEqualTo("abc");
+        assertThat(pullRequest.getCommand()).isEqualTo("updatebot push-version -k npm foo 1.2.3");
+        assertThat(state.findIssue("UpdateBot pending").getCommentsCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testConcurrentUpdatesAreNotLost() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 1; i <= 8; i++) {
+            int number = i;
+            StateStore store = StateStore.load(configuration);
+            threads.add(new Thread(() -> {
+                try {
+                    store.update(context, state -> state.getIssues().put(number, new IssueState(number, "issue " + number)));
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(StateStore.load(configuration).getState(context).getIssues()).hasSize(8);
+    }
+}
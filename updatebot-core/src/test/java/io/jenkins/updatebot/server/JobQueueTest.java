@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.server;
+
+import io.jenkins.updatebot.Configuration;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class JobQueueTest {
+    protected List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+    protected JobQueue queue = new JobQueue(new Configuration(), 10, 300) {
+        @Override
+        protected List<String> execute(Job job) throws Exception {
+            batches.add(Collections.singletonList(job.getId()));
+            return Collections.emptyList();
+        }
+
+        @Override
+        protected List<String> executeBatch(List<Job> batch) throws Exception {
+            List<String> ids = new ArrayList<>();
+            for (Job job : batch) {
+                ids.add(job.getId());
+            }
+            batches.add(ids);
+            return Collections.singletonList("https://github.com/acme/app/pull/1");
+        }
+    };
+
+    @After
+    public void destroy() {
+        queue.shutdown();
+    }
+
+    @Test
+    public void testPushesWithinWindowAreCoalesced() throws Exception {
+        Job first = queue.submit(request("push-version", "-k", "npm", "foo", "1.0.0"));
+        Job update = queue.submit(request("update"));
+        Job second = queue.submit(request("push-version", "-k", "npm", "bar", "2.0.0"));
+
+        waitForFinished(first, update, second);
+
+        assertThat(batches).containsExactly(Collections.singletonList("2"), Arrays.asList("1", "3"));
+        assertThat(first.getPullRequests()).containsExactly("https://github.com/acme/app/pull/1");
+        assertThat(second.getPullRequests()).containsExactly("https://github.com/acme/app/pull/1");
+
+        Job third = queue.submit(request("push-version", "-k", "npm", "foo", "1.1.0"));
+        waitForFinished(third);
+        assertThat(batches).hasSize(3).endsWith(Collections.singletonList("4"));
+    }
+
+    protected static JobRequest request(String... args) {
+        JobRequest answer = new JobRequest();
+        answer.setArgs(Arrays.asList(args));
+        return answer;
+    }
+
+    protected static void waitForFinished(Job... jobs) throws InterruptedException {
+        long end = System.currentTimeMillis() + 10000;
+        for (Job job : jobs) {
+            while (!job.getState().isFinished() && System.currentTimeMillis() < end) {
+                Thread.sleep(20);
+            }
+            assertThat(job.getState()).isEqualTo(JobState.SUCCEEDED);
+        }
+    }
+}
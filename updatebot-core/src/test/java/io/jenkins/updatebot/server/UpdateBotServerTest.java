@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.utils.IOHelpers;
+import io.jenkins.updatebot.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class UpdateBotServerTest {
+    protected Configuration configuration = new Configuration();
+    protected UpdateBotServer server;
+
+    @Before
+    public void init() throws Exception {
+        JobQueue queue = new JobQueue(configuration, 10) {
+            @Override
+            protected List<String> execute(Job job) throws Exception {
+                configuration.getPrintStream().println("Running " + String.join(" ", job.getArgs()));
+                Thread.sleep(200);
+                configuration.getPrintStream().println("Done");
+                return Collections.singletonList("https://github.com/acme/app/pull/1");
+            }
+        };
+        server = new UpdateBotServer(queue, "localhost", 0);
+        server.start();
+    }
+
+    @After
+    public void destroy() {
+        server.stop();
+    }
+
+    @Test
+    public void testRunJob() throws Exception {
+        HttpURLConnection connection = post("{\"args\": [\"push-version\", \"-k\", \"npm\", \"foo\", \"1.2.3\"]}");
+        assertThat(connection.getResponseCode()).isEqualTo(202);
+        assertThat(connection.getHeaderField("Location")).isEqualTo("/jobs/1");
+
+        String log = IOHelpers.readFully(get("/jobs/1/log").getInputStream());
+        assertThat(log).isEqualTo("Running push-version -k npm foo 1.2.3\nDone\n");
+
+        JsonNode job = new ObjectMapper().readTree(get("/jobs/1").getInputStream());
+        assertThat(job.get("state").asText()).isEqualTo("SUCCEEDED");
+        assertThat(job.get("pullrequests").get(0).asText()).isEqualTo("https://github.com/acme/app/pull/1");
+        assertThat(new ObjectMapper().readTree(get("/jobs").getInputStream()).size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testInvalidJobsAreRejected() throws Exception {
+        assertThat(post("{\"args\": [\"update-loop\"]}").getResponseCode()).isEqualTo(400);
+        assertThat(post("{\"args\": [\"--dry\", \"update\"]}").getResponseCode()).isEqualTo(400);
+        assertThat(post("{\"args\": [\"push-version\", \"--unknown\"]}").getResponseCode()).isEqualTo(400);
+        assertThat(get("/jobs/42").getResponseCode()).isEqualTo(404);
+    }
+
+    @Test
+    public void testReadLogReportsTheEndWithTheLastOutput() throws Exception {
+        Job job = new Job("1", Collections.singletonList("update"), null);
+        job.running();
+        assertThat(job.readLog(0, 10)).isEmpty();
+
+        job.getLogOutputStream().write("Done\n".getBytes(StandardCharsets.UTF_8));
+        job.succeeded(Collections.emptyList());
+        assertThat(new String(job.readLog(0, 10), StandardCharsets.UTF_8)).isEqualTo("Done\n");
+        assertThat(job.readLog(5, 10)).isNull();
+    }
+
+    protected HttpURLConnection post(String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url("/jobs").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return connection;
+    }
+
+    protected HttpURLConnection get(String path) throws IOException {
+        return (HttpURLConnection) url(path).openConnection();
+    }
+
+    protected URL url(String path) throws IOException {
+        return new URL("http://localhost:" + server.getPort() + path);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 Original Authors
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.jenkins.updatebot.support;
+
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.Files;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class FileOverlayTest {
+    protected FileOverlay overlay = new FileOverlay();
+    protected File testDir;
+    protected File file;
+
+    @Before
+    public void init() throws Exception {
+        testDir = new File(Tests.getCleanWorkDir(getClass()));
+        testDir.mkdirs();
+        file = new File(testDir, "Makefile");
+        Files.writeToFile(file, "VERSION := 1.0.0\n", StandardCharsets.UTF_8);
+        overlay.setBuffered(true);
+    }
+
+    @Test
+    public void testWritesAreBufferedUntilFlush() throws Exception {
+        overlay.writeLines(file, Arrays.asList("VERSION := 2.0.0"));
+
+        assertThat(Files.toString(file)).isEqualTo("VERSION := 1.0.0\n");
+        assertThat(overlay.readLines(file)).containsExactly("VERSION := 2.0.0");
+        assertThat(overlay.diff(testDir)).contains("--- a/Makefile", "-VERSION := 1.0.0", "+VERSION := 2.0.0");
+
+        try (Closeable ignored = overlay.materialize()) {
+            assertThat(Files.toString(file)).isEqualTo("VERSION := 2.0.0" + System.lineSeparator());
+        }
+        assertThat(Files.toString(file)).isEqualTo("VERSION := 1.0.0\n");
+
+        assertThat(overlay.flush()).hasSize(1);
+        assertThat(overlay.isModified()).isFalse();
+        assertThat(Files.toString(file)).isEqualTo("VERSION := 2.0.0" + System.lineSeparator());
+    }
+
+    @Test
+    public void testDiscard() throws Exception {
+        overlay.writeText(file, "VERSION := 2.0.0\n");
+        overlay.discard();
+
+        assertThat(overlay.readText(file)).isEqualTo("VERSION := 1.0.0\n");
+        assertThat(overlay.flush()).isEmpty();
+        assertThat(Files.toString(file)).isEqualTo("VERSION := 1.0.0\n");
+    }
+
+    @Test
+    public void testSpooledChanges() throws Exception {
+        File tempFile = overlay.createTempFile(file);
+        Files.writeToFile(tempFile, "VERSION := 2.0.0\n", StandardCharsets.UTF_8);
+        overlay.writeFile(file, tempFile);
+
+        assertThat(overlay.getModifiedFiles()).containsExactly(file.getAbsoluteFile());
+        assertThat(overlay.readLines(file)).containsExactly("VERSION := 2.0.0");
+        assertThat(overlay.diff(testDir)).contains("-VERSION := 1.0.0", "+VERSION := 2.0.0");
+        assertThat(overlay.snapshot()).containsValue("VERSION := 2.0.0\n");
+
+        overlay.discard();
+        assertThat(tempFile).doesNotExist();
+        assertThat(overlay.readText(file)).isEqualTo("VERSION := 1.0.0\n");
+    }
+}